@@ -0,0 +1,157 @@
+package org.jenkinsci.plugins.githubautostatus;
+
+import hudson.Extension;
+import hudson.init.InitMilestone;
+import hudson.init.Initializer;
+import hudson.model.ManagementLink;
+import hudson.security.Permission;
+import hudson.util.FormValidation;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import jenkins.model.Jenkins;
+import org.kohsuke.stapler.HttpResponse;
+import org.kohsuke.stapler.HttpResponses;
+import org.kohsuke.stapler.QueryParameter;
+import org.kohsuke.stapler.verb.POST;
+
+/**
+ * Page under Manage Jenkins for sending the metrics of past builds with
+ * {@link BackfillTask}.
+ */
+@Extension
+public class BackfillManagementLink extends ManagementLink {
+
+    private BackfillTask task;
+
+    @Override
+    public String getIconFileName() {
+        return "symbol-time";
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "Autostatus Backfill";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Send the stage and build metrics of past pipeline builds.";
+    }
+
+    @Override
+    public String getUrlName() {
+        return "autostatus-backfill";
+    }
+
+    @Override
+    public Category getCategory() {
+        return Category.TOOLS;
+    }
+
+    @Override
+    public Permission getRequiredPermission() {
+        return Jenkins.ADMINISTER;
+    }
+
+    /**
+     * Gets the running or last backfill.
+     *
+     * @return the backfill, or null if none was started
+     */
+    public synchronized BackfillTask getTask() {
+        return task;
+    }
+
+    /**
+     * Starts a backfill unless one is already running.
+     *
+     * @param jobs full names of the jobs to backfill, one per line; blank for all pipeline jobs
+     * @param from first day of builds to send, as yyyy-MM-dd
+     * @param to last day of builds to send, as yyyy-MM-dd
+     * @param threads number of jobs to backfill at once; limited to 1 to {@link BackfillTask#MAX_THREADS}
+     * @param rate most builds to send per second; limited to 1 to {@link BackfillTask#MAX_BUILDS_PER_SECOND}
+     * @return redirect back to the page
+     */
+    @POST
+    public synchronized HttpResponse doStart(
+            @QueryParameter String jobs,
+            @QueryParameter String from,
+            @QueryParameter String to,
+            @QueryParameter int threads,
+            @QueryParameter int rate) {
+        Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+        if (task != null && task.getState() == BackfillTask.State.Running) {
+            return FormValidation.error("A backfill is already running");
+        }
+        long fromMillis;
+        long toMillis;
+        try {
+            fromMillis = startOfDay(LocalDate.parse(from));
+            toMillis = startOfDay(LocalDate.parse(to).plusDays(1));
+        } catch (DateTimeParseException ex) {
+            return FormValidation.error("Dates must be in the form yyyy-MM-dd");
+        }
+        if (rate < 1) {
+            return FormValidation.error("Builds per second must be at least 1");
+        }
+        task = new BackfillTask(
+                parseJobNames(jobs),
+                fromMillis,
+                toMillis,
+                BackfillTask.clamp(threads, BackfillTask.MAX_THREADS),
+                BackfillTask.clamp(rate, BackfillTask.MAX_BUILDS_PER_SECOND));
+        task.start();
+        return HttpResponses.redirectToDot();
+    }
+
+    /**
+     * Cancels the running backfill.
+     *
+     * @return redirect back to the page
+     */
+    @POST
+    public synchronized HttpResponse doCancel() {
+        Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+        if (task != null) {
+            task.cancel();
+        }
+        return HttpResponses.redirectToDot();
+    }
+
+    /**
+     * Resumes a backfill that was running when Jenkins stopped.
+     */
+    @Initializer(after = InitMilestone.JOB_CONFIG_ADAPTED)
+    public static void resume() {
+        BackfillManagementLink link = ManagementLink.all().get(BackfillManagementLink.class);
+        if (link == null) {
+            return;
+        }
+        BackfillTask saved = BackfillTask.load();
+        synchronized (link) {
+            link.task = saved;
+        }
+        if (saved != null) {
+            saved.start();
+        }
+    }
+
+    static List<String> parseJobNames(String jobs) {
+        List<String> jobNames = new ArrayList<>();
+        if (jobs != null) {
+            for (String line : jobs.split("[\\r\\n,]+")) {
+                if (!line.trim().isEmpty()) {
+                    jobNames.add(line.trim());
+                }
+            }
+        }
+        return jobNames;
+    }
+
+    private static long startOfDay(LocalDate date) {
+        return date.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
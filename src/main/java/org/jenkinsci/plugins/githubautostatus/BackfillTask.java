@@ -0,0 +1,424 @@
+package org.jenkinsci.plugins.githubautostatus;
+
+import hudson.XmlFile;
+import hudson.model.Result;
+import hudson.model.Run;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.model.Jenkins;
+import jenkins.util.NamingThreadFactory;
+import org.jenkinsci.plugins.githubautostatus.config.HttpNotifierConfig;
+import org.jenkinsci.plugins.githubautostatus.config.InfluxDbNotifierConfig;
+import org.jenkinsci.plugins.githubautostatus.model.BuildCompleted;
+import org.jenkinsci.plugins.githubautostatus.model.BuildStage;
+import org.jenkinsci.plugins.githubautostatus.model.CriticalPath;
+import org.jenkinsci.plugins.githubautostatus.notifiers.BuildNotifier;
+import org.jenkinsci.plugins.githubautostatus.notifiers.HttpNotifier;
+import org.jenkinsci.plugins.githubautostatus.notifiers.InfluxDbNotifier;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+
+/**
+ * Sends the stages and results of completed pipeline builds to the notifiers
+ * which can record history, so that metrics cover builds from before they
+ * were enabled.
+ *
+ * <p>Each job is handled by one worker from a bounded pool, oldest build first,
+ * and builds are sent no faster than the configured rate across all workers.
+ * The newest build sent for each job is saved every few builds, and whenever a
+ * job is finished, so a backfill interrupted by a restart resumes close to
+ * where it left off.
+ */
+public class BackfillTask {
+
+    public enum State {
+        Running,
+        Completed,
+        Cancelled
+    }
+
+    /**
+     * Most jobs backfilled at once.
+     */
+    static final int MAX_THREADS = 16;
+
+    /**
+     * Highest rate builds can be sent at.
+     */
+    static final int MAX_BUILDS_PER_SECOND = 1000;
+
+    /**
+     * Most builds sent between saves of the progress.
+     */
+    static final int SAVE_EVERY_BUILDS = 100;
+
+    /**
+     * Longest time between saves of the progress while builds are being sent.
+     */
+    static final long SAVE_EVERY_MILLIS = TimeUnit.SECONDS.toMillis(10);
+
+    /**
+     * Held while writing progress, so that saves reach the file in the order
+     * they were taken.
+     */
+    private static final Object SAVE_LOCK = new Object();
+
+    private final List<String> jobNames;
+    private final long from;
+    private final long to;
+    private final int threads;
+    private final int buildsPerSecond;
+
+    /**
+     * Newest build number sent, by job full name.
+     */
+    private final Map<String, Integer> progress = new HashMap<>();
+
+    private State state = State.Running;
+    private int buildsSent;
+    private int buildsFailed;
+
+    private transient ExecutorService executor;
+    private transient long nextPermit;
+    private transient int unsavedBuilds;
+    private transient long lastSaved;
+
+    /**
+     * Creates a backfill.
+     *
+     * @param jobNames full names of the jobs to backfill, or empty for all pipeline jobs
+     * @param from start of the range of build start times, in milliseconds since the epoch
+     * @param to end of the range of build start times, exclusive
+     * @param threads number of jobs to backfill at once, up to {@link #MAX_THREADS}
+     * @param buildsPerSecond most builds to send per second, up to {@link #MAX_BUILDS_PER_SECOND}
+     */
+    public BackfillTask(List<String> jobNames, long from, long to, int threads, int buildsPerSecond) {
+        this.jobNames = new ArrayList<>(jobNames);
+        this.from = from;
+        this.to = to;
+        this.threads = clamp(threads, MAX_THREADS);
+        this.buildsPerSecond = clamp(buildsPerSecond, MAX_BUILDS_PER_SECOND);
+    }
+
+    /**
+     * Copies a backfill's settings and progress, to be saved.
+     */
+    private BackfillTask(BackfillTask source) {
+        this.jobNames = new ArrayList<>(source.jobNames);
+        this.from = source.from;
+        this.to = source.to;
+        this.threads = source.threads;
+        this.buildsPerSecond = source.buildsPerSecond;
+        this.progress.putAll(source.progress);
+        this.state = source.state;
+        this.buildsSent = source.buildsSent;
+        this.buildsFailed = source.buildsFailed;
+    }
+
+    /**
+     * Limits a value to between one and a maximum.
+     *
+     * @param value the value
+     * @param max the maximum
+     * @return the value, or the nearest limit if it's outside them
+     */
+    static int clamp(int value, int max) {
+        return Math.max(1, Math.min(value, max));
+    }
+
+    static XmlFile getConfigFile() {
+        return new XmlFile(
+                Jenkins.XSTREAM2, new File(Jenkins.get().getRootDir(), BackfillTask.class.getName() + ".xml"));
+    }
+
+    /**
+     * Loads the last backfill started.
+     *
+     * @return the backfill, or null if none was ever started
+     */
+    static BackfillTask load() {
+        XmlFile file = getConfigFile();
+        if (!file.exists()) {
+            return null;
+        }
+        try {
+            return (BackfillTask) file.read();
+        } catch (IOException ex) {
+            log(Level.WARNING, "Could not read backfill progress", ex);
+            return null;
+        }
+    }
+
+    /**
+     * Starts sending builds, or resumes after a restart. Returns immediately.
+     */
+    public void start() {
+        synchronized (this) {
+            if (state != State.Running || executor != null) {
+                return;
+            }
+            executor = Executors.newFixedThreadPool(threads, new NamingThreadFactory(
+                    Executors.defaultThreadFactory(), BackfillTask.class.getSimpleName()));
+            List<WorkflowJob> jobs = getJobs();
+            for (WorkflowJob job : jobs) {
+                executor.submit(() -> backfillJob(job));
+            }
+            executor.shutdown();
+        }
+        save();
+        Thread waiter = new Thread(this::awaitCompletion, BackfillTask.class.getSimpleName() + " completion");
+        waiter.setDaemon(true);
+        waiter.start();
+    }
+
+    /**
+     * Stops sending builds; the builds being sent are finished first.
+     */
+    public void cancel() {
+        synchronized (this) {
+            if (state != State.Running) {
+                return;
+            }
+            state = State.Cancelled;
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+        save();
+    }
+
+    private void awaitCompletion() {
+        ExecutorService pool;
+        synchronized (this) {
+            pool = executor;
+        }
+        try {
+            while (!pool.awaitTermination(1, TimeUnit.MINUTES)) {
+                // keep waiting
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        synchronized (this) {
+            if (state != State.Running) {
+                return;
+            }
+            state = State.Completed;
+        }
+        save();
+    }
+
+    private List<WorkflowJob> getJobs() {
+        Jenkins jenkins = Jenkins.get();
+        if (jobNames.isEmpty()) {
+            return jenkins.getAllItems(WorkflowJob.class);
+        }
+        List<WorkflowJob> jobs = new ArrayList<>();
+        for (String jobName : jobNames) {
+            WorkflowJob job = jenkins.getItemByFullName(jobName, WorkflowJob.class);
+            if (job == null) {
+                log(Level.WARNING, String.format("Backfill skipping unknown pipeline job %s", jobName), null);
+            } else {
+                jobs.add(job);
+            }
+        }
+        return jobs;
+    }
+
+    private void backfillJob(WorkflowJob job) {
+        try {
+            backfillRuns(job);
+        } finally {
+            boolean unsaved;
+            synchronized (this) {
+                unsaved = unsavedBuilds > 0;
+            }
+            if (unsaved) {
+                save();
+            }
+        }
+    }
+
+    private void backfillRuns(WorkflowJob job) {
+        int sentUpTo;
+        synchronized (this) {
+            sentUpTo = progress.getOrDefault(job.getFullName(), 0);
+        }
+        List<WorkflowRun> runs = new ArrayList<>();
+        for (WorkflowRun run : job.getBuilds().byTimestamp(from, to)) {
+            if (run.getNumber() > sentUpTo && !run.isBuilding()) {
+                runs.add(run);
+            }
+        }
+        Collections.reverse(runs);
+
+        List<BuildNotifier> notifiers = null;
+        for (WorkflowRun run : runs) {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            try {
+                if (notifiers == null) {
+                    notifiers = getNotifiers(run);
+                    if (notifiers.isEmpty()) {
+                        return;
+                    }
+                }
+                acquirePermit();
+                boolean sent = sendBuild(run, notifiers);
+                recordBuild(job.getFullName(), run.getNumber(), sent ? 1 : 0, 0);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException ex) {
+                log(Level.WARNING, String.format("Could not backfill %s", run.getExternalizableId()), ex);
+                recordBuild(job.getFullName(), run.getNumber(), 0, 1);
+            }
+        }
+    }
+
+    /**
+     * Records that a build was handled, saving the progress if enough builds
+     * or time have passed since it was last saved.
+     */
+    private void recordBuild(String jobName, int buildNumber, int sent, int failed) {
+        boolean due;
+        synchronized (this) {
+            progress.put(jobName, buildNumber);
+            buildsSent += sent;
+            buildsFailed += failed;
+            unsavedBuilds++;
+            due = unsavedBuilds >= SAVE_EVERY_BUILDS || System.currentTimeMillis() - lastSaved >= SAVE_EVERY_MILLIS;
+        }
+        if (due) {
+            save();
+        }
+    }
+
+    private static boolean sendBuild(WorkflowRun run, List<BuildNotifier> notifiers) {
+        Result result = run.getResult();
+        if (result == null) {
+            return false;
+        }
+        BuildStatusAction statusAction = run.getAction(BuildStatusAction.class);
+        String jobName = statusAction != null ? statusAction.getJobName() : run.getExternalizableId();
+        String repoName = statusAction != null ? statusAction.getRepoName() : run.getParent().getDisplayName();
+        String branchName = statusAction != null ? statusAction.getBranchName() : null;
+
+        List<BuildStage> stages = HistoricalBuildReader.readStages(run);
+        BuildStage.State buildState = BuildStage.State.fromResult(result);
+        BuildCompleted event = BuildStatusJobListener.buildCompleted(run, buildState, jobName, repoName, branchName);
+        event.setCriticalPath(CriticalPath.compute(stages));
+
+        for (BuildNotifier notifier : notifiers) {
+            notifier.notifyHistoricalBuild(event, stages);
+        }
+        return true;
+    }
+
+    /**
+     * Creates the notifiers for a job's builds, using the repository details
+     * recorded with the build when there are any.
+     */
+    private static List<BuildNotifier> getNotifiers(Run<?, ?> run) {
+        BuildStatusAction statusAction = run.getAction(BuildStatusAction.class);
+        String repoOwner = statusAction != null
+                ? statusAction.getRepoOwner()
+                : run.getParent().getParent().getFullName();
+        String repoName = statusAction != null ? statusAction.getRepoName() : run.getParent().getDisplayName();
+        String branchName = statusAction != null ? statusAction.getBranchName() : null;
+
+        List<BuildNotifier> notifiers = new ArrayList<>();
+        if (BuildStatusConfig.get().getEnableInfluxDb()) {
+            notifiers.add(
+                    new InfluxDbNotifier(InfluxDbNotifierConfig.fromGlobalConfig(repoOwner, repoName, branchName)));
+        }
+        notifiers.add(new HttpNotifier(HttpNotifierConfig.fromGlobalConfig(repoOwner, repoName, branchName)));
+        notifiers.addAll(BuildNotifier.all());
+        notifiers.removeIf(notifier -> !notifier.isEnabled() || !notifier.wantsBackfill());
+        return notifiers;
+    }
+
+    /**
+     * Waits until sending another build keeps within the rate limit.
+     */
+    private void acquirePermit() throws InterruptedException {
+        long wait;
+        synchronized (this) {
+            long now = System.nanoTime();
+            long permit = nextPermit == 0 ? now : Math.max(now, nextPermit);
+            nextPermit = permit + TimeUnit.SECONDS.toNanos(1) / buildsPerSecond;
+            wait = permit - now;
+        }
+        TimeUnit.NANOSECONDS.sleep(wait);
+    }
+
+    /**
+     * Saves the progress. The file is written from a copy, so workers and the
+     * management page don't wait on the write; must not be called while
+     * holding this task's lock.
+     */
+    private void save() {
+        synchronized (SAVE_LOCK) {
+            BackfillTask snapshot;
+            synchronized (this) {
+                snapshot = new BackfillTask(this);
+                unsavedBuilds = 0;
+                lastSaved = System.currentTimeMillis();
+            }
+            try {
+                getConfigFile().write(snapshot);
+            } catch (IOException ex) {
+                log(Level.WARNING, "Could not save backfill progress", ex);
+            }
+        }
+    }
+
+    public List<String> getJobNames() {
+        return Collections.unmodifiableList(jobNames);
+    }
+
+    public long getFrom() {
+        return from;
+    }
+
+    public long getTo() {
+        return to;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized int getBuildsSent() {
+        return buildsSent;
+    }
+
+    public synchronized int getBuildsFailed() {
+        return buildsFailed;
+    }
+
+    /**
+     * Gets the number of jobs at least one build has been sent for.
+     *
+     * @return number of jobs
+     */
+    public synchronized int getJobsStarted() {
+        return progress.size();
+    }
+
+    private static void log(Level level, String message, Throwable ex) {
+        Logger.getLogger(BackfillTask.class.getName()).log(level, message, ex);
+    }
+}
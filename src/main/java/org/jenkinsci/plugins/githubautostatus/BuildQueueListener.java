@@ -24,21 +24,49 @@
 package org.jenkinsci.plugins.githubautostatus;
 
 import hudson.Extension;
+import hudson.model.Label;
 import hudson.model.Queue;
 import hudson.model.Run;
 import hudson.model.queue.QueueListener;
+import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jenkinsci.plugins.githubautostatus.model.AgentWait;
+import org.jenkinsci.plugins.workflow.actions.LabelAction;
+import org.jenkinsci.plugins.workflow.graph.BlockStartNode;
+import org.jenkinsci.plugins.workflow.graph.FlowNode;
 import org.jenkinsci.plugins.workflow.support.steps.ExecutorStepExecution;
 
 /**
  * Implementation of {@link hudson.model.queue.QueueListener} which keeps track
- * of time a pipeline build spent blocked.
+ * of time a pipeline build spent blocked, and of each wait for an agent. It
+ * also records how long every queue item waits in a per label
+ * {@link QueueLatencyRecorder}, which {@link QueueLatencyExporter} drains.
  * @author Jeff Pearce (GitHub jeffpearce)
  */
 @Extension
 public class BuildQueueListener extends QueueListener {
 
+    private final QueueLatencyRecorder latencyRecorder = new QueueLatencyRecorder();
+
+    /**
+     * Held while a build's {@link QueueWaitAction} is looked up and added, so
+     * that concurrent waits of one build share a single action. The action
+     * itself is thread-safe.
+     */
+    private final Object queueWaitActionLock = new Object();
+
     public BuildQueueListener() {}
 
+    /**
+     * Gets the recorder holding queue wait times for all queue items.
+     *
+     * @return the latency recorder
+     */
+    public QueueLatencyRecorder getLatencyRecorder() {
+        return latencyRecorder;
+    }
+
     /**
      * {@inheritDoc}
      * Adds {@link BuildBlockedAction} action to blocked pipeline builds to keep
@@ -46,6 +74,7 @@ public class BuildQueueListener extends QueueListener {
      */
     @Override
     public void onEnterBlocked(Queue.BlockedItem item) {
+        latencyRecorder.enterBlocked(item, System.currentTimeMillis());
         if (!(item.task instanceof ExecutorStepExecution.PlaceholderTask)) {
             return;
         }
@@ -61,6 +90,7 @@ public class BuildQueueListener extends QueueListener {
      */
     @Override
     public void onLeaveBlocked(Queue.BlockedItem item) {
+        latencyRecorder.leaveBlocked(item, System.currentTimeMillis());
         if (!(item.task instanceof ExecutorStepExecution.PlaceholderTask)) {
             return;
         }
@@ -73,4 +103,88 @@ public class BuildQueueListener extends QueueListener {
             }
         }
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onEnterBuildable(Queue.BuildableItem item) {
+        latencyRecorder.enterBuildable(item, System.currentTimeMillis());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onLeaveBuildable(Queue.BuildableItem item) {
+        latencyRecorder.leaveBuildable(item, System.currentTimeMillis());
+    }
+
+    /**
+     * {@inheritDoc}
+     * Records the time the item spent in the queue, and the time a {@code node} step spent waiting for an agent in
+     * {@link QueueWaitAction}, along with the stage that requested it.
+     */
+    @Override
+    public void onLeft(Queue.LeftItem item) {
+        latencyRecorder.left(item, System.currentTimeMillis());
+        if (item.isCancelled() || !(item.task instanceof ExecutorStepExecution.PlaceholderTask)) {
+            return;
+        }
+        ExecutorStepExecution.PlaceholderTask task = (ExecutorStepExecution.PlaceholderTask) item.task;
+        Run run = task.run();
+        if (run == null) {
+            return;
+        }
+        long inQueueSince = item.getInQueueSince();
+        Label label = item.getAssignedLabel();
+        AgentWait wait = new AgentWait(
+                label == null ? null : label.getExpression(),
+                inQueueSince,
+                Math.max(0, System.currentTimeMillis() - inQueueSince));
+        BlockStartNode stage = enclosingStage(task);
+        if (stage != null) {
+            wait.setStageId(stage.getId());
+            LabelAction stageLabel = stage.getAction(LabelAction.class);
+            wait.setStageName(stageLabel == null ? null : stageLabel.getDisplayName());
+        }
+
+        QueueWaitAction action;
+        synchronized (queueWaitActionLock) {
+            action = run.getAction(QueueWaitAction.class);
+            if (action == null) {
+                action = new QueueWaitAction();
+                run.addAction(action);
+            }
+        }
+        action.addWait(wait);
+    }
+
+    /**
+     * Finds the innermost stage enclosing the {@code node} step behind a placeholder task.
+     *
+     * @param task the placeholder task
+     * @return the node starting the stage, or null if there's none
+     */
+    private static BlockStartNode enclosingStage(ExecutorStepExecution.PlaceholderTask task) {
+        try {
+            FlowNode node = task.getNode();
+            if (node != null) {
+                for (BlockStartNode block : node.iterateEnclosingBlocks()) {
+                    if (GithubBuildStatusGraphListener.isStage(block)) {
+                        return block;
+                    }
+                }
+            }
+        } catch (IOException ex) {
+            getLogger().log(Level.FINE, "Could not find the stage waiting for an agent", ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    private static Logger getLogger() {
+        return Logger.getLogger(BuildQueueListener.class.getName());
+    }
 }
@@ -24,18 +24,29 @@
 package org.jenkinsci.plugins.githubautostatus;
 
 import hudson.ExtensionList;
+import hudson.init.InitMilestone;
+import hudson.init.Initializer;
 import hudson.model.InvisibleAction;
 import hudson.model.JobProperty;
 import hudson.model.Run;
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import net.jcip.annotations.GuardedBy;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import jenkins.model.RunAction2;
 import org.jenkinsci.plugins.githubautostatus.config.GithubNotificationConfig;
 import org.jenkinsci.plugins.githubautostatus.config.HttpNotifierConfig;
 import org.jenkinsci.plugins.githubautostatus.config.InfluxDbNotifierConfig;
+import org.jenkinsci.plugins.githubautostatus.config.StageRollupConfig;
+import org.jenkinsci.plugins.githubautostatus.model.BuildCompleted;
+import org.jenkinsci.plugins.githubautostatus.model.BuildContext;
 import org.jenkinsci.plugins.githubautostatus.model.BuildStage;
+import org.jenkinsci.plugins.githubautostatus.model.BuildStageRecord;
+import org.jenkinsci.plugins.githubautostatus.model.CriticalPath;
+import org.jenkinsci.plugins.githubautostatus.model.SharedEnvironment;
 import org.jenkinsci.plugins.githubautostatus.notifiers.BuildNotifier;
 import org.jenkinsci.plugins.githubautostatus.notifiers.BuildNotifierConstants;
 import org.jenkinsci.plugins.githubautostatus.notifiers.BuildNotifierManager;
@@ -49,10 +60,16 @@ import org.jenkinsci.plugins.workflow.job.WorkflowRun;
  *
  * @author Jeff Pearce (GitHub jeffpearce)
  */
-public class BuildStatusAction extends InvisibleAction implements Serializable {
+public class BuildStatusAction extends InvisibleAction implements Serializable, RunAction2 {
 
     private static final long serialVersionUID = 1L;
 
+    /**
+     * Name of the entry that stages are rolled up into once a build has more
+     * stages than are tracked separately, or whose names match the rollup pattern.
+     */
+    public static final String ROLLUP_STAGE_NAME = "Rolled up stages";
+
     private final String jobName;
     private boolean isDeclarativePipeline;
     private String repoOwner;
@@ -60,17 +77,58 @@ public class BuildStatusAction extends InvisibleAction implements Serializable {
     private String branchName;
     private transient Run<?, ?> run;
 
+    /**
+     * Makes XStream read and write the action's fields in the custom format
+     * earlier versions saved; it also fills in the transient stage maps from
+     * their builds, which {@link #readResolve()} then migrates.
+     */
     private void readObject(java.io.ObjectInputStream in) throws java.io.IOException, ClassNotFoundException {
         in.defaultReadObject();
     }
-    // Only modified from the constructor, so not synchronized in other code
-    private final Map<String, Object> jobParameters;
+    /**
+     * Job properties, copied into every stage by older versions.
+     *
+     * @deprecated read only to migrate saved builds; see {@link #jobEnvironment}
+     */
+    @Deprecated
+    private transient Map<String, Object> jobParameters;
+
+    /**
+     * The job's properties, keyed by class name and shared by all the build's
+     * stages. Not saved, and only looked up if a notifier reads them.
+     */
+    private transient SharedEnvironment jobEnvironment;
 
-    @GuardedBy("buildStatuses")
-    private final Map<String, BuildStage> buildStatuses;
+    /**
+     * Stages keyed by name: declarative stages which haven't started yet,
+     * stages reported without a flow node id, and errors outside of stages.
+     * Saved as {@link #stages}; only read from build.xml for older builds.
+     */
+    private transient Map<String, BuildStage> buildStatuses;
+
+    /**
+     * Stages keyed by the id of the flow node that starts them, so that stages
+     * with the same name in different branches are kept apart. Saved as
+     * {@link #stages}; only read from build.xml for older builds.
+     */
+    private transient Map<String, BuildStage> stagesById;
+
+    /**
+     * Ids of the flow nodes starting stages which were rolled up rather than
+     * tracked, until they complete. Not saved, so stages rolled up before a
+     * restart are found by not being tracked under their id or name.
+     */
+    private transient Set<String> rolledUpStageIds;
+
+    /**
+     * Saved form of all the stages; only set on the copy that is written out.
+     */
+    private List<BuildStageRecord> stages;
 
     protected transient BuildNotifierManager buildNotifierManager;
 
+    private transient StageRollupConfig stageRollupConfig;
+
     public String getJobName() {
         return jobName;
     }
@@ -113,33 +171,124 @@ public class BuildStatusAction extends InvisibleAction implements Serializable {
     protected BuildStatusAction(Run<?, ?> run, String targetUrl, List<BuildStage> stageList) {
         this.run = run;
         this.jobName = run.getExternalizableId();
-        this.buildStatuses = new HashMap<>();
-        this.jobParameters = new HashMap<>();
-        addGlobalProperties();
+        this.buildStatuses = new ConcurrentHashMap<>();
+        this.stagesById = new ConcurrentHashMap<>();
+        this.rolledUpStageIds = ConcurrentHashMap.newKeySet();
+        this.jobEnvironment = new SharedEnvironment(() -> jobProperties(run));
         if (stageList != null) {
             stageList.forEach((stageItem) -> {
                 stageItem.setRun(run);
-                stageItem.addAllToEnvironment(jobParameters);
-                buildStatuses.put(stageItem.getStageName(), stageItem);
+                stageItem.setSharedEnvironment(jobEnvironment);
+                if (stageItem.getStageId() != null) {
+                    stagesById.put(stageItem.getStageId(), stageItem);
+                } else {
+                    buildStatuses.put(stageItem.getStageName(), stageItem);
+                }
             });
         }
         connectNotifiers(run, targetUrl);
     }
 
-    /** Copy constructor */
+    /** Copy constructor, taking the saved form of the stages */
     private BuildStatusAction(BuildStatusAction other) {
-        synchronized (other.buildStatuses) {
-            this.jobName = other.jobName;
-            this.isDeclarativePipeline = other.isDeclarativePipeline;
-            this.repoName = other.repoName;
-            this.repoOwner = other.repoOwner;
-            this.branchName = other.branchName;
-            this.run = other.run;
+        this.jobName = other.jobName;
+        this.isDeclarativePipeline = other.isDeclarativePipeline;
+        this.repoName = other.repoName;
+        this.repoOwner = other.repoOwner;
+        this.branchName = other.branchName;
+        this.run = other.run;
+
+        this.jobEnvironment = other.jobEnvironment;
+
+        this.buildStatuses = new HashMap<>(other.buildStatuses);
+        this.stagesById = new HashMap<>(other.stagesById);
+        this.stages = new ArrayList<>(buildStatuses.size() + stagesById.size());
+        buildStatuses.values().forEach(stageItem -> stages.add(BuildStageRecord.of(stageItem)));
+        stagesById.values().forEach(stageItem -> stages.add(BuildStageRecord.of(stageItem)));
+    }
+
+    /**
+     * Saves a copy of the action, with its stages in their compact form.
+     *
+     * @return the copy to save
+     */
+    protected Object writeReplace() {
+        return new BuildStatusAction(this);
+    }
+
+    /**
+     * Registers the element name and attributes of the saved form of a stage.
+     */
+    @Initializer(before = InitMilestone.PLUGINS_STARTED)
+    public static void registerStageRecordFormat() {
+        Run.XSTREAM2.alias("autostatus-stage", BuildStageRecord.class);
+        for (String attribute : BuildStageRecord.ATTRIBUTES) {
+            Run.XSTREAM2.useAttributeFor(BuildStageRecord.class, attribute);
+        }
+    }
+
+    /**
+     * Rebuilds the stage maps from their saved form. Actions saved by older
+     * versions have the maps themselves, and may not have the id map at all.
+     *
+     * @return this action
+     */
+    protected Object readResolve() {
+        if (stages != null) {
+            buildStatuses = new ConcurrentHashMap<>();
+            stagesById = new ConcurrentHashMap<>();
+            for (BuildStageRecord record : stages) {
+                BuildStage stageItem = record.toBuildStage();
+                if (stageItem.getStageId() != null) {
+                    stagesById.put(stageItem.getStageId(), stageItem);
+                } else {
+                    buildStatuses.put(stageItem.getStageName(), stageItem);
+                }
+            }
+            stages = null;
+        } else {
+            buildStatuses = buildStatuses == null ? new ConcurrentHashMap<>() : new ConcurrentHashMap<>(buildStatuses);
+            stagesById = stagesById == null ? new ConcurrentHashMap<>() : new ConcurrentHashMap<>(stagesById);
+        }
+        rolledUpStageIds = ConcurrentHashMap.newKeySet();
+        jobParameters = null;
+        // The build isn't known until onLoad, so only look it up when the properties are read
+        jobEnvironment = new SharedEnvironment(() -> jobProperties(this.run));
+        buildStatuses.values().forEach(stageItem -> stageItem.setSharedEnvironment(jobEnvironment));
+        stagesById.values().forEach(stageItem -> stageItem.setSharedEnvironment(jobEnvironment));
+        return this;
+    }
 
-            this.jobParameters = new HashMap<>(other.jobParameters);
+    @Override
+    public void onAttached(Run<?, ?> run) {
+        attachRun(run);
+    }
+
+    @Override
+    public void onLoad(Run<?, ?> run) {
+        attachRun(run);
+    }
 
-            this.buildStatuses = new HashMap<>(other.buildStatuses);
+    /**
+     * Sets the build, which isn't saved, on the action and its stages. If the
+     * job's properties were read before the build was known they're looked up again.
+     *
+     * @param run the build
+     */
+    private void attachRun(Run<?, ?> run) {
+        boolean hadRun = this.run != null;
+        this.run = run;
+        if (!hadRun && jobEnvironment.isMaterialized()) {
+            jobEnvironment = new SharedEnvironment(() -> jobProperties(this.run));
         }
+        buildStatuses.values().forEach(stageItem -> {
+            stageItem.setRun(run);
+            stageItem.setSharedEnvironment(jobEnvironment);
+        });
+        stagesById.values().forEach(stageItem -> {
+            stageItem.setRun(run);
+            stageItem.setSharedEnvironment(jobEnvironment);
+        });
     }
 
     /**
@@ -151,10 +300,15 @@ public class BuildStatusAction extends InvisibleAction implements Serializable {
      * @param targetUrl link back to Jenkins
      */
     public void connectNotifiers(Run<?, ?> run, String targetUrl) {
+        if (this.run != run) {
+            attachRun(run);
+        }
         if (buildNotifierManager != null) {
             return;
         }
         buildNotifierManager = BuildNotifierManager.newInstance(jobName, targetUrl);
+        buildNotifierManager.setBuildContext(BuildContext.of(jobName, run));
+        stageRollupConfig = StageRollupConfig.fromGlobalConfig();
 
         GithubNotificationConfig githubConfig = GithubNotificationConfig.fromRun(run);
         if (githubConfig != null) {
@@ -182,16 +336,15 @@ public class BuildStatusAction extends InvisibleAction implements Serializable {
         }
     }
 
-    /** Only called from the constructor, so not synchronized on jobParameters */
-    private void addGlobalProperties() {
+    private static Map<String, Object> jobProperties(Run<?, ?> run) {
+        Map<String, Object> properties = new HashMap<>();
         if (run instanceof WorkflowRun) {
             WorkflowRun workflowRun = (WorkflowRun) run;
-            List<JobProperty<? super WorkflowJob>> properties =
-                    workflowRun.getParent().getAllProperties();
-            for (JobProperty property : properties) {
-                jobParameters.put(property.getClass().getSimpleName(), property);
+            for (JobProperty<? super WorkflowJob> property : workflowRun.getParent().getAllProperties()) {
+                properties.put(property.getClass().getSimpleName(), property);
             }
         }
+        return properties;
     }
 
     /**
@@ -199,12 +352,23 @@ public class BuildStatusAction extends InvisibleAction implements Serializable {
      * pending. Needed because some complex jobs, particularly using down
      */
     public void close() {
-        synchronized (this.buildStatuses) {
-            this.buildStatuses.forEach((nodeName, stageItem) -> {
-                if (stageItem.getBuildState() == BuildStage.State.Pending) {
-                    this.updateBuildStatusForStage(nodeName, BuildStage.State.CompletedSuccess);
-                }
-            });
+        this.buildStatuses.values().forEach(this::closeStage);
+        this.stagesById.values().forEach(this::closeStage);
+    }
+
+    private void closeStage(BuildStage stageItem) {
+        if (stageItem.getBuildState() != BuildStage.State.Pending) {
+            return;
+        }
+        if (stageItem == buildStatuses.get(ROLLUP_STAGE_NAME)) {
+            // Keep the total duration of the stages rolled up
+            BuildStage.State buildState =
+                    stageItem.isPassed() ? BuildStage.State.CompletedSuccess : BuildStage.State.CompletedError;
+            if (stageItem.compareAndSetBuildState(BuildStage.State.Pending, buildState)) {
+                buildNotifierManager.notifyBuildStageStatus(stageItem);
+            }
+        } else {
+            completeStage(stageItem, BuildStage.State.CompletedSuccess, 0, 0);
         }
     }
 
@@ -271,12 +435,14 @@ public class BuildStatusAction extends InvisibleAction implements Serializable {
      */
     public void sendNotifications(BuildNotifier notifier) {
         if (notifier != null && notifier.isEnabled()) {
-            synchronized (this.buildStatuses) {
-                this.buildStatuses.forEach((nodeName, stageItem) -> {
-                    stageItem.setRun(run);
-                    notifier.notifyBuildStageStatus(jobName, stageItem);
-                });
-            }
+            this.buildStatuses.forEach((nodeName, stageItem) -> {
+                stageItem.setRun(run);
+                notifier.notifyBuildStageStatus(jobName, stageItem);
+            });
+            this.stagesById.forEach((stageId, stageItem) -> {
+                stageItem.setRun(run);
+                notifier.notifyBuildStageStatus(jobName, stageItem);
+            });
         }
     }
 
@@ -286,14 +452,200 @@ public class BuildStatusAction extends InvisibleAction implements Serializable {
      * @param stageName stage name
      */
     public void addBuildStatus(String stageName) {
-        synchronized (this.buildStatuses) {
-            BuildStage stageItem = new BuildStage(stageName);
-            stageItem.setRun(run);
-            buildStatuses.put(stageName, stageItem);
+        if (rollUpNewStage(stageName)) {
+            return;
+        }
+        BuildStage stageItem = new BuildStage(stageName);
+        stageItem.setRun(run);
+        stageItem.setSharedEnvironment(jobEnvironment);
+        buildStatuses.put(stageName, stageItem);
+        buildNotifierManager.notifyBuildStageStatus(stageItem);
+    }
+
+    /**
+     * Sends pending notifications for the start of a stage identified by its flow node.
+     *
+     * @param stageName stage name
+     * @param stageId   id of the node starting the stage
+     * @param parentId  id of the node starting the enclosing stage, or null
+     */
+    public void addBuildStatus(String stageName, String stageId, String parentId) {
+        if (stageId == null) {
+            addBuildStatus(stageName);
+            return;
+        }
+        if (rollUpNewStage(stageName)) {
+            rolledUpStageIds.add(stageId);
+            return;
+        }
+        BuildStage stageItem = new BuildStage(stageName);
+        stageItem.setStageId(stageId);
+        stageItem.setParentId(parentId);
+        stageItem.setRun(run);
+        stageItem.setSharedEnvironment(jobEnvironment);
+        if (stagesById.putIfAbsent(stageId, stageItem) == null) {
             buildNotifierManager.notifyBuildStageStatus(stageItem);
         }
     }
 
+    /**
+     * Rolls up a new stage if the build already tracks as many stages as it
+     * may, or the stage's name matches the rollup pattern. The rollup entry is
+     * added, and pending notifications sent for it, for the first such stage.
+     * Stages starting at the same time may take the build slightly over its limit.
+     *
+     * @param stageName stage name
+     * @return true if the stage was rolled up rather than tracked separately
+     */
+    private boolean rollUpNewStage(String stageName) {
+        if (stageRollupConfig == null) {
+            return false;
+        }
+        BuildStage rollup = buildStatuses.get(ROLLUP_STAGE_NAME);
+        int trackedStages = stagesById.size() + buildStatuses.size() - (rollup == null ? 0 : 1);
+        if (!stageRollupConfig.shouldRollUp(stageName, trackedStages)) {
+            return false;
+        }
+        if (rollup == null) {
+            rollup = new BuildStage(ROLLUP_STAGE_NAME);
+            rollup.setRun(run);
+            rollup.setSharedEnvironment(jobEnvironment);
+            if (buildStatuses.putIfAbsent(ROLLUP_STAGE_NAME, rollup) == null) {
+                buildNotifierManager.notifyBuildStageStatus(rollup);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Adds a completed stage which isn't tracked separately to the rollup entry.
+     *
+     * @param buildState state the stage completed with
+     * @param time       stage time
+     */
+    private void rollUpCompletedStage(BuildStage.State buildState, long time) {
+        BuildStage rollup = buildStatuses.get(ROLLUP_STAGE_NAME);
+        if (rollup != null && rollup.getBuildState() == BuildStage.State.Pending) {
+            rollup.rollUp(time, buildState);
+        }
+    }
+
+    /**
+     * Records when a stage started and sends stage progress notifications for
+     * it. Does nothing if the stage has already started or completed.
+     *
+     * @param stageId   id of the node starting the stage
+     * @param startTime time the stage started
+     */
+    public void startStage(String stageId, long startTime) {
+        if (stageId == null) {
+            return;
+        }
+        BuildStage stageItem = stagesById.get(stageId);
+        if (stageItem != null
+                && stageItem.getBuildState() == BuildStage.State.Pending
+                && stageItem.startIfUnknown(startTime)) {
+            buildNotifierManager.notifyStageStarted(stageItem);
+        }
+    }
+
+    /**
+     * Sends stage progress notifications for every stage that has started but
+     * not yet completed.
+     *
+     * @param now current time in milliseconds
+     */
+    public void sendStageHeartbeats(long now) {
+        if (buildNotifierManager == null) {
+            // Not reconnected since the build resumed
+            return;
+        }
+        this.stagesById.forEach((stageId, stageItem) -> {
+            if (stageItem.getBuildState() == BuildStage.State.Pending && stageItem.getStartTime() > 0) {
+                buildNotifierManager.notifyStageHeartbeat(stageItem, Math.max(0, now - stageItem.getStartTime()));
+            }
+        });
+    }
+
+    /**
+     * Associates a declarative stage, known by name since the build started,
+     * with the flow node that starts it. If there's no pending stage by that
+     * name (e.g. the name is used in more than one branch) a new stage is added.
+     *
+     * @param stageName stage name
+     * @param stageId   id of the node starting the stage
+     * @param parentId  id of the node starting the enclosing stage, or null
+     */
+    public void bindStage(String stageName, String stageId, String parentId) {
+        if (stageId == null) {
+            return;
+        }
+        if (stagesById.containsKey(stageId)) {
+            return;
+        }
+        BuildStage stageItem = buildStatuses.remove(stageName);
+        if (stageItem == null) {
+            addBuildStatus(stageName, stageId, parentId);
+            return;
+        }
+        stageItem.setStageId(stageId);
+        stageItem.setParentId(parentId);
+        stagesById.putIfAbsent(stageId, stageItem);
+    }
+
+    /**
+     * Sends notifications for a completed stage identified by its flow node.
+     *
+     * @param stageId    id of the node starting the stage
+     * @param nodeName   node name, used if the stage was added without its id
+     * @param buildState build state
+     * @param time       stage time
+     */
+    public void updateBuildStatusForStage(String stageId, String nodeName, BuildStage.State buildState, long time) {
+        updateBuildStatusForStage(stageId, nodeName, buildState, 0, time, 0);
+    }
+
+    /**
+     * Sends notifications for a completed stage identified by its flow node,
+     * recording when the stage started so the build's critical path can be
+     * worked out once it completes.
+     *
+     * @param stageId    id of the node starting the stage
+     * @param nodeName   node name, used if the stage was added without its id
+     * @param buildState build state
+     * @param startTime  time the stage started, or zero if unknown
+     * @param time       active stage time, excluding time spent paused
+     * @param pausedTime time the stage spent paused, e.g. waiting for input
+     */
+    public void updateBuildStatusForStage(
+            String stageId,
+            String nodeName,
+            BuildStage.State buildState,
+            long startTime,
+            long time,
+            long pausedTime) {
+        BuildStage stageItem;
+        if (stageId == null) {
+            stageItem = findStage(nodeName);
+        } else if (rolledUpStageIds.remove(stageId)) {
+            stageItem = null;
+        } else {
+            stageItem = stagesById.get(stageId);
+            if (stageItem == null && !ROLLUP_STAGE_NAME.equals(nodeName)) {
+                // Only stages added by name, never rolled up ones, are matched by name
+                stageItem = buildStatuses.get(nodeName);
+            }
+        }
+        if (stageItem == null) {
+            rollUpCompletedStage(buildState, time);
+        } else if (stageItem.getBuildState() == BuildStage.State.Pending) {
+            if (startTime > 0) {
+                stageItem.startIfUnknown(startTime);
+            }
+            completeStage(stageItem, buildState, time, pausedTime);
+        }
+    }
+
     /**
      * Sends notifications for a completed stage.
      *
@@ -302,17 +654,56 @@ public class BuildStatusAction extends InvisibleAction implements Serializable {
      * @param time       stage time
      */
     public void updateBuildStatusForStage(String nodeName, BuildStage.State buildState, long time) {
-        synchronized (this.buildStatuses) {
-            BuildStage stageItem = buildStatuses.get(nodeName);
-            if (stageItem != null) {
-                stageItem.addToEnvironment(BuildNotifierConstants.STAGE_DURATION, time);
-                BuildStage.State currentStatus = stageItem.getBuildState();
-                if (currentStatus == BuildStage.State.Pending) {
-                    stageItem.setBuildState(buildState);
-                    buildNotifierManager.notifyBuildStageStatus(stageItem);
+        BuildStage stageItem = findStage(nodeName);
+        if (stageItem != null) {
+            completeStage(stageItem, buildState, time, 0);
+        } else {
+            rollUpCompletedStage(buildState, time);
+        }
+    }
+
+    /**
+     * Finds a stage by name, preferring one that is still pending if the
+     * name is used more than once.
+     *
+     * @param nodeName node name
+     * @return the stage, or null if there's none by that name
+     */
+    private BuildStage findStage(String nodeName) {
+        BuildStage stageItem = buildStatuses.get(nodeName);
+        if (stageItem != null) {
+            return stageItem;
+        }
+        for (BuildStage candidate : stagesById.values()) {
+            if (candidate.getStageName().equals(nodeName)) {
+                stageItem = candidate;
+                if (candidate.getBuildState() == BuildStage.State.Pending) {
+                    break;
                 }
             }
         }
+        return stageItem;
+    }
+
+    /**
+     * Completes a pending stage and sends notifications for it. Only the
+     * thread which claims the stage records its timings and notifies, and the
+     * timings are recorded before its state changes, so they're visible to
+     * any thread that sees it completed.
+     */
+    private void completeStage(BuildStage stageItem, BuildStage.State buildState, long time, long pausedTime) {
+        if (!stageItem.claimCompletion()) {
+            return;
+        }
+        stageItem.setPausedDuration(pausedTime);
+        stageItem.addToEnvironment(BuildNotifierConstants.STAGE_DURATION, time);
+        QueueWaitAction queueWaits = run == null ? null : run.getAction(QueueWaitAction.class);
+        if (queueWaits != null) {
+            stageItem.setAgentWaitDuration(queueWaits.getWaitTimeForStage(stageItem.getStageId()));
+        }
+        if (stageItem.compareAndSetBuildState(BuildStage.State.Pending, buildState)) {
+            buildNotifierManager.notifyBuildStageStatus(stageItem);
+        }
     }
 
     /**
@@ -332,8 +723,30 @@ public class BuildStatusAction extends InvisibleAction implements Serializable {
      * @param parameters build parameters
      */
     public void updateBuildStatusForJob(BuildStage.State buildState, Map<String, Object> parameters) {
+        updateBuildStatusForJob(BuildCompleted.fromParameters(buildState, parameters));
+    }
+
+    /**
+     * Sends notifications for a completed build, with the critical path
+     * through its stages.
+     *
+     * @param event the completed build
+     */
+    public void updateBuildStatusForJob(BuildCompleted event) {
         close();
-        buildNotifierManager.notifyFinalBuildStatus(buildState, parameters);
+        event.setCriticalPath(getCriticalPath());
+        buildNotifierManager.notifyBuildCompleted(event);
+    }
+
+    /**
+     * Computes the critical path through the stages completed so far.
+     *
+     * @return the critical path
+     */
+    public CriticalPath getCriticalPath() {
+        List<BuildStage> stages = new ArrayList<>(stagesById.values());
+        stages.addAll(buildStatuses.values());
+        return CriticalPath.compute(stages);
     }
 
     /**
@@ -342,16 +755,15 @@ public class BuildStatusAction extends InvisibleAction implements Serializable {
      * @param nodeName name of node that failed
      */
     public void sendNonStageError(String nodeName) {
-        synchronized (this.buildStatuses) {
-            if (buildStatuses.get(nodeName) != null) {
-                // We already reported this error
-                return;
-            }
-            BuildStage stageItem = new BuildStage(nodeName, new HashMap<>(), BuildStage.State.CompletedError);
-            stageItem.setRun(run);
-            stageItem.addAllToEnvironment(jobParameters);
-            stageItem.setIsStage(false);
-            buildStatuses.put(nodeName, stageItem);
+        if (buildStatuses.containsKey(nodeName)) {
+            // We already reported this error
+            return;
+        }
+        BuildStage stageItem = new BuildStage(nodeName, new HashMap<>(), BuildStage.State.CompletedError);
+        stageItem.setRun(run);
+        stageItem.setSharedEnvironment(jobEnvironment);
+        stageItem.setIsStage(false);
+        if (buildStatuses.putIfAbsent(nodeName, stageItem) == null) {
             buildNotifierManager.sendNonStageError(stageItem);
         }
     }
@@ -46,6 +46,11 @@ import java.io.ObjectInputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
 import jenkins.model.GlobalConfiguration;
 import jenkins.model.Jenkins;
@@ -54,6 +59,8 @@ import org.apache.commons.lang.StringUtils;
 import org.jenkinsci.Symbol;
 import org.jenkinsci.plugins.githubautostatus.model.BuildStage;
 import org.jenkinsci.plugins.githubautostatus.model.BuildState;
+import org.jenkinsci.plugins.githubautostatus.model.TestResults;
+import org.jenkinsci.plugins.githubautostatus.notifiers.BuildNotifier;
 import org.kohsuke.stapler.AncestorInPath;
 import org.kohsuke.stapler.DataBoundSetter;
 import org.kohsuke.stapler.QueryParameter;
@@ -73,6 +80,8 @@ public class BuildStatusConfig extends GlobalConfiguration {
     private String influxDbDatabase;
     private boolean ignoreSendingTestCoverageToInflux;
     private boolean ignoreSendingTestResultsToInflux = true;
+    private TestResults.Detail influxDbTestResultDetail;
+    private boolean influxDbTestCaseDelta;
 
     @Deprecated
     private transient String influxDbUser;
@@ -83,6 +92,10 @@ public class BuildStatusConfig extends GlobalConfiguration {
     private String influxDbRetentionPolicy;
     private boolean enableInfluxDb;
     private boolean disableGithub;
+    private String githubDeliveryDeadline;
+    private String stageHeartbeatInterval;
+    private String maxStages;
+    private String stageRollupPattern;
     private boolean enableStatsd;
     private String statsdHost;
     private String statsdPort;
@@ -92,8 +105,20 @@ public class BuildStatusConfig extends GlobalConfiguration {
     private String httpEndpoint;
     private String httpCredentialsId;
     private boolean httpVerifySSL;
+    private TestResults.Detail httpTestResultDetail;
     private Integer dbVersion;
 
+    /**
+     * Snapshot of whether any notifier could be enabled, reset whenever the
+     * configuration is loaded or a notifier is enabled or disabled.
+     */
+    private transient volatile Boolean monitoringEnabled;
+
+    /**
+     * Compiled {@link #stageRollupPattern}, reset whenever the setting changes.
+     */
+    private transient volatile Optional<Pattern> stageRollupRegex;
+
     /**
      * Adds compatibility aliases to prevent "old data" warnings.
      */
@@ -116,6 +141,8 @@ public class BuildStatusConfig extends GlobalConfiguration {
 
     @Override
     public void load() {
+        monitoringEnabled = null;
+        stageRollupRegex = null;
         super.load();
         if (dbVersion == null) {
             if (influxDbUrl == null && influxDbDatabase == null) {
@@ -127,6 +154,27 @@ public class BuildStatusConfig extends GlobalConfiguration {
         }
     }
 
+    /**
+     * Determines whether any status notifications can be sent at all: at least
+     * one of the built-in notifiers is enabled, or another plugin contributes a
+     * notifier. The result is cached until the configuration next changes, so
+     * it is cheap enough to check for every flow node.
+     *
+     * @return true if build monitoring is enabled; false otherwise
+     */
+    public boolean isMonitoringEnabled() {
+        Boolean enabled = monitoringEnabled;
+        if (enabled == null) {
+            enabled = getEnableGithub()
+                    || enableInfluxDb
+                    || enableStatsd
+                    || enableHttp
+                    || !BuildNotifier.all().isEmpty();
+            monitoringEnabled = enabled;
+        }
+        return enabled;
+    }
+
     /**
      * Gets human readable name.
      *
@@ -171,7 +219,163 @@ public class BuildStatusConfig extends GlobalConfiguration {
     @DataBoundSetter
     public void setEnableGithub(boolean enableGithub) {
         this.disableGithub = !enableGithub;
+        monitoringEnabled = null;
+        save();
+    }
+
+    /**
+     * Gets how long, in seconds, a failed GitHub status may be retried.
+     *
+     * @return the delivery deadline in seconds, empty for the default
+     */
+    public String getGithubDeliveryDeadline() {
+        return githubDeliveryDeadline;
+    }
+
+    /**
+     * Sets how long, in seconds, a failed GitHub status may be retried.
+     *
+     * @param githubDeliveryDeadline the delivery deadline in seconds
+     */
+    @DataBoundSetter
+    public void setGithubDeliveryDeadline(String githubDeliveryDeadline) {
+        this.githubDeliveryDeadline = githubDeliveryDeadline;
+        save();
+    }
+
+    /**
+     * Gets how often, in seconds, notifiers which report stage progress are
+     * told about stages that are still running.
+     *
+     * @return the heartbeat interval in seconds, empty for no heartbeat
+     */
+    public String getStageHeartbeatInterval() {
+        return stageHeartbeatInterval;
+    }
+
+    /**
+     * Sets how often, in seconds, notifiers which report stage progress are
+     * told about stages that are still running.
+     *
+     * @param stageHeartbeatInterval the heartbeat interval in seconds
+     */
+    @DataBoundSetter
+    public void setStageHeartbeatInterval(String stageHeartbeatInterval) {
+        this.stageHeartbeatInterval = stageHeartbeatInterval;
         save();
+        StageHeartbeatWork.schedule(getStageHeartbeatIntervalMillis());
+    }
+
+    /**
+     * Gets the stage heartbeat interval in milliseconds.
+     *
+     * @return the heartbeat interval, or zero if heartbeats are off or the setting isn't a positive number
+     */
+    public long getStageHeartbeatIntervalMillis() {
+        if (StringUtils.isBlank(stageHeartbeatInterval)) {
+            return 0;
+        }
+        try {
+            return Math.max(0, TimeUnit.SECONDS.toMillis(Long.parseLong(stageHeartbeatInterval.trim())));
+        } catch (NumberFormatException ex) {
+            return 0;
+        }
+    }
+
+    /**
+     * Gets the most stages tracked for a build before further stages are rolled up.
+     *
+     * @return the stage limit, empty for no limit
+     */
+    public String getMaxStages() {
+        return maxStages;
+    }
+
+    /**
+     * Sets the most stages tracked for a build before further stages are
+     * rolled up into a single entry.
+     *
+     * @param maxStages the stage limit
+     */
+    @DataBoundSetter
+    public void setMaxStages(String maxStages) {
+        this.maxStages = maxStages;
+        save();
+    }
+
+    /**
+     * Gets the stage limit as a number.
+     *
+     * @return the stage limit, or zero if there's no limit or the setting isn't a positive number
+     */
+    public int getMaxStagesValue() {
+        if (StringUtils.isBlank(maxStages)) {
+            return 0;
+        }
+        try {
+            return Math.max(0, Integer.parseInt(maxStages.trim()));
+        } catch (NumberFormatException ex) {
+            return 0;
+        }
+    }
+
+    /**
+     * Gets the pattern of stage names which are always rolled up into a single entry.
+     *
+     * @return the pattern, empty to roll up only stages over the limit
+     */
+    public String getStageRollupPattern() {
+        return stageRollupPattern;
+    }
+
+    /**
+     * Sets the pattern of stage names which are always rolled up into a single entry.
+     *
+     * @param stageRollupPattern a regular expression matching whole stage names
+     */
+    @DataBoundSetter
+    public void setStageRollupPattern(String stageRollupPattern) {
+        this.stageRollupPattern = stageRollupPattern;
+        stageRollupRegex = null;
+        save();
+    }
+
+    /**
+     * Gets the compiled stage rollup pattern.
+     *
+     * @return the pattern, or null if there's none or it isn't a valid regular expression
+     */
+    public @CheckForNull Pattern getStageRollupRegex() {
+        Optional<Pattern> regex = stageRollupRegex;
+        if (regex == null) {
+            regex = Optional.empty();
+            if (StringUtils.isNotBlank(stageRollupPattern)) {
+                try {
+                    regex = Optional.of(Pattern.compile(stageRollupPattern.trim()));
+                } catch (PatternSyntaxException ex) {
+                    // Reported by the form validation; roll up only stages over the limit
+                }
+            }
+            stageRollupRegex = regex;
+        }
+        return regex.orElse(null);
+    }
+
+    /**
+     * Validates the stage rollup pattern.
+     *
+     * @param value the pattern
+     * @return an error if the pattern isn't a valid regular expression
+     */
+    public FormValidation doCheckStageRollupPattern(@QueryParameter String value) {
+        if (StringUtils.isNotBlank(value)) {
+            try {
+                Pattern.compile(value.trim());
+            } catch (PatternSyntaxException ex) {
+                return FormValidation.error(ex.getDescription());
+            }
+        }
+        return FormValidation.ok();
     }
 
     /**
@@ -191,6 +395,7 @@ public class BuildStatusConfig extends GlobalConfiguration {
     @DataBoundSetter
     public void setEnableHttp(boolean enableHttp) {
         this.enableHttp = enableHttp;
+        monitoringEnabled = null;
         save();
     }
 
@@ -214,6 +419,33 @@ public class BuildStatusConfig extends GlobalConfiguration {
         save();
     }
 
+    /**
+     * Gets how much of a build's test results are sent to the HTTP endpoint.
+     *
+     * @return the detail level; every test case unless set
+     */
+    public TestResults.Detail getHttpTestResultDetail() {
+        return httpTestResultDetail == null ? TestResults.Detail.CASE : httpTestResultDetail;
+    }
+
+    /**
+     * Sets how much of a build's test results are sent to the HTTP endpoint.
+     *
+     * @param httpTestResultDetail the detail level
+     */
+    @DataBoundSetter
+    public void setHttpTestResultDetail(TestResults.Detail httpTestResultDetail) {
+        this.httpTestResultDetail = httpTestResultDetail;
+        save();
+    }
+
+    /**
+     * Fills the list box in the settings page with the test result detail levels.
+     */
+    public ListBoxModel doFillHttpTestResultDetailItems() {
+        return testResultDetailItems();
+    }
+
     /**
      * Gets the credentials id.
      *
@@ -291,6 +523,7 @@ public class BuildStatusConfig extends GlobalConfiguration {
     @DataBoundSetter
     public void setEnableInfluxDb(boolean enableInfluxDb) {
         this.enableInfluxDb = enableInfluxDb;
+        monitoringEnabled = null;
         save();
     }
 
@@ -374,6 +607,53 @@ public class BuildStatusConfig extends GlobalConfiguration {
         save();
     }
 
+    /**
+     * Gets how much of a build's test results are sent to InfluxDB.
+     *
+     * @return the detail level; every test case unless set
+     */
+    public TestResults.Detail getInfluxDbTestResultDetail() {
+        return influxDbTestResultDetail == null ? TestResults.Detail.CASE : influxDbTestResultDetail;
+    }
+
+    /**
+     * Sets how much of a build's test results are sent to InfluxDB.
+     *
+     * @param influxDbTestResultDetail the detail level
+     */
+    @DataBoundSetter
+    public void setInfluxDbTestResultDetail(TestResults.Detail influxDbTestResultDetail) {
+        this.influxDbTestResultDetail = influxDbTestResultDetail;
+        save();
+    }
+
+    /**
+     * Fills the list box in the settings page with the test result detail levels.
+     */
+    public ListBoxModel doFillInfluxDbTestResultDetailItems() {
+        return testResultDetailItems();
+    }
+
+    /**
+     * Gets whether only test cases which failed or changed since the previous build are sent to InfluxDB.
+     *
+     * @return true if unchanged passing test cases are left out
+     */
+    public boolean getInfluxDbTestCaseDelta() {
+        return influxDbTestCaseDelta;
+    }
+
+    /**
+     * Sets whether only test cases which failed or changed since the previous build are sent to InfluxDB.
+     *
+     * @param influxDbTestCaseDelta true to leave out unchanged passing test cases
+     */
+    @DataBoundSetter
+    public void setInfluxDbTestCaseDelta(boolean influxDbTestCaseDelta) {
+        this.influxDbTestCaseDelta = influxDbTestCaseDelta;
+        save();
+    }
+
     /**
      * Gets the InfluxDB retention policy.
      *
@@ -430,6 +710,14 @@ public class BuildStatusConfig extends GlobalConfiguration {
         return items;
     }
 
+    private static ListBoxModel testResultDetailItems() {
+        ListBoxModel items = new ListBoxModel();
+        items.add("Every test case", TestResults.Detail.CASE.name());
+        items.add("Totals for each suite", TestResults.Detail.SUITE.name());
+        items.add("Build totals only", TestResults.Detail.SUMMARY.name());
+        return items;
+    }
+
     /**
      * Gets whether writing to StatsD is enabled.
      *
@@ -447,6 +735,7 @@ public class BuildStatusConfig extends GlobalConfiguration {
     @DataBoundSetter
     public void setEnableStatsd(boolean enableStatsd) {
         this.enableStatsd = enableStatsd;
+        monitoringEnabled = null;
         save();
     }
 
@@ -29,6 +29,7 @@ import hudson.model.listeners.RunListener;
 import hudson.plugins.cobertura.CoberturaBuildAction;
 import hudson.plugins.jacoco.JacocoBuildAction;
 import hudson.tasks.junit.TestResultAction;
+import java.io.IOException;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -37,10 +38,14 @@ import java.util.logging.Logger;
 import javax.annotation.Nonnull;
 import org.jenkinsci.plugins.githubautostatus.config.HttpNotifierConfig;
 import org.jenkinsci.plugins.githubautostatus.config.InfluxDbNotifierConfig;
+import org.jenkinsci.plugins.githubautostatus.model.BuildCompleted;
 import org.jenkinsci.plugins.githubautostatus.model.BuildStage;
 import org.jenkinsci.plugins.githubautostatus.model.CodeCoverage;
+import org.jenkinsci.plugins.githubautostatus.model.TestOutcomes;
 import org.jenkinsci.plugins.githubautostatus.model.TestResults;
-import org.jenkinsci.plugins.githubautostatus.notifiers.BuildNotifierConstants;
+import org.jenkinsci.plugins.workflow.flow.FlowExecution;
+import org.jenkinsci.plugins.workflow.graphanalysis.DepthFirstScanner;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
 
 /**
  * Implements {@link RunListener} extension point to
@@ -64,16 +69,6 @@ public class BuildStatusJobListener extends RunListener<Run<?, ?>> {
         }
         BuildStatusAction statusAction = build.getAction(BuildStatusAction.class);
         if (statusAction != null) {
-            Map<String, Object> parameters = getParameters(build);
-            parameters.put(BuildNotifierConstants.BUILD_OBJECT, build);
-            parameters.put(BuildNotifierConstants.COVERAGE_INFO, getCoverageData(build));
-            parameters.put(BuildNotifierConstants.JOB_DURATION, build.getDuration());
-            parameters.put(BuildNotifierConstants.TEST_CASE_INFO, getTestData(build));
-            parameters.put(BuildNotifierConstants.BLOCKED_DURATION, getBlockedTime(build));
-            parameters.put(BuildNotifierConstants.JOB_NAME, statusAction.getJobName());
-            parameters.put(BuildNotifierConstants.REPO_NAME, statusAction.getRepoName());
-            parameters.put(BuildNotifierConstants.BRANCH_NAME, statusAction.getBranchName());
-
             Result result = build.getResult();
             if (result == null) {
                 log(
@@ -83,10 +78,83 @@ public class BuildStatusJobListener extends RunListener<Run<?, ?>> {
                                 statusAction.getRepoName()));
                 return;
             }
-            statusAction.updateBuildStatusForJob(BuildStage.State.fromResult(result), parameters);
+            BuildCompleted event = buildCompleted(
+                    build,
+                    BuildStage.State.fromResult(result),
+                    statusAction.getJobName(),
+                    statusAction.getRepoName(),
+                    statusAction.getBranchName());
+            statusAction.updateBuildStatusForJob(event);
+            recordTestOutcomes(build, event);
+        }
+    }
+
+    /**
+     * Creates the event sent to notifiers when a build completes. Its
+     * timings are worked out straight away; the build parameters, test
+     * results and coverage are only gathered if a notifier reads them.
+     *
+     * @param build the build
+     * @param buildState the build's result
+     * @param jobName the job name reported to notifiers
+     * @param repoName the repository name
+     * @param branchName the branch name
+     * @return the completed build
+     */
+    static BuildCompleted buildCompleted(
+            Run<?, ?> build, BuildStage.State buildState, String jobName, String repoName, String branchName) {
+        BuildCompleted event = new BuildCompleted(buildState, build, jobName, repoName, branchName);
+        event.setJobDuration(build.getDuration());
+        long blockedTime = getBlockedTime(build);
+        event.setBlockedDuration(blockedTime);
+        event.setPausedDuration(Math.min(getPausedTime(build), Math.max(0, build.getDuration() - blockedTime)));
+        QueueWaitAction queueWaits = build.getAction(QueueWaitAction.class);
+        if (queueWaits != null) {
+            event.setAgentWaitDuration(queueWaits.getTotalWaitTime());
+            event.setAgentWaits(queueWaits::getWaits);
+        }
+        event.setBuildParameters(() -> getParameters(build));
+        event.setTestResults(detail -> getTestData(build, detail));
+        event.setCoverage(() -> getCoverageData(build));
+        event.setPreviousTestOutcomes(() -> getPreviousTestOutcomes(build));
+        return event;
+    }
+
+    /**
+     * Keeps the outcomes of the build's test cases for the next build, if a
+     * notifier compared them with the previous build's.
+     *
+     * @param build the build
+     * @param event the completed build
+     */
+    private static void recordTestOutcomes(Run<?, ?> build, BuildCompleted event) {
+        if (!event.isTestOutcomesWanted()) {
+            return;
+        }
+        TestResults testResults = event.getTestResults();
+        if (testResults != null) {
+            build.addOrReplaceAction(new TestOutcomeAction(TestOutcomes.of(testResults)));
+            // The build has already been saved for the last time by now
+            try {
+                build.save();
+            } catch (IOException ex) {
+                getLogger().log(Level.WARNING, "Could not save test outcomes of " + build.getExternalizableId(), ex);
+            }
         }
     }
 
+    /**
+     * Gets the outcomes of the test cases in the job's previous completed build, if they were kept.
+     *
+     * @param build the build
+     * @return the previous outcomes, or null if there are none
+     */
+    private static TestOutcomes getPreviousTestOutcomes(Run<?, ?> build) {
+        Run<?, ?> previousBuild = build.getPreviousCompletedBuild();
+        TestOutcomeAction action = previousBuild == null ? null : previousBuild.getAction(TestOutcomeAction.class);
+        return action == null ? null : action.getOutcomes();
+    }
+
     @Override
     public void onStarted(Run<?, ?> run, TaskListener listener) {
         super.onStarted(run, listener);
@@ -118,7 +186,7 @@ public class BuildStatusJobListener extends RunListener<Run<?, ?>> {
      * @param build the build
      * @return map containing parameters
      */
-    private Map<String, Object> getParameters(Run<?, ?> build) {
+    private static Map<String, Object> getParameters(Run<?, ?> build) {
         HashMap<String, Object> result = new HashMap<String, Object>();
 
         ParametersAction parametersAction = build.getAction(ParametersAction.class);
@@ -140,7 +208,7 @@ public class BuildStatusJobListener extends RunListener<Run<?, ?>> {
      * @param build the build
      * @return code coverage information
      */
-    private CodeCoverage getCoverageData(Run<?, ?> build) {
+    private static CodeCoverage getCoverageData(Run<?, ?> build) {
         CodeCoverage results = null;
         CoberturaBuildAction coberturaAction = build.getAction(CoberturaBuildAction.class);
         JacocoBuildAction jacocoBuildAction = build.getAction(JacocoBuildAction.class);
@@ -158,12 +226,13 @@ public class BuildStatusJobListener extends RunListener<Run<?, ?>> {
      * Gets test results from the build, if present.
      *
      * @param build the build
+     * @param detail how much of the results to gather
      * @return test results
      */
-    private TestResults getTestData(Run<?, ?> build) {
+    private static TestResults getTestData(Run<?, ?> build, TestResults.Detail detail) {
         TestResultAction testResultAction = build.getAction(TestResultAction.class);
 
-        return TestResults.fromJUnitTestResults(testResultAction);
+        return TestResults.fromJUnitTestResults(testResultAction, detail);
     }
 
     /**
@@ -172,12 +241,36 @@ public class BuildStatusJobListener extends RunListener<Run<?, ?>> {
      * @param build the build
      * @return time spent in the blocked state, in milliseconds
      */
-    private long getBlockedTime(Run<?, ?> build) {
+    private static long getBlockedTime(Run<?, ?> build) {
         BuildBlockedAction action = build.getAction(BuildBlockedAction.class);
 
         return action == null ? 0 : action.getTimeBlocked();
     }
 
+    /**
+     * Determines the amount of time a pipeline spent paused, e.g. waiting for
+     * {@code input}. Time when steps in parallel branches were paused at once
+     * is only counted once.
+     *
+     * @param build the build
+     * @return time spent paused, in milliseconds
+     */
+    private static long getPausedTime(Run<?, ?> build) {
+        if (!(build instanceof WorkflowRun)) {
+            return 0;
+        }
+        FlowExecution execution = ((WorkflowRun) build).getExecution();
+        if (execution == null) {
+            return 0;
+        }
+        PipelineExecutionState state = PipelineExecutionState.existingFor(execution);
+        Long trackedTime = state == null ? null : state.getPausedMillis();
+        if (trackedTime != null) {
+            return trackedTime;
+        }
+        return PauseIntervals.of(new DepthFirstScanner().allNodes(execution));
+    }
+
     private static void log(Level level, String format, Object... args) {
         getLogger().log(level, String.format(format, args));
     }
@@ -0,0 +1,29 @@
+package org.jenkinsci.plugins.githubautostatus;
+
+import hudson.Extension;
+import jenkins.model.OptionalJobProperty;
+import org.jenkinsci.Symbol;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.kohsuke.stapler.DataBoundConstructor;
+
+/**
+ * Job property which turns off stage status notifications for a pipeline,
+ * so that monitoring can be enabled globally but skipped for selected jobs.
+ *
+ * <p>Usage in a Jenkinsfile: {@code properties([disableAutostatus()])}
+ */
+public class DisableAutostatusJobProperty extends OptionalJobProperty<WorkflowJob> {
+
+    @DataBoundConstructor
+    public DisableAutostatusJobProperty() {}
+
+    @Extension
+    @Symbol("disableAutostatus")
+    public static class DescriptorImpl extends OptionalJobPropertyDescriptor {
+
+        @Override
+        public String getDisplayName() {
+            return "Disable autostatus notifications";
+        }
+    }
+}
@@ -64,9 +64,22 @@ public class GithubBuildStatusGraphListener implements GraphListener {
      */
     @Override
     public void onNewHead(FlowNode fn) {
+        if (!BuildStatusConfig.get().isMonitoringEnabled()) {
+            return;
+        }
+        PipelineExecutionState executionState = PipelineExecutionState.forExecution(fn.getExecution());
+        if (executionState == null || !executionState.isMonitored()) {
+            return;
+        }
+        PipelineExecutionState.StageTracker endedStage = executionState.track(fn);
         if (isStage(fn)) {
-            checkEnableBuildStatus(fn);
-        } else if (fn instanceof StepAtomNode && !isDeclarativePipelineJob(fn)) {
+            checkEnableBuildStatus(fn, executionState);
+            BuildStatusAction buildStatusAction = buildStatusActionFor(fn.getExecution());
+            if (buildStatusAction != null) {
+                long startTime = getStartTime(fn);
+                buildStatusAction.startStage(fn.getId(), startTime > 0 ? startTime : System.currentTimeMillis());
+            }
+        } else if (fn instanceof StepAtomNode && !executionState.isDeclarative()) {
             // We don't need to look at atom nodes for declarative pipeline jobs, because
             // they have a nice model containing all the stages
 
@@ -76,13 +89,9 @@ public class GithubBuildStatusGraphListener implements GraphListener {
                 return;
             }
 
-            List<? extends FlowNode> enclosingBlocks = fn.getEnclosingBlocks();
-            boolean isInStage = false;
-
-            for (FlowNode enclosingNode : enclosingBlocks) {
-                if (isStage(enclosingNode)) {
-                    isInStage = true;
-                }
+            Boolean isInStage = executionState.isInStage(fn);
+            if (isInStage == null) {
+                isInStage = isInStage(fn);
             }
 
             if (isInStage) {
@@ -93,7 +102,7 @@ public class GithubBuildStatusGraphListener implements GraphListener {
             // Since normal processing is via stages, we'd normally miss this failure;
             // send an out of band error notification to make sure it's recorded by any
             // interested notifiers
-            checkEnableBuildStatus(fn);
+            checkEnableBuildStatus(fn, executionState);
             BuildStatusAction buildStatusAction = buildStatusActionFor(fn.getExecution());
             if (buildStatusAction == null) {
                 return;
@@ -119,14 +128,17 @@ public class GithubBuildStatusGraphListener implements GraphListener {
 
             String nodeName = null;
 
-            long time = getTime(startNode, fn);
+            long pausedTime = endedStage != null ? endedStage.getPausedMillis() : pausedTimeForStage(startNode, fn);
+            long time = Math.max(0, getTime(startNode, fn) - pausedTime);
             LabelAction label = startNode.getAction(LabelAction.class);
 
             if (label != null) {
                 nodeName = label.getDisplayName();
                 if (nodeName != null) {
-                    BuildStage.State buildState = buildStateForStage(startNode, fn);
-                    buildStatusAction.updateBuildStatusForStage(nodeName, buildState, time);
+                    Result trackedResult = endedStage != null ? endedStage.getWorst() : null;
+                    BuildStage.State buildState = buildStateForStage(startNode, fn, trackedResult);
+                    buildStatusAction.updateBuildStatusForStage(
+                            startNode.getId(), nodeName, buildState, getStartTime(startNode), time, pausedTime);
                 } else {
                     log(Level.WARNING, "Unexpected empty label for %s", startNode.getDisplayName());
                 }
@@ -150,6 +162,21 @@ public class GithubBuildStatusGraphListener implements GraphListener {
         return errorResult;
     }
 
+    /**
+     * Gets the time steps in a block spent paused, e.g. waiting for {@code input}.
+     *
+     * @param startNode startNode of a block
+     * @param endNode endNode of a block
+     * @return Paused time of the block
+     */
+    static long pausedTimeForStage(FlowNode startNode, FlowNode endNode) {
+        DepthFirstScanner scanner = new DepthFirstScanner();
+        if (scanner.setup(endNode, Collections.singletonList(startNode))) {
+            return PauseIntervals.of(scanner);
+        }
+        return 0;
+    }
+
     /**
      * Determines the appropriate state for a stage
      *
@@ -158,6 +185,20 @@ public class GithubBuildStatusGraphListener implements GraphListener {
      * @return Stage state
      */
     static BuildStage.State buildStateForStage(FlowNode startNode, FlowNode endNode) {
+        return buildStateForStage(startNode, endNode, null);
+    }
+
+    /**
+     * Determines the appropriate state for a stage, using the worst warning
+     * result tracked while the stage ran rather than rescanning its nodes.
+     *
+     * @param startNode The stage start node.
+     * @param endNode The stage end node.
+     * @param trackedResult Worst warning result in the stage, or null to scan for it.
+     * @return Stage state
+     */
+    static BuildStage.State buildStateForStage(
+            FlowNode startNode, FlowNode endNode, @CheckForNull Result trackedResult) {
         BuildStage.State buildState = BuildStage.State.CompletedSuccess;
         TagsAction tags = endNode.getAction(TagsAction.class);
 
@@ -189,7 +230,7 @@ public class GithubBuildStatusGraphListener implements GraphListener {
                 }
             }
         } else {
-            Result result = resultForStage(startNode, endNode);
+            Result result = trackedResult != null ? trackedResult : resultForStage(startNode, endNode);
             buildState = BuildStage.State.fromResult(result);
         }
         return buildState;
@@ -212,6 +253,17 @@ public class GithubBuildStatusGraphListener implements GraphListener {
         return 0;
     }
 
+    /**
+     * Gets the time a node started.
+     *
+     * @param node node of a workflow
+     * @return Start time, or zero if the node has no timing information
+     */
+    static long getStartTime(FlowNode node) {
+        TimingAction timing = node.getAction(TimingAction.class);
+        return timing != null ? timing.getStartTime() : 0;
+    }
+
     /**
      * Determines if a {@link FlowNode} describes a stage.
      *
@@ -220,7 +272,7 @@ public class GithubBuildStatusGraphListener implements GraphListener {
      * @param node node of a workflow
      * @return true if it's a stage node; false otherwise
      */
-    private static boolean isStage(FlowNode node) {
+    static boolean isStage(FlowNode node) {
         if (node instanceof StepAtomNode) {
             // This filters out labelled steps, such as `sh(script: "echo 'hello'", label: 'echo')`
             return false;
@@ -231,13 +283,60 @@ public class GithubBuildStatusGraphListener implements GraphListener {
                                 && node.getAction(ThreadNameAction.class) == null));
     }
 
+    /**
+     * Determines if a node is enclosed by a stage by walking its enclosing
+     * blocks. Only used for nodes the execution state hasn't tracked.
+     *
+     * @param node node of a workflow
+     * @return true if the node is inside a stage; false otherwise
+     */
+    private static boolean isInStage(FlowNode node) {
+        for (FlowNode enclosingNode : node.getEnclosingBlocks()) {
+            if (isStage(enclosingNode)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the id of the stage enclosing a stage node.
+     *
+     * @param node a stage node
+     * @param executionState cached state for the node's execution
+     * @return the id of the node starting the enclosing stage, or null for a top level stage
+     */
+    private static @CheckForNull String parentStageId(FlowNode node, PipelineExecutionState executionState) {
+        Boolean isInStage = executionState.isInStage(node);
+        if (isInStage != null) {
+            return isInStage ? executionState.getEnclosingStageId(node) : null;
+        }
+        return enclosingStageId(node);
+    }
+
+    /**
+     * Gets the id of the innermost stage enclosing a node by walking its enclosing blocks.
+     *
+     * @param node node of a workflow
+     * @return the id of the node starting the enclosing stage, or null if there's none
+     */
+    static @CheckForNull String enclosingStageId(FlowNode node) {
+        for (FlowNode enclosingNode : node.getEnclosingBlocks()) {
+            if (isStage(enclosingNode)) {
+                return enclosingNode.getId();
+            }
+        }
+        return null;
+    }
+
     /**
      * Checks whether the current build meets our requirements for providing
      * status, and adds a BuildStatusAction to the build if so.
      *
      * @param flowNode node of a workflow
+     * @param executionState cached state for the node's execution
      */
-    private static void checkEnableBuildStatus(FlowNode flowNode) {
+    private static void checkEnableBuildStatus(FlowNode flowNode, PipelineExecutionState executionState) {
         FlowExecution exec = flowNode.getExecution();
         try {
             BuildStatusAction buildStatusAction = buildStatusActionFor(exec);
@@ -252,8 +351,7 @@ public class GithubBuildStatusGraphListener implements GraphListener {
             // to get all of the stages at once at the beginning of the job.
             // Older scripted pipeline jobs do not, so we have to add them one at a
             // time as we discover them.
-            List<BuildStage> stageNames = getDeclarativeStages(run);
-            boolean isDeclarativePipeline = stageNames != null;
+            boolean isDeclarativePipeline = executionState.isDeclarative();
 
             String targetUrl;
             try {
@@ -262,23 +360,40 @@ public class GithubBuildStatusGraphListener implements GraphListener {
                 targetUrl = "";
             }
 
+            // Stages are keyed by the node that starts them, so that stages with the
+            // same name in different branches don't collide
+            String stageName = flowNode.getDisplayName();
+            String stageId = null;
+            String parentId = null;
+            if (isStage(flowNode)) {
+                stageId = flowNode.getId();
+                parentId = parentStageId(flowNode, executionState);
+            }
+
             if (isDeclarativePipeline && buildStatusAction != null) {
                 buildStatusAction.connectNotifiers(run, targetUrl);
+                buildStatusAction.bindStage(stageName, stageId, parentId);
                 return;
             }
-            if (stageNames == null) {
-                ArrayList<BuildStage> stageNameList = new ArrayList<>();
-                stageNameList.add(new BuildStage(flowNode.getDisplayName()));
-                stageNames = stageNameList;
-            }
-
             if (buildStatusAction == null) {
+                List<BuildStage> stageNames = executionState.copyDeclarativeStages();
+                if (stageNames == null) {
+                    BuildStage stage = new BuildStage(stageName);
+                    stage.setStageId(stageId);
+                    stage.setParentId(parentId);
+                    stageNames = new ArrayList<>();
+                    stageNames.add(stage);
+                }
+
                 buildStatusAction = BuildStatusAction.newAction(run, targetUrl, stageNames);
                 buildStatusAction.setIsDeclarativePipeline(isDeclarativePipeline);
+                if (isDeclarativePipeline) {
+                    buildStatusAction.bindStage(stageName, stageId, parentId);
+                }
 
                 run.addAction(buildStatusAction);
             } else {
-                buildStatusAction.addBuildStatus(flowNode.getDisplayName());
+                buildStatusAction.addBuildStatus(stageName, stageId, parentId);
             }
         } catch (Exception ex) {
             try {
@@ -290,20 +405,6 @@ public class GithubBuildStatusGraphListener implements GraphListener {
         }
     }
 
-    /**
-     * Determines if the node belongs to a declarative pipeline.
-     *
-     * @param fn node of a workflow
-     * @return true/false
-     */
-    private static boolean isDeclarativePipelineJob(FlowNode fn) {
-        Run<?, ?> run = runFor(fn.getExecution());
-        if (run == null) {
-            return false;
-        }
-        return getDeclarativeStages(run) != null;
-    }
-
     /**
      * Gets a list of stages in a declarative pipeline.
      *
@@ -420,7 +521,7 @@ public class GithubBuildStatusGraphListener implements GraphListener {
      * @param exec execution of a workflow
      * @return jenkins run object of a job
      */
-    private static @CheckForNull Run<?, ?> runFor(FlowExecution exec) {
+    static @CheckForNull Run<?, ?> runFor(FlowExecution exec) {
         Queue.Executable executable;
         try {
             executable = exec.getOwner().getExecutable();
@@ -0,0 +1,66 @@
+package org.jenkinsci.plugins.githubautostatus;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import org.jenkinsci.plugins.githubautostatus.model.BuildStage;
+import org.jenkinsci.plugins.githubautostatus.notifiers.BuildNotifierConstants;
+import org.jenkinsci.plugins.workflow.actions.LabelAction;
+import org.jenkinsci.plugins.workflow.cps.nodes.StepEndNode;
+import org.jenkinsci.plugins.workflow.flow.FlowExecution;
+import org.jenkinsci.plugins.workflow.graph.FlowNode;
+import org.jenkinsci.plugins.workflow.graphanalysis.DepthFirstScanner;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+
+/**
+ * Reconstructs the stages of a completed pipeline build from its stored flow
+ * graph, using the same rules as {@link GithubBuildStatusGraphListener} does
+ * while a build runs.
+ */
+final class HistoricalBuildReader {
+
+    private HistoricalBuildReader() {}
+
+    /**
+     * Reads the completed stages of a build, in the order they started.
+     *
+     * @param run a completed build
+     * @return the build's stages; empty if its flow graph can't be read
+     */
+    static List<BuildStage> readStages(WorkflowRun run) {
+        List<BuildStage> stages = new ArrayList<>();
+        FlowExecution execution = run.getExecution();
+        if (execution == null) {
+            return stages;
+        }
+        QueueWaitAction queueWaits = run.getAction(QueueWaitAction.class);
+        for (FlowNode node : new DepthFirstScanner().allNodes(execution)) {
+            if (!(node instanceof StepEndNode)) {
+                continue;
+            }
+            FlowNode startNode = ((StepEndNode) node).getStartNode();
+            LabelAction label = startNode.getAction(LabelAction.class);
+            if (!GithubBuildStatusGraphListener.isStage(startNode) || label == null || label.getDisplayName() == null) {
+                continue;
+            }
+            long pausedTime = GithubBuildStatusGraphListener.pausedTimeForStage(startNode, node);
+
+            BuildStage stage = new BuildStage(label.getDisplayName());
+            stage.setRun(run);
+            stage.setStageId(startNode.getId());
+            stage.setParentId(GithubBuildStatusGraphListener.enclosingStageId(startNode));
+            stage.setStartTime(GithubBuildStatusGraphListener.getStartTime(startNode));
+            stage.setPausedDuration(pausedTime);
+            stage.addToEnvironment(
+                    BuildNotifierConstants.STAGE_DURATION,
+                    Math.max(0, GithubBuildStatusGraphListener.getTime(startNode, node) - pausedTime));
+            if (queueWaits != null) {
+                stage.setAgentWaitDuration(queueWaits.getWaitTimeForStage(stage.getStageId()));
+            }
+            stage.setBuildState(GithubBuildStatusGraphListener.buildStateForStage(startNode, node));
+            stages.add(stage);
+        }
+        stages.sort(Comparator.comparingLong(BuildStage::getStartTime));
+        return stages;
+    }
+}
@@ -0,0 +1,87 @@
+package org.jenkinsci.plugins.githubautostatus;
+
+import java.util.Map;
+import java.util.TreeMap;
+import org.jenkinsci.plugins.workflow.graph.FlowNode;
+import org.jenkinsci.plugins.workflow.support.actions.PauseAction;
+
+/**
+ * Time a pipeline's steps spent paused (e.g. waiting for {@code input}),
+ * counting time when several steps were paused at once, as in parallel
+ * branches, only once.
+ */
+final class PauseIntervals {
+
+    /**
+     * Disjoint paused intervals, end time keyed by start time.
+     */
+    private final TreeMap<Long, Long> intervals = new TreeMap<>();
+
+    private long totalMillis;
+
+    /**
+     * Gets the time steps in a set of nodes spent paused.
+     *
+     * @param nodes the nodes
+     * @return paused time in milliseconds
+     */
+    static long of(Iterable<FlowNode> nodes) {
+        PauseIntervals pauses = new PauseIntervals();
+        for (FlowNode node : nodes) {
+            pauses.add(node);
+        }
+        return pauses.getMillis();
+    }
+
+    /**
+     * Adds the pauses of a node.
+     *
+     * @param node the node
+     */
+    void add(FlowNode node) {
+        for (PauseAction pause : PauseAction.getPauseActions(node)) {
+            long duration = pause.getPauseDuration();
+            if (duration <= 0) {
+                continue;
+            }
+            long start = pause.getStartTime();
+            if (start > 0) {
+                add(start, start + duration);
+            } else {
+                // Without a start time the pause can't overlap anything
+                totalMillis += duration;
+            }
+        }
+    }
+
+    /**
+     * Adds a paused interval, merging it with any it overlaps.
+     *
+     * @param start start time
+     * @param end end time
+     */
+    void add(long start, long end) {
+        Map.Entry<Long, Long> overlapping = intervals.floorEntry(start);
+        if (overlapping == null || overlapping.getValue() < start) {
+            overlapping = intervals.ceilingEntry(start);
+        }
+        while (overlapping != null && overlapping.getKey() <= end) {
+            start = Math.min(start, overlapping.getKey());
+            end = Math.max(end, overlapping.getValue());
+            totalMillis -= overlapping.getValue() - overlapping.getKey();
+            intervals.remove(overlapping.getKey());
+            overlapping = intervals.ceilingEntry(start);
+        }
+        intervals.put(start, end);
+        totalMillis += end - start;
+    }
+
+    /**
+     * Gets the time spent paused.
+     *
+     * @return paused time in milliseconds
+     */
+    long getMillis() {
+        return totalMillis;
+    }
+}
@@ -0,0 +1,321 @@
+package org.jenkinsci.plugins.githubautostatus;
+
+import hudson.model.Job;
+import hudson.model.Result;
+import hudson.model.Run;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import javax.annotation.CheckForNull;
+import org.jenkinsci.plugins.githubautostatus.model.BuildStage;
+import org.jenkinsci.plugins.workflow.actions.WarningAction;
+import org.jenkinsci.plugins.workflow.flow.FlowExecution;
+import org.jenkinsci.plugins.workflow.graph.BlockEndNode;
+import org.jenkinsci.plugins.workflow.graph.BlockStartNode;
+import org.jenkinsci.plugins.workflow.graph.FlowNode;
+
+/**
+ * Per-execution state used by {@link GithubBuildStatusGraphListener}, so that
+ * work which only depends on the job and pipeline definition is done once per
+ * execution rather than once per flow node.
+ *
+ * <p>Entries are keyed weakly by {@link FlowExecution}; a resumed build gets
+ * a new execution and so recomputes its state.
+ *
+ * <p>The state also follows the flow graph as heads arrive, recording which
+ * open stage each node belongs to, the worst {@link WarningAction} result
+ * seen in each stage and the time its steps spent paused (e.g. waiting for
+ * {@code input}). That lets a stage's result and active time be read when it
+ * ends instead of rescanning every node in it. Entries are dropped as soon as no later node
+ * can refer to them, so only open blocks and current heads are held.
+ */
+final class PipelineExecutionState {
+
+    private static final Map<FlowExecution, PipelineExecutionState> STATES = new WeakHashMap<>();
+
+    private final boolean monitored;
+
+    /**
+     * Stage templates parsed from the declarative model, or null for scripted pipelines.
+     */
+    private final List<BuildStage> declarativeStages;
+
+    private final StageTracker root = new StageTracker(null, null);
+
+    /**
+     * Innermost open stage (or {@link #root}) containing each tracked node.
+     */
+    private final Map<String, StageTracker> contexts = new HashMap<>();
+
+    /**
+     * Tracker for the body of each open block; a new tracker for stages,
+     * otherwise the block's own context.
+     */
+    private final Map<String, StageTracker> bodies = new HashMap<>();
+
+    /**
+     * Set if a node arrived whose parents weren't tracked (e.g. monitoring was
+     * switched on mid-build), after which tracked results can't be trusted.
+     */
+    private boolean incomplete;
+
+    private PipelineExecutionState(boolean monitored, List<BuildStage> declarativeStages) {
+        this.monitored = monitored;
+        this.declarativeStages = declarativeStages;
+    }
+
+    /**
+     * Gets the state for an execution, computing it on first use.
+     *
+     * @param exec the execution
+     * @return the execution state, or null if the execution's run can't be found
+     */
+    static @CheckForNull PipelineExecutionState forExecution(FlowExecution exec) {
+        PipelineExecutionState state;
+        synchronized (STATES) {
+            state = STATES.get(exec);
+        }
+        if (state != null) {
+            return state;
+        }
+        // Resolve outside the lock; loading the run can be slow
+        Run<?, ?> run = GithubBuildStatusGraphListener.runFor(exec);
+        if (run == null) {
+            return null;
+        }
+        boolean monitored = isMonitored(run);
+        state = new PipelineExecutionState(
+                monitored, monitored ? GithubBuildStatusGraphListener.getDeclarativeStages(run) : null);
+        synchronized (STATES) {
+            PipelineExecutionState existing = STATES.putIfAbsent(exec, state);
+            return existing != null ? existing : state;
+        }
+    }
+
+    /**
+     * Gets the state for an execution if it has already been computed.
+     *
+     * @param exec the execution
+     * @return the execution state, or null if none has been computed
+     */
+    static @CheckForNull PipelineExecutionState existingFor(FlowExecution exec) {
+        synchronized (STATES) {
+            return STATES.get(exec);
+        }
+    }
+
+    /**
+     * Records a new head of the flow graph.
+     *
+     * @param fn the new head
+     * @return if the node ends a tracked stage, the tracker for that stage;
+     *     otherwise null
+     */
+    synchronized @CheckForNull StageTracker track(FlowNode fn) {
+        String id = fn.getId();
+        if (id == null) {
+            return null;
+        }
+        List<FlowNode> parents = fn.getParents();
+        StageTracker context;
+        StageTracker endedStage = null;
+        if (fn instanceof BlockEndNode) {
+            BlockStartNode start = ((BlockEndNode<?>) fn).getStartNode();
+            String startId = start.getId();
+            context = startId == null ? null : contexts.remove(startId);
+            StageTracker body = startId == null ? null : bodies.remove(startId);
+            foldParents(parents);
+            if (body != null) {
+                body.fold(fn);
+                if (body.stageId != null && !incomplete) {
+                    endedStage = body;
+                }
+            }
+            if (context != null) {
+                // A block step such as catchError marks its start node once the body completes
+                context.fold(start);
+            }
+        } else {
+            if (parents.isEmpty()) {
+                context = root;
+            } else {
+                FlowNode parent = parents.get(0);
+                String parentId = parent.getId();
+                if (parentId == null) {
+                    context = null;
+                } else if (parent instanceof BlockStartNode) {
+                    context = bodies.get(parentId);
+                } else {
+                    context = contexts.get(parentId);
+                }
+            }
+            foldParents(parents);
+        }
+        if (context == null) {
+            incomplete = true;
+            return null;
+        }
+        contexts.put(id, context);
+        if (fn instanceof BlockStartNode) {
+            bodies.put(id, GithubBuildStatusGraphListener.isStage(fn) ? new StageTracker(context, id) : context);
+        }
+        return endedStage;
+    }
+
+    /**
+     * Determines whether a tracked node is inside a stage.
+     *
+     * @param fn a node which has already been passed to {@link #track(FlowNode)}
+     * @return whether the node is inside a stage, or null if the node isn't tracked
+     */
+    synchronized @CheckForNull Boolean isInStage(FlowNode fn) {
+        String id = fn.getId();
+        StageTracker context = id == null ? null : contexts.get(id);
+        if (context == null) {
+            return null;
+        }
+        return context.stageId != null;
+    }
+
+    /**
+     * Gets the id of the innermost stage enclosing a tracked node.
+     *
+     * @param fn a node which has already been passed to {@link #track(FlowNode)}
+     * @return the id of the node starting the enclosing stage, or null if the
+     *     node isn't in a stage or isn't tracked
+     */
+    synchronized @CheckForNull String getEnclosingStageId(FlowNode fn) {
+        String id = fn.getId();
+        StageTracker context = id == null ? null : contexts.get(id);
+        return context == null ? null : context.stageId;
+    }
+
+    /**
+     * Gets the time spent paused across the whole execution so far. Time when
+     * steps in parallel branches were paused at once is only counted once.
+     *
+     * @return paused time in milliseconds, or null if some nodes weren't tracked
+     */
+    synchronized @CheckForNull Long getPausedMillis() {
+        return incomplete ? null : root.pauses.getMillis();
+    }
+
+    /**
+     * Folds the warnings and pauses of a new head's parents into their stages.
+     * The parents have finished running by now, so their warnings and pauses
+     * are final, and apart from block starts nothing else will refer to them.
+     *
+     * @param parents the new head's parents
+     */
+    private void foldParents(List<FlowNode> parents) {
+        for (FlowNode parent : parents) {
+            String parentId = parent.getId();
+            if (parentId == null) {
+                continue;
+            }
+            StageTracker parentContext = contexts.get(parentId);
+            if (parentContext != null) {
+                parentContext.fold(parent);
+                if (!(parent instanceof BlockStartNode)) {
+                    contexts.remove(parentId);
+                }
+            }
+        }
+    }
+
+    private static boolean isMonitored(Run<?, ?> run) {
+        Job<?, ?> job = run.getParent();
+        return job == null || job.getProperty(DisableAutostatusJobProperty.class) == null;
+    }
+
+    /**
+     * Determines whether notifications should be sent for the execution.
+     *
+     * @return false if the job has opted out; true otherwise
+     */
+    boolean isMonitored() {
+        return monitored;
+    }
+
+    /**
+     * Determines whether the execution is a declarative pipeline.
+     *
+     * @return true if the pipeline is declarative; false otherwise
+     */
+    boolean isDeclarative() {
+        return declarativeStages != null;
+    }
+
+    /**
+     * Gets fresh copies of the declarative stages, safe for the caller to modify.
+     *
+     * @return copies of the declarative stages, or null for scripted pipelines
+     */
+    List<BuildStage> copyDeclarativeStages() {
+        if (declarativeStages == null) {
+            return null;
+        }
+        List<BuildStage> result = new ArrayList<>(declarativeStages.size());
+        for (BuildStage stage : declarativeStages) {
+            result.add(new BuildStage(stage));
+        }
+        return result;
+    }
+
+    /**
+     * Worst warning result and total paused time seen so far in an open stage
+     * (or the whole execution, for the root). Both fold up into enclosing
+     * stages, since a nested stage's nodes are also part of its parent.
+     */
+    static final class StageTracker {
+        private final StageTracker parent;
+
+        /**
+         * Id of the node starting the stage, or null for the root.
+         */
+        private final String stageId;
+
+        private Result worst = Result.SUCCESS;
+
+        private final PauseIntervals pauses = new PauseIntervals();
+
+        StageTracker(StageTracker parent, String stageId) {
+            this.parent = parent;
+            this.stageId = stageId;
+        }
+
+        /**
+         * Gets the worst warning result seen in the stage.
+         *
+         * @return the worst result
+         */
+        Result getWorst() {
+            return worst;
+        }
+
+        /**
+         * Gets the time steps in the stage spent paused.
+         *
+         * @return paused time in milliseconds
+         */
+        long getPausedMillis() {
+            return pauses.getMillis();
+        }
+
+        void fold(FlowNode node) {
+            WarningAction warning = node.getPersistentAction(WarningAction.class);
+            // Block nodes can be folded more than once; pauses are only recorded on step atoms
+            boolean pausable = !(node instanceof BlockStartNode || node instanceof BlockEndNode);
+            for (StageTracker tracker = this; tracker != null; tracker = tracker.parent) {
+                if (warning != null && warning.getResult().isWorseThan(tracker.worst)) {
+                    tracker.worst = warning.getResult();
+                }
+                if (pausable) {
+                    tracker.pauses.add(node);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package org.jenkinsci.plugins.githubautostatus;
+
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.model.AsyncPeriodicWork;
+import hudson.model.TaskListener;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import jenkins.util.SystemProperties;
+import org.jenkinsci.plugins.githubautostatus.config.InfluxDbNotifierConfig;
+import org.jenkinsci.plugins.githubautostatus.model.CredentialRefreshStats;
+import org.jenkinsci.plugins.githubautostatus.model.QueueLatency;
+import org.jenkinsci.plugins.githubautostatus.notifiers.BuildNotifier;
+import org.jenkinsci.plugins.githubautostatus.notifiers.BuildNotifierConstants;
+import org.jenkinsci.plugins.githubautostatus.notifiers.GithubCredentialRefresher;
+import org.jenkinsci.plugins.githubautostatus.notifiers.InfluxDbNotifier;
+import org.jenkinsci.plugins.githubautostatus.notifiers.StatsdNotifier;
+
+/**
+ * Periodically sends the queue wait histograms collected by
+ * {@link BuildQueueListener}, and the counts of GitHub credential refreshes
+ * made by {@link GithubCredentialRefresher}, to the configured notifiers.
+ * The interval defaults to one minute and can be changed with the system property
+ * {@code org.jenkinsci.plugins.githubautostatus.QueueLatencyExporter.interval},
+ * in milliseconds.
+ */
+@Extension
+public class QueueLatencyExporter extends AsyncPeriodicWork {
+
+    private static final long INTERVAL = SystemProperties.getLong(
+            QueueLatencyExporter.class.getName() + ".interval", TimeUnit.MINUTES.toMillis(1));
+
+    public QueueLatencyExporter() {
+        super("GitHub autostatus queue latency export");
+    }
+
+    @Override
+    public long getRecurrencePeriod() {
+        return INTERVAL;
+    }
+
+    @Override
+    protected void execute(TaskListener listener) {
+        List<QueueLatency> latencies =
+                ExtensionList.lookupSingleton(BuildQueueListener.class).getLatencyRecorder().drain();
+        CredentialRefreshStats refreshStats = GithubCredentialRefresher.get().drainStats();
+        if (latencies.isEmpty() && refreshStats.isEmpty()) {
+            return;
+        }
+        for (BuildNotifier notifier : getNotifiers()) {
+            if (!latencies.isEmpty()) {
+                notifier.notifyQueueLatency(latencies);
+            }
+            if (!refreshStats.isEmpty()) {
+                notifier.notifyCredentialRefresh(refreshStats);
+            }
+        }
+    }
+
+    /**
+     * Gets the enabled notifiers; these metrics aren't tied to a repository,
+     * so the built-in notifiers are created without one.
+     */
+    private static List<BuildNotifier> getNotifiers() {
+        List<BuildNotifier> notifiers = new ArrayList<>();
+        if (BuildStatusConfig.get().getEnableInfluxDb()) {
+            notifiers.add(new InfluxDbNotifier(InfluxDbNotifierConfig.fromGlobalConfig(
+                    BuildNotifierConstants.DEFAULT_STRING,
+                    BuildNotifierConstants.DEFAULT_STRING,
+                    BuildNotifierConstants.DEFAULT_STRING)));
+        }
+        StatsdNotifierConfig statsdNotifierConfig =
+                StatsdNotifierConfig.fromGlobalConfig(BuildNotifierConstants.DEFAULT_STRING);
+        if (statsdNotifierConfig != null) {
+            notifiers.add(new StatsdNotifier(statsdNotifierConfig));
+        }
+        notifiers.addAll(BuildNotifier.all());
+        notifiers.removeIf(notifier -> !notifier.isEnabled());
+        return notifiers;
+    }
+}
@@ -0,0 +1,103 @@
+package org.jenkinsci.plugins.githubautostatus;
+
+import hudson.model.Label;
+import hudson.model.Queue;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.jenkinsci.plugins.githubautostatus.model.QueueLatency;
+import org.jenkinsci.plugins.githubautostatus.model.QueueLatencyHistogram;
+import org.jenkinsci.plugins.githubautostatus.notifiers.BuildNotifierConstants;
+
+/**
+ * Aggregates how long queue items wait, per assigned label and queue phase,
+ * until the histograms are drained for export.
+ */
+public class QueueLatencyRecorder {
+
+    private static final QueueLatency.Phase[] PHASES = QueueLatency.Phase.values();
+
+    private final Map<String, QueueLatencyHistogram[]> histograms = new ConcurrentHashMap<>();
+    private final Map<Long, Long> blockedSince = new ConcurrentHashMap<>();
+    private final Map<Long, Long> buildableSince = new ConcurrentHashMap<>();
+
+    public void enterBlocked(Queue.Item item, long now) {
+        blockedSince.put(item.getId(), now);
+    }
+
+    public void leaveBlocked(Queue.Item item, long now) {
+        recordSince(item, blockedSince.remove(item.getId()), QueueLatency.Phase.Blocked, now);
+    }
+
+    public void enterBuildable(Queue.Item item, long now) {
+        buildableSince.put(item.getId(), now);
+    }
+
+    public void leaveBuildable(Queue.Item item, long now) {
+        recordSince(item, buildableSince.remove(item.getId()), QueueLatency.Phase.Buildable, now);
+    }
+
+    /**
+     * Records an item's whole time in the queue, unless it was cancelled.
+     *
+     * @param item the item which left the queue
+     * @param now current time in milliseconds
+     */
+    public void left(Queue.LeftItem item, long now) {
+        blockedSince.remove(item.getId());
+        buildableSince.remove(item.getId());
+        if (!item.isCancelled()) {
+            record(labelOf(item), QueueLatency.Phase.Queued, now - item.getInQueueSince());
+        }
+    }
+
+    /**
+     * Records one wait.
+     *
+     * @param label the label expression the item was assigned to
+     * @param phase the phase the item waited in
+     * @param millis wait time in milliseconds
+     */
+    public void record(String label, QueueLatency.Phase phase, long millis) {
+        histograms.computeIfAbsent(label, k -> newHistograms())[phase.ordinal()].record(millis);
+    }
+
+    /**
+     * Takes the waits recorded since the last drain, skipping labels and
+     * phases with no waits.
+     *
+     * @return the recorded waits
+     */
+    public List<QueueLatency> drain() {
+        List<QueueLatency> latencies = new ArrayList<>();
+        histograms.forEach((label, labelHistograms) -> {
+            for (QueueLatency.Phase phase : PHASES) {
+                QueueLatencyHistogram.Snapshot snapshot = labelHistograms[phase.ordinal()].drain();
+                if (snapshot.getCount() > 0) {
+                    latencies.add(new QueueLatency(label, phase, snapshot));
+                }
+            }
+        });
+        return latencies;
+    }
+
+    private void recordSince(Queue.Item item, Long since, QueueLatency.Phase phase, long now) {
+        if (since != null) {
+            record(labelOf(item), phase, now - since);
+        }
+    }
+
+    private static String labelOf(Queue.Item item) {
+        Label label = item.getAssignedLabel();
+        return label == null ? BuildNotifierConstants.DEFAULT_STRING : label.getExpression();
+    }
+
+    private static QueueLatencyHistogram[] newHistograms() {
+        QueueLatencyHistogram[] phaseHistograms = new QueueLatencyHistogram[PHASES.length];
+        for (int i = 0; i < phaseHistograms.length; i++) {
+            phaseHistograms[i] = new QueueLatencyHistogram();
+        }
+        return phaseHistograms;
+    }
+}
@@ -0,0 +1,68 @@
+package org.jenkinsci.plugins.githubautostatus;
+
+import hudson.model.InvisibleAction;
+import java.util.ArrayList;
+import java.util.List;
+import org.jenkinsci.plugins.githubautostatus.model.AgentWait;
+
+/**
+ * Keeps track of every period a pipeline build spent waiting in the queue
+ * for an agent, attributed to the stage that requested it.
+ *
+ * <p>Unlike {@link BuildBlockedAction}, which records a single blocked window
+ * per build, each {@code node} step's wait is kept.
+ */
+public class QueueWaitAction extends InvisibleAction {
+
+    private final List<AgentWait> waits = new ArrayList<>();
+
+    /**
+     * Records a wait for an agent.
+     *
+     * @param wait the wait
+     */
+    public synchronized void addWait(AgentWait wait) {
+        waits.add(wait);
+    }
+
+    /**
+     * Gets the waits recorded so far.
+     *
+     * @return copy of the waits, in the order they ended
+     */
+    public synchronized List<AgentWait> getWaits() {
+        return new ArrayList<>(waits);
+    }
+
+    /**
+     * Gets the total time the build spent waiting for agents. Waits in
+     * parallel branches are counted separately.
+     *
+     * @return total wait time, in milliseconds
+     */
+    public synchronized long getTotalWaitTime() {
+        long total = 0;
+        for (AgentWait wait : waits) {
+            total += wait.getDuration();
+        }
+        return total;
+    }
+
+    /**
+     * Gets the time steps directly inside a stage spent waiting for agents.
+     *
+     * @param stageId id of the node starting the stage
+     * @return wait time, in milliseconds
+     */
+    public synchronized long getWaitTimeForStage(String stageId) {
+        long total = 0;
+        if (stageId != null) {
+            for (AgentWait wait : waits) {
+                if (stageId.equals(wait.getStageId())) {
+                    total += wait.getDuration();
+                }
+            }
+        }
+        return total;
+    }
+}
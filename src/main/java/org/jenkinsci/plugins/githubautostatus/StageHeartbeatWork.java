@@ -0,0 +1,107 @@
+package org.jenkinsci.plugins.githubautostatus;
+
+import hudson.init.InitMilestone;
+import hudson.init.Initializer;
+import hudson.model.Queue;
+import hudson.model.Run;
+import hudson.util.DaemonThreadFactory;
+import java.io.IOException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.util.NamingThreadFactory;
+import org.jenkinsci.plugins.workflow.flow.FlowExecution;
+import org.jenkinsci.plugins.workflow.flow.FlowExecutionList;
+
+/**
+ * Periodically reports the stages of running pipelines which have started but
+ * not completed, at the interval set in {@link BuildStatusConfig}. Nothing is
+ * scheduled while heartbeats are off, and the schedule follows the interval
+ * when it's changed.
+ *
+ * <p>Heartbeats are sent from a thread of their own rather than Jenkins' shared
+ * timer, since notifiers send them over the network; a slow endpoint delays
+ * the next round of heartbeats instead of everything else on the timer.
+ */
+public final class StageHeartbeatWork {
+
+    private static final ScheduledThreadPoolExecutor SENDER = createSender();
+
+    private static ScheduledFuture<?> heartbeats;
+
+    private static long scheduledInterval;
+
+    private StageHeartbeatWork() {}
+
+    /**
+     * Starts sending heartbeats at the configured interval.
+     */
+    @Initializer(after = InitMilestone.JOB_CONFIG_ADAPTED)
+    public static void start() {
+        schedule(BuildStatusConfig.get().getStageHeartbeatIntervalMillis());
+    }
+
+    /**
+     * Sends heartbeats at a new interval, or stops sending them.
+     *
+     * @param intervalMillis the heartbeat interval, or zero for no heartbeats
+     */
+    static synchronized void schedule(long intervalMillis) {
+        if (heartbeats != null) {
+            if (intervalMillis == scheduledInterval) {
+                return;
+            }
+            heartbeats.cancel(false);
+            heartbeats = null;
+        }
+        scheduledInterval = intervalMillis;
+        if (intervalMillis > 0) {
+            heartbeats = SENDER.scheduleWithFixedDelay(
+                    StageHeartbeatWork::sendHeartbeats, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Determines whether heartbeats are being sent.
+     *
+     * @return true if heartbeats are scheduled
+     */
+    static synchronized boolean isScheduled() {
+        return heartbeats != null;
+    }
+
+    private static ScheduledThreadPoolExecutor createSender() {
+        ScheduledThreadPoolExecutor sender = new ScheduledThreadPoolExecutor(
+                1, new NamingThreadFactory(new DaemonThreadFactory(), StageHeartbeatWork.class.getSimpleName()));
+        sender.setRemoveOnCancelPolicy(true);
+        sender.setKeepAliveTime(1, TimeUnit.MINUTES);
+        sender.allowCoreThreadTimeOut(true);
+        return sender;
+    }
+
+    private static void sendHeartbeats() {
+        long now = System.currentTimeMillis();
+        for (FlowExecution execution : FlowExecutionList.get()) {
+            try {
+                Queue.Executable executable = execution.getOwner().getExecutable();
+                if (executable instanceof Run) {
+                    BuildStatusAction buildStatusAction = ((Run<?, ?>) executable).getAction(BuildStatusAction.class);
+                    if (buildStatusAction != null) {
+                        buildStatusAction.sendStageHeartbeats(now);
+                    }
+                }
+            } catch (IOException ex) {
+                getLogger().log(Level.FINE, "Could not find the build for a running pipeline", ex);
+            } catch (RuntimeException ex) {
+                // Keep the schedule going
+                getLogger().log(Level.WARNING, "Could not send stage heartbeats", ex);
+            }
+        }
+    }
+
+    private static Logger getLogger() {
+        return Logger.getLogger(StageHeartbeatWork.class.getName());
+    }
+}
@@ -0,0 +1,26 @@
+package org.jenkinsci.plugins.githubautostatus;
+
+import hudson.model.InvisibleAction;
+import org.jenkinsci.plugins.githubautostatus.model.TestOutcomes;
+
+/**
+ * Keeps the outcomes of a build's failed and skipped test cases, so the next
+ * build of the job can report only the cases which failed or changed.
+ */
+public class TestOutcomeAction extends InvisibleAction {
+
+    private final TestOutcomes outcomes;
+
+    /**
+     * Constructs a {@link TestOutcomeAction}.
+     *
+     * @param outcomes the build's test outcomes
+     */
+    public TestOutcomeAction(TestOutcomes outcomes) {
+        this.outcomes = outcomes;
+    }
+
+    public TestOutcomes getOutcomes() {
+        return outcomes;
+    }
+}
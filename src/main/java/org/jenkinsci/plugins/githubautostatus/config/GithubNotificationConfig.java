@@ -43,8 +43,6 @@ import jenkins.plugins.git.AbstractGitSCMSource;
 import jenkins.scm.api.SCMHead;
 import jenkins.scm.api.SCMRevision;
 import jenkins.scm.api.SCMRevisionAction;
-import jenkins.scm.api.SCMSource;
-import org.jenkinsci.plugins.github_branch_source.GitHubSCMSource;
 import org.jenkinsci.plugins.github_branch_source.PullRequestSCMHead;
 import org.jenkinsci.plugins.github_branch_source.PullRequestSCMRevision;
 import org.jenkinsci.plugins.githubautostatus.BuildStatusConfig;
@@ -66,6 +64,7 @@ public class GithubNotificationConfig {
     private String branchName = "";
     private String repoName = "";
     private GHRepository repo;
+    private long deliveryDeadlineMillis;
 
     private transient Run<?, ?> run;
 
@@ -107,6 +106,15 @@ public class GithubNotificationConfig {
         return repo;
     }
 
+    /**
+     * Gets how long a failed status may be retried, from the global configuration.
+     *
+     * @return the delivery deadline in milliseconds, or zero for the default
+     */
+    public long getDeliveryDeadlineMillis() {
+        return deliveryDeadlineMillis;
+    }
+
     /**
      * Gets the name of the repo for the build.
      *
@@ -140,6 +148,7 @@ public class GithubNotificationConfig {
                 GithubNotificationConfig result = new GithubNotificationConfig();
                 result.githubBuilder = githubBuilder;
                 result.run = run;
+                result.deliveryDeadlineMillis = parseDeadlineMillis(buildStatusConfig.getGithubDeliveryDeadline());
                 if (!result.extractCommitSha(run)) {
                     return null;
                 }
@@ -157,6 +166,18 @@ public class GithubNotificationConfig {
         return null;
     }
 
+    private static long parseDeadlineMillis(String seconds) {
+        if (seconds == null || seconds.trim().isEmpty()) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(seconds.trim()) * 1000L;
+        } catch (NumberFormatException ex) {
+            log(Level.WARNING, "Invalid GitHub delivery deadline %s, using the default", seconds);
+            return 0;
+        }
+    }
+
     /**
      * Creates a fresh GHRepository by re-resolving credentials from the Jenkins
      * credentials store. This is necessary because GitHub App tokens have a
@@ -246,22 +267,18 @@ public class GithubNotificationConfig {
             log(Level.INFO, "Project is not a multibranch project - status will not be provided for this build");
             return false;
         }
-        GitHubSCMSource gitHubScmSource = null;
-        SCMSource scmSource = project.getSCMSources().get(0);
-        if (scmSource != null && scmSource instanceof GitHubSCMSource) {
-            gitHubScmSource = (GitHubSCMSource) scmSource;
-        }
-        if (null == gitHubScmSource) {
+        GithubSourceInfo sourceInfo = GithubSourceInfo.forProject(project);
+        if (null == sourceInfo) {
             log(Level.INFO, "Could not find githubSCMSource - status will not be provided for this build");
             return false;
         }
-        String credentialsId = gitHubScmSource.getCredentialsId();
+        String credentialsId = sourceInfo.getCredentialsId();
         if (null == credentialsId) {
             log(Level.WARNING, "Could not find credentials - status will not be provided for this build");
             return false;
         }
-        repoOwner = gitHubScmSource.getRepoOwner();
-        repoName = gitHubScmSource.getRepository();
+        repoOwner = sourceInfo.getRepoOwner();
+        repoName = sourceInfo.getRepository();
 
         repo = buildGHRepository(build, githubBuilder);
 
@@ -286,21 +303,17 @@ public class GithubNotificationConfig {
         if (null == project) {
             return null;
         }
-        GitHubSCMSource gitHubScmSource = null;
-        SCMSource scmSource = project.getSCMSources().get(0);
-        if (scmSource != null && scmSource instanceof GitHubSCMSource) {
-            gitHubScmSource = (GitHubSCMSource) scmSource;
-        }
-        if (null == gitHubScmSource) {
+        GithubSourceInfo sourceInfo = GithubSourceInfo.forProject(project);
+        if (null == sourceInfo) {
             return null;
         }
-        String credentialsId = gitHubScmSource.getCredentialsId();
+        String credentialsId = sourceInfo.getCredentialsId();
         if (null == credentialsId) {
             return null;
         }
-        String url = gitHubScmSource.getApiUri();
-        String owner = gitHubScmSource.getRepoOwner();
-        String name = gitHubScmSource.getRepository();
+        String url = sourceInfo.getApiUri();
+        String owner = sourceInfo.getRepoOwner();
+        String name = sourceInfo.getRepository();
 
         String userName = null;
         String password = "";
@@ -0,0 +1,149 @@
+package org.jenkinsci.plugins.githubautostatus.config;
+
+import hudson.Extension;
+import hudson.XmlFile;
+import hudson.model.Saveable;
+import hudson.model.listeners.SaveableListener;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import javax.annotation.CheckForNull;
+import jenkins.scm.api.SCMSource;
+import org.jenkinsci.plugins.github_branch_source.GitHubSCMSource;
+import org.jenkinsci.plugins.workflow.multibranch.WorkflowMultiBranchProject;
+
+/**
+ * The GitHub coordinates of a multibranch project's primary SCM source.
+ *
+ * <p>Resolving these means walking the project's SCM sources on every build
+ * start and every credential refresh, so the result is cached per project and
+ * dropped whenever the project's configuration is saved. A result resolved
+ * while the project was being saved isn't cached, since it may be stale.
+ */
+public final class GithubSourceInfo {
+
+    /**
+     * Cached entry for projects whose primary source isn't a GitHub source.
+     */
+    private static final GithubSourceInfo NOT_GITHUB = new GithubSourceInfo(null, null, null, null);
+
+    private static final Map<WorkflowMultiBranchProject, GithubSourceInfo> CACHE = new WeakHashMap<>();
+
+    /**
+     * Number of times each project's cached info has been dropped. Guarded by {@link #CACHE}.
+     */
+    private static final Map<WorkflowMultiBranchProject, Long> GENERATIONS = new WeakHashMap<>();
+
+    private final String apiUri;
+    private final String repoOwner;
+    private final String repository;
+    private final String credentialsId;
+
+    private GithubSourceInfo(String apiUri, String repoOwner, String repository, String credentialsId) {
+        this.apiUri = apiUri;
+        this.repoOwner = repoOwner;
+        this.repository = repository;
+        this.credentialsId = credentialsId;
+    }
+
+    /**
+     * Gets the GitHub source info for a project, resolving it if it isn't cached.
+     *
+     * @param project the multibranch project
+     * @return the source info, or null if the project's primary source isn't a GitHub source
+     */
+    public static @CheckForNull GithubSourceInfo forProject(WorkflowMultiBranchProject project) {
+        GithubSourceInfo info;
+        long generation;
+        synchronized (CACHE) {
+            info = CACHE.get(project);
+            generation = GENERATIONS.getOrDefault(project, 0L);
+        }
+        if (info == null) {
+            // Resolve outside the lock; only cache the result if the project wasn't saved meanwhile
+            info = resolve(project);
+            synchronized (CACHE) {
+                if (GENERATIONS.getOrDefault(project, 0L) == generation) {
+                    CACHE.put(project, info);
+                }
+            }
+        }
+        return info == NOT_GITHUB ? null : info;
+    }
+
+    /**
+     * Drops the cached source info for a project.
+     *
+     * @param project the multibranch project
+     */
+    public static void invalidate(WorkflowMultiBranchProject project) {
+        synchronized (CACHE) {
+            CACHE.remove(project);
+            GENERATIONS.merge(project, 1L, Long::sum);
+        }
+    }
+
+    private static GithubSourceInfo resolve(WorkflowMultiBranchProject project) {
+        List<SCMSource> sources = project.getSCMSources();
+        SCMSource scmSource = sources.isEmpty() ? null : sources.get(0);
+        if (!(scmSource instanceof GitHubSCMSource)) {
+            return NOT_GITHUB;
+        }
+        GitHubSCMSource gitHubScmSource = (GitHubSCMSource) scmSource;
+        return new GithubSourceInfo(
+                gitHubScmSource.getApiUri(),
+                gitHubScmSource.getRepoOwner(),
+                gitHubScmSource.getRepository(),
+                gitHubScmSource.getCredentialsId());
+    }
+
+    /**
+     * Gets the GitHub API endpoint.
+     *
+     * @return the API endpoint
+     */
+    public String getApiUri() {
+        return apiUri;
+    }
+
+    /**
+     * Gets the repo owner.
+     *
+     * @return the repo owner
+     */
+    public String getRepoOwner() {
+        return repoOwner;
+    }
+
+    /**
+     * Gets the repo name.
+     *
+     * @return the repo name
+     */
+    public String getRepository() {
+        return repository;
+    }
+
+    /**
+     * Gets the id of the credentials used to scan the repo.
+     *
+     * @return the credentials id, or null if none are configured
+     */
+    public @CheckForNull String getCredentialsId() {
+        return credentialsId;
+    }
+
+    /**
+     * Invalidates cached source info when a multibranch project's configuration is saved.
+     */
+    @Extension
+    public static class ProjectSaveListener extends SaveableListener {
+
+        @Override
+        public void onChange(Saveable o, XmlFile file) {
+            if (o instanceof WorkflowMultiBranchProject) {
+                invalidate((WorkflowMultiBranchProject) o);
+            }
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.cloudbees.plugins.credentials.common.UsernamePasswordCredentials;
 import com.google.common.base.Strings;
 import javax.annotation.CheckForNull;
 import org.jenkinsci.plugins.githubautostatus.BuildStatusConfig;
+import org.jenkinsci.plugins.githubautostatus.model.TestResults;
 
 /**
  * Encapsulates the logic of determining HTTP notifier configuration for a build.
@@ -18,6 +19,7 @@ public class HttpNotifierConfig extends AbstractNotifierConfig {
     private String httpEndpoint;
     private String httpCredentialsId;
     private boolean httpVerifySSL;
+    private TestResults.Detail testResultDetail;
 
     /**
      * Gets the repo owner.
@@ -73,6 +75,15 @@ public class HttpNotifierConfig extends AbstractNotifierConfig {
         return httpVerifySSL;
     }
 
+    /**
+     * Gets how much of a build's test results are sent.
+     *
+     * @return the detail level
+     */
+    public TestResults.Detail getTestResultDetail() {
+        return testResultDetail;
+    }
+
     /**
      * Returns credentials for accessing the HTTP endpoint if they are configured.
      *
@@ -97,6 +108,7 @@ public class HttpNotifierConfig extends AbstractNotifierConfig {
             httpNotifierConfig.httpEndpoint = config.getHttpEndpoint();
             httpNotifierConfig.httpCredentialsId = config.getHttpCredentialsId();
             httpNotifierConfig.httpVerifySSL = config.getHttpVerifySSL();
+            httpNotifierConfig.testResultDetail = config.getHttpTestResultDetail();
         }
 
         return httpNotifierConfig;
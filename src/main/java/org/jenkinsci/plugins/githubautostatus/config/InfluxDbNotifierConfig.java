@@ -35,6 +35,7 @@ import org.apache.commons.lang.StringUtils;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClients;
 import org.jenkinsci.plugins.githubautostatus.BuildStatusConfig;
+import org.jenkinsci.plugins.githubautostatus.model.TestResults;
 import org.jenkinsci.plugins.githubautostatus.notifiers.InfluxDbNotifierSchemas;
 
 /**
@@ -53,6 +54,8 @@ public class InfluxDbNotifierConfig extends AbstractNotifierConfig {
     private String influxDbRetentionPolicy;
     private boolean ignoreSendingTestCoverageToInflux;
     private boolean ignoreSendingTestResultsToInflux;
+    private TestResults.Detail testResultDetail;
+    private boolean testCaseDelta;
     private Integer schemaVersion;
 
     /**
@@ -183,6 +186,24 @@ public class InfluxDbNotifierConfig extends AbstractNotifierConfig {
         return ignoreSendingTestResultsToInflux;
     }
 
+    /**
+     * Gets how much of a build's test results are sent to InfluxDB.
+     *
+     * @return the detail level
+     */
+    public TestResults.Detail getTestResultDetail() {
+        return testResultDetail;
+    }
+
+    /**
+     * Gets whether only test cases which failed or changed since the previous build are sent to InfluxDB.
+     *
+     * @return true if unchanged passing test cases are left out
+     */
+    public boolean getTestCaseDelta() {
+        return testCaseDelta;
+    }
+
     /**
      * Creates an InfluxDB notification config based on the global settings.
      *
@@ -207,6 +228,8 @@ public class InfluxDbNotifierConfig extends AbstractNotifierConfig {
             influxDbNotifierConfig.influxDbRetentionPolicy = config.getInfluxDbRetentionPolicy();
             influxDbNotifierConfig.ignoreSendingTestCoverageToInflux = config.getIgnoreSendingTestCoverageToInflux();
             influxDbNotifierConfig.ignoreSendingTestResultsToInflux = config.getIgnoreSendingTestResultsToInflux();
+            influxDbNotifierConfig.testResultDetail = config.getInfluxDbTestResultDetail();
+            influxDbNotifierConfig.testCaseDelta = config.getInfluxDbTestCaseDelta();
             influxDbNotifierConfig.schemaVersion = config.getDbVersion();
         }
 
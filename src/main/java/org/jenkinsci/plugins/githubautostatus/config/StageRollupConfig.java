@@ -0,0 +1,68 @@
+package org.jenkinsci.plugins.githubautostatus.config;
+
+import java.util.regex.Pattern;
+import org.jenkinsci.plugins.githubautostatus.BuildStatusConfig;
+
+/**
+ * Encapsulates the logic of deciding which stages of a build are rolled up
+ * into a single entry rather than tracked separately.
+ */
+public class StageRollupConfig {
+
+    private int maxStages;
+    private Pattern rollupPattern;
+
+    /**
+     * Gets the most stages tracked separately.
+     *
+     * @return the stage limit, or zero for no limit
+     */
+    public int getMaxStages() {
+        return maxStages;
+    }
+
+    /**
+     * Gets the pattern of stage names which are always rolled up.
+     *
+     * @return the pattern, or null if there's none
+     */
+    public Pattern getRollupPattern() {
+        return rollupPattern;
+    }
+
+    /**
+     * Determines whether a new stage should be rolled up.
+     *
+     * @param stageName     name of the new stage
+     * @param trackedStages number of stages already tracked separately
+     * @return true if the stage should be rolled up
+     */
+    public boolean shouldRollUp(String stageName, int trackedStages) {
+        if (maxStages > 0 && trackedStages >= maxStages) {
+            return true;
+        }
+        return rollupPattern != null
+                && stageName != null
+                && rollupPattern.matcher(stageName).matches();
+    }
+
+    /**
+     * Creates the rollup config from the global settings.
+     *
+     * @return the config, or null if no stages are rolled up
+     */
+    public static StageRollupConfig fromGlobalConfig() {
+        BuildStatusConfig config = BuildStatusConfig.get();
+        StageRollupConfig stageRollupConfig = null;
+
+        int maxStages = config.getMaxStagesValue();
+        Pattern rollupPattern = config.getStageRollupRegex();
+        if (maxStages > 0 || rollupPattern != null) {
+            stageRollupConfig = new StageRollupConfig();
+            stageRollupConfig.maxStages = maxStages;
+            stageRollupConfig.rollupPattern = rollupPattern;
+        }
+
+        return stageRollupConfig;
+    }
+}
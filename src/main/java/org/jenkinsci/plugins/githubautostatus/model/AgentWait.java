@@ -0,0 +1,62 @@
+package org.jenkinsci.plugins.githubautostatus.model;
+
+import java.io.Serializable;
+
+/**
+ * One period a {@code node} step spent in the queue waiting for an agent.
+ */
+public class AgentWait implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String label;
+    private final long startTime;
+    private final long duration;
+
+    /**
+     * Id of the flow node starting the stage that requested the agent, or null
+     * if the request was made outside of a stage.
+     */
+    private String stageId;
+
+    private String stageName;
+
+    public AgentWait(String label, long startTime, long duration) {
+        this.label = label;
+        this.startTime = startTime;
+        this.duration = duration;
+    }
+
+    /**
+     * Gets the label expression the agent was requested with.
+     *
+     * @return the label expression, or null if any agent would do
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public long getDuration() {
+        return duration;
+    }
+
+    public String getStageId() {
+        return stageId;
+    }
+
+    public void setStageId(String stageId) {
+        this.stageId = stageId;
+    }
+
+    public String getStageName() {
+        return stageName;
+    }
+
+    public void setStageName(String stageName) {
+        this.stageName = stageName;
+    }
+}
@@ -0,0 +1,332 @@
+package org.jenkinsci.plugins.githubautostatus.model;
+
+import hudson.model.Run;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.jenkinsci.plugins.githubautostatus.notifiers.BuildNotifierConstants;
+
+/**
+ * Sent to notifiers when a build completes. Timings are plain fields; the
+ * build's parameters, test results, coverage and agent waits are only
+ * gathered from the build if a notifier reads them.
+ */
+public class BuildCompleted implements BuildEvent {
+
+    /**
+     * The data which is only gathered from a build when it's read.
+     */
+    public enum Data {
+        BUILD_PARAMETERS,
+        TEST_RESULTS,
+        COVERAGE,
+        AGENT_WAITS
+    }
+
+    private final BuildStage.State buildState;
+    private final Run<?, ?> run;
+    private final String jobName;
+    private final String repoName;
+    private final String branchName;
+
+    private long jobDuration;
+    private long blockedDuration;
+    private long pausedDuration;
+    private long agentWaitDuration;
+    private CriticalPath criticalPath;
+
+    private Lazy<Map<String, Object>> buildParameters = Lazy.ofValue(Collections.emptyMap());
+    private Function<TestResults.Detail, TestResults> testResultsSource = detail -> null;
+    private final Map<TestResults.Detail, TestResults> testResults = new EnumMap<>(TestResults.Detail.class);
+    private Lazy<CodeCoverage> coverage = Lazy.ofValue(null);
+    private Lazy<TestOutcomes> previousTestOutcomes = Lazy.ofValue(null);
+    private volatile boolean testOutcomesWanted;
+    private Lazy<List<AgentWait>> agentWaits = Lazy.ofValue(null);
+
+    /**
+     * Constructs a {@link BuildCompleted}.
+     *
+     * @param buildState the build's result
+     * @param run the build
+     * @param jobName the name of the job
+     * @param repoName the repository name
+     * @param branchName the branch name
+     */
+    public BuildCompleted(
+            BuildStage.State buildState, Run<?, ?> run, String jobName, String repoName, String branchName) {
+        this.buildState = buildState;
+        this.run = run;
+        this.jobName = jobName;
+        this.repoName = repoName;
+        this.branchName = branchName;
+    }
+
+    /**
+     * Creates the event from the parameters of
+     * {@link org.jenkinsci.plugins.githubautostatus.notifiers.BuildNotifier#notifyFinalBuildStatus}.
+     *
+     * @param buildState the build's result
+     * @param parameters build parameters
+     * @return the event
+     */
+    @SuppressWarnings("unchecked")
+    public static BuildCompleted fromParameters(BuildStage.State buildState, Map<String, Object> parameters) {
+        String jobName = (String)
+                parameters.getOrDefault(BuildNotifierConstants.JOB_NAME, BuildNotifierConstants.DEFAULT_STRING);
+        BuildCompleted event = new BuildCompleted(
+                buildState,
+                (Run<?, ?>) parameters.get(BuildNotifierConstants.BUILD_OBJECT),
+                jobName,
+                (String) parameters.get(BuildNotifierConstants.REPO_NAME),
+                (String) parameters.get(BuildNotifierConstants.BRANCH_NAME));
+        event.jobDuration = BuildNotifierConstants.getLong(parameters, BuildNotifierConstants.JOB_DURATION);
+        event.blockedDuration = BuildNotifierConstants.getLong(parameters, BuildNotifierConstants.BLOCKED_DURATION);
+        event.pausedDuration = BuildNotifierConstants.getLong(parameters, BuildNotifierConstants.PAUSED_DURATION);
+        event.agentWaitDuration =
+                BuildNotifierConstants.getLong(parameters, BuildNotifierConstants.AGENT_WAIT_DURATION);
+        event.criticalPath = (CriticalPath) parameters.get(BuildNotifierConstants.CRITICAL_PATH);
+        event.buildParameters = Lazy.ofValue(parameters);
+        TestResults testResults = (TestResults) parameters.get(BuildNotifierConstants.TEST_CASE_INFO);
+        event.testResultsSource = detail -> testResults;
+        event.coverage = Lazy.ofValue((CodeCoverage) parameters.get(BuildNotifierConstants.COVERAGE_INFO));
+        event.agentWaits = Lazy.ofValue((List<AgentWait>) parameters.get(BuildNotifierConstants.AGENT_WAITS));
+        return event;
+    }
+
+    /**
+     * Creates the parameters of
+     * {@link org.jenkinsci.plugins.githubautostatus.notifiers.BuildNotifier#notifyFinalBuildStatus},
+     * gathering everything the event holds.
+     *
+     * @return build parameters
+     */
+    public Map<String, Object> toParameters() {
+        return toParameters(EnumSet.allOf(Data.class));
+    }
+
+    /**
+     * Creates the parameters of
+     * {@link org.jenkinsci.plugins.githubautostatus.notifiers.BuildNotifier#notifyFinalBuildStatus},
+     * only gathering the data that's wanted.
+     *
+     * @param wanted the data to include
+     * @return build parameters
+     */
+    public Map<String, Object> toParameters(Set<Data> wanted) {
+        Map<String, Object> parameters = wanted.contains(Data.BUILD_PARAMETERS)
+                ? new HashMap<>(getBuildParameters())
+                : new HashMap<>();
+        parameters.put(BuildNotifierConstants.BUILD_OBJECT, run);
+        parameters.put(BuildNotifierConstants.JOB_DURATION, jobDuration);
+        parameters.put(BuildNotifierConstants.BLOCKED_DURATION, blockedDuration);
+        parameters.put(BuildNotifierConstants.PAUSED_DURATION, pausedDuration);
+        if (wanted.contains(Data.TEST_RESULTS)) {
+            parameters.put(BuildNotifierConstants.TEST_CASE_INFO, getTestResults());
+        }
+        if (wanted.contains(Data.COVERAGE)) {
+            parameters.put(BuildNotifierConstants.COVERAGE_INFO, getCoverage());
+        }
+        if (getAgentWaits() != null) {
+            parameters.put(BuildNotifierConstants.AGENT_WAIT_DURATION, agentWaitDuration);
+            if (wanted.contains(Data.AGENT_WAITS)) {
+                parameters.put(BuildNotifierConstants.AGENT_WAITS, getAgentWaits());
+            }
+        }
+        if (criticalPath != null) {
+            parameters.put(BuildNotifierConstants.CRITICAL_PATH, criticalPath);
+        }
+        parameters.put(BuildNotifierConstants.JOB_NAME, jobName);
+        parameters.put(BuildNotifierConstants.REPO_NAME, repoName);
+        parameters.put(BuildNotifierConstants.BRANCH_NAME, branchName);
+        return parameters;
+    }
+
+    public BuildStage.State getBuildState() {
+        return buildState;
+    }
+
+    public Run<?, ?> getRun() {
+        return run;
+    }
+
+    @Override
+    public String getJobName() {
+        return jobName;
+    }
+
+    public String getRepoName() {
+        return repoName;
+    }
+
+    public String getBranchName() {
+        return branchName;
+    }
+
+    /**
+     * Gets the wall clock time of the build, including time blocked and paused.
+     *
+     * @return the build's duration, in milliseconds
+     */
+    public long getJobDuration() {
+        return jobDuration;
+    }
+
+    public void setJobDuration(long jobDuration) {
+        this.jobDuration = jobDuration;
+    }
+
+    public long getBlockedDuration() {
+        return blockedDuration;
+    }
+
+    public void setBlockedDuration(long blockedDuration) {
+        this.blockedDuration = blockedDuration;
+    }
+
+    public long getPausedDuration() {
+        return pausedDuration;
+    }
+
+    public void setPausedDuration(long pausedDuration) {
+        this.pausedDuration = pausedDuration;
+    }
+
+    /**
+     * Gets the time the build spent running, excluding time blocked and paused.
+     *
+     * @return the build's running time, in milliseconds
+     */
+    public long getRunningDuration() {
+        return jobDuration - blockedDuration - pausedDuration;
+    }
+
+    public long getAgentWaitDuration() {
+        return agentWaitDuration;
+    }
+
+    public void setAgentWaitDuration(long agentWaitDuration) {
+        this.agentWaitDuration = agentWaitDuration;
+    }
+
+    public CriticalPath getCriticalPath() {
+        return criticalPath;
+    }
+
+    public void setCriticalPath(CriticalPath criticalPath) {
+        this.criticalPath = criticalPath;
+    }
+
+    /**
+     * Gets the parameters the build was run with.
+     *
+     * @return the build parameters by name
+     */
+    public Map<String, Object> getBuildParameters() {
+        return buildParameters.get();
+    }
+
+    public void setBuildParameters(Supplier<Map<String, Object>> buildParameters) {
+        this.buildParameters = Lazy.of(buildParameters);
+    }
+
+    /**
+     * Gets the build's test results, with every test case.
+     *
+     * @return the test results, or null if there are none
+     */
+    public TestResults getTestResults() {
+        return getTestResults(TestResults.Detail.CASE);
+    }
+
+    /**
+     * Gets the build's test results, gathering them the first time they're
+     * read at each level of detail.
+     *
+     * @param detail how much of the results to gather; null for every test case
+     * @return the test results, or null if there are none
+     */
+    public TestResults getTestResults(TestResults.Detail detail) {
+        TestResults.Detail wanted = detail == null ? TestResults.Detail.CASE : detail;
+        synchronized (testResults) {
+            if (!testResults.containsKey(wanted)) {
+                testResults.put(wanted, testResultsSource.apply(wanted));
+            }
+            return testResults.get(wanted);
+        }
+    }
+
+    /**
+     * Sets where the build's test results come from, regardless of the detail asked for.
+     *
+     * @param testResults gathers the test results; called at most once
+     */
+    public void setTestResults(Supplier<TestResults> testResults) {
+        Lazy<TestResults> lazy = Lazy.of(testResults);
+        setTestResults(detail -> lazy.get());
+    }
+
+    /**
+     * Sets where the build's test results come from.
+     *
+     * @param testResults gathers the test results at a level of detail;
+     *     called at most once for each level
+     */
+    public void setTestResults(Function<TestResults.Detail, TestResults> testResults) {
+        synchronized (this.testResults) {
+            this.testResultsSource = testResults;
+            this.testResults.clear();
+        }
+    }
+
+    /**
+     * Gets the outcomes of the test cases in the job's previous build, and
+     * marks this build's outcomes as wanted by the next one.
+     *
+     * @return the previous outcomes, or null if they weren't recorded
+     */
+    public TestOutcomes getPreviousTestOutcomes() {
+        testOutcomesWanted = true;
+        return previousTestOutcomes.get();
+    }
+
+    public void setPreviousTestOutcomes(Supplier<TestOutcomes> previousTestOutcomes) {
+        this.previousTestOutcomes = Lazy.of(previousTestOutcomes);
+    }
+
+    /**
+     * Gets whether a notifier compared this build's test cases with the
+     * previous build's, so this build's outcomes should be recorded too.
+     *
+     * @return true if the previous outcomes were read
+     */
+    public boolean isTestOutcomesWanted() {
+        return testOutcomesWanted;
+    }
+
+    public CodeCoverage getCoverage() {
+        return coverage.get();
+    }
+
+    public void setCoverage(Supplier<CodeCoverage> coverage) {
+        this.coverage = Lazy.of(coverage);
+    }
+
+    /**
+     * Gets the build's waits for an agent.
+     *
+     * @return the waits, or null if they weren't recorded
+     */
+    public List<AgentWait> getAgentWaits() {
+        return agentWaits.get();
+    }
+
+    public void setAgentWaits(Supplier<List<AgentWait>> agentWaits) {
+        this.agentWaits = Lazy.of(agentWaits);
+    }
+}
@@ -0,0 +1,65 @@
+package org.jenkinsci.plugins.githubautostatus.model;
+
+import hudson.model.Cause;
+import hudson.model.Run;
+import org.jenkinsci.plugins.githubautostatus.notifiers.BuildNotifierConstants;
+
+/**
+ * The identity of a build which notifiers send with each of its metrics. It's
+ * looked up from the run once, when the build's notifiers are connected,
+ * rather than again for every stage, test case and notifier.
+ */
+public final class BuildContext {
+
+    private final String jobName;
+    private final String buildUrl;
+    private final int buildNumber;
+    private final String buildCause;
+
+    /**
+     * Constructs a {@link BuildContext}.
+     *
+     * @param jobName the name of the job
+     * @param buildUrl the build's URL, relative to Jenkins
+     * @param buildNumber the build number
+     * @param buildCause short description of what started the build
+     */
+    public BuildContext(String jobName, String buildUrl, int buildNumber, String buildCause) {
+        this.jobName = jobName;
+        this.buildUrl = buildUrl;
+        this.buildNumber = buildNumber;
+        this.buildCause = buildCause;
+    }
+
+    /**
+     * Looks up the identity of a build.
+     *
+     * @param jobName the name of the job
+     * @param run the build
+     * @return the build's identity
+     */
+    public static BuildContext of(String jobName, Run<?, ?> run) {
+        Cause cause = run.getCause(Cause.class);
+        return new BuildContext(
+                jobName,
+                run.getUrl(),
+                run.getNumber(),
+                cause == null ? BuildNotifierConstants.DEFAULT_STRING : cause.getShortDescription());
+    }
+
+    public String getJobName() {
+        return jobName;
+    }
+
+    public String getBuildUrl() {
+        return buildUrl;
+    }
+
+    public int getBuildNumber() {
+        return buildNumber;
+    }
+
+    public String getBuildCause() {
+        return buildCause;
+    }
+}
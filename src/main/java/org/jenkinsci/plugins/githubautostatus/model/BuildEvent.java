@@ -0,0 +1,15 @@
+package org.jenkinsci.plugins.githubautostatus.model;
+
+/**
+ * An event sent to notifiers: a stage or build completing, or an error
+ * outside of a stage.
+ */
+public interface BuildEvent {
+
+    /**
+     * Gets the name of the job the event is for.
+     *
+     * @return the job name
+     */
+    String getJobName();
+}
@@ -23,11 +23,16 @@
  */
 package org.jenkinsci.plugins.githubautostatus.model;
 
+import hudson.model.JobProperty;
 import hudson.model.Result;
 import hudson.model.Run;
 import java.io.Serializable;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import javax.annotation.Nonnull;
 import org.jenkinsci.plugins.githubautostatus.notifiers.BuildNotifierConstants;
 
@@ -39,19 +44,70 @@ public class BuildStage implements Serializable {
 
     private static final long serialVersionUID = 1L;
 
+    private static final AtomicReferenceFieldUpdater<BuildStage, State> BUILD_STATE =
+            AtomicReferenceFieldUpdater.newUpdater(BuildStage.class, State.class, "buildState");
+
+    private static final AtomicLongFieldUpdater<BuildStage> START_TIME =
+            AtomicLongFieldUpdater.newUpdater(BuildStage.class, "startTime");
+
+    private static final AtomicIntegerFieldUpdater<BuildStage> COMPLETION_CLAIMED =
+            AtomicIntegerFieldUpdater.newUpdater(BuildStage.class, "completionClaimed");
+
     private String stageName;
 
+    /**
+     * Id of the flow node that starts the stage, once the stage has started.
+     */
+    private String stageId;
+
+    /**
+     * Id of the flow node that starts the enclosing stage, or null for a top level stage.
+     */
+    private String parentId;
+
+    /**
+     * Values set for this stage alone, layered over {@link #sharedEnvironment}.
+     */
     @SkipSerialisation
     private Map<String, Object> environment;
 
-    private State buildState;
+    @SkipSerialisation
+    private transient SharedEnvironment sharedEnvironment = SharedEnvironment.EMPTY;
+
+    private volatile State buildState;
     private transient Run<?, ?> run;
 
     @SkipSerialisation
     private boolean isStage = true;
 
-    private long duration;
-    private boolean passed;
+    private volatile long duration;
+
+    /**
+     * Time the stage started, in milliseconds since the epoch, or zero if unknown.
+     */
+    private volatile long startTime;
+
+    /**
+     * Time the stage spent paused (e.g. waiting for input), which isn't included in its duration.
+     */
+    private long pausedDuration;
+
+    /**
+     * Time {@code node} steps directly inside the stage spent waiting for an agent.
+     */
+    private long agentWaitDuration;
+
+    /**
+     * Number of stages rolled up into this entry, or zero for an ordinary stage.
+     */
+    private volatile int stageCount;
+
+    private volatile boolean passed;
+
+    /**
+     * Set to one by the thread which completes the stage; see {@link #claimCompletion()}.
+     */
+    private transient volatile int completionClaimed;
 
     public enum State {
         Pending,
@@ -100,6 +156,28 @@ public class BuildStage implements Serializable {
         this.passed = buildState != State.CompletedError;
     }
 
+    /**
+     * Copies a stage, including its environment, state and timing.
+     *
+     * @param other the stage to copy
+     */
+    public BuildStage(BuildStage other) {
+        this.stageName = other.stageName;
+        this.stageId = other.stageId;
+        this.parentId = other.parentId;
+        this.environment = new HashMap<>(other.environment);
+        this.sharedEnvironment = other.sharedEnvironment;
+        this.buildState = other.buildState;
+        this.run = other.run;
+        this.isStage = other.isStage;
+        this.duration = other.duration;
+        this.startTime = other.startTime;
+        this.pausedDuration = other.pausedDuration;
+        this.agentWaitDuration = other.agentWaitDuration;
+        this.stageCount = other.stageCount;
+        this.passed = other.passed;
+    }
+
     public String getStageName() {
         return stageName;
     }
@@ -108,16 +186,91 @@ public class BuildStage implements Serializable {
         this.stageName = stageName;
     }
 
+    public String getStageId() {
+        return stageId;
+    }
+
+    public void setStageId(String stageId) {
+        this.stageId = stageId;
+    }
+
+    public String getParentId() {
+        return parentId;
+    }
+
+    public void setParentId(String parentId) {
+        this.parentId = parentId;
+    }
+
     public void addToEnvironment(String key, Object value) {
         environment.put(key, value);
-        Object timingInfo = environment.get(BuildNotifierConstants.STAGE_DURATION);
-        duration = timingInfo == null ? 0 : (long) timingInfo;
+        if (BuildNotifierConstants.STAGE_DURATION.equals(key)) {
+            duration = value == null ? 0 : (long) value;
+        }
     }
 
     public void addAllToEnvironment(Map<String, Object> environment) {
         environment.forEach(this::addToEnvironment);
     }
 
+    /**
+     * Sets the environment shared with the build's other stages, which this
+     * stage's own values are layered over.
+     *
+     * @param sharedEnvironment the shared environment
+     */
+    public void setSharedEnvironment(SharedEnvironment sharedEnvironment) {
+        this.sharedEnvironment = sharedEnvironment == null ? SharedEnvironment.EMPTY : sharedEnvironment;
+    }
+
+    /**
+     * Gets an environment value, looking in this stage's own values before the
+     * shared ones.
+     *
+     * @param key the value's name
+     * @return the value, or null if there's none
+     */
+    public Object getEnvironmentValue(String key) {
+        Object value = environment.get(key);
+        if (value == null && !environment.containsKey(key)) {
+            value = sharedEnvironment.get().get(key);
+        }
+        return value;
+    }
+
+    /**
+     * Gets the stage's environment: the shared values, overridden by its own.
+     *
+     * @return unmodifiable map of the environment
+     */
+    public Map<String, Object> getEnvironment() {
+        Map<String, Object> shared = sharedEnvironment.get();
+        if (environment.isEmpty()) {
+            return shared;
+        }
+        Map<String, Object> merged = new HashMap<>(shared);
+        merged.putAll(environment);
+        return Collections.unmodifiableMap(merged);
+    }
+
+    /**
+     * Restores the shared environment, which isn't saved, and drops job
+     * properties copied into stages saved by older versions.
+     *
+     * @return this stage
+     */
+    protected Object readResolve() {
+        if (sharedEnvironment == null) {
+            sharedEnvironment = SharedEnvironment.EMPTY;
+        }
+        if (environment == null) {
+            environment = new HashMap<>();
+        } else {
+            environment.values().removeIf(value -> value instanceof JobProperty);
+        }
+        return this;
+    }
+
     public State getBuildState() {
         return buildState;
     }
@@ -127,6 +280,35 @@ public class BuildStage implements Serializable {
         passed = buildState != State.CompletedError;
     }
 
+    /**
+     * Moves the stage to a new state if it's still in the expected one. Once
+     * other threads can see the stage, use this rather than
+     * {@link #setBuildState} so that e.g. a pending stage completes exactly once.
+     *
+     * @param expected   the state the stage must be in
+     * @param buildState the new state
+     * @return true if the stage was moved to the new state
+     */
+    public boolean compareAndSetBuildState(State expected, State buildState) {
+        if (!BUILD_STATE.compareAndSet(this, expected, buildState)) {
+            return false;
+        }
+        passed = buildState != State.CompletedError;
+        return true;
+    }
+
+    /**
+     * Claims the right to complete a pending stage. Only one caller ever gets
+     * it; that caller should record the stage's timings and then move it out
+     * of {@link State#Pending}, so that any thread which sees the stage
+     * completed also sees its timings.
+     *
+     * @return true if the caller should complete the stage
+     */
+    public boolean claimCompletion() {
+        return buildState == State.Pending && COMPLETION_CLAIMED.compareAndSet(this, 0, 1);
+    }
+
     public Run<?, ?> getRun() {
         return run;
     }
@@ -147,7 +329,74 @@ public class BuildStage implements Serializable {
         return duration;
     }
 
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(long startTime) {
+        this.startTime = startTime;
+    }
+
+    /**
+     * Records when the stage started, unless a start time is already known.
+     *
+     * @param startTime time the stage started
+     * @return true if the start time was recorded
+     */
+    public boolean startIfUnknown(long startTime) {
+        return START_TIME.compareAndSet(this, 0, startTime);
+    }
+
+    public long getPausedDuration() {
+        return pausedDuration;
+    }
+
+    public void setPausedDuration(long pausedDuration) {
+        this.pausedDuration = pausedDuration;
+    }
+
+    public long getAgentWaitDuration() {
+        return agentWaitDuration;
+    }
+
+    public void setAgentWaitDuration(long agentWaitDuration) {
+        this.agentWaitDuration = agentWaitDuration;
+    }
+
+    public int getStageCount() {
+        return stageCount;
+    }
+
+    public void setStageCount(int stageCount) {
+        this.stageCount = stageCount;
+    }
+
+    /**
+     * Folds a completed stage into this entry, adding to its count and
+     * duration. The entry stops passing once any stage folded into it fails.
+     *
+     * @param stageDuration duration of the stage
+     * @param stageState    state the stage completed with
+     */
+    public synchronized void rollUp(long stageDuration, State stageState) {
+        stageCount++;
+        addToEnvironment(BuildNotifierConstants.STAGE_DURATION, duration + stageDuration);
+        if (stageState == State.CompletedError) {
+            passed = false;
+        }
+    }
+
     public boolean isPassed() {
         return passed;
     }
+
+    /**
+     * Restores whether the stage passed, when it doesn't follow from the
+     * state; e.g. a pending rollup entry which a failed stage was folded into.
+     *
+     * @param passed whether the stage passed
+     */
+    void setPassed(boolean passed) {
+        this.passed = passed;
+    }
 }
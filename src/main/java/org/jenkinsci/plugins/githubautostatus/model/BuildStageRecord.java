@@ -0,0 +1,103 @@
+package org.jenkinsci.plugins.githubautostatus.model;
+
+import java.io.Serializable;
+import org.jenkinsci.plugins.githubautostatus.notifiers.BuildNotifierConstants;
+
+/**
+ * The saved form of a {@link BuildStage}: just enough to resume reporting a
+ * build and work out its critical path. Values which are zero or unset are
+ * left out so that each stage is saved as a single short element.
+ */
+public class BuildStageRecord implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Fields saved as XML attributes rather than child elements.
+     */
+    public static final String[] ATTRIBUTES = {
+        "name", "id", "parent", "state", "start", "duration", "paused", "agentWait", "count", "passed", "nonStage"
+    };
+
+    private String name;
+    private String id;
+    private String parent;
+    private String state;
+    private Long start;
+    private Long duration;
+    private Long paused;
+    private Long agentWait;
+    private Integer count;
+
+    /**
+     * Whether the stage passed, only saved when it doesn't follow from the
+     * state; e.g. a pending rollup entry which a failed stage was folded into.
+     */
+    private Boolean passed;
+
+    private Boolean nonStage;
+
+    /**
+     * Creates the saved form of a stage.
+     *
+     * @param stage the stage
+     * @return the saved form
+     */
+    public static BuildStageRecord of(BuildStage stage) {
+        BuildStageRecord record = new BuildStageRecord();
+        record.name = stage.getStageName();
+        record.id = stage.getStageId();
+        record.parent = stage.getParentId();
+        record.state = stage.getBuildState() == null ? null : stage.getBuildState().name();
+        record.start = nonZero(stage.getStartTime());
+        record.duration = nonZero(stage.getDuration());
+        record.paused = nonZero(stage.getPausedDuration());
+        record.agentWait = nonZero(stage.getAgentWaitDuration());
+        record.count = stage.getStageCount() == 0 ? null : stage.getStageCount();
+        record.passed = stage.isPassed() == (stage.getBuildState() != BuildStage.State.CompletedError)
+                ? null
+                : stage.isPassed();
+        record.nonStage = stage.isStage() ? null : Boolean.TRUE;
+        return record;
+    }
+
+    /**
+     * Recreates the stage from its saved form.
+     *
+     * @return the stage
+     */
+    public BuildStage toBuildStage() {
+        BuildStage stage = new BuildStage(name);
+        stage.setStageId(id);
+        stage.setParentId(parent);
+        stage.setBuildState(state == null ? BuildStage.State.Pending : BuildStage.State.valueOf(state));
+        stage.setStartTime(orZero(start));
+        if (duration != null) {
+            stage.addToEnvironment(BuildNotifierConstants.STAGE_DURATION, duration);
+        }
+        stage.setPausedDuration(orZero(paused));
+        stage.setAgentWaitDuration(orZero(agentWait));
+        stage.setStageCount(count == null ? 0 : count);
+        if (passed != null) {
+            stage.setPassed(passed);
+        }
+        stage.setIsStage(nonStage == null || !nonStage);
+        return stage;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    private static Long nonZero(long value) {
+        return value == 0 ? null : value;
+    }
+
+    private static long orZero(Long value) {
+        return value == null ? 0 : value;
+    }
+}
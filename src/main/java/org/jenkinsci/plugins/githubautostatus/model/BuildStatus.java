@@ -16,12 +16,16 @@ public class BuildStatus {
     private String trigger;
     private boolean blocked;
     private long blockedTime;
+    private long pausedTime;
+    private long agentWaitTime;
+    private List<AgentWait> agentWaits;
     private long duration;
     private boolean passed;
     private BuildStage.State result;
     private TestResults testResult;
     private CodeCoverage coverage;
     private List<BuildStage> stages;
+    private CriticalPath criticalPath;
     private long timestamp;
 
     public BuildStatus() {
@@ -100,6 +104,30 @@ public class BuildStatus {
         this.blockedTime = blockedTime;
     }
 
+    public long getPausedTime() {
+        return pausedTime;
+    }
+
+    public void setPausedTime(long pausedTime) {
+        this.pausedTime = pausedTime;
+    }
+
+    public long getAgentWaitTime() {
+        return agentWaitTime;
+    }
+
+    public void setAgentWaitTime(long agentWaitTime) {
+        this.agentWaitTime = agentWaitTime;
+    }
+
+    public List<AgentWait> getAgentWaits() {
+        return agentWaits;
+    }
+
+    public void setAgentWaits(List<AgentWait> agentWaits) {
+        this.agentWaits = agentWaits;
+    }
+
     public long getDuration() {
         return duration;
     }
@@ -152,6 +180,14 @@ public class BuildStatus {
         stages.add(stage);
     }
 
+    public CriticalPath getCriticalPath() {
+        return criticalPath;
+    }
+
+    public void setCriticalPath(CriticalPath criticalPath) {
+        this.criticalPath = criticalPath;
+    }
+
     public long getTimestamp() {
         return timestamp;
     }
@@ -0,0 +1,54 @@
+package org.jenkinsci.plugins.githubautostatus.model;
+
+/**
+ * How GitHub credentials were refreshed over an export interval.
+ */
+public class CredentialRefreshStats {
+
+    private final long refreshed;
+    private final long failed;
+    private final long unauthorizedRetries;
+
+    public CredentialRefreshStats(long refreshed, long failed, long unauthorizedRetries) {
+        this.refreshed = refreshed;
+        this.failed = failed;
+        this.unauthorizedRetries = unauthorizedRetries;
+    }
+
+    /**
+     * Gets the number of successful background refreshes.
+     *
+     * @return the number of successful background refreshes
+     */
+    public long getRefreshed() {
+        return refreshed;
+    }
+
+    /**
+     * Gets the number of background refreshes that could not resolve credentials.
+     *
+     * @return the number of failed background refreshes
+     */
+    public long getFailed() {
+        return failed;
+    }
+
+    /**
+     * Gets the number of status writes which received HTTP 401 and had to
+     * refresh credentials inline.
+     *
+     * @return the number of HTTP 401 retries
+     */
+    public long getUnauthorizedRetries() {
+        return unauthorizedRetries;
+    }
+
+    /**
+     * Determines whether anything happened over the interval.
+     *
+     * @return true if all the counts are zero
+     */
+    public boolean isEmpty() {
+        return refreshed == 0 && failed == 0 && unauthorizedRetries == 0;
+    }
+}
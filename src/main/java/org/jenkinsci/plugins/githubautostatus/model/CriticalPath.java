@@ -0,0 +1,231 @@
+package org.jenkinsci.plugins.githubautostatus.model;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The chain of stages which determined a build's wall clock time, plus the
+ * spread between the slowest and fastest branch of each parallel block.
+ *
+ * <p>Stages are grouped by their parent stage. Among siblings, stages whose
+ * run times overlap are treated as branches of one parallel block; the branch
+ * which finished last is on the critical path, and the path continues into
+ * its nested stages.
+ */
+public class CriticalPath implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<String> stages;
+    private final long duration;
+    private final List<ParallelBlock> parallelBlocks;
+
+    private CriticalPath(List<String> stages, long duration, List<ParallelBlock> parallelBlocks) {
+        this.stages = stages;
+        this.duration = duration;
+        this.parallelBlocks = parallelBlocks;
+    }
+
+    /**
+     * Computes the critical path through a build's completed stages. Stages
+     * which never ran, or which have no timing information, are ignored.
+     *
+     * @param buildStages the build's stages
+     * @return the critical path
+     */
+    public static CriticalPath compute(Collection<BuildStage> buildStages) {
+        Map<String, List<BuildStage>> childrenByParent = new HashMap<>();
+        for (BuildStage stage : buildStages) {
+            if (stage.isStage()
+                    && stage.getBuildState() != BuildStage.State.Pending
+                    && stage.getStartTime() > 0) {
+                childrenByParent
+                        .computeIfAbsent(stage.getParentId(), k -> new ArrayList<>())
+                        .add(stage);
+            }
+        }
+
+        List<ParallelBlock> parallelBlocks = new ArrayList<>();
+        Map<String, List<List<BuildStage>>> blocksByParent = new HashMap<>();
+        childrenByParent.forEach((parentId, siblings) -> {
+            List<List<BuildStage>> blocks = groupOverlapping(siblings);
+            blocksByParent.put(parentId, blocks);
+            for (List<BuildStage> block : blocks) {
+                if (block.size() > 1) {
+                    parallelBlocks.add(ParallelBlock.of(parentName(buildStages, parentId), block));
+                }
+            }
+        });
+
+        List<String> path = new ArrayList<>();
+        long duration = 0;
+        for (List<BuildStage> block : blocksByParent.getOrDefault(null, new ArrayList<>())) {
+            BuildStage critical = lastToFinish(block);
+            duration += critical.getDuration();
+            addToPath(critical, blocksByParent, path);
+        }
+        return new CriticalPath(path, duration, parallelBlocks);
+    }
+
+    private static void addToPath(
+            BuildStage stage, Map<String, List<List<BuildStage>>> blocksByParent, List<String> path) {
+        path.add(stage.getStageName());
+        if (stage.getStageId() == null) {
+            return;
+        }
+        for (List<BuildStage> block : blocksByParent.getOrDefault(stage.getStageId(), new ArrayList<>())) {
+            addToPath(lastToFinish(block), blocksByParent, path);
+        }
+    }
+
+    /**
+     * Splits sibling stages into runs of stages whose times overlap, in start order.
+     */
+    private static List<List<BuildStage>> groupOverlapping(List<BuildStage> siblings) {
+        siblings.sort(Comparator.comparingLong(BuildStage::getStartTime));
+        List<List<BuildStage>> blocks = new ArrayList<>();
+        List<BuildStage> current = null;
+        long currentEnd = 0;
+        for (BuildStage stage : siblings) {
+            long end = endTime(stage);
+            if (current == null || stage.getStartTime() >= currentEnd) {
+                current = new ArrayList<>();
+                blocks.add(current);
+                currentEnd = end;
+            } else {
+                currentEnd = Math.max(currentEnd, end);
+            }
+            current.add(stage);
+        }
+        return blocks;
+    }
+
+    private static BuildStage lastToFinish(List<BuildStage> block) {
+        return block.stream()
+                .max(Comparator.comparingLong(CriticalPath::endTime).thenComparingLong(BuildStage::getDuration))
+                .get();
+    }
+
+    /**
+     * Gets the wall clock time a stage ended; its duration excludes time spent paused.
+     */
+    private static long endTime(BuildStage stage) {
+        return stage.getStartTime() + stage.getDuration() + stage.getPausedDuration();
+    }
+
+    private static String parentName(Collection<BuildStage> buildStages, String parentId) {
+        if (parentId == null) {
+            return null;
+        }
+        for (BuildStage stage : buildStages) {
+            if (parentId.equals(stage.getStageId())) {
+                return stage.getStageName();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the names of the stages on the critical path, outermost first.
+     *
+     * @return stage names
+     */
+    public List<String> getStages() {
+        return stages;
+    }
+
+    /**
+     * Gets the total duration of the top level stages on the critical path.
+     *
+     * @return duration in milliseconds
+     */
+    public long getDuration() {
+        return duration;
+    }
+
+    /**
+     * Gets the parallel blocks found in the build.
+     *
+     * @return parallel blocks
+     */
+    public List<ParallelBlock> getParallelBlocks() {
+        return parallelBlocks;
+    }
+
+    /**
+     * A group of sibling stages which ran at the same time.
+     */
+    public static class ParallelBlock implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String stageName;
+        private final int branchCount;
+        private final String slowestBranch;
+        private final String fastestBranch;
+        private final long skew;
+
+        private ParallelBlock(
+                String stageName, int branchCount, String slowestBranch, String fastestBranch, long skew) {
+            this.stageName = stageName;
+            this.branchCount = branchCount;
+            this.slowestBranch = slowestBranch;
+            this.fastestBranch = fastestBranch;
+            this.skew = skew;
+        }
+
+        static ParallelBlock of(String stageName, List<BuildStage> branches) {
+            BuildStage slowest = branches.get(0);
+            BuildStage fastest = branches.get(0);
+            for (BuildStage branch : branches) {
+                if (branch.getDuration() > slowest.getDuration()) {
+                    slowest = branch;
+                }
+                if (branch.getDuration() < fastest.getDuration()) {
+                    fastest = branch;
+                }
+            }
+            return new ParallelBlock(
+                    stageName,
+                    branches.size(),
+                    slowest.getStageName(),
+                    fastest.getStageName(),
+                    slowest.getDuration() - fastest.getDuration());
+        }
+
+        /**
+         * Gets the name of the stage containing the block.
+         *
+         * @return the enclosing stage name, or null for a top level block
+         */
+        public String getStageName() {
+            return stageName;
+        }
+
+        public int getBranchCount() {
+            return branchCount;
+        }
+
+        public String getSlowestBranch() {
+            return slowestBranch;
+        }
+
+        public String getFastestBranch() {
+            return fastestBranch;
+        }
+
+        /**
+         * Gets the difference between the slowest and fastest branch.
+         *
+         * @return skew in milliseconds
+         */
+        public long getSkew() {
+            return skew;
+        }
+    }
+}
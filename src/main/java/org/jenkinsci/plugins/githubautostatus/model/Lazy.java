@@ -0,0 +1,73 @@
+package org.jenkinsci.plugins.githubautostatus.model;
+
+import java.util.function.Supplier;
+
+/**
+ * A value which is only worked out the first time it's read, for data that's
+ * expensive to gather and which not every notifier needs.
+ *
+ * @param <T> type of the value
+ */
+public final class Lazy<T> implements Supplier<T> {
+
+    private Supplier<? extends T> source;
+    private volatile boolean computed;
+    private T value;
+
+    private Lazy(Supplier<? extends T> source) {
+        this.source = source;
+    }
+
+    /**
+     * Creates a value which is worked out when first read.
+     *
+     * @param source works out the value; called at most once
+     * @param <T> type of the value
+     * @return the lazy value
+     */
+    public static <T> Lazy<T> of(Supplier<? extends T> source) {
+        return new Lazy<>(source);
+    }
+
+    /**
+     * Creates a value which is already known.
+     *
+     * @param value the value, which may be null
+     * @param <T> type of the value
+     * @return the lazy value
+     */
+    public static <T> Lazy<T> ofValue(T value) {
+        Lazy<T> lazy = new Lazy<>(null);
+        lazy.value = value;
+        lazy.computed = true;
+        return lazy;
+    }
+
+    /**
+     * Gets the value, working it out if this is the first read.
+     *
+     * @return the value, which may be null
+     */
+    @Override
+    public T get() {
+        if (!computed) {
+            synchronized (this) {
+                if (!computed) {
+                    value = source.get();
+                    source = null;
+                    computed = true;
+                }
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Gets whether the value has been worked out yet.
+     *
+     * @return true once the value has been read
+     */
+    public boolean isComputed() {
+        return computed;
+    }
+}
@@ -0,0 +1,34 @@
+package org.jenkinsci.plugins.githubautostatus.model;
+
+/**
+ * Sent to notifiers which want them when a step fails outside of any stage.
+ */
+public class NonStageError implements BuildEvent {
+
+    private final String jobName;
+    private final BuildStage stage;
+
+    /**
+     * Constructs a {@link NonStageError}.
+     *
+     * @param jobName the name of the job
+     * @param stage entry for the failed step, named after it
+     */
+    public NonStageError(String jobName, BuildStage stage) {
+        this.jobName = jobName;
+        this.stage = stage;
+    }
+
+    @Override
+    public String getJobName() {
+        return jobName;
+    }
+
+    public BuildStage getStage() {
+        return stage;
+    }
+
+    public String getNodeName() {
+        return stage.getStageName();
+    }
+}
@@ -0,0 +1,63 @@
+package org.jenkinsci.plugins.githubautostatus.model;
+
+import java.util.Locale;
+
+/**
+ * Queue wait times for one label and queue phase over an export interval.
+ */
+public class QueueLatency {
+
+    /**
+     * The part of an item's time in the queue that a histogram measures.
+     */
+    public enum Phase {
+        /**
+         * From entering the queue until leaving it.
+         */
+        Queued,
+        /**
+         * Time spent blocked, e.g. by another build of the same job.
+         */
+        Blocked,
+        /**
+         * Time spent buildable but waiting for an executor.
+         */
+        Buildable;
+
+        /**
+         * Gets the name used for the phase in metric names and tags.
+         *
+         * @return lower case phase name
+         */
+        public String getMetricName() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final String label;
+    private final Phase phase;
+    private final QueueLatencyHistogram.Snapshot snapshot;
+
+    public QueueLatency(String label, Phase phase, QueueLatencyHistogram.Snapshot snapshot) {
+        this.label = label;
+        this.phase = phase;
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * Gets the label expression the items were assigned to.
+     *
+     * @return label expression
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    public Phase getPhase() {
+        return phase;
+    }
+
+    public QueueLatencyHistogram.Snapshot getSnapshot() {
+        return snapshot;
+    }
+}
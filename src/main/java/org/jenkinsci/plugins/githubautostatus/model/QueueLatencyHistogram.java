@@ -0,0 +1,131 @@
+package org.jenkinsci.plugins.githubautostatus.model;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock free histogram of queue wait times, with one bucket per power of two
+ * milliseconds. Recording is a handful of atomic operations, so it is cheap
+ * enough to call from queue listeners; percentiles are only as precise as the
+ * buckets, i.e. within a factor of two.
+ */
+public class QueueLatencyHistogram {
+
+    /**
+     * Bucket 0 holds zero millisecond waits; bucket {@code i} holds waits from
+     * {@code 2^(i-1)} up to {@code 2^i - 1} milliseconds. The last bucket
+     * also holds anything longer.
+     */
+    static final int BUCKET_COUNT = 40;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Records one wait.
+     *
+     * @param millis the wait time in milliseconds; negative values count as zero
+     */
+    public void record(long millis) {
+        long value = Math.max(0, millis);
+        buckets.incrementAndGet(bucketFor(value));
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * Takes the waits recorded since the last call and resets the histogram.
+     * Waits recorded while draining may land in either this snapshot or the
+     * next one, but are never lost.
+     *
+     * @return the waits recorded since the last drain
+     */
+    public Snapshot drain() {
+        long[] counts = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = buckets.getAndSet(i, 0);
+        }
+        return new Snapshot(counts, sum.sumThenReset(), max.getThenReset());
+    }
+
+    static int bucketFor(long millis) {
+        return Math.min(BUCKET_COUNT - 1, 64 - Long.numberOfLeadingZeros(millis));
+    }
+
+    static long upperBound(int bucket) {
+        return (1L << bucket) - 1;
+    }
+
+    /**
+     * An immutable view of the waits recorded over one export interval.
+     */
+    public static class Snapshot {
+
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        Snapshot(long[] counts, long sum, long max) {
+            this.counts = counts;
+            long total = 0;
+            for (long bucketCount : counts) {
+                total += bucketCount;
+            }
+            this.count = total;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        /**
+         * Gets the number of waits.
+         *
+         * @return number of waits
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Gets the total of all waits.
+         *
+         * @return total wait time in milliseconds
+         */
+        public long getSum() {
+            return sum;
+        }
+
+        /**
+         * Gets the longest wait.
+         *
+         * @return longest wait in milliseconds
+         */
+        public long getMax() {
+            return max;
+        }
+
+        /**
+         * Estimates a percentile as the upper bound of the bucket it falls in,
+         * capped at the longest wait.
+         *
+         * @param percentile percentile, from 0 to 100
+         * @return estimated wait in milliseconds, or zero if there were no waits
+         */
+        public long getPercentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(upperBound(i), max);
+                }
+            }
+            return max;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package org.jenkinsci.plugins.githubautostatus.model;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Environment values shared by all the stages of a build, such as the job's
+ * properties. The values are only looked up the first time they're read, and
+ * can't be changed afterwards; stages layer their own values over them.
+ */
+public final class SharedEnvironment {
+
+    public static final SharedEnvironment EMPTY = new SharedEnvironment(Collections::emptyMap);
+
+    private final Supplier<Map<String, Object>> source;
+    private volatile Map<String, Object> values;
+
+    /**
+     * Creates a shared environment.
+     *
+     * @param source looks up the values; called at most once
+     */
+    public SharedEnvironment(Supplier<Map<String, Object>> source) {
+        this.source = source;
+    }
+
+    /**
+     * Gets the values, looking them up if this is the first read.
+     *
+     * @return unmodifiable map of the values
+     */
+    public Map<String, Object> get() {
+        Map<String, Object> result = values;
+        if (result == null) {
+            synchronized (this) {
+                result = values;
+                if (result == null) {
+                    result = Collections.unmodifiableMap(new HashMap<>(source.get()));
+                    values = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets whether the values have been looked up yet.
+     *
+     * @return true once the values have been read
+     */
+    public boolean isMaterialized() {
+        return values != null;
+    }
+}
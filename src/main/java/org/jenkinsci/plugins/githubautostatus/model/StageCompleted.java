@@ -0,0 +1,69 @@
+package org.jenkinsci.plugins.githubautostatus.model;
+
+/**
+ * Sent to notifiers when a stage completes, with the stage's state and
+ * timings as they were when it completed.
+ */
+public class StageCompleted implements BuildEvent {
+
+    private final String jobName;
+    private final BuildStage stage;
+    private final BuildStage.State buildState;
+    private final long startTime;
+    private final long duration;
+    private final long pausedDuration;
+    private final long agentWaitDuration;
+
+    /**
+     * Constructs a {@link StageCompleted}.
+     *
+     * @param jobName the name of the job
+     * @param stage the completed stage
+     */
+    public StageCompleted(String jobName, BuildStage stage) {
+        this.jobName = jobName;
+        this.stage = stage;
+        this.buildState = stage.getBuildState();
+        this.startTime = stage.getStartTime();
+        this.duration = stage.getDuration();
+        this.pausedDuration = stage.getPausedDuration();
+        this.agentWaitDuration = stage.getAgentWaitDuration();
+    }
+
+    @Override
+    public String getJobName() {
+        return jobName;
+    }
+
+    public BuildStage getStage() {
+        return stage;
+    }
+
+    public String getStageName() {
+        return stage.getStageName();
+    }
+
+    public BuildStage.State getBuildState() {
+        return buildState;
+    }
+
+    public boolean isPassed() {
+        return buildState != BuildStage.State.CompletedError;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public long getDuration() {
+        return duration;
+    }
+
+    public long getPausedDuration() {
+        return pausedDuration;
+    }
+
+    public long getAgentWaitDuration() {
+        return agentWaitDuration;
+    }
+}
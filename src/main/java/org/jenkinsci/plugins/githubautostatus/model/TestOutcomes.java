@@ -0,0 +1,124 @@
+package org.jenkinsci.plugins.githubautostatus.model;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.stream.LongStream;
+
+/**
+ * A compact record of the test cases in a build which didn't pass, kept so
+ * the next build only needs to report the cases which failed or changed.
+ * Cases are kept as 64-bit hashes of their suite and case names in sorted
+ * arrays, and cases which passed aren't kept at all since nearly all do.
+ */
+public final class TestOutcomes implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final long[] failed;
+    private final long[] skipped;
+
+    private TestOutcomes(long[] failed, long[] skipped) {
+        this.failed = failed;
+        this.skipped = skipped;
+    }
+
+    /**
+     * Records the outcomes of a build's test cases.
+     *
+     * @param testResults the build's test results, with every test case
+     * @return the outcomes
+     */
+    public static TestOutcomes of(TestResults testResults) {
+        LongStream.Builder failed = LongStream.builder();
+        LongStream.Builder skipped = LongStream.builder();
+        for (TestSuite testSuite : testResults.getTestSuites()) {
+            for (TestCase testCase : testSuite.getTestCases()) {
+                TestCase.TestCaseResult outcome = outcomeOf(testCase);
+                if (outcome == TestCase.TestCaseResult.Failed) {
+                    failed.add(key(testSuite.getName(), testCase.getName()));
+                } else if (outcome == TestCase.TestCaseResult.Skipped) {
+                    skipped.add(key(testSuite.getName(), testCase.getName()));
+                }
+            }
+        }
+        return new TestOutcomes(
+                failed.build().sorted().distinct().toArray(),
+                skipped.build().sorted().distinct().toArray());
+    }
+
+    /**
+     * Gets the outcome of a test case in the recorded build. Cases which
+     * weren't run are taken to have passed.
+     *
+     * @param suiteName name of the suite
+     * @param caseName name of the case
+     * @return the outcome
+     */
+    public TestCase.TestCaseResult getOutcome(String suiteName, String caseName) {
+        long key = key(suiteName, caseName);
+        if (Arrays.binarySearch(failed, key) >= 0) {
+            return TestCase.TestCaseResult.Failed;
+        }
+        if (Arrays.binarySearch(skipped, key) >= 0) {
+            return TestCase.TestCaseResult.Skipped;
+        }
+        return TestCase.TestCaseResult.Passed;
+    }
+
+    /**
+     * Determines whether a test case is worth reporting in the build after
+     * the recorded one: it failed, or its outcome changed.
+     *
+     * @param suiteName name of the suite
+     * @param testCase the case in the later build
+     * @return true if the case should be reported
+     */
+    public boolean isFailedOrChanged(String suiteName, TestCase testCase) {
+        TestCase.TestCaseResult outcome = outcomeOf(testCase);
+        return outcome == TestCase.TestCaseResult.Failed
+                || outcome != getOutcome(suiteName, testCase.getName());
+    }
+
+    /**
+     * Gets the number of cases which didn't pass.
+     *
+     * @return failed and skipped cases
+     */
+    public int size() {
+        return failed.length + skipped.length;
+    }
+
+    private static TestCase.TestCaseResult outcomeOf(TestCase testCase) {
+        if (testCase.isFailed()) {
+            return TestCase.TestCaseResult.Failed;
+        }
+        if (testCase.isSkipped()) {
+            return TestCase.TestCaseResult.Skipped;
+        }
+        return TestCase.TestCaseResult.Passed;
+    }
+
+    /**
+     * Hashes a case's suite and name with 64-bit FNV-1a; collisions between
+     * the cases of one job are unlikely enough to ignore.
+     */
+    static long key(String suiteName, String caseName) {
+        long hash = FNV_OFFSET_BASIS;
+        hash = hash(hash, suiteName);
+        hash = (hash ^ 0xff) * FNV_PRIME;
+        return hash(hash, caseName);
+    }
+
+    private static long hash(long hash, String value) {
+        if (value != null) {
+            for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+                hash = (hash ^ (b & 0xff)) * FNV_PRIME;
+            }
+        }
+        return hash;
+    }
+}
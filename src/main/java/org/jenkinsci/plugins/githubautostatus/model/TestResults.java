@@ -28,8 +28,12 @@ import hudson.tasks.junit.CaseResult;
 import hudson.tasks.junit.SuiteResult;
 import hudson.tasks.junit.TestResultAction;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import javax.annotation.Nullable;
+import jenkins.util.SystemProperties;
 
 /**
  *
@@ -37,6 +41,14 @@ import javax.annotation.Nullable;
  */
 public class TestResults {
 
+    /**
+     * The fewest suites converted in parallel, which can be changed with the
+     * system property
+     * {@code org.jenkinsci.plugins.githubautostatus.model.TestResults.parallelSuiteThreshold}.
+     */
+    static final int PARALLEL_SUITE_THRESHOLD =
+            SystemProperties.getInteger(TestResults.class.getName() + ".parallelSuiteThreshold", 200);
+
     @SerializedName("passed")
     private int passedTestCaseCount;
 
@@ -57,28 +69,104 @@ public class TestResults {
         testSuites = new ArrayList<>();
     }
 
+    /**
+     * How much of a build's test results are gathered.
+     */
+    public enum Detail {
+        /**
+         * Only the pass, skip and fail totals, which don't need the results loaded.
+         */
+        SUMMARY,
+        /**
+         * The totals for each suite as well.
+         */
+        SUITE,
+        /**
+         * Every test case as well.
+         */
+        CASE
+    }
+
     public static TestResults fromJUnitTestResults(@Nullable TestResultAction testResultAction) {
+        return fromJUnitTestResults(testResultAction, Detail.CASE);
+    }
+
+    /**
+     * Creates the test results of a build, only going as far into the results as needed.
+     *
+     * @param testResultAction the build's test results
+     * @param detail how much of the results to gather
+     * @return the test results, or null if the build has none
+     */
+    public static TestResults fromJUnitTestResults(@Nullable TestResultAction testResultAction, Detail detail) {
+        return fromJUnitTestResults(testResultAction, detail, PARALLEL_SUITE_THRESHOLD);
+    }
+
+    /**
+     * Creates the test results of a build, converting the suites in parallel
+     * if there are enough of them.
+     *
+     * @param testResultAction the build's test results
+     * @param detail how much of the results to gather
+     * @param parallelSuiteThreshold the fewest suites converted in parallel; zero to never convert them in parallel
+     * @return the test results, or null if the build has none
+     */
+    static TestResults fromJUnitTestResults(
+            @Nullable TestResultAction testResultAction, Detail detail, int parallelSuiteThreshold) {
 
         if (testResultAction == null) {
             return null;
         }
         TestResults testResults = new TestResults();
-        for (SuiteResult suiteResult : testResultAction.getResult().getSuites()) {
-            TestSuite testSuite = new TestSuite();
-            testSuite.setName(suiteResult.getName());
-            testSuite.setDuration(suiteResult.getDuration());
+        if (detail == Detail.SUMMARY) {
+            testResults.failedTestCaseCount = testResultAction.getFailCount();
+            testResults.skippedTestCaseCount = testResultAction.getSkipCount();
+            testResults.passedTestCaseCount = testResultAction.getTotalCount()
+                    - testResults.failedTestCaseCount
+                    - testResults.skippedTestCaseCount;
+            return testResults;
+        }
+        List<SuiteResult> suiteResults = new ArrayList<>(testResultAction.getResult().getSuites());
+        Stream<SuiteResult> suites = parallelSuiteThreshold > 0 && suiteResults.size() >= parallelSuiteThreshold
+                ? suiteResults.parallelStream()
+                : suiteResults.stream();
+        testResults.testSuites = suites.map(suiteResult -> fromSuiteResult(suiteResult, detail))
+                .collect(Collectors.toCollection(ArrayList::new));
+        for (TestSuite testSuite : testResults.testSuites) {
+            testResults.passedTestCaseCount += testSuite.getPassedTestCaseCount();
+            testResults.skippedTestCaseCount += testSuite.getSkippedTestCaseCount();
+            testResults.failedTestCaseCount += testSuite.getFailedTestCaseCount();
+        }
+        return testResults;
+    }
 
-            for (CaseResult caseResult : suiteResult.getCases()) {
+    /**
+     * Converts a single suite, with its test cases if they're wanted.
+     */
+    private static TestSuite fromSuiteResult(SuiteResult suiteResult, Detail detail) {
+        TestSuite testSuite = new TestSuite();
+        testSuite.setName(suiteResult.getName());
+        testSuite.setDuration(suiteResult.getDuration());
 
-                TestCase testCase = TestCase.fromCaseResult(caseResult);
-                testResults.passedTestCaseCount += testCase.getPassedCount();
-                testResults.skippedTestCaseCount += testCase.getSkippedCount();
-                testResults.failedTestCaseCount += testCase.getFailedCount();
-                testSuite.addTestCases(testCase);
+        if (detail == Detail.SUITE) {
+            for (CaseResult caseResult : suiteResult.getCases()) {
+                if (caseResult.isPassed()) {
+                    testSuite.setPassedTestCaseCount(testSuite.getPassedTestCaseCount() + 1);
+                }
+                if (caseResult.isSkipped()) {
+                    testSuite.setSkippedTestCaseCount(testSuite.getSkippedTestCaseCount() + 1);
+                }
+                if (caseResult.isFailed()) {
+                    testSuite.setFailedTestCaseCount(testSuite.getFailedTestCaseCount() + 1);
+                }
             }
-            testResults.testSuites.add(testSuite);
+            return testSuite;
         }
-        return testResults;
+
+        for (CaseResult caseResult : suiteResult.getCases()) {
+            testSuite.addTestCases(TestCase.fromCaseResult(caseResult));
+        }
+        return testSuite;
     }
 
     public int getPassedTestCaseCount() {
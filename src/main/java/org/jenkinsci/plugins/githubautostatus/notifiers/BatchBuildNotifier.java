@@ -0,0 +1,83 @@
+package org.jenkinsci.plugins.githubautostatus.notifiers;
+
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jenkinsci.plugins.githubautostatus.model.BuildEvent;
+
+/**
+ * Optional interface for a {@link BuildNotifier} which takes events in
+ * batches, e.g. to send many of them in one request or compress them. When a
+ * notifier implements it, completed stages, completed builds and errors
+ * outside of a stage are passed to {@link #notifyBatch} instead of the
+ * notifier's per-event methods. Pending stages and stage progress are still
+ * sent one at a time.
+ *
+ * <p>Notifiers can implement this one at a time; those which don't are
+ * notified as before. {@link QueuedBuildNotifier} does the queueing and
+ * batching for simple implementations.
+ */
+public interface BatchBuildNotifier {
+
+    /**
+     * How soon a batch should be delivered.
+     */
+    enum Flush {
+        /**
+         * More events are likely to follow; the notifier may hold on to these
+         * until it has a full batch.
+         */
+        WHEN_READY,
+        /**
+         * A build has completed, so there's nothing more to wait for; the
+         * notifier should deliver these and anything it's holding.
+         */
+        NOW
+    }
+
+    /**
+     * Told whether events were delivered, which may be after
+     * {@link #notifyBatch} returns.
+     */
+    interface DeliveryCallback {
+
+        /**
+         * Called once events have been delivered.
+         *
+         * @param events the events delivered
+         */
+        void delivered(List<BuildEvent> events);
+
+        /**
+         * Called when events couldn't be delivered, and won't be retried.
+         *
+         * @param events the events which weren't delivered
+         * @param cause why they weren't delivered
+         */
+        void failed(List<BuildEvent> events, Throwable cause);
+    }
+
+    /**
+     * Callback for events nobody waits on, which logs those that couldn't be
+     * delivered.
+     */
+    DeliveryCallback LOG_FAILURES = new DeliveryCallback() {
+        @Override
+        public void delivered(List<BuildEvent> events) {}
+
+        @Override
+        public void failed(List<BuildEvent> events, Throwable cause) {
+            Logger.getLogger(BatchBuildNotifier.class.getName())
+                    .log(Level.WARNING, String.format("Could not deliver %d events", events.size()), cause);
+        }
+    };
+
+    /**
+     * Takes a batch of events to deliver. Shouldn't block on delivery.
+     *
+     * @param events the events, in the order they happened
+     * @param flush how soon to deliver them
+     * @param callback told whether the events were delivered
+     */
+    void notifyBatch(List<BuildEvent> events, Flush flush, DeliveryCallback callback);
+}
@@ -25,8 +25,19 @@ package org.jenkinsci.plugins.githubautostatus.notifiers;
 
 import hudson.ExtensionList;
 import hudson.ExtensionPoint;
+import hudson.model.Run;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import org.jenkinsci.plugins.githubautostatus.model.BuildCompleted;
+import org.jenkinsci.plugins.githubautostatus.model.BuildContext;
 import org.jenkinsci.plugins.githubautostatus.model.BuildStage;
+import org.jenkinsci.plugins.githubautostatus.model.CredentialRefreshStats;
+import org.jenkinsci.plugins.githubautostatus.model.NonStageError;
+import org.jenkinsci.plugins.githubautostatus.model.QueueLatency;
+import org.jenkinsci.plugins.githubautostatus.model.StageCompleted;
 
 /**
  * A notification subscriber which can send build stats to a particular sink.
@@ -45,6 +56,12 @@ public abstract class BuildNotifier implements ExtensionPoint {
      */
     protected static final String DEFAULT_STRING = "none";
 
+    /**
+     * Identity of the build this notifier reports on; null for notifiers
+     * shared by every build, such as those registered as extensions.
+     */
+    private volatile BuildContext buildContext;
+
     /**
      * Determines whether this notifier is enabled.
      *
@@ -68,6 +85,63 @@ public abstract class BuildNotifier implements ExtensionPoint {
      */
     public abstract void notifyFinalBuildStatus(BuildStage.State buildState, Map<String, Object> parameters);
 
+    /**
+     * Sends a notification when a stage completes. By default, passes the
+     * stage to {@link #notifyBuildStageStatus}.
+     *
+     * @param event the completed stage
+     */
+    public void notifyStageCompleted(StageCompleted event) {
+        notifyBuildStageStatus(event.getJobName(), event.getStage());
+    }
+
+    /**
+     * Sends a notification when a job is complete. By default, gathers the
+     * data from {@link #getWantedBuildData()} into a map for
+     * {@link #notifyFinalBuildStatus}.
+     *
+     * @param event the completed build
+     */
+    public void notifyBuildCompleted(BuildCompleted event) {
+        notifyFinalBuildStatus(event.getBuildState(), event.toParameters(getWantedBuildData()));
+    }
+
+    /**
+     * Gets the data this notifier reads from completed builds. Test results
+     * and coverage are costly to load, so notifiers which don't report them
+     * should leave them out. Defaults to all of it.
+     *
+     * @return the data the notifier reads
+     */
+    public Set<BuildCompleted.Data> getWantedBuildData() {
+        return EnumSet.allOf(BuildCompleted.Data.class);
+    }
+
+    /**
+     * Gets the data any of a set of notifiers reads from completed builds.
+     *
+     * @param notifiers the notifiers
+     * @return the data at least one of them reads
+     */
+    public static Set<BuildCompleted.Data> getWantedBuildData(Collection<? extends BuildNotifier> notifiers) {
+        Set<BuildCompleted.Data> wanted = EnumSet.noneOf(BuildCompleted.Data.class);
+        for (BuildNotifier notifier : notifiers) {
+            wanted.addAll(notifier.getWantedBuildData());
+        }
+        return wanted;
+    }
+
+    /**
+     * Sends a notification for an error outside of a stage. Only called if
+     * {@link #wantsOutOfStageErrors()} returns true. By default, passes the
+     * failed step to {@link #notifyBuildStageStatus}.
+     *
+     * @param event the error
+     */
+    public void notifyNonStageError(NonStageError event) {
+        notifyBuildStageStatus(event.getJobName(), event.getStage());
+    }
+
     /**
      * Get whether the notifier wants to know about errors that happen outside of a stage.
      *
@@ -77,6 +151,94 @@ public abstract class BuildNotifier implements ExtensionPoint {
         return false;
     }
 
+    /**
+     * Get whether the notifier wants to know when stages start, and how long
+     * running stages have been going.
+     *
+     * @return whether the notifier wants stage progress notifications
+     */
+    public boolean wantsStageProgress() {
+        return false;
+    }
+
+    /**
+     * Sends a notification when a stage starts. Only called if
+     * {@link #wantsStageProgress()} returns true.
+     *
+     * @param jobName the name of the job
+     * @param stageItem the stage, with its start time
+     */
+    public void notifyStageStarted(String jobName, BuildStage stageItem) {}
+
+    /**
+     * Sends a periodic notification for a stage which is still running. Only
+     * called if {@link #wantsStageProgress()} returns true and a heartbeat
+     * interval is configured.
+     *
+     * @param jobName the name of the job
+     * @param stageItem the running stage
+     * @param elapsedTime wall clock time since the stage started, in milliseconds
+     */
+    public void notifyStageHeartbeat(String jobName, BuildStage stageItem, long elapsedTime) {}
+
+    /**
+     * Get whether the notifier can record builds which completed in the past,
+     * with their original timestamps.
+     *
+     * @return whether the notifier takes part in backfilling history
+     */
+    public boolean wantsBackfill() {
+        return false;
+    }
+
+    /**
+     * Sends a build which completed in the past, reconstructed from its flow
+     * graph. Only called if {@link #wantsBackfill()} returns true. The event
+     * is the same as for {@link #notifyBuildCompleted}.
+     *
+     * @param event the completed build
+     * @param stages the build's completed stages
+     */
+    public void notifyHistoricalBuild(BuildCompleted event, List<BuildStage> stages) {}
+
+    /**
+     * Sends the queue wait times recorded since the last export. Does nothing
+     * unless the notifier reports queue metrics.
+     *
+     * @param latencies wait times per label and queue phase
+     */
+    public void notifyQueueLatency(List<QueueLatency> latencies) {}
+
+    /**
+     * Sends the counts of GitHub credential refreshes since the last export.
+     * Does nothing unless the notifier reports Jenkins-wide metrics.
+     *
+     * @param stats the counts of refreshes
+     */
+    public void notifyCredentialRefresh(CredentialRefreshStats stats) {}
+
+    /**
+     * Sets the identity of the build this notifier reports on.
+     *
+     * @param buildContext the build's identity
+     */
+    void setBuildContext(BuildContext buildContext) {
+        this.buildContext = buildContext;
+    }
+
+    /**
+     * Gets the identity of the build being reported on, looking it up from
+     * the run if the notifier wasn't created for a single build.
+     *
+     * @param jobName the name of the job
+     * @param run the build
+     * @return the build's identity
+     */
+    protected BuildContext getBuildContext(String jobName, Run<?, ?> run) {
+        BuildContext context = buildContext;
+        return context != null ? context : BuildContext.of(jobName, run);
+    }
+
     public static ExtensionList<BuildNotifier> all() {
         return ExtensionList.lookup(BuildNotifier.class);
     }
@@ -31,12 +31,16 @@ import java.util.Map;
  */
 public class BuildNotifierConstants {
 
+    public static final String AGENT_WAIT_DURATION = "AGENT_WAIT_DURATION";
+    public static final String AGENT_WAITS = "AGENT_WAITS";
     public static final String BLOCKED_DURATION = "BLOCKED_DURATION";
     public static final String BRANCH_NAME = "BRANCH_NAME";
     public static final String BUILD_OBJECT = "BUILD_OBJECT";
+    public static final String CRITICAL_PATH = "CRITICAL_PATH";
     public static final String COVERAGE_INFO = "COVERAGE_INFO";
     public static final String JOB_DURATION = "JOB_DURATION";
     public static final String JOB_NAME = "JOB_NAME";
+    public static final String PAUSED_DURATION = "PAUSED_DURATION";
     public static final String REPO_NAME = "REPO_NAME";
     public static final String REPO_OWNER = "REPO_OWNER";
     public static final String STAGE_DURATION = "STAGE_DURATION";
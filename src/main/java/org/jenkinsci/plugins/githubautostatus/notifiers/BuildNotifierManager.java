@@ -23,14 +23,20 @@
  */
 package org.jenkinsci.plugins.githubautostatus.notifiers;
 
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 import org.jenkinsci.plugins.githubautostatus.StatsdNotifierConfig;
 import org.jenkinsci.plugins.githubautostatus.config.GithubNotificationConfig;
 import org.jenkinsci.plugins.githubautostatus.config.HttpNotifierConfig;
 import org.jenkinsci.plugins.githubautostatus.config.InfluxDbNotifierConfig;
+import org.jenkinsci.plugins.githubautostatus.model.BuildCompleted;
+import org.jenkinsci.plugins.githubautostatus.model.BuildContext;
+import org.jenkinsci.plugins.githubautostatus.model.BuildEvent;
 import org.jenkinsci.plugins.githubautostatus.model.BuildStage;
+import org.jenkinsci.plugins.githubautostatus.model.NonStageError;
+import org.jenkinsci.plugins.githubautostatus.model.StageCompleted;
 
 /**
  * Manages send build notifications to one or more notifiers.
@@ -42,7 +48,9 @@ public class BuildNotifierManager {
     final String targetUrl;
     final String jobName;
 
-    List<BuildNotifier> notifiers = new ArrayList<>();
+    List<BuildNotifier> notifiers = new CopyOnWriteArrayList<>();
+
+    private BuildContext buildContext;
 
     public static BuildNotifierManager newInstance(String jobName, String targetUrl) {
         return new BuildNotifierManager(jobName, targetUrl);
@@ -59,6 +67,17 @@ public class BuildNotifierManager {
         this.targetUrl = targetUrl;
     }
 
+    /**
+     * Sets the identity of the build, which is given to each of the built-in
+     * notifiers added afterwards. Notifiers registered as extensions are
+     * shared by every build, so look it up themselves.
+     *
+     * @param buildContext the build's identity
+     */
+    public void setBuildContext(BuildContext buildContext) {
+        this.buildContext = buildContext;
+    }
+
     /**
      * Adds a GitHub repository for notifications.
      *
@@ -79,6 +98,7 @@ public class BuildNotifierManager {
      */
     public BuildNotifier addInfluxDbNotifier(InfluxDbNotifierConfig influxDbNotifierConfig) {
         InfluxDbNotifier buildNotifier = new InfluxDbNotifier(influxDbNotifierConfig);
+        buildNotifier.setBuildContext(buildContext);
         return addBuildNotifier(buildNotifier);
     }
 
@@ -89,7 +109,9 @@ public class BuildNotifierManager {
      * @return the notifier which was added
      */
     public BuildNotifier addHttpNotifier(HttpNotifierConfig httpNotifierConfig) {
-        return addBuildNotifier(new HttpNotifier((httpNotifierConfig)));
+        HttpNotifier buildNotifier = new HttpNotifier(httpNotifierConfig);
+        buildNotifier.setBuildContext(buildContext);
+        return addBuildNotifier(buildNotifier);
     }
 
     public BuildNotifier addGenericNotifier(BuildNotifier buildNotifier) {
@@ -127,8 +149,44 @@ public class BuildNotifierManager {
      * @param stageItem stage item
      */
     public void notifyBuildStageStatus(BuildStage stageItem) {
+        if (stageItem.getBuildState() == BuildStage.State.Pending) {
+            notifiers.forEach((notifier) -> {
+                notifier.notifyBuildStageStatus(jobName, stageItem);
+            });
+            return;
+        }
+        StageCompleted event = new StageCompleted(jobName, stageItem);
+        notifiers.forEach((notifier) -> {
+            if (!sendAsBatch(notifier, event, BatchBuildNotifier.Flush.WHEN_READY)) {
+                notifier.notifyStageCompleted(event);
+            }
+        });
+    }
+
+    /**
+     * Sends notifications that a stage started to the notifiers which want them.
+     *
+     * @param stageItem stage item
+     */
+    public void notifyStageStarted(BuildStage stageItem) {
+        notifiers.forEach((notifier) -> {
+            if (notifier.wantsStageProgress()) {
+                notifier.notifyStageStarted(jobName, stageItem);
+            }
+        });
+    }
+
+    /**
+     * Sends notifications that a stage is still running to the notifiers which want them.
+     *
+     * @param stageItem stage item
+     * @param elapsedTime time since the stage started
+     */
+    public void notifyStageHeartbeat(BuildStage stageItem, long elapsedTime) {
         notifiers.forEach((notifier) -> {
-            notifier.notifyBuildStageStatus(jobName, stageItem);
+            if (notifier.wantsStageProgress()) {
+                notifier.notifyStageHeartbeat(jobName, stageItem, elapsedTime);
+            }
         });
     }
 
@@ -139,8 +197,19 @@ public class BuildNotifierManager {
      * @param parameters build parameters
      */
     public void notifyFinalBuildStatus(BuildStage.State buildState, Map<String, Object> parameters) {
+        notifyBuildCompleted(BuildCompleted.fromParameters(buildState, parameters));
+    }
+
+    /**
+     * Sends overall build status notification.
+     *
+     * @param event the completed build
+     */
+    public void notifyBuildCompleted(BuildCompleted event) {
         notifiers.forEach((notifier) -> {
-            notifier.notifyFinalBuildStatus(buildState, parameters);
+            if (!sendAsBatch(notifier, event, BatchBuildNotifier.Flush.NOW)) {
+                notifier.notifyBuildCompleted(event);
+            }
         });
     }
 
@@ -152,10 +221,29 @@ public class BuildNotifierManager {
      * @param stageItem stage item
      */
     public void sendNonStageError(BuildStage stageItem) {
+        NonStageError event = new NonStageError(jobName, stageItem);
         notifiers.forEach((notifier) -> {
-            if (notifier.wantsOutOfStageErrors()) {
-                notifier.notifyBuildStageStatus(jobName, stageItem);
+            if (notifier.wantsOutOfStageErrors()
+                    && !sendAsBatch(notifier, event, BatchBuildNotifier.Flush.WHEN_READY)) {
+                notifier.notifyNonStageError(event);
             }
         });
     }
+
+    /**
+     * Passes an event to a notifier which takes batches of events.
+     *
+     * @param notifier the notifier
+     * @param event the event
+     * @param flush how soon the event should be delivered
+     * @return true if the notifier takes batches; false if it should be sent the event by itself
+     */
+    private static boolean sendAsBatch(BuildNotifier notifier, BuildEvent event, BatchBuildNotifier.Flush flush) {
+        if (!(notifier instanceof BatchBuildNotifier)) {
+            return false;
+        }
+        ((BatchBuildNotifier) notifier)
+                .notifyBatch(Collections.singletonList(event), flush, BatchBuildNotifier.LOG_FAILURES);
+        return true;
+    }
 }
@@ -24,10 +24,23 @@
 package org.jenkinsci.plugins.githubautostatus.notifiers;
 
 import com.google.common.collect.ImmutableMap;
+import hudson.util.DaemonThreadFactory;
+import java.io.IOException;
+import java.util.EnumSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import jenkins.util.NamingThreadFactory;
+import jenkins.util.SystemProperties;
 import org.jenkinsci.plugins.githubautostatus.config.GithubNotificationConfig;
+import org.jenkinsci.plugins.githubautostatus.model.BuildCompleted;
 import org.jenkinsci.plugins.githubautostatus.model.BuildStage;
 import org.kohsuke.github.GHCommitState;
 import org.kohsuke.github.GHRepository;
@@ -44,13 +57,27 @@ public class GithubBuildNotifier extends BuildNotifier {
     private final String targetUrl;
     private final GithubNotificationConfig config;
     private volatile long repositoryCreatedAt;
+    private volatile GithubRetryPolicy retryPolicy;
+    private final AtomicLong generations = new AtomicLong();
+    private final Map<String, Long> latestGenerations = new ConcurrentHashMap<>();
 
     /**
-     * GitHub App tokens expire after 60 minutes. Re-resolve credentials
-     * if the cached repository is older than this threshold.
+     * GitHub App tokens expire after 60 minutes. Credentials are re-resolved in
+     * the background by {@link GithubCredentialRefresher} once the cached
+     * repository is older than this threshold.
      */
     static final long CREDENTIAL_REFRESH_MILLIS = 50 * 60 * 1000L; // 50 minutes
 
+    private static final int RETRY_THREADS =
+            Math.max(1, SystemProperties.getInteger(GithubBuildNotifier.class.getName() + ".retryThreads", 2));
+
+    /**
+     * Retries make blocking GitHub calls, so they run on a few threads of
+     * their own; during an outage they queue here rather than on Jenkins'
+     * shared timer.
+     */
+    private static final ScheduledExecutorService RETRIES = createRetries();
+
     static final ImmutableMap<BuildStage.State, GHCommitState> STATE_MAP = new ImmutableMap.Builder<
                     BuildStage.State, GHCommitState>()
             .put(BuildStage.State.Pending, GHCommitState.PENDING)
@@ -99,6 +126,10 @@ public class GithubBuildNotifier extends BuildNotifier {
         this.targetUrl = targetUrl;
         this.config = config;
         this.repositoryCreatedAt = System.currentTimeMillis();
+        this.retryPolicy = new GithubRetryPolicy(config == null ? 0 : config.getDeliveryDeadlineMillis());
+        if (config != null && repository != null) {
+            GithubCredentialRefresher.get().register(this);
+        }
     }
 
     /**
@@ -129,33 +160,60 @@ public class GithubBuildNotifier extends BuildNotifier {
         if (!stageItem.isStage()) {
             return;
         }
+        String context = stageItem.getStageName();
+        long generation = generations.incrementAndGet();
+        latestGenerations.merge(context, generation, Math::max);
+        deliver(jobName, context, stageItem.getBuildState(), generation, 0, System.currentTimeMillis());
+    }
+
+    /**
+     * Writes a commit status, scheduling a retry in the background if GitHub
+     * reports a transient failure. The first attempt runs on the caller's
+     * thread; retries never block the build.
+     *
+     * @param jobName the job name (used in failure logging)
+     * @param context the status context (stage name)
+     * @param buildState the state to send
+     * @param generation sequence number of this status for its context
+     * @param attempt number of retries already made
+     * @param firstAttemptAt time of the first attempt, in milliseconds
+     */
+    private void deliver(
+            String jobName,
+            String context,
+            BuildStage.State buildState,
+            long generation,
+            int attempt,
+            long firstAttemptAt) {
+        if (latestGenerations.getOrDefault(context, 0L) > generation) {
+            // A newer status for this context was sent; don't overwrite it with a stale one
+            log(Level.FINE, "Dropping superseded status for stage %s in job %s", context, jobName);
+            return;
+        }
         try {
-            GHRepository repo = getRepository();
-            BuildStage.State buildState = stageItem.getBuildState();
-            repo.createCommitStatus(
-                    shaString,
-                    STATE_MAP.get(buildState),
-                    targetUrl,
-                    DESCRIPTION_MAP.get(buildState),
-                    stageItem.getStageName());
+            createCommitStatus(repository, context, buildState);
         } catch (org.kohsuke.github.HttpException ex) {
             if (ex.getResponseCode() == 401 && config != null) {
                 // Token likely expired (GitHub App tokens have a 60-minute TTL).
                 // Force credential re-resolution and retry once.
                 log(Level.INFO, "Received HTTP 401 for job %s, refreshing GitHub credentials and retrying", jobName);
+                GithubCredentialRefresher.get().recordUnauthorizedRetry();
                 try {
                     refreshRepository();
-                    BuildStage.State buildState = stageItem.getBuildState();
-                    repository.createCommitStatus(
-                            shaString,
-                            STATE_MAP.get(buildState),
-                            targetUrl,
-                            DESCRIPTION_MAP.get(buildState),
-                            stageItem.getStageName());
+                    createCommitStatus(repository, context, buildState);
+                } catch (org.kohsuke.github.HttpException retryEx) {
+                    if (retryPolicy.isRetryable(retryEx)) {
+                        scheduleRetry(jobName, context, buildState, generation, attempt, firstAttemptAt, retryEx);
+                    } else {
+                        log(Level.SEVERE, "Retry after credential refresh failed for job %s", jobName);
+                        log(Level.SEVERE, retryEx);
+                    }
                 } catch (Exception retryEx) {
                     log(Level.SEVERE, "Retry after credential refresh failed for job %s", jobName);
                     log(Level.SEVERE, retryEx);
                 }
+            } else if (retryPolicy.isRetryable(ex)) {
+                scheduleRetry(jobName, context, buildState, generation, attempt, firstAttemptAt, ex);
             } else if (ex.getResponseCode() < 200 || ex.getResponseCode() > 299) {
                 log(Level.SEVERE, "Exception while creating status for job %s", jobName);
                 log(Level.SEVERE, ex);
@@ -166,43 +224,148 @@ public class GithubBuildNotifier extends BuildNotifier {
         }
     }
 
+    private void scheduleRetry(
+            String jobName,
+            String context,
+            BuildStage.State buildState,
+            long generation,
+            int attempt,
+            long firstAttemptAt,
+            org.kohsuke.github.HttpException ex) {
+        long elapsed = System.currentTimeMillis() - firstAttemptAt;
+        long delay = retryPolicy.nextDelay(attempt, elapsed, GithubRetryPolicy.getRetryAfterMillis(ex));
+        if (delay < 0) {
+            log(
+                    Level.SEVERE,
+                    "Giving up on status for stage %s in job %s after %d attempts (HTTP %d)",
+                    context,
+                    jobName,
+                    attempt + 1,
+                    ex.getResponseCode());
+            return;
+        }
+        log(
+                Level.INFO,
+                "Received HTTP %d for job %s, retrying status for stage %s in %d ms",
+                ex.getResponseCode(),
+                jobName,
+                context,
+                delay);
+        schedule(() -> deliver(jobName, context, buildState, generation, attempt + 1, firstAttemptAt), delay);
+    }
+
     /**
-     * Returns the cached GHRepository, refreshing credentials if the cached
-     * instance is older than {@link #CREDENTIAL_REFRESH_MILLIS}.
+     * Schedules a retry on the pool of retry threads.
+     *
+     * @param task the retry to run
+     * @param delayMillis delay before running it, in milliseconds
      */
-    private GHRepository getRepository() {
-        if (config != null && System.currentTimeMillis() - repositoryCreatedAt > CREDENTIAL_REFRESH_MILLIS) {
-            refreshRepository();
+    void schedule(Runnable task, long delayMillis) {
+        try {
+            RETRIES.schedule(task, delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException ex) {
+            log(Level.WARNING, "Could not schedule a status retry");
+            log(Level.WARNING, ex);
         }
-        return repository;
+    }
+
+    private static ScheduledExecutorService createRetries() {
+        ScheduledThreadPoolExecutor retries = new ScheduledThreadPoolExecutor(
+                RETRY_THREADS,
+                new NamingThreadFactory(new DaemonThreadFactory(), GithubBuildNotifier.class.getSimpleName()));
+        retries.setKeepAliveTime(1, TimeUnit.MINUTES);
+        retries.allowCoreThreadTimeOut(true);
+        return retries;
+    }
+
+    private void createCommitStatus(GHRepository repo, String context, BuildStage.State buildState)
+            throws IOException {
+        repo.createCommitStatus(
+                shaString, STATE_MAP.get(buildState), targetUrl, DESCRIPTION_MAP.get(buildState), context);
+    }
+
+    /**
+     * Gets the policy used to retry transient failures.
+     *
+     * @return the retry policy
+     */
+    public GithubRetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * Sets the policy used to retry transient failures.
+     *
+     * @param retryPolicy the retry policy
+     */
+    public void setRetryPolicy(GithubRetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+
+    /**
+     * Determines whether the cached GHRepository is old enough that its
+     * credentials should be re-resolved.
+     *
+     * @param now the current time, in milliseconds
+     * @return true if a refresh is due; false otherwise
+     */
+    boolean isRefreshDue(long now) {
+        return config != null && now - repositoryCreatedAt > CREDENTIAL_REFRESH_MILLIS;
     }
 
     /**
      * Forces credential re-resolution and replaces the cached GHRepository.
+     * Normally called from {@link GithubCredentialRefresher}, off the build thread.
+     *
+     * @return true if the repository was refreshed; false otherwise
      */
-    private synchronized void refreshRepository() {
+    synchronized boolean refreshRepository() {
         if (config == null) {
-            return;
+            return false;
         }
         GHRepository freshRepo = config.createRepository();
         if (freshRepo != null) {
             log(Level.INFO, "Successfully refreshed GitHub credentials");
             repository = freshRepo;
             repositoryCreatedAt = System.currentTimeMillis();
-        } else {
-            log(Level.WARNING, "Failed to refresh GitHub credentials, continuing with existing token");
+            return true;
         }
+        log(Level.WARNING, "Failed to refresh GitHub credentials, continuing with existing token");
+        return false;
     }
 
     /**
-     * Sends a notification when the job is complete
-     * (currently no-op in this class).
+     * Sends a notification when the job is complete. No status is sent, but
+     * the notifier stops having its credentials refreshed.
      *
      * @param buildState state indicating success or failure
      * @param parameters build parameters
      */
     @Override
-    public void notifyFinalBuildStatus(BuildStage.State buildState, Map<String, Object> parameters) {}
+    public void notifyFinalBuildStatus(BuildStage.State buildState, Map<String, Object> parameters) {
+        GithubCredentialRefresher.get().unregister(this);
+    }
+
+    /**
+     * Stops refreshing the notifier's credentials when the job is complete,
+     * without gathering the rest of the build's data.
+     *
+     * @param event the completed build
+     */
+    @Override
+    public void notifyBuildCompleted(BuildCompleted event) {
+        GithubCredentialRefresher.get().unregister(this);
+    }
+
+    /**
+     * Gets the data the notifier reads from completed builds.
+     *
+     * @return nothing; since only the build's result is reported
+     */
+    @Override
+    public Set<BuildCompleted.Data> getWantedBuildData() {
+        return EnumSet.noneOf(BuildCompleted.Data.class);
+    }
 
     private static void log(Level level, Throwable exception) {
         getLogger().log(level, null, exception);
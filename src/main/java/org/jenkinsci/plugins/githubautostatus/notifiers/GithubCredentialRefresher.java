@@ -0,0 +1,206 @@
+package org.jenkinsci.plugins.githubautostatus.notifiers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.util.Timer;
+import org.jenkinsci.plugins.githubautostatus.model.CredentialRefreshStats;
+
+/**
+ * Refreshes GitHub credentials for active {@link GithubBuildNotifier}s on a
+ * shared background schedule, so that build threads sending statuses never
+ * have to wait for a token to be re-resolved.
+ *
+ * <p>Notifiers are held weakly; a notifier whose build has gone away is
+ * dropped without needing to be unregistered explicitly, and the refresh task
+ * stops once no notifiers are left.
+ *
+ * <p>The counts of refreshes are exported with the queue metrics by
+ * {@link org.jenkinsci.plugins.githubautostatus.QueueLatencyExporter}.
+ */
+public final class GithubCredentialRefresher {
+
+    /**
+     * How often registered notifiers are checked for tokens approaching expiry.
+     */
+    static final long CHECK_INTERVAL_MILLIS = 60 * 1000L;
+
+    private static final GithubCredentialRefresher INSTANCE = new GithubCredentialRefresher();
+
+    private final Set<GithubBuildNotifier> notifiers = Collections.newSetFromMap(new WeakHashMap<>());
+
+    private final AtomicLong backgroundRefreshCount = new AtomicLong();
+    private final AtomicLong failedRefreshCount = new AtomicLong();
+    private final AtomicLong unauthorizedRetryCount = new AtomicLong();
+
+    /**
+     * The counts when they were last exported, in the order of
+     * {@link CredentialRefreshStats}'s constructor.
+     */
+    private final long[] exported = new long[3];
+
+    private ScheduledFuture<?> task;
+
+    private GithubCredentialRefresher() {}
+
+    /**
+     * Gets the shared refresher.
+     *
+     * @return the refresher
+     */
+    public static GithubCredentialRefresher get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Starts tracking a notifier, scheduling the refresh task if it isn't
+     * already running.
+     *
+     * @param notifier notifier whose credentials should be kept fresh
+     */
+    synchronized void register(GithubBuildNotifier notifier) {
+        notifiers.add(notifier);
+        if (task == null || task.isDone()) {
+            task = Timer.get()
+                    .scheduleWithFixedDelay(
+                            () -> refreshDue(System.currentTimeMillis()),
+                            CHECK_INTERVAL_MILLIS,
+                            CHECK_INTERVAL_MILLIS,
+                            TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stops tracking a notifier, e.g. once its build has completed.
+     *
+     * @param notifier notifier to stop tracking
+     */
+    synchronized void unregister(GithubBuildNotifier notifier) {
+        notifiers.remove(notifier);
+        cancelIfIdle();
+    }
+
+    /**
+     * Cancels the refresh task if there are no notifiers left to refresh.
+     * Only called while holding the lock.
+     */
+    private void cancelIfIdle() {
+        if (notifiers.isEmpty() && task != null) {
+            task.cancel(false);
+            task = null;
+        }
+    }
+
+    /**
+     * Determines whether the refresh task is scheduled.
+     *
+     * @return true if the refresh task is scheduled
+     */
+    synchronized boolean isScheduled() {
+        return task != null;
+    }
+
+    /**
+     * Refreshes every tracked notifier whose repository is due for a refresh.
+     *
+     * @param now the current time, in milliseconds
+     */
+    void refreshDue(long now) {
+        List<GithubBuildNotifier> due = new ArrayList<>();
+        synchronized (this) {
+            // Notifiers which were garbage collected are never unregistered
+            cancelIfIdle();
+            for (GithubBuildNotifier notifier : notifiers) {
+                if (notifier.isRefreshDue(now)) {
+                    due.add(notifier);
+                }
+            }
+        }
+        // Refresh outside the lock; credential lookups and GitHub API calls can be slow
+        for (GithubBuildNotifier notifier : due) {
+            try {
+                if (notifier.refreshRepository()) {
+                    backgroundRefreshCount.incrementAndGet();
+                } else {
+                    failedRefreshCount.incrementAndGet();
+                }
+            } catch (RuntimeException ex) {
+                failedRefreshCount.incrementAndGet();
+                getLogger().log(Level.WARNING, "Background refresh of GitHub credentials failed", ex);
+            }
+        }
+    }
+
+    /**
+     * Records that a status write hit HTTP 401 and had to refresh credentials inline.
+     */
+    void recordUnauthorizedRetry() {
+        unauthorizedRetryCount.incrementAndGet();
+    }
+
+    /**
+     * Gets the number of tracked notifiers.
+     *
+     * @return the number of tracked notifiers
+     */
+    public synchronized int getActiveCount() {
+        return notifiers.size();
+    }
+
+    /**
+     * Gets the number of successful background refreshes.
+     *
+     * @return the number of successful background refreshes
+     */
+    public long getBackgroundRefreshCount() {
+        return backgroundRefreshCount.get();
+    }
+
+    /**
+     * Gets the number of background refreshes that could not resolve credentials.
+     *
+     * @return the number of failed background refreshes
+     */
+    public long getFailedRefreshCount() {
+        return failedRefreshCount.get();
+    }
+
+    /**
+     * Gets the number of times a status write still had to fall back to the
+     * inline refresh-and-retry path after receiving HTTP 401. A steadily
+     * increasing value means the background refresh isn't keeping up.
+     *
+     * @return the number of HTTP 401 retries
+     */
+    public long getUnauthorizedRetryCount() {
+        return unauthorizedRetryCount.get();
+    }
+
+    /**
+     * Gets what happened since the last call, for export.
+     *
+     * @return the counts since the last call
+     */
+    public CredentialRefreshStats drainStats() {
+        long[] current = {
+            backgroundRefreshCount.get(), failedRefreshCount.get(), unauthorizedRetryCount.get()
+        };
+        synchronized (exported) {
+            CredentialRefreshStats stats = new CredentialRefreshStats(
+                    current[0] - exported[0], current[1] - exported[1], current[2] - exported[2]);
+            System.arraycopy(current, 0, exported, 0, current.length);
+            return stats;
+        }
+    }
+
+    private static Logger getLogger() {
+        return Logger.getLogger(GithubCredentialRefresher.class.getName());
+    }
+}
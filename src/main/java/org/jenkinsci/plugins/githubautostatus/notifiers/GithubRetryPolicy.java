@@ -0,0 +1,137 @@
+package org.jenkinsci.plugins.githubautostatus.notifiers;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import org.kohsuke.github.HttpException;
+
+/**
+ * Decides whether a failed GitHub status write should be retried, and how
+ * long to wait before the next attempt.
+ *
+ * <p>Delays grow exponentially from {@link #BASE_DELAY_MILLIS} up to
+ * {@link #MAX_DELAY_MILLIS}, with full jitter so that many builds failing at
+ * once don't retry in lockstep. A {@code Retry-After} header from GitHub is
+ * always honoured. Retries stop once the total delivery deadline has passed.
+ */
+public class GithubRetryPolicy {
+
+    static final long BASE_DELAY_MILLIS = 1000L;
+    static final long MAX_DELAY_MILLIS = 60 * 1000L;
+    static final long DEFAULT_DEADLINE_MILLIS = 10 * 60 * 1000L; // 10 minutes
+
+    private final long deadlineMillis;
+
+    /**
+     * Constructs a policy with the default delivery deadline.
+     */
+    public GithubRetryPolicy() {
+        this(0);
+    }
+
+    /**
+     * Constructs a policy with a total delivery deadline.
+     *
+     * @param deadlineMillis how long after the first attempt a status may still
+     *                       be retried; zero or less uses the default
+     */
+    public GithubRetryPolicy(long deadlineMillis) {
+        this.deadlineMillis = deadlineMillis > 0 ? deadlineMillis : DEFAULT_DEADLINE_MILLIS;
+    }
+
+    /**
+     * Gets the total delivery deadline.
+     *
+     * @return the deadline, in milliseconds
+     */
+    public long getDeadlineMillis() {
+        return deadlineMillis;
+    }
+
+    /**
+     * Determines whether a failure is transient. Server errors, HTTP 429 and
+     * HTTP 403 responses caused by secondary rate limits are retryable; other
+     * client errors are not.
+     *
+     * @param ex the failure
+     * @return true if the write should be retried; false otherwise
+     */
+    public boolean isRetryable(HttpException ex) {
+        int code = ex.getResponseCode();
+        if (code >= 500 && code <= 599) {
+            return true;
+        }
+        if (code == 429) {
+            return true;
+        }
+        if (code == 403) {
+            if (getRetryAfterMillis(ex) > 0 || "0".equals(getHeader(ex, "X-RateLimit-Remaining"))) {
+                return true;
+            }
+            String message = ex.getMessage();
+            if (message != null) {
+                message = message.toLowerCase(Locale.ENGLISH);
+                return message.contains("secondary rate limit") || message.contains("abuse");
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the delay before the next attempt, or -1 if the deadline would be
+     * exceeded.
+     *
+     * @param attempt number of retries already made, starting at zero
+     * @param elapsedMillis time since the first attempt
+     * @param retryAfterMillis delay requested by GitHub, or zero
+     * @return the delay in milliseconds, or -1 to give up
+     */
+    public long nextDelay(int attempt, long elapsedMillis, long retryAfterMillis) {
+        long cap = MAX_DELAY_MILLIS;
+        if (attempt < 16) {
+            cap = Math.min(MAX_DELAY_MILLIS, BASE_DELAY_MILLIS << attempt);
+        }
+        long delay = ThreadLocalRandom.current().nextLong(cap + 1);
+        if (retryAfterMillis > delay) {
+            delay = retryAfterMillis;
+        }
+        if (elapsedMillis + delay > deadlineMillis) {
+            return -1;
+        }
+        return delay;
+    }
+
+    /**
+     * Gets the delay requested by a {@code Retry-After} header.
+     *
+     * @param ex the failure
+     * @return the requested delay in milliseconds, or zero if none
+     */
+    public static long getRetryAfterMillis(HttpException ex) {
+        String retryAfter = getHeader(ex, "Retry-After");
+        if (retryAfter != null) {
+            try {
+                return Math.max(0, Long.parseLong(retryAfter.trim()) * 1000L);
+            } catch (NumberFormatException ignored) {
+                // HTTP-date form isn't used by GitHub
+            }
+        }
+        return 0;
+    }
+
+    private static String getHeader(HttpException ex, String name) {
+        Map<String, List<String>> headers = ex.getResponseHeaderFields();
+        if (headers == null) {
+            return null;
+        }
+        for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+            if (name.equalsIgnoreCase(header.getKey())
+                    && header.getValue() != null
+                    && !header.getValue().isEmpty()) {
+                return header.getValue().get(0);
+            }
+        }
+        return null;
+    }
+}
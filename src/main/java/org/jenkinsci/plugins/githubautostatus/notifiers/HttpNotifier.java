@@ -29,7 +29,6 @@ import com.google.gson.ExclusionStrategy;
 import com.google.gson.FieldAttributes;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import hudson.model.Cause;
 import hudson.model.Run;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
@@ -38,9 +37,12 @@ import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
 import java.time.Clock;
 import java.util.Base64;
-import java.util.HashMap;
+import java.util.EnumSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import jenkins.model.Jenkins;
@@ -71,7 +73,7 @@ public class HttpNotifier extends BuildNotifier {
         this.repoName = config.getRepoName();
         this.branchName = config.getBranchName();
         this.config = config;
-        this.stageMap = new HashMap<>();
+        this.stageMap = new ConcurrentHashMap<>();
         UsernamePasswordCredentials credentials = config.getCredentials();
         if (credentials != null) {
             String username = credentials.getUsername();
@@ -108,50 +110,91 @@ public class HttpNotifier extends BuildNotifier {
         if (buildState == BuildStage.State.Pending) {
             return;
         }
-        stageMap.put(stageItem.getStageName(), stageItem);
+        // Stages with the same name in different branches are kept apart by id
+        String stageKey = stageItem.getStageId() != null ? stageItem.getStageId() : stageItem.getStageName();
+        stageMap.put(stageKey, stageItem);
     }
 
     @Override
     public void notifyFinalBuildStatus(BuildStage.State buildState, Map<String, Object> parameters) {
-        BuildStatus buildStatus = constructBuildStatus(buildState, parameters);
-        TestResults testResults = (TestResults) parameters.get(BuildNotifierConstants.TEST_CASE_INFO);
+        notifyBuildCompleted(BuildCompleted.fromParameters(buildState, parameters));
+    }
+
+    @Override
+    public void notifyBuildCompleted(BuildCompleted event) {
+        BuildStatus buildStatus = constructBuildStatus(getBuildContext(event.getJobName(), event.getRun()), event);
+        TestResults testResults = event.getTestResults(config.getTestResultDetail());
         if (testResults != null) {
             buildStatus.setTestResult(testResults);
         }
-        CodeCoverage coverage = (CodeCoverage) parameters.get(BuildNotifierConstants.COVERAGE_INFO);
+        CodeCoverage coverage = event.getCoverage();
         if (null != coverage) {
             buildStatus.setCoverage(coverage);
         }
+        CriticalPath criticalPath = event.getCriticalPath();
+        if (null != criticalPath) {
+            buildStatus.setCriticalPath(criticalPath);
+        }
         stageMap.forEach((name, stage) -> buildStatus.addStage(stage));
 
         log(Level.FINE, "Final build status: %s", gson.toJson(buildStatus));
         sendData(gson.toJson(buildStatus));
     }
 
-    private BuildStatus constructBuildStatus(BuildStage.State buildState, Map<String, Object> parameters) {
-        Run<?, ?> run = (Run<?, ?>) parameters.get(BuildNotifierConstants.BUILD_OBJECT);
-        String jobName = (String)
-                parameters.getOrDefault(BuildNotifierConstants.JOB_NAME, BuildNotifierConstants.DEFAULT_STRING);
-        long blockedDuration = BuildNotifierConstants.getLong(parameters, BuildNotifierConstants.BLOCKED_DURATION);
-        String buildUrl = run.getUrl();
-        int buildNumber = run.getNumber();
-        long buildDuration =
-                BuildNotifierConstants.getLong(parameters, BuildNotifierConstants.JOB_DURATION) - blockedDuration;
-        Cause cause = run.getCause(Cause.class);
-        String buildCause = cause == null ? BuildNotifierConstants.DEFAULT_STRING : cause.getShortDescription();
+    /**
+     * Gets the data the notifier reads from completed builds.
+     *
+     * @return test results, coverage and agent waits; since they're all sent
+     */
+    @Override
+    public Set<BuildCompleted.Data> getWantedBuildData() {
+        return EnumSet.of(
+                BuildCompleted.Data.TEST_RESULTS, BuildCompleted.Data.COVERAGE, BuildCompleted.Data.AGENT_WAITS);
+    }
+
+    @Override
+    public boolean wantsBackfill() {
+        return true;
+    }
+
+    /**
+     * Sends a past build, timestamped when the build ended rather than when it's sent.
+     *
+     * @param event the completed build
+     * @param stages the build's completed stages
+     */
+    @Override
+    public void notifyHistoricalBuild(BuildCompleted event, List<BuildStage> stages) {
+        Run<?, ?> run = event.getRun();
+        BuildStatus buildStatus = constructBuildStatus(BuildContext.of(event.getJobName(), run), event);
+        buildStatus.setTimestamp((run.getStartTimeInMillis() + run.getDuration()) / 1000);
+        CriticalPath criticalPath = event.getCriticalPath();
+        if (null != criticalPath) {
+            buildStatus.setCriticalPath(criticalPath);
+        }
+        stages.forEach(buildStatus::addStage);
+
+        sendData(gson.toJson(buildStatus));
+    }
+
+    private BuildStatus constructBuildStatus(BuildContext context, BuildCompleted event) {
+        long blockedDuration = event.getBlockedDuration();
         BuildStatus result = new org.jenkinsci.plugins.githubautostatus.model.BuildStatus();
         result.setRepoOwner(repoOwner);
         result.setRepoName(repoName);
-        result.setJobName(jobName);
+        result.setJobName(context.getJobName());
         result.setBranch(branchName);
-        result.setBuildUrl(buildUrl);
-        result.setBuildNumber(buildNumber);
-        result.setTrigger(buildCause);
+        result.setBuildUrl(context.getBuildUrl());
+        result.setBuildNumber(context.getBuildNumber());
+        result.setTrigger(context.getBuildCause());
         result.setBlocked(blockedDuration > 0);
         result.setBlockedTime(blockedDuration);
-        result.setDuration(buildDuration);
-        result.setPassed(buildState == BuildStage.State.CompletedSuccess);
-        result.setResult(buildState);
+        result.setPausedTime(event.getPausedDuration());
+        result.setAgentWaitTime(event.getAgentWaitDuration());
+        result.setAgentWaits(event.getAgentWaits());
+        result.setDuration(event.getRunningDuration());
+        result.setPassed(event.getBuildState() == BuildStage.State.CompletedSuccess);
+        result.setResult(event.getBuildState());
         result.setTimestamp(Clock.system(TimeZone.getTimeZone("UTC").toZoneId()).millis() / 1000);
         return result;
     }
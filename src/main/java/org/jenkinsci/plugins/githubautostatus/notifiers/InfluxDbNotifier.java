@@ -24,7 +24,6 @@
 package org.jenkinsci.plugins.githubautostatus.notifiers;
 
 import com.cloudbees.plugins.credentials.common.UsernamePasswordCredentials;
-import hudson.model.Cause;
 import hudson.model.Run;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
@@ -35,8 +34,11 @@ import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Base64;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.annotation.Nullable;
@@ -142,26 +144,77 @@ public class InfluxDbNotifier extends BuildNotifier {
             return;
         }
 
-        String buildUrl = stageItem.getRun().getUrl();
-        int buildNumber = stageItem.getRun().getNumber();
-        Cause cause = stageItem.getRun().getCause(Cause.class);
-        String buildCause = cause == null ? BuildNotifierConstants.DEFAULT_STRING : cause.getShortDescription();
+        postData(formatStage(getBuildContext(jobName, stageItem.getRun()), stageItem));
+    }
 
-        String data = config.getSchema()
+    private String formatStage(BuildContext context, BuildStage stageItem) {
+        return config.getSchema()
                 .formatStage(
-                        jobName,
+                        context.getJobName(),
+                        repoOwner,
+                        repoName,
+                        branchName,
+                        stageItem,
+                        context.getBuildUrl(),
+                        context.getBuildNumber(),
+                        context.getBuildCause());
+    }
+
+    /**
+     * Get whether the notifier wants to know when stages start and how long running stages have been going.
+     *
+     * @return true; since this notifier reports stage progress.
+     */
+    @Override
+    public boolean wantsStageProgress() {
+        return true;
+    }
+
+    /**
+     * Sends a stage start event to InfluxDB.
+     *
+     * @param jobName the name of the job
+     * @param stageItem the stage
+     */
+    @Override
+    public void notifyStageStarted(String jobName, BuildStage stageItem) {
+        notifyStageProgress(jobName, stageItem, "start", 0);
+    }
+
+    /**
+     * Sends a heartbeat for a running stage to InfluxDB.
+     *
+     * @param jobName the name of the job
+     * @param stageItem the running stage
+     * @param elapsedTime time since the stage started
+     */
+    @Override
+    public void notifyStageHeartbeat(String jobName, BuildStage stageItem, long elapsedTime) {
+        notifyStageProgress(jobName, stageItem, "heartbeat", elapsedTime);
+    }
+
+    /**
+     * Sends a stage start or heartbeat. These are samples of a running stage
+     * which don't need ordering against the build's other points, so they're
+     * sent without waiting on {@link #postData}.
+     */
+    private void notifyStageProgress(String jobName, BuildStage stageItem, String event, long elapsedTime) {
+        BuildContext context = getBuildContext(jobName, stageItem.getRun());
+
+        sendData(config.getSchema()
+                .formatStageProgress(
+                        context.getJobName(),
                         repoOwner,
                         repoName,
                         branchName,
                         stageItem.getStageName(),
-                        stageItem.getBuildState().toString(),
-                        stageItem.getDuration(),
-                        stageItem.isPassed() ? 1 : 0,
-                        buildUrl,
-                        buildNumber,
-                        buildCause);
-
-        postData(data);
+                        event,
+                        stageItem.getStageId(),
+                        stageItem.getStartTime(),
+                        elapsedTime,
+                        context.getBuildUrl(),
+                        context.getBuildNumber(),
+                        context.getBuildCause()));
     }
 
     /**
@@ -172,53 +225,235 @@ public class InfluxDbNotifier extends BuildNotifier {
      */
     @Override
     public void notifyFinalBuildStatus(BuildStage.State buildState, Map<String, Object> parameters) {
-        Run<?, ?> run = (Run<?, ?>) parameters.get(BuildNotifierConstants.BUILD_OBJECT);
-        String jobName = (String)
-                parameters.getOrDefault(BuildNotifierConstants.JOB_NAME, BuildNotifierConstants.DEFAULT_STRING);
-        int passed = buildState == BuildStage.State.CompletedSuccess ? 1 : 0;
-        long blockedDuration = BuildNotifierConstants.getLong(parameters, BuildNotifierConstants.BLOCKED_DURATION);
-        int blocked = blockedDuration > 0 ? 1 : 0;
-        String buildUrl = run.getUrl();
-        int buildNumber = run.getNumber();
-        Cause cause = run.getCause(Cause.class);
-        String buildCause = cause == null ? BuildNotifierConstants.DEFAULT_STRING : cause.getShortDescription();
+        notifyBuildCompleted(BuildCompleted.fromParameters(buildState, parameters));
+    }
 
-        String data = config.getSchema()
+    /**
+     * Sends the final build status to InfluxDB. Test results and coverage are
+     * only gathered from the build if they're sent.
+     *
+     * @param event the completed build
+     */
+    @Override
+    public void notifyBuildCompleted(BuildCompleted event) {
+        BuildContext context = getBuildContext(event.getJobName(), event.getRun());
+
+        postData(formatJob(context, event));
+
+        notifyCriticalPath(context, event.getCriticalPath());
+        notifyAgentWaits(context, event.getAgentWaits());
+
+        if (!this.config.getIgnoreSendingTestResultsToInflux()) {
+            TestResults.Detail detail = this.config.getTestResultDetail();
+            TestOutcomes previousOutcomes = null;
+            if (this.config.getTestCaseDelta() && (detail == null || detail == TestResults.Detail.CASE)) {
+                previousOutcomes = event.getPreviousTestOutcomes();
+            }
+            notifyTestResults(context, event.getTestResults(detail), previousOutcomes);
+        }
+        if (!this.config.getIgnoreSendingTestCoverageToInflux()) {
+            notifyCoverage(context, event.getCoverage());
+        }
+    }
+
+    /**
+     * Gets the data the notifier reads from completed builds.
+     *
+     * @return agent waits, plus test results and coverage unless they're not sent to InfluxDB
+     */
+    @Override
+    public Set<BuildCompleted.Data> getWantedBuildData() {
+        Set<BuildCompleted.Data> wanted = EnumSet.of(BuildCompleted.Data.AGENT_WAITS);
+        if (!this.config.getIgnoreSendingTestResultsToInflux()) {
+            wanted.add(BuildCompleted.Data.TEST_RESULTS);
+        }
+        if (!this.config.getIgnoreSendingTestCoverageToInflux()) {
+            wanted.add(BuildCompleted.Data.COVERAGE);
+        }
+        return wanted;
+    }
+
+    /**
+     * Get whether the notifier can write builds which completed in the past.
+     *
+     * @return true; since every point can be given its own timestamp.
+     */
+    @Override
+    public boolean wantsBackfill() {
+        return true;
+    }
+
+    /**
+     * Writes the stages, job, critical path and agent waits of a past build
+     * in one request. Each stage is timestamped when it ended, and the rest
+     * when the build ended, rather than at the time of writing.
+     *
+     * @param event the completed build
+     * @param stages the build's completed stages
+     */
+    @Override
+    public void notifyHistoricalBuild(BuildCompleted event, List<BuildStage> stages) {
+        Run<?, ?> run = event.getRun();
+        BuildContext context = BuildContext.of(event.getJobName(), run);
+        long buildEnd = run.getStartTimeInMillis() + run.getDuration();
+
+        List<String> lines = new ArrayList<>();
+        for (BuildStage stage : stages) {
+            long stageEnd = stage.getStartTime() + stage.getDuration() + stage.getPausedDuration();
+            lines.add(withTimestamp(formatStage(context, stage), stageEnd > 0 ? stageEnd : buildEnd));
+        }
+        List<String> buildLines = new ArrayList<>();
+        buildLines.add(formatJob(context, event));
+        buildLines.addAll(formatCriticalPath(context, event.getCriticalPath()));
+        buildLines.addAll(formatAgentWaits(context, event.getAgentWaits()));
+        for (String line : buildLines) {
+            lines.add(withTimestamp(line, buildEnd));
+        }
+        postData(String.join("\n", lines));
+    }
+
+    /**
+     * Adds an explicit timestamp to a line; the write endpoint's default precision is nanoseconds.
+     */
+    private static String withTimestamp(String line, long millis) {
+        return String.format("%s %d", line, TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    /**
+     * Sends queue wait histograms to InfluxDB.
+     *
+     * @param latencies wait times per label and queue phase
+     */
+    @Override
+    public void notifyQueueLatency(List<QueueLatency> latencies) {
+        if (latencies.isEmpty()) {
+            return;
+        }
+        List<String> lines = new ArrayList<>();
+        for (QueueLatency latency : latencies) {
+            QueueLatencyHistogram.Snapshot snapshot = latency.getSnapshot();
+            lines.add(config.getSchema()
+                    .formatQueueLatency(
+                            latency.getLabel(),
+                            latency.getPhase().getMetricName(),
+                            snapshot.getCount(),
+                            snapshot.getSum(),
+                            snapshot.getPercentile(50),
+                            snapshot.getPercentile(90),
+                            snapshot.getPercentile(99),
+                            snapshot.getMax()));
+        }
+        postData(String.join("\n", lines));
+    }
+
+    /**
+     * Sends the counts of GitHub credential refreshes to InfluxDB.
+     *
+     * @param stats the counts of refreshes
+     */
+    @Override
+    public void notifyCredentialRefresh(CredentialRefreshStats stats) {
+        postData(config.getSchema()
+                .formatCredentialRefresh(stats.getRefreshed(), stats.getFailed(), stats.getUnauthorizedRetries()));
+    }
+
+    private String formatJob(BuildContext context, BuildCompleted event) {
+        int passed = event.getBuildState() == BuildStage.State.CompletedSuccess ? 1 : 0;
+        int blocked = event.getBlockedDuration() > 0 ? 1 : 0;
+
+        return config.getSchema()
                 .formatJob(
-                        jobName,
+                        context.getJobName(),
                         repoOwner,
                         repoName,
                         branchName,
-                        buildState.toString(),
+                        event.getBuildState().toString(),
                         blocked,
-                        BuildNotifierConstants.getLong(parameters, BuildNotifierConstants.JOB_DURATION)
-                                - blockedDuration,
-                        blockedDuration,
+                        event.getRunningDuration(),
+                        event.getBlockedDuration(),
+                        event.getPausedDuration(),
                         passed,
-                        buildUrl,
-                        buildNumber,
-                        buildCause);
+                        context.getBuildUrl(),
+                        context.getBuildNumber(),
+                        context.getBuildCause());
+    }
 
-        postData(data);
+    private void notifyCriticalPath(BuildContext context, @Nullable CriticalPath criticalPath) {
+        List<String> lines = formatCriticalPath(context, criticalPath);
+        if (!lines.isEmpty()) {
+            postData(String.join("\n", lines));
+        }
+    }
 
-        if (!this.config.getIgnoreSendingTestResultsToInflux()) {
-            notifyTestResults(jobName, (TestResults) parameters.get(BuildNotifierConstants.TEST_CASE_INFO), run);
+    private List<String> formatCriticalPath(BuildContext context, @Nullable CriticalPath criticalPath) {
+        List<String> lines = new ArrayList<>();
+        if (criticalPath == null) {
+            return lines;
         }
-        if (!this.config.getIgnoreSendingTestCoverageToInflux()) {
-            notifyCoverage(jobName, (CodeCoverage) parameters.get(BuildNotifierConstants.COVERAGE_INFO), run);
+        lines.add(config.getSchema()
+                .formatCriticalPath(
+                        context.getJobName(),
+                        repoOwner,
+                        repoName,
+                        branchName,
+                        criticalPath.getDuration(),
+                        String.join(" > ", criticalPath.getStages()),
+                        context.getBuildUrl(),
+                        context.getBuildNumber(),
+                        context.getBuildCause()));
+        for (CriticalPath.ParallelBlock block : criticalPath.getParallelBlocks()) {
+            lines.add(config.getSchema()
+                    .formatParallelSkew(
+                            context.getJobName(),
+                            repoOwner,
+                            repoName,
+                            branchName,
+                            block.getStageName(),
+                            block.getBranchCount(),
+                            block.getSlowestBranch(),
+                            block.getFastestBranch(),
+                            block.getSkew(),
+                            context.getBuildUrl(),
+                            context.getBuildNumber(),
+                            context.getBuildCause()));
         }
+        return lines;
     }
 
-    private void notifyCoverage(String jobName, @Nullable CodeCoverage coverageInfo, Run<?, ?> run) {
-        if (coverageInfo != null) {
-            String buildUrl = run.getUrl();
-            int buildNumber = run.getNumber();
-            Cause cause = run.getCause(Cause.class);
-            String buildCause = cause == null ? BuildNotifierConstants.DEFAULT_STRING : cause.getShortDescription();
+    private void notifyAgentWaits(BuildContext context, @Nullable List<AgentWait> agentWaits) {
+        List<String> lines = formatAgentWaits(context, agentWaits);
+        if (!lines.isEmpty()) {
+            postData(String.join("\n", lines));
+        }
+    }
 
+    private List<String> formatAgentWaits(BuildContext context, @Nullable List<AgentWait> agentWaits) {
+        List<String> lines = new ArrayList<>();
+        if (agentWaits == null) {
+            return lines;
+        }
+        for (AgentWait wait : agentWaits) {
+            lines.add(config.getSchema()
+                    .formatAgentWait(
+                            context.getJobName(),
+                            repoOwner,
+                            repoName,
+                            branchName,
+                            wait.getLabel(),
+                            wait.getStageName(),
+                            wait.getDuration(),
+                            context.getBuildUrl(),
+                            context.getBuildNumber(),
+                            context.getBuildCause()));
+        }
+        return lines;
+    }
+
+    private void notifyCoverage(BuildContext context, @Nullable CodeCoverage coverageInfo) {
+        if (coverageInfo != null) {
             String data = config.getSchema()
                     .formatCoverage(
-                            jobName,
+                            context.getJobName(),
                             repoOwner,
                             repoName,
                             branchName,
@@ -229,53 +464,50 @@ public class InfluxDbNotifier extends BuildNotifier {
                             coverageInfo.getMethods(),
                             coverageInfo.getPackages(),
                             coverageInfo.getInstructions(),
-                            buildUrl,
-                            buildNumber,
-                            buildCause);
+                            context.getBuildUrl(),
+                            context.getBuildNumber(),
+                            context.getBuildCause());
 
             postData(data);
         }
     }
 
-    private void notifyTestResults(String jobName, @Nullable TestResults testResults, Run<?, ?> run) {
+    /**
+     * Writes the build's test totals, each suite's totals and the test cases.
+     * If the previous build's outcomes are given, only the cases which failed
+     * or changed since then are written.
+     */
+    private void notifyTestResults(
+            BuildContext context, @Nullable TestResults testResults, @Nullable TestOutcomes previousOutcomes) {
         if (testResults != null) {
-            String buildUrl = run.getUrl();
-            int buildNumber = run.getNumber();
-            Cause cause = run.getCause(Cause.class);
-            String buildCause = cause == null ? BuildNotifierConstants.DEFAULT_STRING : cause.getShortDescription();
-
             String data = config.getSchema()
                     .formatTests(
-                            jobName,
+                            context.getJobName(),
                             repoOwner,
                             repoName,
                             branchName,
                             testResults.getPassedTestCaseCount(),
                             testResults.getSkippedTestCaseCount(),
                             testResults.getFailedTestCaseCount(),
-                            buildUrl,
-                            buildNumber,
-                            buildCause);
+                            context.getBuildUrl(),
+                            context.getBuildNumber(),
+                            context.getBuildCause());
 
             postData(data);
 
             for (TestSuite testSuite : testResults.getTestSuites()) {
-                notifyTestSuite(jobName, testSuite, run);
+                notifyTestSuite(context, testSuite, previousOutcomes);
             }
         }
     }
 
-    private void notifyTestSuite(String jobName, TestSuite testSuite, Run<?, ?> run) {
+    private void notifyTestSuite(BuildContext context, TestSuite testSuite, @Nullable TestOutcomes previousOutcomes) {
         String suiteName = testSuite.getName();
-        String buildUrl = run.getUrl();
-        int buildNumber = run.getNumber();
-        Cause cause = run.getCause(Cause.class);
-        String buildCause = cause == null ? BuildNotifierConstants.DEFAULT_STRING : cause.getShortDescription();
         List<String> testSuiteQuery = new ArrayList<>();
 
         String data = config.getSchema()
                 .formatTestSuite(
-                        jobName,
+                        context.getJobName(),
                         repoOwner,
                         repoName,
                         branchName,
@@ -284,26 +516,23 @@ public class InfluxDbNotifier extends BuildNotifier {
                         testSuite.getPassedTestCaseCount(),
                         testSuite.getSkippedTestCaseCount(),
                         testSuite.getFailedTestCaseCount(),
-                        buildUrl,
-                        buildNumber,
-                        buildCause);
+                        context.getBuildUrl(),
+                        context.getBuildNumber(),
+                        context.getBuildCause());
 
         testSuiteQuery.add(data);
         for (TestCase testCase : testSuite.getTestCases()) {
-            testSuiteQuery.add(notifyTestCase(jobName, suiteName, testCase, run));
+            if (previousOutcomes == null || previousOutcomes.isFailedOrChanged(suiteName, testCase)) {
+                testSuiteQuery.add(notifyTestCase(context, suiteName, testCase));
+            }
         }
         postData(String.join("\\n", testSuiteQuery));
     }
 
-    private String notifyTestCase(String jobName, String suiteName, TestCase testCase, Run<?, ?> run) {
-        String buildUrl = run.getUrl();
-        int buildNumber = run.getNumber();
-        Cause cause = run.getCause(Cause.class);
-        String buildCause = cause == null ? BuildNotifierConstants.DEFAULT_STRING : cause.getShortDescription();
-
+    private String notifyTestCase(BuildContext context, String suiteName, TestCase testCase) {
         String data = config.getSchema()
                 .formatTestCase(
-                        jobName,
+                        context.getJobName(),
                         repoOwner,
                         repoName,
                         branchName,
@@ -312,9 +541,9 @@ public class InfluxDbNotifier extends BuildNotifier {
                         testCase.getPassedCount(),
                         testCase.getSkippedCount(),
                         testCase.getFailedCount(),
-                        buildUrl,
-                        buildNumber,
-                        buildCause);
+                        context.getBuildUrl(),
+                        context.getBuildNumber(),
+                        context.getBuildCause());
 
         return data;
     }
@@ -325,6 +554,10 @@ public class InfluxDbNotifier extends BuildNotifier {
      * @param seriesInfo the data point
      */
     private synchronized void postData(String seriesInfo) {
+        sendData(seriesInfo);
+    }
+
+    private void sendData(String seriesInfo) {
         try (CloseableHttpClient httpclient = config.getHttpClient(false)) {
             HttpPost httppost = new HttpPost(influxDbUrlString);
 
@@ -23,6 +23,8 @@
  */
 package org.jenkinsci.plugins.githubautostatus.notifiers;
 
+import org.jenkinsci.plugins.githubautostatus.model.BuildStage;
+
 /**
  * Encapsulates the logic of determining influxdb configuration for a build.
  *
@@ -47,6 +49,12 @@ public class InfluxDbNotifierSchemas {
         private static final String TestSuite = "testsuite";
         private static final String Tests = "tests";
         private static final String TestCase = "testcase";
+        private static final String CriticalPath = "criticalpath";
+        private static final String ParallelSkew = "parallelskew";
+        private static final String AgentWait = "agentwait";
+        private static final String QueueLatency = "queuelatency";
+        private static final String StageProgress = "stageprogress";
+        private static final String CredentialRefresh = "credentialrefresh";
     }
 
     private static class TagNames {
@@ -57,6 +65,9 @@ public class InfluxDbNotifierSchemas {
         private static final String Result = "result";
         private static final String Blocked = "blocked"; // This is for v1 compat; don't use as a tag going forward
         private static final String StageName = "stagename";
+        private static final String Label = "label";
+        private static final String Phase = "phase";
+        private static final String Event = "event";
 
         @Deprecated
         private static final String Suite = "suite";
@@ -105,12 +116,101 @@ public class InfluxDbNotifierSchemas {
         private static final String JobTime = "jobtime";
         private static final String Passed = "passed";
         private static final String StageTime = "stagetime";
+        private static final String PausedTime = "pausedtime";
+        private static final String StageCount = "stagecount";
+        private static final String StageId = "stageid";
+        private static final String ParentId = "parentid";
         private static final String BuildUrl = "buildurl";
         private static final String BuildNumber = "buildnumber";
         private static final String Trigger = "trigger";
+        private static final String CriticalPathTime = "criticalpathtime";
+        private static final String Stages = "stages";
+        private static final String Branches = "branches";
+        private static final String SlowestBranch = "slowestbranch";
+        private static final String FastestBranch = "fastestbranch";
+        private static final String Skew = "skew";
+        private static final String WaitTime = "waittime";
+        private static final String Count = "count";
+        private static final String Sum = "sum";
+        private static final String P50 = "p50";
+        private static final String P90 = "p90";
+        private static final String P99 = "p99";
+        private static final String Max = "max";
+        private static final String StartTime = "starttime";
+        private static final String ElapsedTime = "elapsedtime";
+        private static final String Refreshed = "refreshed";
+        private static final String Failed = "failed";
+        private static final String UnauthorizedRetries = "unauthorizedretries";
+    }
+
+    private static InfluxDbLineBuilder appendStageIds(InfluxDbLineBuilder builder, String stageId, String parentId) {
+        if (stageId != null) {
+            builder.appendFieldValue(FieldNames.StageId, stageId);
+        }
+        if (parentId != null) {
+            builder.appendFieldValue(FieldNames.ParentId, parentId);
+        }
+        return builder;
+    }
+
+    private static InfluxDbLineBuilder appendPausedTime(InfluxDbLineBuilder builder, long pausedTime) {
+        if (pausedTime > 0) {
+            builder.appendFieldValue(FieldNames.PausedTime, pausedTime);
+        }
+        return builder;
+    }
+
+    private static InfluxDbLineBuilder appendStageCount(InfluxDbLineBuilder builder, int stageCount) {
+        if (stageCount > 0) {
+            builder.appendFieldValue(FieldNames.StageCount, stageCount);
+        }
+        return builder;
+    }
+
+    /**
+     * Appends what's only written for some stages: the ids that link it to
+     * its enclosing stage, its paused time and the number of stages rolled up.
+     */
+    private static InfluxDbLineBuilder appendStageDetails(InfluxDbLineBuilder builder, BuildStage stage) {
+        appendStageIds(builder, stage.getStageId(), stage.getParentId());
+        appendPausedTime(builder, stage.getPausedDuration());
+        return appendStageCount(builder, stage.getStageCount());
     }
 
     public interface SchemaInfo {
+        public default String formatJob(
+                String jobName,
+                String owner,
+                String repo,
+                String branch,
+                String result,
+                int blocked,
+                long jobtime,
+                long blockedtime,
+                int passed,
+                String buildUrl,
+                int buildNumber,
+                String buildCause) {
+            return formatJob(
+                    jobName,
+                    owner,
+                    repo,
+                    branch,
+                    result,
+                    blocked,
+                    jobtime,
+                    blockedtime,
+                    0,
+                    passed,
+                    buildUrl,
+                    buildNumber,
+                    buildCause);
+        }
+
+        /**
+         * Formats a job. The job time excludes blocked and paused time, which
+         * are written separately; paused time is only written if non-zero.
+         */
         public String formatJob(
                 String jobName,
                 String owner,
@@ -120,20 +220,25 @@ public class InfluxDbNotifierSchemas {
                 int blocked,
                 long jobtime,
                 long blockedtime,
+                long pausedtime,
                 int passed,
                 String buildUrl,
                 int buildNumber,
                 String buildCause);
 
+        /**
+         * Formats a completed stage. The ids that link it to its enclosing
+         * stage are written as fields rather than tags, since every build has
+         * its own. The time it spent paused, which isn't included in its stage
+         * time, and the number of stages in a rolled up entry are only written
+         * if non-zero.
+         */
         public String formatStage(
                 String jobName,
                 String owner,
                 String repo,
                 String branch,
-                String stageName,
-                String result,
-                long stageTime,
-                int passed,
+                BuildStage stage,
                 String buildUrl,
                 int buildNumber,
                 String buildCause);
@@ -194,6 +299,166 @@ public class InfluxDbNotifierSchemas {
                 int buildNumber,
                 String buildCause);
 
+        /**
+         * Formats the critical path through a build's stages. The series is
+         * new, so both schemas write it the same way.
+         */
+        public default String formatCriticalPath(
+                String jobName,
+                String owner,
+                String repo,
+                String branch,
+                long criticalPathTime,
+                String stages,
+                String buildUrl,
+                int buildNumber,
+                String buildCause) {
+            return new InfluxDbLineBuilder(SeriesNames.CriticalPath)
+                    .appendTagValue(TagNames.Owner, owner)
+                    .appendTagValue(TagNames.Repo, repo)
+                    .appendFieldValue(FieldNames.JobName, jobName)
+                    .appendFieldValue(FieldNames.Branch, branch)
+                    .appendFieldValue(FieldNames.CriticalPathTime, criticalPathTime)
+                    .appendFieldValue(FieldNames.Stages, stages)
+                    .appendFieldValue(FieldNames.BuildUrl, buildUrl)
+                    .appendFieldValue(FieldNames.BuildNumber, buildNumber)
+                    .appendFieldValue(FieldNames.Trigger, buildCause)
+                    .build();
+        }
+
+        /**
+         * Formats the skew between the slowest and fastest branch of a parallel block.
+         * The stage name is the stage enclosing the block, or null for a top level block.
+         */
+        public default String formatParallelSkew(
+                String jobName,
+                String owner,
+                String repo,
+                String branch,
+                String stageName,
+                int branches,
+                String slowestBranch,
+                String fastestBranch,
+                long skew,
+                String buildUrl,
+                int buildNumber,
+                String buildCause) {
+            InfluxDbLineBuilder builder = new InfluxDbLineBuilder(SeriesNames.ParallelSkew)
+                    .appendTagValue(TagNames.Owner, owner)
+                    .appendTagValue(TagNames.Repo, repo);
+            if (stageName != null) {
+                builder.appendTagValue(TagNames.StageName, stageName);
+            }
+            return builder.appendFieldValue(FieldNames.JobName, jobName)
+                    .appendFieldValue(FieldNames.Branch, branch)
+                    .appendFieldValue(FieldNames.Branches, branches)
+                    .appendFieldValue(FieldNames.SlowestBranch, slowestBranch)
+                    .appendFieldValue(FieldNames.FastestBranch, fastestBranch)
+                    .appendFieldValue(FieldNames.Skew, skew)
+                    .appendFieldValue(FieldNames.BuildUrl, buildUrl)
+                    .appendFieldValue(FieldNames.BuildNumber, buildNumber)
+                    .appendFieldValue(FieldNames.Trigger, buildCause)
+                    .build();
+        }
+
+        /**
+         * Formats one wait for an agent. The label and stage are tags, so that
+         * waits can be summed per agent pool or per stage.
+         */
+        public default String formatAgentWait(
+                String jobName,
+                String owner,
+                String repo,
+                String branch,
+                String label,
+                String stageName,
+                long waitTime,
+                String buildUrl,
+                int buildNumber,
+                String buildCause) {
+            InfluxDbLineBuilder builder = new InfluxDbLineBuilder(SeriesNames.AgentWait)
+                    .appendTagValue(TagNames.Owner, owner)
+                    .appendTagValue(TagNames.Repo, repo)
+                    .appendTagValue(TagNames.Label, label != null ? label : BuildNotifierConstants.DEFAULT_STRING);
+            if (stageName != null) {
+                builder.appendTagValue(TagNames.StageName, stageName);
+            }
+            return builder.appendFieldValue(FieldNames.JobName, jobName)
+                    .appendFieldValue(FieldNames.Branch, branch)
+                    .appendFieldValue(FieldNames.WaitTime, waitTime)
+                    .appendFieldValue(FieldNames.BuildUrl, buildUrl)
+                    .appendFieldValue(FieldNames.BuildNumber, buildNumber)
+                    .appendFieldValue(FieldNames.Trigger, buildCause)
+                    .build();
+        }
+
+        /**
+         * Formats a progress event for a running stage: {@code start} when it
+         * starts, then {@code heartbeat} periodically until it completes. The
+         * start time is in milliseconds since the epoch.
+         */
+        public default String formatStageProgress(
+                String jobName,
+                String owner,
+                String repo,
+                String branch,
+                String stageName,
+                String event,
+                String stageId,
+                long startTime,
+                long elapsedTime,
+                String buildUrl,
+                int buildNumber,
+                String buildCause) {
+            return appendStageIds(
+                            new InfluxDbLineBuilder(SeriesNames.StageProgress)
+                                    .appendTagValue(TagNames.Owner, owner)
+                                    .appendTagValue(TagNames.Repo, repo)
+                                    .appendTagValue(TagNames.StageName, stageName)
+                                    .appendTagValue(TagNames.Event, event)
+                                    .appendFieldValue(FieldNames.JobName, jobName)
+                                    .appendFieldValue(FieldNames.Branch, branch)
+                                    .appendFieldValue(FieldNames.StartTime, startTime)
+                                    .appendFieldValue(FieldNames.ElapsedTime, elapsedTime),
+                            stageId,
+                            null)
+                    .appendFieldValue(FieldNames.BuildUrl, buildUrl)
+                    .appendFieldValue(FieldNames.BuildNumber, buildNumber)
+                    .appendFieldValue(FieldNames.Trigger, buildCause)
+                    .build();
+        }
+
+        /**
+         * Formats the queue wait histogram for one label and queue phase over
+         * an export interval. Queue metrics aren't tied to a job, so there are
+         * no job tags.
+         */
+        public default String formatQueueLatency(
+                String label, String phase, long count, long sum, long p50, long p90, long p99, long max) {
+            return new InfluxDbLineBuilder(SeriesNames.QueueLatency)
+                    .appendTagValue(TagNames.Label, label)
+                    .appendTagValue(TagNames.Phase, phase)
+                    .appendFieldValue(FieldNames.Count, count)
+                    .appendFieldValue(FieldNames.Sum, sum)
+                    .appendFieldValue(FieldNames.P50, p50)
+                    .appendFieldValue(FieldNames.P90, p90)
+                    .appendFieldValue(FieldNames.P99, p99)
+                    .appendFieldValue(FieldNames.Max, max)
+                    .build();
+        }
+
+        /**
+         * Formats the counts of GitHub credential refreshes over an export
+         * interval. Like queue metrics, they aren't tied to a job.
+         */
+        public default String formatCredentialRefresh(long refreshed, long failed, long unauthorizedRetries) {
+            return new InfluxDbLineBuilder(SeriesNames.CredentialRefresh)
+                    .appendFieldValue(FieldNames.Refreshed, refreshed)
+                    .appendFieldValue(FieldNames.Failed, failed)
+                    .appendFieldValue(FieldNames.UnauthorizedRetries, unauthorizedRetries)
+                    .build();
+        }
+
         public class V1 implements SchemaInfo {
             // "job,jobname=%s,owner=%s,repo=%s,branch=%s,result=%s,blocked=%d jobtime=%d,blockedtime=%d,passed=%d",
             public String formatJob(
@@ -205,20 +470,23 @@ public class InfluxDbNotifierSchemas {
                     int blocked,
                     long jobtime,
                     long blockedtime,
+                    long pausedtime,
                     int passed,
                     String buildUrl,
                     int buildNumber,
                     String buildCause) {
-                return new InfluxDbLineBuilder(SeriesNames.Job)
-                        .appendTagValue(TagNames.Jobname, jobName)
-                        .appendTagValue(TagNames.Owner, owner)
-                        .appendTagValue(TagNames.Repo, repo)
-                        .appendTagValue(TagNames.Branch, branch)
-                        .appendTagValue(TagNames.Result, result)
-                        .appendTagValue(TagNames.Blocked, blocked)
-                        .appendFieldValue(FieldNames.JobTime, jobtime)
-                        .appendFieldValue(FieldNames.BlockedTime, blockedtime)
-                        .appendFieldValue(FieldNames.Passed, passed)
+                return appendPausedTime(
+                                new InfluxDbLineBuilder(SeriesNames.Job)
+                                        .appendTagValue(TagNames.Jobname, jobName)
+                                        .appendTagValue(TagNames.Owner, owner)
+                                        .appendTagValue(TagNames.Repo, repo)
+                                        .appendTagValue(TagNames.Branch, branch)
+                                        .appendTagValue(TagNames.Result, result)
+                                        .appendTagValue(TagNames.Blocked, blocked)
+                                        .appendFieldValue(FieldNames.JobTime, jobtime)
+                                        .appendFieldValue(FieldNames.BlockedTime, blockedtime)
+                                        .appendFieldValue(FieldNames.Passed, passed),
+                                pausedtime)
                         .build();
             }
 
@@ -228,22 +496,21 @@ public class InfluxDbNotifierSchemas {
                     String owner,
                     String repo,
                     String branch,
-                    String stageName,
-                    String result,
-                    long stageTime,
-                    int passed,
+                    BuildStage stage,
                     String buildUrl,
                     int buildNumber,
                     String buildCause) {
-                return new InfluxDbLineBuilder(SeriesNames.Stage)
-                        .appendTagValue(TagNames.Jobname, jobName)
-                        .appendTagValue(TagNames.Owner, owner)
-                        .appendTagValue(TagNames.Repo, repo)
-                        .appendTagValue(TagNames.Branch, branch)
-                        .appendTagValue(TagNames.StageName, stageName)
-                        .appendTagValue(TagNames.Result, result)
-                        .appendFieldValue(FieldNames.StageTime, stageTime)
-                        .appendFieldValue(FieldNames.Passed, passed)
+                return appendStageDetails(
+                                new InfluxDbLineBuilder(SeriesNames.Stage)
+                                        .appendTagValue(TagNames.Jobname, jobName)
+                                        .appendTagValue(TagNames.Owner, owner)
+                                        .appendTagValue(TagNames.Repo, repo)
+                                        .appendTagValue(TagNames.Branch, branch)
+                                        .appendTagValue(TagNames.StageName, stage.getStageName())
+                                        .appendTagValue(TagNames.Result, stage.getBuildState().toString())
+                                        .appendFieldValue(FieldNames.StageTime, stage.getDuration())
+                                        .appendFieldValue(FieldNames.Passed, stage.isPassed() ? 1 : 0),
+                                stage)
                         .build();
             }
 
@@ -367,23 +634,26 @@ public class InfluxDbNotifierSchemas {
                     int blocked,
                     long jobtime,
                     long blockedtime,
+                    long pausedtime,
                     int passed,
                     String buildUrl,
                     int buildNumber,
                     String buildCause) {
-                return new InfluxDbLineBuilder(SeriesNames.Job)
-                        .appendTagValue(TagNames.Owner, owner)
-                        .appendTagValue(TagNames.Repo, repo)
-                        .appendTagValue(TagNames.Result, result)
-                        .appendFieldValue(FieldNames.JobName, jobName)
-                        .appendFieldValue(FieldNames.Branch, branch)
-                        .appendFieldValue(FieldNames.Blocked, blocked)
-                        .appendFieldValue(FieldNames.JobTime, jobtime)
-                        .appendFieldValue(FieldNames.BlockedTime, blockedtime)
-                        .appendFieldValue(FieldNames.Passed, passed)
-                        .appendFieldValue(FieldNames.BuildUrl, buildUrl)
-                        .appendFieldValue(FieldNames.BuildNumber, buildNumber)
-                        .appendFieldValue(FieldNames.Trigger, buildCause)
+                return appendPausedTime(
+                                new InfluxDbLineBuilder(SeriesNames.Job)
+                                        .appendTagValue(TagNames.Owner, owner)
+                                        .appendTagValue(TagNames.Repo, repo)
+                                        .appendTagValue(TagNames.Result, result)
+                                        .appendFieldValue(FieldNames.JobName, jobName)
+                                        .appendFieldValue(FieldNames.Branch, branch)
+                                        .appendFieldValue(FieldNames.Blocked, blocked)
+                                        .appendFieldValue(FieldNames.JobTime, jobtime)
+                                        .appendFieldValue(FieldNames.BlockedTime, blockedtime)
+                                        .appendFieldValue(FieldNames.Passed, passed)
+                                        .appendFieldValue(FieldNames.BuildUrl, buildUrl)
+                                        .appendFieldValue(FieldNames.BuildNumber, buildNumber)
+                                        .appendFieldValue(FieldNames.Trigger, buildCause),
+                                pausedtime)
                         .build();
             }
 
@@ -392,25 +662,24 @@ public class InfluxDbNotifierSchemas {
                     String owner,
                     String repo,
                     String branch,
-                    String stageName,
-                    String result,
-                    long stageTime,
-                    int passed,
+                    BuildStage stage,
                     String buildUrl,
                     int buildNumber,
                     String buildCause) {
-                return new InfluxDbLineBuilder(SeriesNames.Stage)
-                        .appendTagValue(TagNames.Owner, owner)
-                        .appendTagValue(TagNames.Repo, repo)
-                        .appendTagValue(TagNames.StageName, stageName)
-                        .appendTagValue(TagNames.Result, result)
-                        .appendFieldValue(FieldNames.JobName, jobName)
-                        .appendFieldValue(FieldNames.Branch, branch)
-                        .appendFieldValue(FieldNames.StageTime, stageTime)
-                        .appendFieldValue(FieldNames.Passed, passed)
-                        .appendFieldValue(FieldNames.BuildUrl, buildUrl)
-                        .appendFieldValue(FieldNames.BuildNumber, buildNumber)
-                        .appendFieldValue(FieldNames.Trigger, buildCause)
+                return appendStageDetails(
+                                new InfluxDbLineBuilder(SeriesNames.Stage)
+                                        .appendTagValue(TagNames.Owner, owner)
+                                        .appendTagValue(TagNames.Repo, repo)
+                                        .appendTagValue(TagNames.StageName, stage.getStageName())
+                                        .appendTagValue(TagNames.Result, stage.getBuildState().toString())
+                                        .appendFieldValue(FieldNames.JobName, jobName)
+                                        .appendFieldValue(FieldNames.Branch, branch)
+                                        .appendFieldValue(FieldNames.StageTime, stage.getDuration())
+                                        .appendFieldValue(FieldNames.Passed, stage.isPassed() ? 1 : 0)
+                                        .appendFieldValue(FieldNames.BuildUrl, buildUrl)
+                                        .appendFieldValue(FieldNames.BuildNumber, buildNumber)
+                                        .appendFieldValue(FieldNames.Trigger, buildCause),
+                                stage)
                         .build();
             }
 
@@ -0,0 +1,243 @@
+package org.jenkinsci.plugins.githubautostatus.notifiers;
+
+import hudson.util.DaemonThreadFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.util.NamingThreadFactory;
+import jenkins.util.SystemProperties;
+import org.jenkinsci.plugins.githubautostatus.model.BuildCompleted;
+import org.jenkinsci.plugins.githubautostatus.model.BuildEvent;
+import org.jenkinsci.plugins.githubautostatus.model.BuildStage;
+import org.jenkinsci.plugins.githubautostatus.model.NonStageError;
+import org.jenkinsci.plugins.githubautostatus.model.StageCompleted;
+
+/**
+ * Base class for a notifier which sends events in batches. Events are queued
+ * as they happen and handed to {@link #sendBatch} on a background thread,
+ * either once a full batch is waiting, once the oldest event has waited for
+ * the maximum delay, or as soon as a build completes. Only one batch is sent
+ * at a time, and batches are sent from a small pool of threads shared by all
+ * queued notifiers, so a slow endpoint can't hold up Jenkins' own timer.
+ *
+ * <p>The data of a {@link BuildCompleted} event which is only gathered when
+ * read, such as test results, is gathered on the background thread.
+ */
+public abstract class QueuedBuildNotifier extends BuildNotifier implements BatchBuildNotifier {
+
+    public static final int DEFAULT_MAX_BATCH_SIZE = 100;
+    public static final long DEFAULT_MAX_DELAY_MILLIS = TimeUnit.SECONDS.toMillis(5);
+    public static final int DEFAULT_CAPACITY = 10000;
+
+    private static final int SENDER_THREADS =
+            Math.max(1, SystemProperties.getInteger(QueuedBuildNotifier.class.getName() + ".senderThreads", 4));
+
+    private static final ScheduledExecutorService SENDERS = createSenders();
+
+    private final int maxBatchSize;
+    private final long maxDelayMillis;
+    private final BlockingQueue<QueuedEvent> queue;
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+
+    /**
+     * Set while a drain is queued or running, so that only one is in flight.
+     */
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    /**
+     * Constructs a {@link QueuedBuildNotifier} with the default batch size,
+     * delay and queue capacity.
+     */
+    protected QueuedBuildNotifier() {
+        this(DEFAULT_MAX_BATCH_SIZE, DEFAULT_MAX_DELAY_MILLIS, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs a {@link QueuedBuildNotifier}.
+     *
+     * @param maxBatchSize most events sent in one batch
+     * @param maxDelayMillis longest an event waits for a batch to fill
+     * @param capacity most events queued; events beyond this are dropped
+     */
+    protected QueuedBuildNotifier(int maxBatchSize, long maxDelayMillis, int capacity) {
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.maxDelayMillis = Math.max(0, maxDelayMillis);
+        this.queue = new LinkedBlockingQueue<>(Math.max(1, capacity));
+    }
+
+    /**
+     * Sends a batch of events. Called on a background thread, one batch at a
+     * time; the events aren't retried if it throws.
+     *
+     * @param events the events, in the order they were queued
+     * @throws Exception if the events couldn't be sent
+     */
+    protected abstract void sendBatch(List<BuildEvent> events) throws Exception;
+
+    /**
+     * Gets the executor which batches are sent from.
+     *
+     * @return the executor
+     */
+    protected ScheduledExecutorService getExecutor() {
+        return SENDERS;
+    }
+
+    private static ScheduledExecutorService createSenders() {
+        ScheduledThreadPoolExecutor senders = new ScheduledThreadPoolExecutor(
+                SENDER_THREADS,
+                new NamingThreadFactory(new DaemonThreadFactory(), QueuedBuildNotifier.class.getSimpleName()));
+        senders.setKeepAliveTime(1, TimeUnit.MINUTES);
+        senders.allowCoreThreadTimeOut(true);
+        return senders;
+    }
+
+    /**
+     * Queues events to be sent.
+     *
+     * @param events the events, in the order they happened
+     * @param flush how soon to send them
+     * @param callback told whether the events were sent
+     */
+    @Override
+    public void notifyBatch(List<BuildEvent> events, Flush flush, DeliveryCallback callback) {
+        List<BuildEvent> dropped = new ArrayList<>();
+        for (BuildEvent event : events) {
+            if (!queue.offer(new QueuedEvent(event, callback))) {
+                dropped.add(event);
+            }
+        }
+        if (!dropped.isEmpty()) {
+            callback.failed(dropped, new RejectedExecutionException("Notifier queue is full"));
+        }
+        if (flush == Flush.NOW || queue.size() >= maxBatchSize) {
+            startDrain();
+        } else if (drainScheduled.compareAndSet(false, true)) {
+            getExecutor().schedule(this::scheduledDrain, maxDelayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void notifyBuildStageStatus(String jobName, BuildStage stageItem) {
+        if (stageItem.getBuildState() != BuildStage.State.Pending) {
+            notifyStageCompleted(new StageCompleted(jobName, stageItem));
+        }
+    }
+
+    @Override
+    public void notifyFinalBuildStatus(BuildStage.State buildState, Map<String, Object> parameters) {
+        notifyBuildCompleted(BuildCompleted.fromParameters(buildState, parameters));
+    }
+
+    @Override
+    public void notifyStageCompleted(StageCompleted event) {
+        notifyBatch(Collections.singletonList(event), Flush.WHEN_READY, LOG_FAILURES);
+    }
+
+    @Override
+    public void notifyBuildCompleted(BuildCompleted event) {
+        notifyBatch(Collections.singletonList(event), Flush.NOW, LOG_FAILURES);
+    }
+
+    @Override
+    public void notifyNonStageError(NonStageError event) {
+        notifyBatch(Collections.singletonList(event), Flush.WHEN_READY, LOG_FAILURES);
+    }
+
+    private void scheduledDrain() {
+        drainScheduled.set(false);
+        startDrain();
+    }
+
+    /**
+     * Starts sending what's queued unless a drain is already in flight; that
+     * drain picks up anything queued before it finishes.
+     */
+    private void startDrain() {
+        if (!draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            getExecutor().execute(this::drain);
+        } catch (RejectedExecutionException ex) {
+            draining.set(false);
+            log(Level.WARNING, ex, "Could not start sending %d events", queue.size());
+        }
+    }
+
+    /**
+     * Sends everything queued, a batch at a time.
+     */
+    private void drain() {
+        try {
+            List<QueuedEvent> batch = new ArrayList<>(maxBatchSize);
+            while (queue.drainTo(batch, maxBatchSize) > 0) {
+                send(batch);
+                batch.clear();
+            }
+        } finally {
+            draining.set(false);
+        }
+        // Events queued after the last batch was taken, but before the flag was cleared
+        if (!queue.isEmpty()) {
+            startDrain();
+        }
+    }
+
+    private void send(List<QueuedEvent> batch) {
+        List<BuildEvent> events = new ArrayList<>(batch.size());
+        Map<DeliveryCallback, List<BuildEvent>> eventsByCallback = new IdentityHashMap<>();
+        for (QueuedEvent queued : batch) {
+            events.add(queued.event);
+            eventsByCallback
+                    .computeIfAbsent(queued.callback, callback -> new ArrayList<>())
+                    .add(queued.event);
+        }
+        Throwable failure = null;
+        try {
+            sendBatch(events);
+        } catch (Exception ex) {
+            failure = ex;
+        }
+        for (Map.Entry<DeliveryCallback, List<BuildEvent>> entry : eventsByCallback.entrySet()) {
+            try {
+                if (failure == null) {
+                    entry.getKey().delivered(entry.getValue());
+                } else {
+                    entry.getKey().failed(entry.getValue(), failure);
+                }
+            } catch (RuntimeException ex) {
+                log(Level.WARNING, ex, "Delivery callback failed");
+            }
+        }
+    }
+
+    private static class QueuedEvent {
+        private final BuildEvent event;
+        private final DeliveryCallback callback;
+
+        QueuedEvent(BuildEvent event, DeliveryCallback callback) {
+            this.event = event;
+            this.callback = callback;
+        }
+    }
+
+    private static void log(Level level, Throwable exception, String format, Object... args) {
+        getLogger().log(level, String.format(format, args), exception);
+    }
+
+    private static Logger getLogger() {
+        return Logger.getLogger(QueuedBuildNotifier.class.getName());
+    }
+}
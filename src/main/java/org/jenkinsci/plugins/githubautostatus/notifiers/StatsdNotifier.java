@@ -24,14 +24,23 @@
 package org.jenkinsci.plugins.githubautostatus.notifiers;
 
 import java.nio.charset.StandardCharsets;
+import java.util.EnumSet;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.jenkinsci.plugins.githubautostatus.StatsdClient;
 import org.jenkinsci.plugins.githubautostatus.StatsdNotifierConfig;
 import org.jenkinsci.plugins.githubautostatus.StatsdWrapper;
+import org.jenkinsci.plugins.githubautostatus.model.AgentWait;
+import org.jenkinsci.plugins.githubautostatus.model.BuildCompleted;
 import org.jenkinsci.plugins.githubautostatus.model.BuildStage;
+import org.jenkinsci.plugins.githubautostatus.model.CredentialRefreshStats;
+import org.jenkinsci.plugins.githubautostatus.model.CriticalPath;
+import org.jenkinsci.plugins.githubautostatus.model.QueueLatency;
+import org.jenkinsci.plugins.githubautostatus.model.QueueLatencyHistogram;
 
 /**
  * Sends job and stage metrics to a StatsD collector server over UDP.
@@ -43,6 +52,11 @@ public class StatsdNotifier extends BuildNotifier {
     private StatsdWrapper client;
     protected StatsdNotifierConfig config;
 
+    /**
+     * Path up to the branch bucket, worked out the first time it's needed.
+     */
+    private volatile String branchPath;
+
     // Used only for testing
     public StatsdNotifier(StatsdWrapper client, StatsdNotifierConfig config) {
         this.client = client;
@@ -70,8 +84,13 @@ public class StatsdNotifier extends BuildNotifier {
      * @return string of path up to branch bucket
      */
     public String getBranchPath() {
-        String sanitizedExternalizedID = sanitizeAll(config.getExternalizedID());
-        return String.format("pipeline.%s", sanitizedExternalizedID);
+        String path = branchPath;
+        if (path == null) {
+            String sanitizedExternalizedID = sanitizeAll(config.getExternalizedID());
+            path = String.format("pipeline.%s", sanitizedExternalizedID);
+            branchPath = path;
+        }
+        return path;
     }
 
     /**
@@ -95,6 +114,25 @@ public class StatsdNotifier extends BuildNotifier {
         long nodeDuration = stageItem.getDuration();
         String nodeName = stageItem.getStageName();
         notifyBuildStageStatus(jobName, nodeName, buildState, nodeDuration);
+
+        if (stageItem.getPausedDuration() > 0) {
+            String stagePaused =
+                    String.format("%s.stage.%s.paused_duration", getBranchPath(), sanitizeAll(nodeName));
+            if (stagePaused.getBytes(StandardCharsets.UTF_16).length
+                    > Integer.parseInt(config.getStatsdMaxSize().trim())) {
+                log(Level.WARNING, "StatsD notify exceeds max. packet size for stagePausedDuration");
+            }
+            client.time(stagePaused, stageItem.getPausedDuration());
+        }
+        if (stageItem.getAgentWaitDuration() > 0) {
+            String stageAgentWait =
+                    String.format("%s.stage.%s.agent_wait_duration", getBranchPath(), sanitizeAll(nodeName));
+            if (stageAgentWait.getBytes(StandardCharsets.UTF_16).length
+                    > Integer.parseInt(config.getStatsdMaxSize().trim())) {
+                log(Level.WARNING, "StatsD notify exceeds max. packet size for stageAgentWaitDuration");
+            }
+            client.time(stageAgentWait, stageItem.getAgentWaitDuration());
+        }
     }
 
     /**
@@ -136,10 +174,21 @@ public class StatsdNotifier extends BuildNotifier {
      * @param parameters build parameters
      */
     public void notifyFinalBuildStatus(BuildStage.State buildState, Map<String, Object> parameters) {
-        long blockedDuration = getLong(parameters, BuildNotifierConstants.BLOCKED_DURATION);
-        long buildDuration = getLong(parameters, BuildNotifierConstants.JOB_DURATION) - blockedDuration;
+        notifyBuildCompleted(BuildCompleted.fromParameters(buildState, parameters));
+    }
+
+    /**
+     * Sends final build status metric by doing a timer metric for blocked and unblocked job time.
+     *
+     * @param event the completed build
+     */
+    @Override
+    public void notifyBuildCompleted(BuildCompleted event) {
+        long blockedDuration = event.getBlockedDuration();
+        long pausedDuration = event.getPausedDuration();
+        long buildDuration = event.getRunningDuration();
         byte[] fqpSize;
-        String result = sanitizeAll(buildState.toString());
+        String result = sanitizeAll(event.getBuildState().toString());
         int statsDMaxSize = Integer.parseInt(config.getStatsdMaxSize().trim());
 
         String fqp = String.format("%s.job.status.%s", getBranchPath(), result);
@@ -162,6 +211,149 @@ public class StatsdNotifier extends BuildNotifier {
             log(Level.WARNING, "StatsD notify exceeds max. packet size for blockedDuration");
         }
         client.time(fqp, blockedDuration);
+
+        fqp = String.format("%s.job.paused_duration", getBranchPath());
+        fqpSize = fqp.getBytes(StandardCharsets.UTF_16);
+        if (fqpSize.length > statsDMaxSize) {
+            log(Level.WARNING, "StatsD notify exceeds max. packet size for pausedDuration");
+        }
+        client.time(fqp, pausedDuration);
+
+        fqp = String.format("%s.job.agent_wait_duration", getBranchPath());
+        fqpSize = fqp.getBytes(StandardCharsets.UTF_16);
+        if (fqpSize.length > statsDMaxSize) {
+            log(Level.WARNING, "StatsD notify exceeds max. packet size for agentWaitDuration");
+        }
+        client.time(fqp, event.getAgentWaitDuration());
+
+        List<AgentWait> agentWaits = event.getAgentWaits();
+        if (agentWaits != null) {
+            for (AgentWait wait : agentWaits) {
+                String label = wait.getLabel() != null ? wait.getLabel() : BuildNotifierConstants.DEFAULT_STRING;
+                fqp = String.format("%s.agent_wait.%s", getBranchPath(), sanitizeAll(label));
+                fqpSize = fqp.getBytes(StandardCharsets.UTF_16);
+                if (fqpSize.length > statsDMaxSize) {
+                    log(Level.WARNING, "StatsD notify exceeds max. packet size for agentWait");
+                }
+                client.time(fqp, wait.getDuration());
+            }
+        }
+
+        CriticalPath criticalPath = event.getCriticalPath();
+        if (criticalPath != null) {
+            fqp = String.format("%s.job.critical_path_duration", getBranchPath());
+            fqpSize = fqp.getBytes(StandardCharsets.UTF_16);
+            if (fqpSize.length > statsDMaxSize) {
+                log(Level.WARNING, "StatsD notify exceeds max. packet size for criticalPathDuration");
+            }
+            client.time(fqp, criticalPath.getDuration());
+
+            for (CriticalPath.ParallelBlock block : criticalPath.getParallelBlocks()) {
+                String stageName = block.getStageName() != null ? block.getStageName() : "root";
+                fqp = String.format("%s.parallel.%s.skew", getBranchPath(), sanitizeAll(stageName));
+                fqpSize = fqp.getBytes(StandardCharsets.UTF_16);
+                if (fqpSize.length > statsDMaxSize) {
+                    log(Level.WARNING, "StatsD notify exceeds max. packet size for parallelSkew");
+                }
+                client.time(fqp, block.getSkew());
+            }
+        }
+    }
+
+    /**
+     * Gets the data the notifier reads from completed builds.
+     *
+     * @return agent waits; since test results and coverage aren't sent to StatsD
+     */
+    @Override
+    public Set<BuildCompleted.Data> getWantedBuildData() {
+        return EnumSet.of(BuildCompleted.Data.AGENT_WAITS);
+    }
+
+    /**
+     * Get whether the notifier wants to know when stages start and how long running stages have been going.
+     *
+     * @return true; since this notifier reports stage progress.
+     */
+    @Override
+    public boolean wantsStageProgress() {
+        return true;
+    }
+
+    /**
+     * Counts stage starts, so that starts without a matching completion show up as running or hung stages.
+     *
+     * @param jobName   the name of the job (currently ignored)
+     * @param stageItem the stage
+     */
+    @Override
+    public void notifyStageStarted(String jobName, BuildStage stageItem) {
+        String fqp = String.format("%s.stage.%s.started", getBranchPath(), sanitizeAll(stageItem.getStageName()));
+        if (fqp.getBytes(StandardCharsets.UTF_16).length > Integer.parseInt(config.getStatsdMaxSize().trim())) {
+            log(Level.WARNING, "StatsD notify exceeds max. packet size for stageStarted");
+        }
+        client.increment(fqp, 1);
+    }
+
+    /**
+     * Sends the time a running stage has been going as a timer metric.
+     *
+     * @param jobName     the name of the job (currently ignored)
+     * @param stageItem   the running stage
+     * @param elapsedTime time since the stage started
+     */
+    @Override
+    public void notifyStageHeartbeat(String jobName, BuildStage stageItem, long elapsedTime) {
+        String fqp = String.format("%s.stage.%s.elapsed", getBranchPath(), sanitizeAll(stageItem.getStageName()));
+        if (fqp.getBytes(StandardCharsets.UTF_16).length > Integer.parseInt(config.getStatsdMaxSize().trim())) {
+            log(Level.WARNING, "StatsD notify exceeds max. packet size for stageElapsed");
+        }
+        client.time(fqp, elapsedTime);
+    }
+
+    /**
+     * Sends queue wait histograms as a count of waits plus timers for the
+     * median, 90th and 99th percentile and longest wait, under
+     * {@code pipeline.queue.<label>.<phase>}.
+     *
+     * @param latencies wait times per label and queue phase
+     */
+    @Override
+    public void notifyQueueLatency(List<QueueLatency> latencies) {
+        int statsDMaxSize = Integer.parseInt(config.getStatsdMaxSize().trim());
+
+        for (QueueLatency latency : latencies) {
+            String prefix = String.format(
+                    "pipeline.queue.%s.%s",
+                    sanitizeAll(latency.getLabel()),
+                    latency.getPhase().getMetricName());
+            if (String.format("%s.count", prefix).getBytes(StandardCharsets.UTF_16).length > statsDMaxSize) {
+                log(Level.WARNING, "StatsD notify exceeds max. packet size for queueLatency");
+            }
+            QueueLatencyHistogram.Snapshot snapshot = latency.getSnapshot();
+            client.increment(prefix + ".count", (int) Math.min(snapshot.getCount(), Integer.MAX_VALUE));
+            client.time(prefix + ".p50", snapshot.getPercentile(50));
+            client.time(prefix + ".p90", snapshot.getPercentile(90));
+            client.time(prefix + ".p99", snapshot.getPercentile(99));
+            client.time(prefix + ".max", snapshot.getMax());
+        }
+    }
+
+    /**
+     * Sends the counts of GitHub credential refreshes under
+     * {@code pipeline.github.credentials}.
+     *
+     * @param stats the counts of refreshes
+     */
+    @Override
+    public void notifyCredentialRefresh(CredentialRefreshStats stats) {
+        client.increment("pipeline.github.credentials.refreshed", toDelta(stats.getRefreshed()));
+        client.increment("pipeline.github.credentials.failed", toDelta(stats.getFailed()));
+        client.increment("pipeline.github.credentials.unauthorized_retries", toDelta(stats.getUnauthorizedRetries()));
+    }
+
+    private static int toDelta(long count) {
+        return (int) Math.min(count, Integer.MAX_VALUE);
     }
 
     /**
@@ -0,0 +1,145 @@
+package org.jenkinsci.plugins.githubautostatus;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.jenkinsci.plugins.githubautostatus.model.BuildCompleted;
+import org.jenkinsci.plugins.githubautostatus.model.BuildStage;
+import org.jenkinsci.plugins.githubautostatus.notifiers.BuildNotifier;
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.TestExtension;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+public class BackfillTaskTest {
+
+    private static final String PIPELINE = "stage('build') { echo 'building' }\nstage('test') { echo 'testing' }";
+
+    @BeforeEach
+    public void setUp() {
+        RecordingNotifier.builds.clear();
+    }
+
+    /**
+     * Verifies the stages of a past build are read from its flow graph and sent.
+     */
+    @Test
+    public void testBackfillSendsStages(JenkinsRule r) throws Exception {
+        WorkflowJob job = createJob(r);
+        r.buildAndAssertSuccess(job);
+
+        BackfillTask task = new BackfillTask(Collections.singletonList("p"), 0, Long.MAX_VALUE, 1, 100);
+        task.start();
+        awaitCompletion(task);
+
+        assertEquals(1, task.getBuildsSent());
+        assertEquals(0, task.getBuildsFailed());
+        assertEquals(1, RecordingNotifier.builds.size());
+        HistoricalBuild build = RecordingNotifier.builds.get(0);
+        assertEquals("p#1", build.jobName);
+        assertEquals(BuildStage.State.CompletedSuccess, build.buildState);
+        assertEquals(Arrays.asList("build", "test"), build.stageNames);
+    }
+
+    /**
+     * Verifies a backfill saved while running resumes after the last build it sent.
+     */
+    @Test
+    public void testBackfillResumes(JenkinsRule r) throws Exception {
+        WorkflowJob job = createJob(r);
+        r.buildAndAssertSuccess(job);
+        r.buildAndAssertSuccess(job);
+        String saved = "<org.jenkinsci.plugins.githubautostatus.BackfillTask>\n"
+                + "  <jobNames><string>p</string></jobNames>\n"
+                + "  <from>0</from>\n"
+                + "  <to>" + Long.MAX_VALUE + "</to>\n"
+                + "  <threads>1</threads>\n"
+                + "  <buildsPerSecond>100</buildsPerSecond>\n"
+                + "  <progress><entry><string>p</string><int>1</int></entry></progress>\n"
+                + "  <state>Running</state>\n"
+                + "  <buildsSent>1</buildsSent>\n"
+                + "  <buildsFailed>0</buildsFailed>\n"
+                + "</org.jenkinsci.plugins.githubautostatus.BackfillTask>\n";
+        Files.write(BackfillTask.getConfigFile().getFile().toPath(), saved.getBytes(StandardCharsets.UTF_8));
+
+        BackfillManagementLink.resume();
+        BackfillTask task = r.jenkins
+                .getExtensionList(BackfillManagementLink.class)
+                .get(0)
+                .getTask();
+        assertNotNull(task);
+        awaitCompletion(task);
+
+        assertEquals(2, task.getBuildsSent());
+        assertEquals(1, RecordingNotifier.builds.size());
+        assertEquals("p#2", RecordingNotifier.builds.get(0).jobName);
+    }
+
+    private static WorkflowJob createJob(JenkinsRule r) throws Exception {
+        WorkflowJob job = r.createProject(WorkflowJob.class, "p");
+        job.setDefinition(new CpsFlowDefinition(PIPELINE, true));
+        return job;
+    }
+
+    private static void awaitCompletion(BackfillTask task) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 60_000;
+        while (task.getState() == BackfillTask.State.Running) {
+            assertTrue(System.currentTimeMillis() < deadline, "backfill didn't complete");
+            Thread.sleep(100);
+        }
+        assertEquals(BackfillTask.State.Completed, task.getState());
+    }
+
+    private static final class HistoricalBuild {
+        private final String jobName;
+        private final BuildStage.State buildState;
+        private final List<String> stageNames;
+
+        HistoricalBuild(String jobName, BuildStage.State buildState, List<String> stageNames) {
+            this.jobName = jobName;
+            this.buildState = buildState;
+            this.stageNames = stageNames;
+        }
+    }
+
+    @TestExtension
+    public static class RecordingNotifier extends BuildNotifier {
+
+        static final List<HistoricalBuild> builds = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public boolean isEnabled() {
+            return true;
+        }
+
+        @Override
+        public boolean wantsBackfill() {
+            return true;
+        }
+
+        @Override
+        public void notifyBuildStageStatus(String jobName, BuildStage stageItem) {}
+
+        @Override
+        public void notifyFinalBuildStatus(BuildStage.State buildState, Map<String, Object> parameters) {}
+
+        @Override
+        public void notifyHistoricalBuild(BuildCompleted event, List<BuildStage> stages) {
+            builds.add(new HistoricalBuild(
+                    event.getJobName(),
+                    event.getBuildState(),
+                    stages.stream().map(BuildStage::getStageName).collect(Collectors.toList())));
+        }
+    }
+}
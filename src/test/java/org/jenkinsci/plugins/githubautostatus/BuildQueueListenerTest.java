@@ -23,15 +23,29 @@
  */
 package org.jenkinsci.plugins.githubautostatus;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
+import hudson.model.Label;
 import hudson.model.Queue.BlockedItem;
+import hudson.model.Queue.BuildableItem;
+import hudson.model.Queue.LeftItem;
 import hudson.model.Queue.NonBlockingTask;
 import hudson.model.Run;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.List;
+import org.jenkinsci.plugins.githubautostatus.model.AgentWait;
+import org.jenkinsci.plugins.githubautostatus.model.QueueLatency;
+import org.jenkinsci.plugins.workflow.actions.LabelAction;
+import org.jenkinsci.plugins.workflow.actions.StageAction;
+import org.jenkinsci.plugins.workflow.graph.BlockStartNode;
+import org.jenkinsci.plugins.workflow.graph.FlowNode;
 import org.jenkinsci.plugins.workflow.support.steps.ExecutorStepExecution;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 
 /**
  *
@@ -113,6 +127,75 @@ public class BuildQueueListenerTest {
         verify(buildBlockedAction).setTimeReleased(anyLong());
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testLeftRecordsAgentWaitForStage() throws Exception {
+        Run run = mock(Run.class);
+
+        BlockStartNode stage = mock(BlockStartNode.class);
+        when(stage.getId()).thenReturn("7");
+        when(stage.getAction(StageAction.class)).thenReturn(mock(StageAction.class));
+        when(stage.getAction(LabelAction.class)).thenReturn(new LabelAction("Build"));
+        FlowNode nodeStep = mock(FlowNode.class);
+        when(nodeStep.iterateEnclosingBlocks()).thenReturn(Collections.singletonList(stage));
+
+        ExecutorStepExecution.PlaceholderTask task = mock(ExecutorStepExecution.PlaceholderTask.class);
+        when(task.run()).thenReturn((Run) run);
+        when(task.getNode()).thenReturn(nodeStep);
+
+        Label label = mock(Label.class);
+        when(label.getExpression()).thenReturn("linux");
+        LeftItem item = mock(LeftItem.class);
+        when(item.getInQueueSince()).thenReturn(System.currentTimeMillis() - 5000);
+        when(item.getAssignedLabel()).thenReturn(label);
+        setFinal(item, LeftItem.class.getField("task"), task);
+
+        new BuildQueueListener().onLeft(item);
+
+        ArgumentCaptor<QueueWaitAction> captor = ArgumentCaptor.forClass(QueueWaitAction.class);
+        verify(run).addAction(captor.capture());
+        AgentWait wait = captor.getValue().getWaits().get(0);
+        assertEquals("linux", wait.getLabel());
+        assertEquals("7", wait.getStageId());
+        assertEquals("Build", wait.getStageName());
+        assertTrue(wait.getDuration() >= 5000);
+    }
+
+    @Test
+    public void testLeftCancelledNotRecorded() throws Exception {
+        Run run = mock(Run.class);
+
+        ExecutorStepExecution.PlaceholderTask task = mock(ExecutorStepExecution.PlaceholderTask.class);
+        when(task.run()).thenReturn((Run) run);
+
+        LeftItem item = mock(LeftItem.class);
+        when(item.isCancelled()).thenReturn(true);
+        setFinal(item, LeftItem.class.getField("task"), task);
+
+        new BuildQueueListener().onLeft(item);
+        verify(run, never()).addAction(any());
+    }
+
+    @Test
+    public void testQueueLatencyRecordedForAnyTask() throws Exception {
+        NonBlockingTask task = mock(NonBlockingTask.class);
+
+        BuildableItem buildable = mock(BuildableItem.class);
+        setFinal(buildable, BuildableItem.class.getField("task"), task);
+        LeftItem left = mock(LeftItem.class);
+        when(left.getInQueueSince()).thenReturn(System.currentTimeMillis());
+        setFinal(left, LeftItem.class.getField("task"), task);
+
+        BuildQueueListener buildQueueListener = new BuildQueueListener();
+        buildQueueListener.onEnterBuildable(buildable);
+        buildQueueListener.onLeaveBuildable(buildable);
+        buildQueueListener.onLeft(left);
+
+        List<QueueLatency> latencies = buildQueueListener.getLatencyRecorder().drain();
+        assertEquals(2, latencies.size());
+        assertEquals("none", latencies.get(0).getLabel());
+    }
+
     static void setFinal(Object object, Field field, Object newValue) throws Exception {
         field.setAccessible(true);
         try {
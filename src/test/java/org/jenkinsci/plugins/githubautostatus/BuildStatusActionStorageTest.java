@@ -0,0 +1,132 @@
+package org.jenkinsci.plugins.githubautostatus;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.Run;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import org.jenkinsci.plugins.githubautostatus.model.BuildStage;
+import org.jenkinsci.plugins.githubautostatus.model.BuildStageRecord;
+import org.jenkinsci.plugins.githubautostatus.notifiers.BuildNotifier;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+/**
+ * Verifies how {@link BuildStatusAction} is saved in and loaded from build.xml.
+ */
+@WithJenkins
+public class BuildStatusActionStorageTest {
+
+    private static final String TARGET_URL = "http://mock-target";
+
+    /**
+     * Verifies the stages are saved as attributes of their own elements, and
+     * survive being loaded again.
+     */
+    @Test
+    public void testStagesRoundTrip(JenkinsRule r) throws Exception {
+        FreeStyleProject project = r.createFreeStyleProject("p");
+        FreeStyleBuild build = r.buildAndAssertSuccess(project);
+        BuildStatusAction action = BuildStatusAction.newAction(build, TARGET_URL, new ArrayList<>());
+        action.addBuildStatus("build", "3", null);
+        action.addBuildStatus("test", "7", "3");
+        action.updateBuildStatusForStage("3", "build", BuildStage.State.CompletedSuccess, 1000, 500, 20);
+
+        String xml = Run.XSTREAM2.toXML(action);
+
+        assertTrue(xml.contains("<autostatus-stage name=\"build\" id=\"3\" state=\"CompletedSuccess\""), xml);
+        assertTrue(xml.contains("<autostatus-stage name=\"test\" id=\"7\" parent=\"3\" state=\"Pending\""), xml);
+        assertFalse(xml.contains("buildStatuses"), xml);
+        assertFalse(xml.contains("stagesById"), xml);
+
+        BuildStatusAction loaded = (BuildStatusAction) Run.XSTREAM2.fromXML(xml);
+        loaded.onLoad(build);
+        BuildNotifier notifier = connectNotifier(loaded, build);
+
+        verify(notifier)
+                .notifyBuildStageStatus(
+                        anyString(),
+                        argThat(stage -> "3".equals(stage.getStageId())
+                                && stage.getBuildState() == BuildStage.State.CompletedSuccess
+                                && stage.getStartTime() == 1000
+                                && stage.getDuration() == 500
+                                && stage.getPausedDuration() == 20));
+        verify(notifier)
+                .notifyBuildStageStatus(
+                        anyString(),
+                        argThat(stage -> "7".equals(stage.getStageId())
+                                && "3".equals(stage.getParentId())
+                                && stage.getBuildState() == BuildStage.State.Pending));
+    }
+
+    /**
+     * Verifies a pending rollup entry which a failed stage was folded into
+     * still isn't passing once loaded again.
+     */
+    @Test
+    public void testFailedRollupRoundTrip(JenkinsRule r) {
+        BuildStage rollup = new BuildStage(BuildStatusAction.ROLLUP_STAGE_NAME);
+        rollup.rollUp(100, BuildStage.State.CompletedSuccess);
+        rollup.rollUp(200, BuildStage.State.CompletedError);
+        assertFalse(rollup.isPassed());
+
+        String xml = Run.XSTREAM2.toXML(BuildStageRecord.of(rollup));
+
+        assertTrue(xml.contains("count=\"2\" passed=\"false\""), xml);
+        BuildStage loaded = ((BuildStageRecord) Run.XSTREAM2.fromXML(xml)).toBuildStage();
+        assertEquals(BuildStage.State.Pending, loaded.getBuildState());
+        assertEquals(2, loaded.getStageCount());
+        assertEquals(300, loaded.getDuration());
+        assertFalse(loaded.isPassed());
+    }
+
+    /**
+     * Verifies the stages of a build saved by an older version, which kept
+     * them in a map of stages by name, are still loaded.
+     */
+    @Test
+    public void testOldFormatLoaded(JenkinsRule r) throws Exception {
+        FreeStyleProject project = r.createFreeStyleProject("p");
+        FreeStyleBuild build = r.buildAndAssertSuccess(project);
+        File buildXml = new File(build.getRootDir(), "build.xml");
+        try (InputStream in = getClass().getResourceAsStream("BuildStatusActionStorageTest/build.xml")) {
+            Files.copy(in, buildXml.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        build.reload();
+
+        BuildStatusAction action = build.getAction(BuildStatusAction.class);
+        assertNotNull(action);
+        assertEquals("p#1", action.getJobName());
+        assertEquals("repo", action.getRepoName());
+        BuildNotifier notifier = connectNotifier(action, build);
+
+        verify(notifier)
+                .notifyBuildStageStatus(
+                        anyString(),
+                        argThat(stage -> "build".equals(stage.getStageName())
+                                && stage.getBuildState() == BuildStage.State.CompletedSuccess
+                                && stage.getDuration() == 500));
+        verify(notifier)
+                .notifyBuildStageStatus(
+                        anyString(),
+                        argThat(stage -> "test".equals(stage.getStageName())
+                                && stage.getBuildState() == BuildStage.State.Pending));
+    }
+
+    private static BuildNotifier connectNotifier(BuildStatusAction action, Run<?, ?> build) {
+        action.connectNotifiers(build, TARGET_URL);
+        BuildNotifier notifier = mock(BuildNotifier.class);
+        when(notifier.isEnabled()).thenReturn(true);
+        action.addGenericNotifier(notifier);
+        return notifier;
+    }
+}
@@ -23,21 +23,37 @@
  */
 package org.jenkinsci.plugins.githubautostatus;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 import hudson.model.AbstractBuild;
+import hudson.model.JobProperty;
 import hudson.model.Run;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.jenkinsci.plugins.githubautostatus.config.GithubNotificationConfig;
 import org.jenkinsci.plugins.githubautostatus.config.HttpNotifierConfig;
 import org.jenkinsci.plugins.githubautostatus.config.InfluxDbNotifierConfig;
+import org.jenkinsci.plugins.githubautostatus.config.StageRollupConfig;
 import org.jenkinsci.plugins.githubautostatus.model.BuildStage;
+import org.jenkinsci.plugins.githubautostatus.model.CriticalPath;
+import org.jenkinsci.plugins.githubautostatus.notifiers.BuildNotifier;
 import org.jenkinsci.plugins.githubautostatus.notifiers.BuildNotifierManager;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -68,6 +84,7 @@ public class BuildStatusActionTest {
     private MockedStatic<StatsdNotifierConfig> statsdNotifierConfigStatic;
     private MockedStatic<StatsdClient> statsdClientStatic;
     private MockedStatic<HttpNotifierConfig> httpNotifierConfigStatic;
+    private MockedStatic<StageRollupConfig> stageRollupConfigStatic;
 
     @BeforeEach
     public void setUp() {
@@ -104,12 +121,16 @@ public class BuildStatusActionTest {
                 .when(() -> HttpNotifierConfig.fromGlobalConfig((String) isNull(), (String) isNull(), any()))
                 .thenReturn(mock(HttpNotifierConfig.class));
 
+        stageRollupConfigStatic = mockStatic(StageRollupConfig.class);
+        stageRollupConfigStatic.when(StageRollupConfig::fromGlobalConfig).thenReturn(null);
+
         mockRun = mock(AbstractBuild.class);
         when(mockRun.getExternalizableId()).thenReturn(jobName);
     }
 
     @AfterEach
     public void tearDown() {
+        if (stageRollupConfigStatic != null) stageRollupConfigStatic.close();
         if (httpNotifierConfigStatic != null) httpNotifierConfigStatic.close();
         if (statsdClientStatic != null) statsdClientStatic.close();
         if (statsdNotifierConfigStatic != null) statsdNotifierConfigStatic.close();
@@ -220,6 +241,201 @@ public class BuildStatusActionTest {
                 .createCommitStatus(sha, GHCommitState.SUCCESS, targetUrl, "Stage built successfully", stageName);
     }
 
+    /**
+     * Verifies stages with the same name in different branches are tracked separately
+     *
+     * @throws java.io.IOException
+     */
+    @Test
+    public void testDuplicateStageNamesById() throws IOException {
+        BuildStatusAction instance = new BuildStatusAction(mockRun, targetUrl, new ArrayList<>());
+        instance.addBuildStatus(stageName, "5", "2");
+        instance.addBuildStatus(stageName, "8", "2");
+
+        instance.updateBuildStatusForStage("8", stageName, BuildStage.State.CompletedError, 0);
+        instance.updateBuildStatusForStage("5", stageName, BuildStage.State.CompletedSuccess, 0);
+
+        verify(repository, times(2))
+                .createCommitStatus(sha, GHCommitState.PENDING, targetUrl, "Building stage", stageName);
+        verify(repository).createCommitStatus(sha, GHCommitState.ERROR, targetUrl, "Failed to build stage", stageName);
+        verify(repository)
+                .createCommitStatus(sha, GHCommitState.SUCCESS, targetUrl, "Stage built successfully", stageName);
+    }
+
+    /**
+     * Verifies a stage completed from several threads at once is only reported once
+     *
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testConcurrentStageCompletion() throws Exception {
+        BuildStatusAction instance = new BuildStatusAction(mockRun, targetUrl, new ArrayList<>());
+        instance.addBuildStatus(stageName, "5", "2");
+
+        int threadCount = 8;
+        CountDownLatch ready = new CountDownLatch(threadCount);
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threadCount; i++) {
+                BuildStage.State state =
+                        i % 2 == 0 ? BuildStage.State.CompletedSuccess : BuildStage.State.CompletedError;
+                futures.add(executor.submit(() -> {
+                    ready.countDown();
+                    ready.await();
+                    instance.updateBuildStatusForStage("5", stageName, state, 0);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        verify(repository).createCommitStatus(sha, GHCommitState.PENDING, targetUrl, "Building stage", stageName);
+        verify(repository, times(1)).createCommitStatus(
+                eq(sha), argThat(state -> state != GHCommitState.PENDING), eq(targetUrl), anyString(), eq(stageName));
+    }
+
+    /**
+     * Verifies closing the action while a stage completes never reports the
+     * stage with timings from the other completion.
+     *
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testCloseRacesStageCompletion() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int i = 0; i < 200; i++) {
+                List<long[]> completions = Collections.synchronizedList(new ArrayList<>());
+                BuildNotifier notifier = mock(BuildNotifier.class);
+                when(notifier.isEnabled()).thenReturn(true);
+                doAnswer(invocation -> {
+                            BuildStage stage = invocation.getArgument(1);
+                            BuildStage.State state = stage.getBuildState();
+                            if (state != BuildStage.State.Pending) {
+                                completions.add(new long[] {
+                                    state.ordinal(), stage.getDuration(), stage.getPausedDuration()
+                                });
+                            }
+                            return null;
+                        })
+                        .when(notifier)
+                        .notifyBuildStageStatus(any(), any());
+
+                BuildStatusAction instance = new BuildStatusAction(mockRun, targetUrl, new ArrayList<>());
+                instance.addGenericNotifier(notifier);
+                instance.addBuildStatus(stageName, "5", null);
+
+                CountDownLatch ready = new CountDownLatch(2);
+                Future<?> close = executor.submit(() -> {
+                    ready.countDown();
+                    ready.await();
+                    instance.close();
+                    return null;
+                });
+                Future<?> complete = executor.submit(() -> {
+                    ready.countDown();
+                    ready.await();
+                    instance.updateBuildStatusForStage("5", stageName, BuildStage.State.CompletedError, 1000, 500, 20);
+                    return null;
+                });
+                close.get();
+                complete.get();
+
+                assertEquals(1, completions.size());
+                long[] completion = completions.get(0);
+                if (completion[0] == BuildStage.State.CompletedError.ordinal()) {
+                    assertEquals(500, completion[1]);
+                    assertEquals(20, completion[2]);
+                } else {
+                    assertEquals(BuildStage.State.CompletedSuccess.ordinal(), completion[0]);
+                    assertEquals(0, completion[1]);
+                    assertEquals(0, completion[2]);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Verifies a declarative stage known by name is completed by node id once bound
+     *
+     * @throws java.io.IOException
+     */
+    @Test
+    public void testBindDeclarativeStage() throws IOException {
+        List<BuildStage> model = new ArrayList<BuildStage>();
+        model.add(new BuildStage(stageName));
+        BuildStatusAction instance = new BuildStatusAction(mockRun, targetUrl, model);
+
+        instance.bindStage(stageName, "3", null);
+        instance.updateBuildStatusForStage("3", stageName, BuildStage.State.CompletedSuccess, 0);
+
+        verify(repository, times(1))
+                .createCommitStatus(sha, GHCommitState.PENDING, targetUrl, "Building stage", stageName);
+        verify(repository)
+                .createCommitStatus(sha, GHCommitState.SUCCESS, targetUrl, "Stage built successfully", stageName);
+    }
+
+    /**
+     * Verifies the critical path follows the slowest of two parallel stages
+     *
+     * @throws java.io.IOException
+     */
+    @Test
+    public void testCriticalPath() throws IOException {
+        BuildStatusAction instance = new BuildStatusAction(mockRun, targetUrl, new ArrayList<>());
+        instance.addBuildStatus("fast", "5", null);
+        instance.addBuildStatus("slow", "8", null);
+
+        instance.updateBuildStatusForStage("5", "fast", BuildStage.State.CompletedSuccess, 1000, 10, 0);
+        instance.updateBuildStatusForStage("8", "slow", BuildStage.State.CompletedSuccess, 1001, 50, 0);
+
+        CriticalPath criticalPath = instance.getCriticalPath();
+        assertEquals(List.of("slow"), criticalPath.getStages());
+        assertEquals(50, criticalPath.getDuration());
+        assertEquals(40, criticalPath.getParallelBlocks().get(0).getSkew());
+    }
+
+    /**
+     * Verifies stage starts and heartbeats go only to notifiers which want them,
+     * and only for stages that are running
+     */
+    @Test
+    public void testStageProgress() {
+        BuildNotifier progressNotifier = mock(BuildNotifier.class);
+        when(progressNotifier.isEnabled()).thenReturn(true);
+        when(progressNotifier.wantsStageProgress()).thenReturn(true);
+        BuildNotifier otherNotifier = mock(BuildNotifier.class);
+        when(otherNotifier.isEnabled()).thenReturn(true);
+
+        BuildStatusAction instance = new BuildStatusAction(mockRun, targetUrl, new ArrayList<>());
+        instance.addGenericNotifier(progressNotifier);
+        instance.addGenericNotifier(otherNotifier);
+        instance.addBuildStatus("running", "5", null);
+        instance.addBuildStatus("done", "8", null);
+        instance.addBuildStatus("waiting", "9", null);
+
+        instance.startStage("5", 1000);
+        instance.startStage("5", 2000);
+        instance.startStage("8", 1500);
+        instance.updateBuildStatusForStage("8", "done", BuildStage.State.CompletedSuccess, 1500, 10, 0);
+        instance.sendStageHeartbeats(4000);
+
+        verify(progressNotifier).notifyStageStarted(eq(jobName), argThat(stage -> stage.getStartTime() == 1000));
+        verify(progressNotifier, times(2)).notifyStageStarted(eq(jobName), any());
+        verify(progressNotifier)
+                .notifyStageHeartbeat(eq(jobName), argThat(stage -> "5".equals(stage.getStageId())), eq(3000L));
+        verify(progressNotifier, times(1)).notifyStageHeartbeat(any(), any(), anyLong());
+        verify(otherNotifier, never()).notifyStageStarted(any(), any());
+        verify(otherNotifier, never()).notifyStageHeartbeat(any(), any(), anyLong());
+    }
+
     @Test
     public void testIsDeclarativePipelineFalse() throws IOException {
         BuildStatusAction instance = new BuildStatusAction(mockRun, targetUrl, new ArrayList<>());
@@ -235,4 +451,173 @@ public class BuildStatusActionTest {
 
         assertTrue(instance.isIsDeclarativePipeline());
     }
+
+    /**
+     * Verifies stages over the limit are rolled up into one entry, which is
+     * only reported as complete once the build is.
+     */
+    @Test
+    public void testStageRollup() {
+        StageRollupConfig rollupConfig = mock(StageRollupConfig.class);
+        when(rollupConfig.shouldRollUp(any(), anyInt()))
+                .thenAnswer(invocation -> (int) invocation.getArgument(1) >= 2);
+        stageRollupConfigStatic.when(StageRollupConfig::fromGlobalConfig).thenReturn(rollupConfig);
+        BuildNotifier notifier = mock(BuildNotifier.class);
+        when(notifier.isEnabled()).thenReturn(true);
+
+        BuildStatusAction instance = new BuildStatusAction(mockRun, targetUrl, new ArrayList<>());
+        instance.addGenericNotifier(notifier);
+        for (int i = 1; i <= 5; i++) {
+            instance.addBuildStatus("shard-" + i, Integer.toString(i), null);
+        }
+        for (int i = 1; i <= 5; i++) {
+            BuildStage.State state = i == 4 ? BuildStage.State.CompletedError : BuildStage.State.CompletedSuccess;
+            instance.updateBuildStatusForStage(Integer.toString(i), "shard-" + i, state, 0, 100L * i, 0);
+        }
+
+        verify(notifier, never())
+                .notifyBuildStageStatus(eq(jobName), argThat(stage -> "shard-3".equals(stage.getStageName())));
+        verify(notifier, never())
+                .notifyBuildStageStatus(
+                        eq(jobName),
+                        argThat(stage -> BuildStatusAction.ROLLUP_STAGE_NAME.equals(stage.getStageName())
+                                && stage.getBuildState() != BuildStage.State.Pending));
+
+        instance.close();
+
+        // The rollup entry is the same object for both notifications, so both now match
+        verify(notifier, atLeastOnce())
+                .notifyBuildStageStatus(
+                        eq(jobName),
+                        argThat(stage -> BuildStatusAction.ROLLUP_STAGE_NAME.equals(stage.getStageName())
+                                && stage.getBuildState() == BuildStage.State.CompletedError
+                                && stage.getStageCount() == 3
+                                && stage.getDuration() == 1200));
+    }
+
+    /**
+     * Verifies a rolled up stage is completed into the rollup entry even when
+     * a tracked stage has the same name.
+     */
+    @Test
+    public void testRolledUpStageNotMatchedByName() {
+        StageRollupConfig rollupConfig = mock(StageRollupConfig.class);
+        when(rollupConfig.shouldRollUp(any(), anyInt()))
+                .thenAnswer(invocation -> (int) invocation.getArgument(1) >= 2);
+        stageRollupConfigStatic.when(StageRollupConfig::fromGlobalConfig).thenReturn(rollupConfig);
+        BuildNotifier notifier = mock(BuildNotifier.class);
+        when(notifier.isEnabled()).thenReturn(true);
+
+        BuildStatusAction instance = new BuildStatusAction(mockRun, targetUrl, new ArrayList<>());
+        instance.addGenericNotifier(notifier);
+        instance.addBuildStatus("build", "1", null);
+        instance.addBuildStatus("test", "2", null);
+        instance.addBuildStatus("build", "3", null);
+
+        instance.updateBuildStatusForStage("3", "build", BuildStage.State.CompletedError, 0, 300, 0);
+
+        verify(notifier, never())
+                .notifyBuildStageStatus(
+                        eq(jobName),
+                        argThat(stage -> "1".equals(stage.getStageId())
+                                && stage.getBuildState() != BuildStage.State.Pending));
+
+        instance.close();
+
+        verify(notifier, atLeastOnce())
+                .notifyBuildStageStatus(
+                        eq(jobName),
+                        argThat(stage -> BuildStatusAction.ROLLUP_STAGE_NAME.equals(stage.getStageName())
+                                && stage.getBuildState() == BuildStage.State.CompletedError
+                                && stage.getStageCount() == 1
+                                && stage.getDuration() == 300));
+        verify(notifier, atLeastOnce())
+                .notifyBuildStageStatus(
+                        eq(jobName),
+                        argThat(stage -> "1".equals(stage.getStageId())
+                                && stage.getBuildState() == BuildStage.State.CompletedSuccess));
+    }
+
+    /**
+     * Verifies stages survive being saved and loaded in their compact form.
+     */
+    @Test
+    public void testSavedStagesRestored() throws Exception {
+        BuildStatusAction instance = new BuildStatusAction(mockRun, targetUrl, new ArrayList<>());
+        instance.addBuildStatus("build", "3", null);
+        instance.addBuildStatus("test", "7", "3");
+        instance.updateBuildStatusForStage("3", "build", BuildStage.State.CompletedSuccess, 1000, 500, 20);
+        instance.sendNonStageError("checkout");
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(instance);
+        }
+        BuildStatusAction restored;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            restored = (BuildStatusAction) in.readObject();
+        }
+        restored.connectNotifiers(mockRun, targetUrl);
+        BuildNotifier notifier = mock(BuildNotifier.class);
+        when(notifier.isEnabled()).thenReturn(true);
+        restored.addGenericNotifier(notifier);
+
+        verify(notifier)
+                .notifyBuildStageStatus(
+                        eq(jobName),
+                        argThat(stage -> "3".equals(stage.getStageId())
+                                && stage.getBuildState() == BuildStage.State.CompletedSuccess
+                                && stage.getStartTime() == 1000
+                                && stage.getDuration() == 500
+                                && stage.getPausedDuration() == 20));
+        verify(notifier)
+                .notifyBuildStageStatus(
+                        eq(jobName),
+                        argThat(stage -> "7".equals(stage.getStageId())
+                                && "3".equals(stage.getParentId())
+                                && stage.getBuildState() == BuildStage.State.Pending));
+        verify(notifier)
+                .notifyBuildStageStatus(
+                        eq(jobName), argThat(stage -> "checkout".equals(stage.getStageName()) && !stage.isStage()));
+    }
+
+    /**
+     * Verifies stages of a loaded action can read the job's properties once
+     * the action is given its build again.
+     */
+    @Test
+    public void testJobPropertiesAfterLoad() throws Exception {
+        WorkflowJob job = mock(WorkflowJob.class);
+        TestJobProperty property = new TestJobProperty();
+        doReturn(Collections.singletonList(property)).when(job).getAllProperties();
+        WorkflowRun run = mock(WorkflowRun.class);
+        when(run.getExternalizableId()).thenReturn(jobName);
+        when(run.getParent()).thenReturn(job);
+
+        BuildStatusAction instance = new BuildStatusAction(run, targetUrl, new ArrayList<>());
+        instance.addBuildStatus("build", "3", null);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(instance);
+        }
+        BuildStatusAction restored;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            restored = (BuildStatusAction) in.readObject();
+        }
+        restored.onLoad(run);
+        restored.connectNotifiers(run, targetUrl);
+        BuildNotifier notifier = mock(BuildNotifier.class);
+        when(notifier.isEnabled()).thenReturn(true);
+        restored.addGenericNotifier(notifier);
+
+        verify(notifier)
+                .notifyBuildStageStatus(
+                        eq(jobName),
+                        argThat(stage -> "3".equals(stage.getStageId())
+                                && stage.getRun() == run
+                                && stage.getEnvironmentValue("TestJobProperty") == property));
+    }
+
+    public static class TestJobProperty extends JobProperty<WorkflowJob> {}
 }
@@ -66,6 +66,24 @@ public class BuildStatusConfigTest {
         }
     }
 
+    /**
+     * Verifies the monitoring snapshot follows changes to the enabled notifiers.
+     */
+    @Test
+    public void testIsMonitoringEnabled(JenkinsRule j) {
+        BuildStatusConfig instance = new TestBuildStatusConfig();
+        assertTrue(instance.isMonitoringEnabled());
+
+        instance.setEnableGithub(false);
+        assertFalse(instance.isMonitoringEnabled());
+
+        instance.setEnableStatsd(true);
+        assertTrue(instance.isMonitoringEnabled());
+
+        instance.setEnableStatsd(false);
+        assertFalse(instance.isMonitoringEnabled());
+    }
+
     /**
      * Test of getDisplayName method, of class BuildStatusConfig.
      */
@@ -322,6 +340,40 @@ public class BuildStatusConfigTest {
         assertEquals(expResult, result);
     }
 
+    @Test
+    public void testStageHeartbeatInterval() {
+        BuildStatusConfig instance = new TestBuildStatusConfig();
+        assertEquals(0, instance.getStageHeartbeatIntervalMillis());
+        instance.setStageHeartbeatInterval(" 30 ");
+        assertEquals(" 30 ", instance.getStageHeartbeatInterval());
+        assertEquals(30000, instance.getStageHeartbeatIntervalMillis());
+        assertTrue(StageHeartbeatWork.isScheduled());
+        instance.setStageHeartbeatInterval("soon");
+        assertEquals(0, instance.getStageHeartbeatIntervalMillis());
+        assertFalse(StageHeartbeatWork.isScheduled());
+        instance.setStageHeartbeatInterval("-5");
+        assertEquals(0, instance.getStageHeartbeatIntervalMillis());
+        assertFalse(StageHeartbeatWork.isScheduled());
+    }
+
+    @Test
+    public void testStageRollupSettings() {
+        BuildStatusConfig instance = new TestBuildStatusConfig();
+        assertEquals(0, instance.getMaxStagesValue());
+        assertNull(instance.getStageRollupRegex());
+        instance.setMaxStages("500");
+        assertEquals(500, instance.getMaxStagesValue());
+        instance.setMaxStages("lots");
+        assertEquals(0, instance.getMaxStagesValue());
+
+        instance.setStageRollupPattern("shard-\\d+");
+        assertTrue(instance.getStageRollupRegex().matcher("shard-12").matches());
+        instance.setStageRollupPattern("shard-(");
+        assertNull(instance.getStageRollupRegex());
+        assertEquals(Kind.ERROR, instance.doCheckStageRollupPattern("shard-(").kind);
+        assertEquals(Kind.OK, instance.doCheckStageRollupPattern("shard-.*").kind);
+    }
+
     /**
      * Verifies round trip get/set of enableHttp
      */
@@ -69,8 +69,8 @@ public class BuildStatusJobListenerTest {
         BuildStatusJobListener instance = new BuildStatusJobListener();
 
         instance.onCompleted(build, listener);
-        /* FIXME: Convert into Mockito 5 that we wanted anyMapOf(String.class, Object.class) here */
-        verify(action).updateBuildStatusForJob(eq(BuildStage.State.CompletedSuccess), anyMap());
+        verify(action)
+                .updateBuildStatusForJob(argThat(event -> event.getBuildState() == BuildStage.State.CompletedSuccess));
     }
 
     @Test
@@ -86,7 +86,7 @@ public class BuildStatusJobListenerTest {
         BuildStatusJobListener instance = new BuildStatusJobListener();
 
         instance.onCompleted(build, listener);
-        /* FIXME: Convert into Mockito 5 that we wanted anyMapOf(String.class, Object.class) here */
-        verify(action).updateBuildStatusForJob(eq(BuildStage.State.CompletedError), anyMap());
+        verify(action)
+                .updateBuildStatusForJob(argThat(event -> event.getBuildState() == BuildStage.State.CompletedError));
     }
 }
@@ -24,9 +24,11 @@
 package org.jenkinsci.plugins.githubautostatus;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.mockito.Mockito.*;
 
 import hudson.model.AbstractBuild;
+import hudson.model.AbstractProject;
 import hudson.model.Action;
 import hudson.model.Queue.Executable;
 import java.io.IOException;
@@ -75,6 +77,7 @@ public class GithubBuildStatusGraphListenerTest {
         buildStatusConfigStatic = mockStatic(BuildStatusConfig.class);
         buildStatusConfigStatic.when(BuildStatusConfig::get).thenReturn(config);
         when(config.getEnableStatsd()).thenReturn(false);
+        when(config.isMonitoringEnabled()).thenReturn(true);
 
         GithubNotificationConfig githubConfig = mock(GithubNotificationConfig.class);
         githubNotificationConfigStatic = mockStatic(GithubNotificationConfig.class);
@@ -164,6 +167,79 @@ public class GithubBuildStatusGraphListenerTest {
                         .collect(Collectors.toList()));
     }
 
+    /**
+     * Verifies the listener does nothing when no notifier is enabled.
+     */
+    @Test
+    public void testNoOpWhenMonitoringDisabled() throws IOException {
+        when(config.isMonitoringEnabled()).thenReturn(false);
+        StepStartNode stageNode = mock(StepStartNode.class);
+        FlowExecution execution = mock(FlowExecution.class);
+        when(stageNode.getExecution()).thenReturn(execution);
+
+        GithubBuildStatusGraphListener instance = new GithubBuildStatusGraphListener();
+        instance.onNewHead(stageNode);
+
+        verify(execution, never()).getOwner();
+        verify(stageNode, never()).getAction(any());
+    }
+
+    /**
+     * Verifies the listener does nothing for jobs which have opted out.
+     */
+    @Test
+    public void testJobOptOut() throws IOException {
+        StepStartNode stageNode = mock(StepStartNode.class);
+        FlowExecution execution = mock(FlowExecution.class);
+        when(stageNode.getAction(StageAction.class)).thenReturn(mock(StageAction.class));
+        when(stageNode.getExecution()).thenReturn(execution);
+        FlowExecutionOwner owner = mock(FlowExecutionOwner.class);
+        when(execution.getOwner()).thenReturn(owner);
+        AbstractBuild build = mock(AbstractBuild.class);
+        when(owner.getExecutable()).thenReturn(build);
+        AbstractProject project = mock(AbstractProject.class);
+        when(build.getParent()).thenReturn(project);
+        when(project.getProperty(DisableAutostatusJobProperty.class)).thenReturn(new DisableAutostatusJobProperty());
+
+        GithubBuildStatusGraphListener instance = new GithubBuildStatusGraphListener();
+        instance.onNewHead(stageNode);
+        instance.onNewHead(stageNode);
+
+        verify(build, never()).addAction(any());
+        verify(build, never()).getAction(ExecutionModelAction.class);
+        verify(owner, times(1)).getExecutable();
+    }
+
+    /**
+     * Verifies the declarative model is parsed once per execution, not once per node.
+     */
+    @Test
+    public void testDeclarativeModelParsedOnce() throws IOException {
+        StepStartNode stageNode = mock(StepStartNode.class);
+        StageAction stageAction = mock(StageAction.class);
+        FlowExecution execution = mock(FlowExecution.class);
+        when(stageNode.getAction(StageAction.class)).thenReturn(stageAction);
+        when(stageNode.getExecution()).thenReturn(execution);
+        FlowExecutionOwner owner = mock(FlowExecutionOwner.class);
+        when(execution.getOwner()).thenReturn(owner);
+        AbstractBuild build = mock(AbstractBuild.class);
+
+        when(owner.getExecutable()).thenReturn(build);
+        ExecutionModelAction executionModel = mock(ExecutionModelAction.class);
+        when(build.getAction(ExecutionModelAction.class)).thenReturn(executionModel);
+        when(executionModel.getStages()).thenReturn(createStages("Stage 1", "Stage 2"));
+
+        GithubBuildStatusGraphListener instance = new GithubBuildStatusGraphListener();
+        instance.onNewHead(stageNode);
+        instance.onNewHead(stageNode);
+
+        verify(executionModel, times(1)).getStages();
+        List<BuildStage> first = PipelineExecutionState.forExecution(execution).copyDeclarativeStages();
+        List<BuildStage> second = PipelineExecutionState.forExecution(execution).copyDeclarativeStages();
+        assertEquals(2, first.size());
+        assertNotSame(first.get(0), second.get(0));
+    }
+
     @Test
     public void testAtomNode() throws IOException {
         ErrorAction error = mock(ErrorAction.class);
@@ -247,7 +323,14 @@ public class GithubBuildStatusGraphListenerTest {
 
         GithubBuildStatusGraphListener instance = new GithubBuildStatusGraphListener();
         instance.onNewHead(stageEndNode);
-        verify(buildStatus).updateBuildStatusForStage(eq("some label"), eq(BuildStage.State.CompletedError), eq(time));
+        verify(buildStatus)
+                .updateBuildStatusForStage(
+                        eq(startId),
+                        eq("some label"),
+                        eq(BuildStage.State.CompletedError),
+                        eq(0L),
+                        eq(time),
+                        eq(0L));
     }
 
     @Test
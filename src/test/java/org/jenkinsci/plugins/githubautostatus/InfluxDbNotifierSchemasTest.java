@@ -2,6 +2,10 @@ package org.jenkinsci.plugins.githubautostatus;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.Collections;
+import java.util.Map;
+import org.jenkinsci.plugins.githubautostatus.model.BuildStage;
+import org.jenkinsci.plugins.githubautostatus.notifiers.BuildNotifierConstants;
 import org.jenkinsci.plugins.githubautostatus.notifiers.InfluxDbNotifierSchemas;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -61,16 +65,13 @@ public class InfluxDbNotifierSchemasTest {
     @Test
     public void testV1Stage() {
         assertEquals(
-                "stage,jobname=mockjobname,owner=mockowner,repo=mockrepo,branch=mockbranch,stagename=mockstage,result=CompletedError stagetime=1,passed=2",
+                "stage,jobname=mockjobname,owner=mockowner,repo=mockrepo,branch=mockbranch,stagename=mockstage,result=CompletedError stagetime=1,passed=0",
                 v1Schema.formatStage(
                         "mockjobname",
                         "mockowner",
                         "mockrepo",
                         "mockbranch",
-                        "mockstage",
-                        "CompletedError",
-                        1,
-                        2,
+                        stage("mockstage", BuildStage.State.CompletedError, 1),
                         "buildurl",
                         5,
                         "cause"));
@@ -79,16 +80,141 @@ public class InfluxDbNotifierSchemasTest {
     @Test
     public void testV2Stage() {
         assertEquals(
-                "stage,owner=mockowner,repo=mockrepo,stagename=mockstage,result=CompletedError jobname=\"mockjobname\",branch=\"mockbranch\",stagetime=1,passed=2,buildurl=\"buildurl\",buildnumber=5,trigger=\"cause\"",
+                "stage,owner=mockowner,repo=mockrepo,stagename=mockstage,result=CompletedError jobname=\"mockjobname\",branch=\"mockbranch\",stagetime=1,passed=0,buildurl=\"buildurl\",buildnumber=5,trigger=\"cause\"",
                 v2Schema.formatStage(
                         "mockjobname",
                         "mockowner",
                         "mockrepo",
                         "mockbranch",
-                        "mockstage",
-                        "CompletedError",
+                        stage("mockstage", BuildStage.State.CompletedError, 1),
+                        "buildurl",
+                        5,
+                        "cause"));
+    }
+
+    @Test
+    public void testV2StageWithIds() {
+        BuildStage stage = stage("mockstage", BuildStage.State.CompletedError, 1);
+        stage.setStageId("12");
+        stage.setParentId("7");
+        assertEquals(
+                "stage,owner=mockowner,repo=mockrepo,stagename=mockstage,result=CompletedError jobname=\"mockjobname\",branch=\"mockbranch\",stagetime=1,passed=0,buildurl=\"buildurl\",buildnumber=5,trigger=\"cause\",stageid=\"12\",parentid=\"7\"",
+                v2Schema.formatStage(
+                        "mockjobname", "mockowner", "mockrepo", "mockbranch", stage, "buildurl", 5, "cause"));
+    }
+
+    @Test
+    public void testV2StageRollup() {
+        BuildStage stage = stage("Rolled up stages", BuildStage.State.CompletedSuccess, 900);
+        stage.setStageCount(40);
+        assertEquals(
+                "stage,owner=mockowner,repo=mockrepo,stagename=Rolled\\ up\\ stages,result=CompletedSuccess jobname=\"mockjobname\",branch=\"mockbranch\",stagetime=900,passed=1,buildurl=\"buildurl\",buildnumber=5,trigger=\"cause\",stagecount=40",
+                v2Schema.formatStage(
+                        "mockjobname", "mockowner", "mockrepo", "mockbranch", stage, "buildurl", 5, "cause"));
+    }
+
+    @Test
+    public void testV2JobPausedTime() {
+        assertEquals(
+                "job,owner=mockowner,repo=mockrepo,result=CompletedSuccess jobname=\"mockjobname\",branch=\"mockbranch\",blocked=0,jobtime=10,blockedtime=0,passed=1,buildurl=\"buildurl\",buildnumber=5,trigger=\"cause\",pausedtime=60000",
+                v2Schema.formatJob(
+                        "mockjobname",
+                        "mockowner",
+                        "mockrepo",
+                        "mockbranch",
+                        "CompletedSuccess",
+                        0,
+                        10,
+                        0,
+                        60000,
                         1,
-                        2,
+                        "buildurl",
+                        5,
+                        "cause"));
+    }
+
+    @Test
+    public void testV1StagePausedTime() {
+        BuildStage stage = stage("mockstage", BuildStage.State.CompletedSuccess, 1);
+        stage.setPausedDuration(30000);
+        assertEquals(
+                "stage,jobname=mockjobname,owner=mockowner,repo=mockrepo,branch=mockbranch,stagename=mockstage,result=CompletedSuccess stagetime=1,passed=1,pausedtime=30000",
+                v1Schema.formatStage(
+                        "mockjobname", "mockowner", "mockrepo", "mockbranch", stage, "buildurl", 5, "cause"));
+    }
+
+    @Test
+    public void testAgentWait() {
+        assertEquals(
+                "agentwait,owner=mockowner,repo=mockrepo,label=linux\\ &&\\ docker,stagename=Build jobname=\"mockjobname\",branch=\"mockbranch\",waittime=1500,buildurl=\"buildurl\",buildnumber=5,trigger=\"cause\"",
+                v2Schema.formatAgentWait(
+                        "mockjobname",
+                        "mockowner",
+                        "mockrepo",
+                        "mockbranch",
+                        "linux && docker",
+                        "Build",
+                        1500,
+                        "buildurl",
+                        5,
+                        "cause"));
+    }
+
+    @Test
+    public void testStageProgress() {
+        assertEquals(
+                "stageprogress,owner=mockowner,repo=mockrepo,stagename=Build,event=heartbeat jobname=\"mockjobname\",branch=\"mockbranch\",starttime=1000,elapsedtime=60000,stageid=\"7\",buildurl=\"buildurl\",buildnumber=5,trigger=\"cause\"",
+                v2Schema.formatStageProgress(
+                        "mockjobname",
+                        "mockowner",
+                        "mockrepo",
+                        "mockbranch",
+                        "Build",
+                        "heartbeat",
+                        "7",
+                        1000,
+                        60000,
+                        "buildurl",
+                        5,
+                        "cause"));
+    }
+
+    @Test
+    public void testQueueLatency() {
+        assertEquals(
+                "queuelatency,label=linux\\ &&\\ docker,phase=buildable count=12,sum=4200,p50=255,p90=511,p99=1023,max=900",
+                v1Schema.formatQueueLatency("linux && docker", "buildable", 12, 4200, 255, 511, 1023, 900));
+    }
+
+    @Test
+    public void testCredentialRefresh() {
+        assertEquals(
+                "credentialrefresh refreshed=3,failed=1,unauthorizedretries=2",
+                v1Schema.formatCredentialRefresh(3, 1, 2));
+    }
+
+    @Test
+    public void testCriticalPath() {
+        assertEquals(
+                "criticalpath,owner=mockowner,repo=mockrepo jobname=\"mockjobname\",branch=\"mockbranch\",criticalpathtime=42,stages=\"Build > Test\",buildurl=\"buildurl\",buildnumber=5,trigger=\"cause\"",
+                v1Schema.formatCriticalPath(
+                        "mockjobname", "mockowner", "mockrepo", "mockbranch", 42, "Build > Test", "buildurl", 5, "cause"));
+    }
+
+    @Test
+    public void testParallelSkew() {
+        assertEquals(
+                "parallelskew,owner=mockowner,repo=mockrepo,stagename=mockstage jobname=\"mockjobname\",branch=\"mockbranch\",branches=3,slowestbranch=\"slow\",fastestbranch=\"fast\",skew=20,buildurl=\"buildurl\",buildnumber=5,trigger=\"cause\"",
+                v2Schema.formatParallelSkew(
+                        "mockjobname",
+                        "mockowner",
+                        "mockrepo",
+                        "mockbranch",
+                        "mockstage",
+                        3,
+                        "slow",
+                        "fast",
+                        20,
                         "buildurl",
                         5,
                         "cause"));
@@ -227,4 +353,9 @@ public class InfluxDbNotifierSchemasTest {
                         4,
                         "cause"));
     }
+
+    private static BuildStage stage(String stageName, BuildStage.State state, long duration) {
+        Map<String, Object> environment = Collections.singletonMap(BuildNotifierConstants.STAGE_DURATION, duration);
+        return new BuildStage(stageName, environment, state);
+    }
 }
@@ -0,0 +1,211 @@
+package org.jenkinsci.plugins.githubautostatus;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import hudson.model.AbstractBuild;
+import hudson.model.Action;
+import hudson.model.Result;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import org.jenkinsci.plugins.workflow.actions.StageAction;
+import org.jenkinsci.plugins.workflow.actions.WarningAction;
+import org.jenkinsci.plugins.workflow.cps.nodes.StepAtomNode;
+import org.jenkinsci.plugins.workflow.cps.nodes.StepEndNode;
+import org.jenkinsci.plugins.workflow.cps.nodes.StepStartNode;
+import org.jenkinsci.plugins.workflow.flow.FlowExecution;
+import org.jenkinsci.plugins.workflow.flow.FlowExecutionOwner;
+import org.jenkinsci.plugins.workflow.graph.FlowNode;
+import org.jenkinsci.plugins.workflow.support.actions.PauseAction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class PipelineExecutionStateTest {
+
+    private PipelineExecutionState state;
+    private FlowNode flowStart;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        FlowExecution execution = mock(FlowExecution.class);
+        FlowExecutionOwner owner = mock(FlowExecutionOwner.class);
+        when(execution.getOwner()).thenReturn(owner);
+        when(owner.getExecutable()).thenReturn(mock(AbstractBuild.class));
+        state = PipelineExecutionState.forExecution(execution);
+
+        flowStart = node(FlowNode.class, "1");
+        assertNull(state.track(flowStart));
+    }
+
+    @Test
+    public void testStageWithoutWarnings() {
+        StepStartNode stage = stage("2", flowStart);
+        FlowNode atom = node(StepAtomNode.class, "3", stage);
+        StepEndNode end = end("4", stage, atom);
+
+        assertNull(state.track(stage));
+        assertNull(state.track(atom));
+        assertEquals(Result.SUCCESS, state.track(end).getWorst());
+    }
+
+    @Test
+    public void testWorstWarningInStage() {
+        StepStartNode stage = stage("2", flowStart);
+        FlowNode unstable = warn(node(StepAtomNode.class, "3", stage), Result.UNSTABLE);
+        FlowNode failed = warn(node(StepAtomNode.class, "4", unstable), Result.FAILURE);
+        FlowNode unstableAgain = warn(node(StepAtomNode.class, "5", failed), Result.UNSTABLE);
+        StepEndNode end = end("6", stage, unstableAgain);
+
+        for (FlowNode node : Arrays.asList(stage, unstable, failed, unstableAgain)) {
+            state.track(node);
+        }
+        assertEquals(Result.FAILURE, state.track(end).getWorst());
+    }
+
+    @Test
+    public void testNestedStages() {
+        StepStartNode outer = stage("2", flowStart);
+        FlowNode before = node(StepAtomNode.class, "3", outer);
+        StepStartNode inner = stage("4", before);
+        FlowNode failed = warn(node(StepAtomNode.class, "5", inner), Result.FAILURE);
+        StepEndNode innerEnd = end("6", inner, failed);
+        FlowNode after = node(StepAtomNode.class, "7", innerEnd);
+        StepEndNode outerEnd = end("8", outer, after);
+        StepStartNode sibling = stage("9", outerEnd);
+        FlowNode siblingAtom = node(StepAtomNode.class, "10", sibling);
+        StepEndNode siblingEnd = end("11", sibling, siblingAtom);
+
+        for (FlowNode node : Arrays.asList(outer, before, inner, failed)) {
+            state.track(node);
+        }
+        assertEquals(Result.FAILURE, state.track(innerEnd).getWorst());
+        state.track(after);
+        assertEquals(Result.FAILURE, state.track(outerEnd).getWorst());
+        state.track(sibling);
+        state.track(siblingAtom);
+        assertEquals(Result.SUCCESS, state.track(siblingEnd).getWorst());
+    }
+
+    @Test
+    public void testPausedTime() {
+        StepStartNode outer = stage("2", flowStart);
+        FlowNode input = pause(node(StepAtomNode.class, "3", outer), 1000, 5000);
+        StepStartNode inner = stage("4", input);
+        FlowNode innerInput = pause(node(StepAtomNode.class, "5", inner), 10000, 2000);
+        FlowNode work = node(StepAtomNode.class, "6", innerInput);
+        StepEndNode innerEnd = end("7", inner, work);
+        StepEndNode outerEnd = end("8", outer, innerEnd);
+
+        for (FlowNode node : Arrays.asList(outer, input, inner, innerInput, work)) {
+            state.track(node);
+        }
+        assertEquals(2000, state.track(innerEnd).getPausedMillis());
+        assertEquals(7000, state.track(outerEnd).getPausedMillis());
+        assertEquals(7000, state.getPausedMillis());
+    }
+
+    @Test
+    public void testParallelPausesCountedOnce() {
+        StepStartNode stage = stage("2", flowStart);
+        StepStartNode parallel = node(StepStartNode.class, "3", stage);
+        StepStartNode branchA = node(StepStartNode.class, "4", parallel);
+        StepStartNode branchB = node(StepStartNode.class, "5", parallel);
+        FlowNode inputA = pause(node(StepAtomNode.class, "6", branchA), 1000, 5000);
+        FlowNode inputB = pause(node(StepAtomNode.class, "7", branchB), 2000, 6000);
+        StepEndNode branchAEnd = end("8", branchA, inputA);
+        StepEndNode branchBEnd = end("9", branchB, inputB);
+        StepEndNode parallelEnd = end("10", parallel, branchAEnd, branchBEnd);
+        StepEndNode stageEnd = end("11", stage, parallelEnd);
+
+        for (FlowNode node :
+                Arrays.asList(stage, parallel, branchA, branchB, inputA, inputB, branchAEnd, branchBEnd, parallelEnd)) {
+            state.track(node);
+        }
+        // The inputs waited from 1000 to 6000 and from 2000 to 8000
+        assertEquals(7000, state.track(stageEnd).getPausedMillis());
+        assertEquals(7000, state.getPausedMillis());
+    }
+
+    @Test
+    public void testIsInStage() {
+        FlowNode outside = node(StepAtomNode.class, "2", flowStart);
+        StepStartNode block = node(StepStartNode.class, "3", outside);
+        StepStartNode stage = stage("4", block);
+        FlowNode inside = node(StepAtomNode.class, "5", stage);
+        StepEndNode end = end("6", stage, inside);
+        FlowNode afterStage = node(StepAtomNode.class, "7", end);
+
+        for (FlowNode node : Arrays.asList(outside, block, stage, inside, end, afterStage)) {
+            state.track(node);
+        }
+        assertFalse(state.isInStage(afterStage));
+        assertNull(state.isInStage(inside));
+
+        FlowNode untracked = node(StepAtomNode.class, "8", afterStage);
+        assertNull(state.isInStage(untracked));
+    }
+
+    @Test
+    public void testIsInStageWhileRunning() {
+        FlowNode outside = node(StepAtomNode.class, "2", flowStart);
+        StepStartNode block = node(StepStartNode.class, "3", outside);
+        FlowNode inBlock = node(StepAtomNode.class, "4", block);
+        StepStartNode stage = stage("5", inBlock);
+        FlowNode inside = node(StepAtomNode.class, "6", stage);
+
+        state.track(outside);
+        assertFalse(state.isInStage(outside));
+        state.track(block);
+        state.track(inBlock);
+        assertFalse(state.isInStage(inBlock));
+        state.track(stage);
+        state.track(inside);
+        assertTrue(state.isInStage(inside));
+        assertEquals("5", state.getEnclosingStageId(inside));
+        assertNull(state.getEnclosingStageId(stage));
+    }
+
+    @Test
+    public void testUntrackedParentsFallBack() {
+        FlowNode orphan = node(StepAtomNode.class, "3", node(StepAtomNode.class, "2", flowStart));
+        assertNull(state.track(orphan));
+
+        StepStartNode stage = stage("4", orphan);
+        StepEndNode end = end("5", stage, stage);
+        state.track(stage);
+        assertNull(state.track(end));
+    }
+
+    private static <T extends FlowNode> T node(Class<T> type, String id, FlowNode... parents) {
+        T node = mock(type);
+        when(node.getId()).thenReturn(id);
+        when(node.getParents()).thenReturn(Arrays.asList(parents));
+        return node;
+    }
+
+    private static StepStartNode stage(String id, FlowNode parent) {
+        StepStartNode node = node(StepStartNode.class, id, parent);
+        when(node.getAction(StageAction.class)).thenReturn(mock(StageAction.class));
+        return node;
+    }
+
+    private static StepEndNode end(String id, StepStartNode start, FlowNode... parents) {
+        StepEndNode node = node(StepEndNode.class, id, parents);
+        when(node.getStartNode()).thenReturn(start);
+        return node;
+    }
+
+    private static FlowNode pause(FlowNode node, long startTime, long duration) {
+        PauseAction pause = mock(PauseAction.class);
+        when(pause.getStartTime()).thenReturn(startTime);
+        when(pause.getPauseDuration()).thenReturn(duration);
+        when(node.getActions()).thenReturn(Collections.<Action>singletonList(pause));
+        return node;
+    }
+
+    private static FlowNode warn(FlowNode node, Result result) {
+        when(node.getPersistentAction(WarningAction.class)).thenReturn(new WarningAction(result));
+        return node;
+    }
+}
@@ -0,0 +1,85 @@
+package org.jenkinsci.plugins.githubautostatus;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import hudson.model.Label;
+import hudson.model.Queue;
+import java.util.List;
+import org.jenkinsci.plugins.githubautostatus.model.QueueLatency;
+import org.junit.jupiter.api.Test;
+
+public class QueueLatencyRecorderTest {
+
+    @Test
+    public void testRecordsPhasesPerLabel() {
+        QueueLatencyRecorder recorder = new QueueLatencyRecorder();
+        Queue.BlockedItem blocked = item(Queue.BlockedItem.class, 1, "linux");
+        Queue.BuildableItem buildable = item(Queue.BuildableItem.class, 1, "linux");
+        Queue.LeftItem left = item(Queue.LeftItem.class, 1, "linux");
+        when(left.getInQueueSince()).thenReturn(1000L);
+
+        recorder.enterBlocked(blocked, 2000);
+        recorder.leaveBlocked(blocked, 2500);
+        recorder.enterBuildable(buildable, 2500);
+        recorder.leaveBuildable(buildable, 4000);
+        recorder.left(left, 4000);
+
+        List<QueueLatency> latencies = recorder.drain();
+        assertEquals(3, latencies.size());
+        for (QueueLatency latency : latencies) {
+            assertEquals("linux", latency.getLabel());
+            assertEquals(1, latency.getSnapshot().getCount());
+        }
+        assertEquals(500, sum(latencies, QueueLatency.Phase.Blocked));
+        assertEquals(1500, sum(latencies, QueueLatency.Phase.Buildable));
+        assertEquals(3000, sum(latencies, QueueLatency.Phase.Queued));
+
+        assertTrue(recorder.drain().isEmpty());
+    }
+
+    @Test
+    public void testCancelledItemOnlyClearsState() {
+        QueueLatencyRecorder recorder = new QueueLatencyRecorder();
+        Queue.BlockedItem blocked = item(Queue.BlockedItem.class, 2, null);
+        Queue.LeftItem left = item(Queue.LeftItem.class, 2, null);
+        when(left.isCancelled()).thenReturn(true);
+
+        recorder.enterBlocked(blocked, 1000);
+        recorder.left(left, 2000);
+        recorder.leaveBlocked(blocked, 3000);
+
+        assertTrue(recorder.drain().isEmpty());
+    }
+
+    @Test
+    public void testItemsWithoutLabel() {
+        QueueLatencyRecorder recorder = new QueueLatencyRecorder();
+        Queue.BuildableItem buildable = item(Queue.BuildableItem.class, 3, null);
+
+        recorder.enterBuildable(buildable, 1000);
+        recorder.leaveBuildable(buildable, 1200);
+
+        List<QueueLatency> latencies = recorder.drain();
+        assertEquals(1, latencies.size());
+        assertEquals("none", latencies.get(0).getLabel());
+    }
+
+    private static long sum(List<QueueLatency> latencies, QueueLatency.Phase phase) {
+        return latencies.stream()
+                .filter(latency -> latency.getPhase() == phase)
+                .mapToLong(latency -> latency.getSnapshot().getSum())
+                .sum();
+    }
+
+    private static <T extends Queue.Item> T item(Class<T> type, long id, String labelExpression) {
+        T item = mock(type);
+        when(item.getId()).thenReturn(id);
+        if (labelExpression != null) {
+            Label label = mock(Label.class);
+            when(label.getExpression()).thenReturn(labelExpression);
+            when(item.getAssignedLabel()).thenReturn(label);
+        }
+        return item;
+    }
+}
@@ -0,0 +1,33 @@
+package org.jenkinsci.plugins.githubautostatus;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.jenkinsci.plugins.githubautostatus.model.AgentWait;
+import org.junit.jupiter.api.Test;
+
+public class QueueWaitActionTest {
+
+    /**
+     * Verifies every wait is kept and totalled, rather than the last one replacing the others
+     */
+    @Test
+    public void testWaitsAccumulate() {
+        QueueWaitAction instance = new QueueWaitAction();
+        instance.addWait(wait("linux", "5", 100));
+        instance.addWait(wait("linux", "5", 50));
+        instance.addWait(wait("windows", "9", 300));
+        instance.addWait(wait(null, null, 7));
+
+        assertEquals(4, instance.getWaits().size());
+        assertEquals(457, instance.getTotalWaitTime());
+        assertEquals(150, instance.getWaitTimeForStage("5"));
+        assertEquals(300, instance.getWaitTimeForStage("9"));
+        assertEquals(0, instance.getWaitTimeForStage(null));
+    }
+
+    private static AgentWait wait(String label, String stageId, long duration) {
+        AgentWait wait = new AgentWait(label, 1000, duration);
+        wait.setStageId(stageId);
+        return wait;
+    }
+}
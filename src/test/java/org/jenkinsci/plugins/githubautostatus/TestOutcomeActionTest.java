@@ -0,0 +1,76 @@
+package org.jenkinsci.plugins.githubautostatus;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import hudson.model.Result;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.jenkinsci.plugins.githubautostatus.model.BuildCompleted;
+import org.jenkinsci.plugins.githubautostatus.model.BuildStage;
+import org.jenkinsci.plugins.githubautostatus.model.TestCase;
+import org.jenkinsci.plugins.githubautostatus.model.TestOutcomes;
+import org.jenkinsci.plugins.githubautostatus.notifiers.BuildNotifier;
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.TestExtension;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+public class TestOutcomeActionTest {
+
+    private static final String PIPELINE = "node {\n"
+            + "  writeFile file: 'results.xml', text: '<testsuite name=\"suite\">"
+            + "<testcase classname=\"suite\" name=\"passes\"/>"
+            + "<testcase classname=\"suite\" name=\"fails\"><failure/></testcase>"
+            + "</testsuite>'\n"
+            + "  junit 'results.xml'\n"
+            + "}";
+
+    /**
+     * Verifies the outcomes kept with a build are saved, so that the next
+     * build can compare with them after the first is loaded from disk again.
+     */
+    @Test
+    public void testOutcomesSurviveReload(JenkinsRule r) throws Exception {
+        WorkflowJob job = r.createProject(WorkflowJob.class, "p");
+        job.setDefinition(new CpsFlowDefinition(PIPELINE, true));
+        WorkflowRun first = r.assertBuildStatus(Result.UNSTABLE, job.scheduleBuild2(0));
+        assertNotNull(first.getAction(TestOutcomeAction.class));
+
+        job._getRuns().purgeCache();
+        r.assertBuildStatus(Result.UNSTABLE, job.scheduleBuild2(0));
+
+        assertEquals(2, OutcomeRecorder.previousOutcomes.size());
+        assertNull(OutcomeRecorder.previousOutcomes.get(0));
+        TestOutcomes previous = OutcomeRecorder.previousOutcomes.get(1);
+        assertNotNull(previous);
+        assertEquals(1, previous.size());
+        assertEquals(TestCase.TestCaseResult.Failed, previous.getOutcome("suite", "fails"));
+    }
+
+    @TestExtension
+    public static class OutcomeRecorder extends BuildNotifier {
+
+        static final List<TestOutcomes> previousOutcomes = new CopyOnWriteArrayList<>();
+
+        @Override
+        public boolean isEnabled() {
+            return true;
+        }
+
+        @Override
+        public void notifyBuildStageStatus(String jobName, BuildStage stageItem) {}
+
+        @Override
+        public void notifyFinalBuildStatus(BuildStage.State buildState, Map<String, Object> parameters) {}
+
+        @Override
+        public void notifyBuildCompleted(BuildCompleted event) {
+            previousOutcomes.add(event.getPreviousTestOutcomes());
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package org.jenkinsci.plugins.githubautostatus.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Collections;
+import jenkins.scm.api.SCMSource;
+import org.jenkinsci.plugins.github_branch_source.GitHubSCMSource;
+import org.jenkinsci.plugins.workflow.multibranch.WorkflowMultiBranchProject;
+import org.junit.jupiter.api.Test;
+
+public class GithubSourceInfoTest {
+
+    @Test
+    public void testResolvedOnce() {
+        GitHubSCMSource source = mock(GitHubSCMSource.class);
+        when(source.getApiUri()).thenReturn("https://api.github.com");
+        when(source.getRepoOwner()).thenReturn("repo-owner");
+        when(source.getRepository()).thenReturn("repo");
+        when(source.getCredentialsId()).thenReturn("git-user");
+        WorkflowMultiBranchProject project = mock(WorkflowMultiBranchProject.class);
+        when(project.getSCMSources()).thenReturn(Collections.singletonList(source));
+
+        GithubSourceInfo info = GithubSourceInfo.forProject(project);
+        assertSame(info, GithubSourceInfo.forProject(project));
+
+        assertEquals("https://api.github.com", info.getApiUri());
+        assertEquals("repo-owner", info.getRepoOwner());
+        assertEquals("repo", info.getRepository());
+        assertEquals("git-user", info.getCredentialsId());
+        verify(project, times(1)).getSCMSources();
+    }
+
+    @Test
+    public void testInvalidatedOnSave() {
+        GitHubSCMSource source = mock(GitHubSCMSource.class);
+        when(source.getRepoOwner()).thenReturn("repo-owner");
+        WorkflowMultiBranchProject project = mock(WorkflowMultiBranchProject.class);
+        when(project.getSCMSources()).thenReturn(Collections.singletonList(source));
+
+        GithubSourceInfo.forProject(project);
+        when(source.getRepoOwner()).thenReturn("new-owner");
+        new GithubSourceInfo.ProjectSaveListener().onChange(project, null);
+
+        assertEquals("new-owner", GithubSourceInfo.forProject(project).getRepoOwner());
+        verify(project, times(2)).getSCMSources();
+    }
+
+    @Test
+    public void testSavedWhileResolving() {
+        GitHubSCMSource source = mock(GitHubSCMSource.class);
+        WorkflowMultiBranchProject project = mock(WorkflowMultiBranchProject.class);
+        when(project.getSCMSources()).thenReturn(Collections.singletonList(source));
+        when(source.getRepoOwner())
+                .thenAnswer(invocation -> {
+                    // The project is saved with a new owner just after the old one was read
+                    new GithubSourceInfo.ProjectSaveListener().onChange(project, null);
+                    return "repo-owner";
+                })
+                .thenReturn("new-owner");
+
+        assertEquals("repo-owner", GithubSourceInfo.forProject(project).getRepoOwner());
+        assertEquals("new-owner", GithubSourceInfo.forProject(project).getRepoOwner());
+        verify(project, times(2)).getSCMSources();
+    }
+
+    @Test
+    public void testNotGithubSource() {
+        WorkflowMultiBranchProject project = mock(WorkflowMultiBranchProject.class);
+        when(project.getSCMSources()).thenReturn(Collections.singletonList(mock(SCMSource.class)));
+
+        assertNull(GithubSourceInfo.forProject(project));
+        assertNull(GithubSourceInfo.forProject(project));
+        verify(project, times(1)).getSCMSources();
+    }
+}
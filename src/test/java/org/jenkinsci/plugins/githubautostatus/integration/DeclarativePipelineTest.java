@@ -10,6 +10,7 @@ import static org.mockito.Mockito.*;
 import hudson.model.Result;
 import jenkins.model.CauseOfInterruption;
 import org.jenkinsci.plugins.githubautostatus.BuildStatusAction;
+import org.jenkinsci.plugins.githubautostatus.model.BuildCompleted;
 import org.jenkinsci.plugins.githubautostatus.model.BuildStage;
 import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
 import org.jenkinsci.plugins.workflow.job.WorkflowJob;
@@ -50,10 +51,11 @@ public class DeclarativePipelineTest {
 
         verify(buildStatus, times(1))
                 .updateBuildStatusForStage(eq("The stage"), eq(BuildStage.State.CompletedSuccess), anyLong());
-        verify(buildStatus, times(1)).updateBuildStatusForJob(eq(BuildStage.State.CompletedSuccess), any());
+        verify(buildStatus, times(1))
+                .updateBuildStatusForJob(argThat(event -> event.getBuildState() == BuildStage.State.CompletedSuccess));
 
         verify(buildStatus, times(1)).updateBuildStatusForStage(any(), any(), anyLong());
-        verify(buildStatus, times(1)).updateBuildStatusForJob(any(), any());
+        verify(buildStatus, times(1)).updateBuildStatusForJob(any(BuildCompleted.class));
     }
 
     /**
@@ -99,7 +101,7 @@ public class DeclarativePipelineTest {
                 .updateBuildStatusForStage(eq("Stage B"), eq(BuildStage.State.CompletedSuccess), anyLong());
 
         verify(buildStatus, times(3)).updateBuildStatusForStage(any(), any(), anyLong());
-        verify(buildStatus, times(1)).updateBuildStatusForJob(any(), any());
+        verify(buildStatus, times(1)).updateBuildStatusForJob(any(BuildCompleted.class));
     }
 
     /**
@@ -131,10 +133,11 @@ public class DeclarativePipelineTest {
 
         verify(buildStatus, times(1))
                 .updateBuildStatusForStage(eq("The stage"), eq(BuildStage.State.CompletedError), anyLong());
-        verify(buildStatus, times(1)).updateBuildStatusForJob(eq(BuildStage.State.CompletedError), any());
+        verify(buildStatus, times(1))
+                .updateBuildStatusForJob(argThat(event -> event.getBuildState() == BuildStage.State.CompletedError));
 
         verify(buildStatus, atMost(1)).updateBuildStatusForStage(any(), any(), anyLong());
-        verify(buildStatus, atMost(1)).updateBuildStatusForJob(any(), any());
+        verify(buildStatus, atMost(1)).updateBuildStatusForJob(any(BuildCompleted.class));
     }
 
     /**
@@ -169,10 +172,11 @@ public class DeclarativePipelineTest {
 
         verify(buildStatus, times(1))
                 .updateBuildStatusForStage(eq("The stage"), eq(BuildStage.State.CompletedSuccess), anyLong());
-        verify(buildStatus, times(1)).updateBuildStatusForJob(eq(BuildStage.State.CompletedSuccess), any());
+        verify(buildStatus, times(1))
+                .updateBuildStatusForJob(argThat(event -> event.getBuildState() == BuildStage.State.CompletedSuccess));
 
         verify(buildStatus, times(1)).updateBuildStatusForStage(any(), any(), anyLong());
-        verify(buildStatus, times(1)).updateBuildStatusForJob(any(), any());
+        verify(buildStatus, times(1)).updateBuildStatusForJob(any(BuildCompleted.class));
     }
     /**
      * Verifies stage status can be reported correctly when set to FAILED in catchError
@@ -220,10 +224,11 @@ public class DeclarativePipelineTest {
                 .updateBuildStatusForStage(eq("Error stage"), eq(BuildStage.State.CompletedError), anyLong());
         verify(buildStatus, times(1))
                 .updateBuildStatusForStage(eq("After stage"), eq(BuildStage.State.CompletedSuccess), anyLong());
-        verify(buildStatus, times(1)).updateBuildStatusForJob(eq(BuildStage.State.CompletedSuccess), any());
+        verify(buildStatus, times(1))
+                .updateBuildStatusForJob(argThat(event -> event.getBuildState() == BuildStage.State.CompletedSuccess));
 
         verify(buildStatus, times(3)).updateBuildStatusForStage(any(), any(), anyLong());
-        verify(buildStatus, times(1)).updateBuildStatusForJob(any(), any());
+        verify(buildStatus, times(1)).updateBuildStatusForJob(any(BuildCompleted.class));
     }
 
     /**
@@ -256,10 +261,11 @@ public class DeclarativePipelineTest {
 
         verify(buildStatus, times(1))
                 .updateBuildStatusForStage(eq("Error stage"), eq(BuildStage.State.Aborted), anyLong());
-        verify(buildStatus, times(1)).updateBuildStatusForJob(eq(BuildStage.State.CompletedSuccess), any());
+        verify(buildStatus, times(1))
+                .updateBuildStatusForJob(argThat(event -> event.getBuildState() == BuildStage.State.CompletedSuccess));
 
         verify(buildStatus, times(1)).updateBuildStatusForStage(any(), any(), anyLong());
-        verify(buildStatus, times(1)).updateBuildStatusForJob(any(), any());
+        verify(buildStatus, times(1)).updateBuildStatusForJob(any(BuildCompleted.class));
     }
 
     /**
@@ -299,9 +305,10 @@ public class DeclarativePipelineTest {
 
         verify(buildStatus, times(1))
                 .updateBuildStatusForStage(eq("Error stage"), eq(BuildStage.State.Aborted), anyLong());
-        verify(buildStatus, times(1)).updateBuildStatusForJob(eq(BuildStage.State.Aborted), any());
+        verify(buildStatus, times(1))
+                .updateBuildStatusForJob(argThat(event -> event.getBuildState() == BuildStage.State.Aborted));
 
         verify(buildStatus, times(1)).updateBuildStatusForStage(any(), any(), anyLong());
-        verify(buildStatus, times(1)).updateBuildStatusForJob(any(), any());
+        verify(buildStatus, times(1)).updateBuildStatusForJob(any(BuildCompleted.class));
     }
 }
@@ -18,6 +18,7 @@ import java.util.logging.LogRecord;
 import java.util.logging.Logger;
 import jenkins.model.Jenkins;
 import org.jenkinsci.plugins.githubautostatus.BuildStatusAction;
+import org.jenkinsci.plugins.githubautostatus.model.BuildCompleted;
 import org.jenkinsci.plugins.githubautostatus.model.BuildStage;
 import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
 import org.jenkinsci.plugins.workflow.job.WorkflowJob;
@@ -77,10 +78,11 @@ public class ScriptedPipelineTest {
                 .updateBuildStatusForStage(eq("Stage 1"), eq(BuildStage.State.CompletedSuccess), anyLong());
         verify(buildStatus, times(1))
                 .updateBuildStatusForStage(eq("Stage 2"), eq(BuildStage.State.CompletedSuccess), anyLong());
-        verify(buildStatus, times(1)).updateBuildStatusForJob(eq(BuildStage.State.CompletedSuccess), any());
+        verify(buildStatus, times(1))
+                .updateBuildStatusForJob(argThat(event -> event.getBuildState() == BuildStage.State.CompletedSuccess));
 
         verify(buildStatus, times(2)).updateBuildStatusForStage(any(), any(), anyLong());
-        verify(buildStatus, times(1)).updateBuildStatusForJob(any(), any());
+        verify(buildStatus, times(1)).updateBuildStatusForJob(any(BuildCompleted.class));
     }
 
     /**
@@ -115,10 +117,11 @@ public class ScriptedPipelineTest {
         verify(buildStatus, times(1))
                 .updateBuildStatusForStage(eq("Stage fail"), eq(BuildStage.State.CompletedError), anyLong());
         verify(buildStatus, times(0)).updateBuildStatusForStage(eq("Stage 2"), any(), anyLong());
-        verify(buildStatus, times(1)).updateBuildStatusForJob(eq(BuildStage.State.CompletedError), any());
+        verify(buildStatus, times(1))
+                .updateBuildStatusForJob(argThat(event -> event.getBuildState() == BuildStage.State.CompletedError));
 
         verify(buildStatus, times(2)).updateBuildStatusForStage(any(), any(), anyLong());
-        verify(buildStatus, times(1)).updateBuildStatusForJob(any(), any());
+        verify(buildStatus, times(1)).updateBuildStatusForJob(any(BuildCompleted.class));
     }
 
     /**
@@ -150,10 +153,11 @@ public class ScriptedPipelineTest {
                 .updateBuildStatusForStage(eq("Stage 1"), eq(BuildStage.State.CompletedSuccess), anyLong());
         verify(buildStatus, atLeast(1)).sendNonStageError("script returned exit code 2");
         verify(buildStatus, times(0)).updateBuildStatusForStage(eq("Stage 2"), any(), anyLong());
-        verify(buildStatus, times(1)).updateBuildStatusForJob(eq(BuildStage.State.CompletedError), any());
+        verify(buildStatus, times(1))
+                .updateBuildStatusForJob(argThat(event -> event.getBuildState() == BuildStage.State.CompletedError));
 
         verify(buildStatus, times(1)).updateBuildStatusForStage(any(), any(), anyLong());
-        verify(buildStatus, times(1)).updateBuildStatusForJob(any(), any());
+        verify(buildStatus, times(1)).updateBuildStatusForJob(any(BuildCompleted.class));
     }
 
     /**
@@ -182,7 +186,7 @@ public class ScriptedPipelineTest {
         verify(buildStatus, times(1))
                 .updateBuildStatusForStage(eq("The stage"), eq(BuildStage.State.CompletedSuccess), anyLong());
         verify(buildStatus, times(1)).updateBuildStatusForStage(any(), any(), anyLong());
-        verify(buildStatus, times(1)).updateBuildStatusForJob(any(), any());
+        verify(buildStatus, times(1)).updateBuildStatusForJob(any(BuildCompleted.class));
     }
 
     /**
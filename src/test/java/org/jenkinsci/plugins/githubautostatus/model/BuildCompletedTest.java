@@ -0,0 +1,95 @@
+package org.jenkinsci.plugins.githubautostatus.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jenkinsci.plugins.githubautostatus.notifiers.BuildNotifierConstants;
+import org.junit.jupiter.api.Test;
+
+public class BuildCompletedTest {
+
+    @Test
+    public void testDataGatheredWhenRead() {
+        AtomicInteger lookups = new AtomicInteger();
+        BuildCompleted event = new BuildCompleted(BuildStage.State.CompletedSuccess, null, "job", "repo", "branch");
+        event.setBuildParameters(() -> {
+            lookups.incrementAndGet();
+            return Collections.singletonMap("PARAM", "value");
+        });
+
+        assertEquals(0, lookups.get());
+        assertEquals("value", event.getBuildParameters().get("PARAM"));
+        assertEquals("value", event.getBuildParameters().get("PARAM"));
+        assertEquals(1, lookups.get());
+    }
+
+    @Test
+    public void testUnwantedDataNotGathered() {
+        BuildCompleted event = new BuildCompleted(BuildStage.State.CompletedSuccess, null, "job", "repo", "branch");
+        event.setBuildParameters(() -> Collections.singletonMap("PARAM", "value"));
+        event.setTestResults(() -> {
+            throw new AssertionError("test results should not be loaded");
+        });
+        event.setCoverage(() -> {
+            throw new AssertionError("coverage should not be loaded");
+        });
+
+        Map<String, Object> parameters = event.toParameters(EnumSet.of(BuildCompleted.Data.BUILD_PARAMETERS));
+        assertEquals("value", parameters.get("PARAM"));
+        assertFalse(parameters.containsKey(BuildNotifierConstants.TEST_CASE_INFO));
+        assertFalse(parameters.containsKey(BuildNotifierConstants.COVERAGE_INFO));
+    }
+
+    @Test
+    public void testTestResultsGatheredOncePerDetail() {
+        AtomicInteger lookups = new AtomicInteger();
+        BuildCompleted event = new BuildCompleted(BuildStage.State.CompletedSuccess, null, "job", "repo", "branch");
+        event.setTestResults(detail -> {
+            lookups.incrementAndGet();
+            TestResults testResults = new TestResults();
+            testResults.setPassedTestCaseCount(detail.ordinal());
+            return testResults;
+        });
+
+        assertEquals(0, event.getTestResults(TestResults.Detail.SUMMARY).getPassedTestCaseCount());
+        assertEquals(0, event.getTestResults(TestResults.Detail.SUMMARY).getPassedTestCaseCount());
+        assertEquals(2, event.getTestResults().getPassedTestCaseCount());
+        assertEquals(2, event.getTestResults(null).getPassedTestCaseCount());
+        assertEquals(2, lookups.get());
+    }
+
+    @Test
+    public void testRunningDuration() {
+        BuildCompleted event = new BuildCompleted(BuildStage.State.CompletedSuccess, null, "job", "repo", "branch");
+        event.setJobDuration(100);
+        event.setBlockedDuration(12);
+        event.setPausedDuration(8);
+
+        assertEquals(80, event.getRunningDuration());
+    }
+
+    @Test
+    public void testParametersRoundTrip() {
+        BuildCompleted event = new BuildCompleted(BuildStage.State.CompletedError, null, "job", "repo", "branch");
+        event.setJobDuration(100);
+        event.setBlockedDuration(12);
+        event.setBuildParameters(() -> Collections.singletonMap("PARAM", "value"));
+
+        Map<String, Object> parameters = event.toParameters();
+        assertEquals("value", parameters.get("PARAM"));
+        assertEquals(100L, parameters.get(BuildNotifierConstants.JOB_DURATION));
+        assertEquals("job", parameters.get(BuildNotifierConstants.JOB_NAME));
+        assertFalse(parameters.containsKey(BuildNotifierConstants.AGENT_WAITS));
+
+        BuildCompleted copy = BuildCompleted.fromParameters(BuildStage.State.CompletedError, parameters);
+        assertEquals(BuildStage.State.CompletedError, copy.getBuildState());
+        assertEquals("job", copy.getJobName());
+        assertEquals("branch", copy.getBranchName());
+        assertEquals(12, copy.getBlockedDuration());
+        assertEquals(88, copy.getRunningDuration());
+        assertNull(copy.getTestResults());
+    }
+}
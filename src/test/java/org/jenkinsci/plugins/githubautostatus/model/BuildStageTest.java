@@ -4,6 +4,7 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.jenkinsci.plugins.githubautostatus.notifiers.BuildNotifierConstants;
 import org.junit.jupiter.api.Test;
 
@@ -91,6 +92,31 @@ public class BuildStageTest {
         assertEquals(instance.getDuration(), 1234L);
     }
 
+    @Test
+    public void testSharedEnvironment() {
+        AtomicInteger lookups = new AtomicInteger();
+        SharedEnvironment shared = new SharedEnvironment(() -> {
+            lookups.incrementAndGet();
+            Map<String, Object> values = new HashMap<>();
+            values.put("key", "shared");
+            values.put("other", "shared");
+            return values;
+        });
+        BuildStage first = new BuildStage("stage-1");
+        first.setSharedEnvironment(shared);
+        first.addToEnvironment("key", "own");
+        BuildStage second = new BuildStage("stage-2");
+        second.setSharedEnvironment(shared);
+        assertEquals(0, lookups.get());
+
+        assertEquals("own", first.getEnvironmentValue("key"));
+        assertEquals("shared", first.getEnvironmentValue("other"));
+        assertEquals("shared", second.getEnvironment().get("key"));
+        assertEquals("own", first.getEnvironment().get("key"));
+        assertEquals(1, lookups.get());
+        assertTrue(shared.isMaterialized());
+    }
+
     @Test
     public void testSetStatePending() {
         BuildStage instance = new BuildStage("stage-2");
@@ -138,4 +164,21 @@ public class BuildStageTest {
         assertEquals(instance.getBuildState(), BuildStage.State.CompletedError);
         assertFalse(instance.isPassed());
     }
+
+    @Test
+    public void testCompareAndSetBuildState() {
+        BuildStage instance = new BuildStage("stage-2");
+        assertTrue(instance.compareAndSetBuildState(BuildStage.State.Pending, BuildStage.State.CompletedError));
+        assertFalse(instance.compareAndSetBuildState(BuildStage.State.Pending, BuildStage.State.CompletedSuccess));
+        assertEquals(BuildStage.State.CompletedError, instance.getBuildState());
+        assertFalse(instance.isPassed());
+    }
+
+    @Test
+    public void testStartIfUnknown() {
+        BuildStage instance = new BuildStage("stage-2");
+        assertTrue(instance.startIfUnknown(1000));
+        assertFalse(instance.startIfUnknown(2000));
+        assertEquals(1000, instance.getStartTime());
+    }
 }
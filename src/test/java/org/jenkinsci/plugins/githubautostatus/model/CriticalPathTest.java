@@ -0,0 +1,80 @@
+package org.jenkinsci.plugins.githubautostatus.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.jenkinsci.plugins.githubautostatus.notifiers.BuildNotifierConstants;
+import org.junit.jupiter.api.Test;
+
+public class CriticalPathTest {
+
+    @Test
+    public void testSequentialStages() {
+        CriticalPath path = CriticalPath.compute(
+                Arrays.asList(stage("Build", "3", null, 100, 50), stage("Test", "9", null, 150, 70)));
+
+        assertEquals(List.of("Build", "Test"), path.getStages());
+        assertEquals(120, path.getDuration());
+        assertTrue(path.getParallelBlocks().isEmpty());
+    }
+
+    @Test
+    public void testParallelBranches() {
+        CriticalPath path = CriticalPath.compute(Arrays.asList(
+                stage("Build", "3", null, 100, 50),
+                stage("Tests", "9", null, 150, 100),
+                stage("Unit", "12", "9", 155, 30),
+                stage("Integration", "13", "9", 156, 90),
+                stage("Lint", "14", "9", 157, 10),
+                stage("Deploy", "40", null, 250, 20)));
+
+        assertEquals(List.of("Build", "Tests", "Integration", "Deploy"), path.getStages());
+        assertEquals(170, path.getDuration());
+
+        assertEquals(1, path.getParallelBlocks().size());
+        CriticalPath.ParallelBlock block = path.getParallelBlocks().get(0);
+        assertEquals("Tests", block.getStageName());
+        assertEquals(3, block.getBranchCount());
+        assertEquals("Integration", block.getSlowestBranch());
+        assertEquals("Lint", block.getFastestBranch());
+        assertEquals(80, block.getSkew());
+    }
+
+    @Test
+    public void testTopLevelParallelStages() {
+        CriticalPath path = CriticalPath.compute(
+                Arrays.asList(stage("Linux", "3", null, 100, 40), stage("Windows", "4", null, 101, 60)));
+
+        assertEquals(List.of("Windows"), path.getStages());
+        assertEquals(60, path.getDuration());
+        assertEquals(1, path.getParallelBlocks().size());
+        assertNull(path.getParallelBlocks().get(0).getStageName());
+        assertEquals(20, path.getParallelBlocks().get(0).getSkew());
+    }
+
+    @Test
+    public void testIgnoresPendingAndUntimedStages() {
+        BuildStage pending = stage("Pending", "5", null, 100, 0);
+        pending.setBuildState(BuildStage.State.Pending);
+        BuildStage untimed = stage("Untimed", "6", null, 0, 10);
+        BuildStage error = new BuildStage("error", Collections.emptyMap(), BuildStage.State.CompletedError);
+        error.setIsStage(false);
+
+        CriticalPath path = CriticalPath.compute(Arrays.asList(pending, untimed, error));
+
+        assertTrue(path.getStages().isEmpty());
+        assertEquals(0, path.getDuration());
+    }
+
+    private static BuildStage stage(String name, String id, String parentId, long startTime, long duration) {
+        BuildStage stage = new BuildStage(name);
+        stage.setStageId(id);
+        stage.setParentId(parentId);
+        stage.setStartTime(startTime);
+        stage.addToEnvironment(BuildNotifierConstants.STAGE_DURATION, duration);
+        stage.setBuildState(BuildStage.State.CompletedSuccess);
+        return stage;
+    }
+}
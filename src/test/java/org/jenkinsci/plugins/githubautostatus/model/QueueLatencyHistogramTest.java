@@ -0,0 +1,50 @@
+package org.jenkinsci.plugins.githubautostatus.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+public class QueueLatencyHistogramTest {
+
+    @Test
+    public void testBuckets() {
+        assertEquals(0, QueueLatencyHistogram.bucketFor(0));
+        assertEquals(1, QueueLatencyHistogram.bucketFor(1));
+        assertEquals(2, QueueLatencyHistogram.bucketFor(3));
+        assertEquals(3, QueueLatencyHistogram.bucketFor(4));
+        assertEquals(QueueLatencyHistogram.BUCKET_COUNT - 1, QueueLatencyHistogram.bucketFor(Long.MAX_VALUE));
+        assertEquals(7, QueueLatencyHistogram.upperBound(3));
+    }
+
+    @Test
+    public void testSnapshot() {
+        QueueLatencyHistogram histogram = new QueueLatencyHistogram();
+        for (int i = 0; i < 98; i++) {
+            histogram.record(100);
+        }
+        histogram.record(5000);
+        histogram.record(-10);
+
+        QueueLatencyHistogram.Snapshot snapshot = histogram.drain();
+        assertEquals(100, snapshot.getCount());
+        assertEquals(98 * 100 + 5000, snapshot.getSum());
+        assertEquals(5000, snapshot.getMax());
+        assertEquals(127, snapshot.getPercentile(50));
+        assertEquals(127, snapshot.getPercentile(90));
+        assertEquals(5000, snapshot.getPercentile(100));
+        assertEquals(0, snapshot.getPercentile(0.5));
+    }
+
+    @Test
+    public void testDrainResets() {
+        QueueLatencyHistogram histogram = new QueueLatencyHistogram();
+        histogram.record(10);
+        histogram.drain();
+
+        QueueLatencyHistogram.Snapshot snapshot = histogram.drain();
+        assertEquals(0, snapshot.getCount());
+        assertEquals(0, snapshot.getSum());
+        assertEquals(0, snapshot.getMax());
+        assertEquals(0, snapshot.getPercentile(99));
+    }
+}
@@ -0,0 +1,62 @@
+package org.jenkinsci.plugins.githubautostatus.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import org.junit.jupiter.api.Test;
+
+public class TestOutcomesTest {
+
+    @Test
+    public void testGetOutcome() {
+        TestOutcomes outcomes = TestOutcomes.of(testResults(
+                testCase("passing", TestCase.TestCaseResult.Passed),
+                testCase("failing", TestCase.TestCaseResult.Failed),
+                testCase("skipped", TestCase.TestCaseResult.Skipped)));
+
+        assertEquals(2, outcomes.size());
+        assertEquals(TestCase.TestCaseResult.Passed, outcomes.getOutcome("suite", "passing"));
+        assertEquals(TestCase.TestCaseResult.Failed, outcomes.getOutcome("suite", "failing"));
+        assertEquals(TestCase.TestCaseResult.Skipped, outcomes.getOutcome("suite", "skipped"));
+        assertEquals(TestCase.TestCaseResult.Passed, outcomes.getOutcome("suite", "new"));
+        assertEquals(TestCase.TestCaseResult.Passed, outcomes.getOutcome("other", "failing"));
+    }
+
+    @Test
+    public void testIsFailedOrChanged() {
+        TestOutcomes previous = TestOutcomes.of(testResults(
+                testCase("stillPassing", TestCase.TestCaseResult.Passed),
+                testCase("stillFailing", TestCase.TestCaseResult.Failed),
+                testCase("fixed", TestCase.TestCaseResult.Failed),
+                testCase("broken", TestCase.TestCaseResult.Passed)));
+
+        assertFalse(previous.isFailedOrChanged("suite", testCase("stillPassing", TestCase.TestCaseResult.Passed)));
+        assertFalse(previous.isFailedOrChanged("suite", testCase("added", TestCase.TestCaseResult.Passed)));
+        assertTrue(previous.isFailedOrChanged("suite", testCase("stillFailing", TestCase.TestCaseResult.Failed)));
+        assertTrue(previous.isFailedOrChanged("suite", testCase("fixed", TestCase.TestCaseResult.Passed)));
+        assertTrue(previous.isFailedOrChanged("suite", testCase("broken", TestCase.TestCaseResult.Failed)));
+        assertTrue(previous.isFailedOrChanged("suite", testCase("stillPassing", TestCase.TestCaseResult.Skipped)));
+    }
+
+    static TestResults testResults(TestCase... testCases) {
+        TestSuite testSuite = new TestSuite();
+        testSuite.setName("suite");
+        for (TestCase testCase : testCases) {
+            testSuite.addTestCases(testCase);
+        }
+        ArrayList<TestSuite> testSuites = new ArrayList<>();
+        testSuites.add(testSuite);
+        TestResults testResults = new TestResults();
+        testResults.setTestSuites(testSuites);
+        return testResults;
+    }
+
+    static TestCase testCase(String name, TestCase.TestCaseResult result) {
+        TestCase testCase = new TestCase();
+        testCase.setName(name);
+        testCase.setPassed(result == TestCase.TestCaseResult.Passed);
+        testCase.setSkipped(result == TestCase.TestCaseResult.Skipped);
+        testCase.setFailed(result == TestCase.TestCaseResult.Failed);
+        return testCase;
+    }
+}
@@ -0,0 +1,85 @@
+package org.jenkinsci.plugins.githubautostatus.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import hudson.tasks.junit.CaseResult;
+import hudson.tasks.junit.SuiteResult;
+import hudson.tasks.junit.TestResult;
+import hudson.tasks.junit.TestResultAction;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+/**
+ * Compares converting a 100,000 case result one suite at a time with
+ * converting the suites in parallel. Only run with
+ * {@code -Dautostatus.benchmark=true}, since the timings depend on the machine.
+ */
+@EnabledIfSystemProperty(named = "autostatus.benchmark", matches = "true")
+public class TestResultsBenchmarkTest {
+
+    private static final int SUITES = 1000;
+    private static final int CASES_PER_SUITE = 100;
+    private static final int ROUNDS = 10;
+
+    @Test
+    public void benchmarkParallelConversion() {
+        TestResultAction testResultAction = createFixture();
+
+        // Warm up both paths before timing them
+        TestResults sequential = TestResults.fromJUnitTestResults(testResultAction, TestResults.Detail.CASE, 0);
+        TestResults parallel = TestResults.fromJUnitTestResults(testResultAction, TestResults.Detail.CASE, 1);
+        assertEquals(sequential, parallel);
+        assertEquals(SUITES * CASES_PER_SUITE, parallel.getPassedTestCaseCount() + parallel.getFailedTestCaseCount());
+
+        long sequentialNanos = time(testResultAction, 0);
+        long parallelNanos = time(testResultAction, 1);
+
+        System.out.printf(
+                "Converted %d cases: sequential %d ms, parallel %d ms (%.1fx) on %d processors%n",
+                SUITES * CASES_PER_SUITE,
+                TimeUnit.NANOSECONDS.toMillis(sequentialNanos / ROUNDS),
+                TimeUnit.NANOSECONDS.toMillis(parallelNanos / ROUNDS),
+                (double) sequentialNanos / parallelNanos,
+                Runtime.getRuntime().availableProcessors());
+    }
+
+    private static long time(TestResultAction testResultAction, int parallelSuiteThreshold) {
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            TestResults.fromJUnitTestResults(testResultAction, TestResults.Detail.CASE, parallelSuiteThreshold);
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Creates a result with {@link #SUITES} suites of {@link #CASES_PER_SUITE}
+     * cases each. The cases are shared between suites to keep the number of
+     * mocks down; the conversion does the same work for each of them.
+     */
+    private static TestResultAction createFixture() {
+        List<CaseResult> cases = new ArrayList<>();
+        for (int i = 0; i < CASES_PER_SUITE; i++) {
+            CaseResult caseResult = mock(CaseResult.class, withSettings().stubOnly());
+            when(caseResult.isPassed()).thenReturn(i % 10 != 0);
+            when(caseResult.isFailed()).thenReturn(i % 10 == 0);
+            when(caseResult.getFullName()).thenReturn("org.example.Suite.test" + i);
+            cases.add(caseResult);
+        }
+        List<SuiteResult> suites = new ArrayList<>();
+        for (int i = 0; i < SUITES; i++) {
+            SuiteResult suiteResult = mock(SuiteResult.class, withSettings().stubOnly());
+            when(suiteResult.getName()).thenReturn("org.example.Suite" + i);
+            when(suiteResult.getCases()).thenReturn(cases);
+            suites.add(suiteResult);
+        }
+        TestResult testResult = mock(TestResult.class, withSettings().stubOnly());
+        when(testResult.getSuites()).thenReturn(suites);
+        TestResultAction testResultAction = mock(TestResultAction.class, withSettings().stubOnly());
+        when(testResultAction.getResult()).thenReturn(testResult);
+        return testResultAction;
+    }
+}
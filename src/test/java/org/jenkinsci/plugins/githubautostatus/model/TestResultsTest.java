@@ -121,4 +121,77 @@ public class TestResultsTest {
         assertEquals(0, instance.getSkippedTestCaseCount());
         assertEquals(0, instance.getFailedTestCaseCount());
     }
+
+    @Test
+    public void testfromJUnitTestResultsSummary() {
+        TestResultAction testResultAction = mock(TestResultAction.class);
+        when(testResultAction.getTotalCount()).thenReturn(10);
+        when(testResultAction.getFailCount()).thenReturn(2);
+        when(testResultAction.getSkipCount()).thenReturn(1);
+
+        TestResults instance = TestResults.fromJUnitTestResults(testResultAction, TestResults.Detail.SUMMARY);
+
+        assertEquals(7, instance.getPassedTestCaseCount());
+        assertEquals(1, instance.getSkippedTestCaseCount());
+        assertEquals(2, instance.getFailedTestCaseCount());
+        assertTrue(instance.getTestSuites().isEmpty());
+        verify(testResultAction, never()).getResult();
+    }
+
+    @Test
+    public void testfromJUnitTestResultsSuite() {
+        TestResultAction testResultAction = mock(TestResultAction.class);
+        TestResult testResult = mock(TestResult.class);
+        SuiteResult suiteResult = mock(SuiteResult.class);
+        when(suiteResult.getName()).thenReturn("suite");
+
+        CaseResult passed = mock(CaseResult.class);
+        when(passed.isPassed()).thenReturn(true);
+        CaseResult failed = mock(CaseResult.class);
+        when(failed.isFailed()).thenReturn(true);
+        ArrayList<CaseResult> testCases = new ArrayList<>();
+        testCases.add(passed);
+        testCases.add(failed);
+        when(suiteResult.getCases()).thenReturn(testCases);
+
+        when(testResultAction.getResult()).thenReturn(testResult);
+        when(testResult.getSuites()).thenReturn(Collections.singletonList(suiteResult));
+
+        TestResults instance = TestResults.fromJUnitTestResults(testResultAction, TestResults.Detail.SUITE);
+
+        assertEquals(1, instance.getPassedTestCaseCount());
+        assertEquals(1, instance.getFailedTestCaseCount());
+        TestSuite testSuite = instance.getTestSuites().get(0);
+        assertEquals("suite", testSuite.getName());
+        assertEquals(1, testSuite.getPassedTestCaseCount());
+        assertEquals(1, testSuite.getFailedTestCaseCount());
+        assertTrue(testSuite.getTestCases().isEmpty());
+    }
+
+    @Test
+    public void testfromJUnitTestResultsParallel() {
+        TestResultAction testResultAction = mock(TestResultAction.class);
+        TestResult testResult = mock(TestResult.class);
+        ArrayList<SuiteResult> suiteResults = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            SuiteResult suiteResult = mock(SuiteResult.class);
+            when(suiteResult.getName()).thenReturn("suite" + i);
+            CaseResult caseResult = mock(CaseResult.class);
+            when(caseResult.isPassed()).thenReturn(i % 2 == 0);
+            when(caseResult.isFailed()).thenReturn(i % 2 != 0);
+            when(caseResult.getFullName()).thenReturn("case" + i);
+            when(suiteResult.getCases()).thenReturn(Collections.singletonList(caseResult));
+            suiteResults.add(suiteResult);
+        }
+        when(testResultAction.getResult()).thenReturn(testResult);
+        when(testResult.getSuites()).thenReturn(suiteResults);
+
+        TestResults sequential = TestResults.fromJUnitTestResults(testResultAction, TestResults.Detail.CASE, 0);
+        TestResults parallel = TestResults.fromJUnitTestResults(testResultAction, TestResults.Detail.CASE, 2);
+
+        assertEquals(sequential, parallel);
+        assertEquals(4, parallel.getPassedTestCaseCount());
+        assertEquals(4, parallel.getFailedTestCaseCount());
+        assertEquals("suite7", parallel.getTestSuites().get(7).getName());
+    }
 }
@@ -32,7 +32,9 @@ import org.jenkinsci.plugins.githubautostatus.StatsdNotifierConfig;
 import org.jenkinsci.plugins.githubautostatus.config.GithubNotificationConfig;
 import org.jenkinsci.plugins.githubautostatus.config.HttpNotifierConfig;
 import org.jenkinsci.plugins.githubautostatus.config.InfluxDbNotifierConfig;
+import org.jenkinsci.plugins.githubautostatus.model.BuildCompleted;
 import org.jenkinsci.plugins.githubautostatus.model.BuildStage;
+import org.jenkinsci.plugins.githubautostatus.model.StageCompleted;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -136,7 +138,9 @@ public class BuildNotifierManagerTest {
 
         instance.notifyBuildStageStatus(stageItem);
 
-        verify(notifier).notifyBuildStageStatus(mockJobName, stageItem);
+        verify(notifier).notifyStageCompleted(argThat(event -> event.getStage() == stageItem
+                && mockJobName.equals(event.getJobName())
+                && event.getBuildState() == BuildStage.State.CompletedSuccess));
     }
 
     /**
@@ -149,7 +153,29 @@ public class BuildNotifierManagerTest {
 
         instance.notifyFinalBuildStatus(BuildStage.State.CompletedSuccess, Collections.emptyMap());
 
-        verify(notifier).notifyFinalBuildStatus(BuildStage.State.CompletedSuccess, Collections.emptyMap());
+        verify(notifier)
+                .notifyBuildCompleted(argThat(event -> event.getBuildState() == BuildStage.State.CompletedSuccess));
+    }
+
+    /**
+     * Verifies notifiers which take batches are sent events through notifyBatch
+     */
+    @Test
+    public void testNotifyBatch() {
+        QueuedBuildNotifier notifier = mock(QueuedBuildNotifier.class);
+        instance.notifiers.add(notifier);
+
+        BuildStage stageItem = new BuildStage(stageName);
+        stageItem.setBuildState(BuildStage.State.CompletedSuccess);
+        instance.notifyBuildStageStatus(stageItem);
+        instance.notifyFinalBuildStatus(BuildStage.State.CompletedSuccess, Collections.emptyMap());
+
+        verify(notifier).notifyBatch(argThat(events -> events.size() == 1
+                && events.get(0) instanceof StageCompleted), eq(BatchBuildNotifier.Flush.WHEN_READY), any());
+        verify(notifier).notifyBatch(argThat(events -> events.size() == 1
+                && events.get(0) instanceof BuildCompleted), eq(BatchBuildNotifier.Flush.NOW), any());
+        verify(notifier, never()).notifyStageCompleted(any());
+        verify(notifier, never()).notifyBuildCompleted(any());
     }
 
     /**
@@ -166,7 +192,7 @@ public class BuildNotifierManagerTest {
 
         instance.sendNonStageError(stageItem);
 
-        verify(notifier).notifyBuildStageStatus(eq(mockJobName), any(BuildStage.class));
+        verify(notifier).notifyNonStageError(argThat(event -> mockJobName.equals(event.getJobName())));
     }
 
     /**
@@ -183,7 +209,7 @@ public class BuildNotifierManagerTest {
 
         instance.sendNonStageError(stageItem);
 
-        verify(notifier, never()).notifyBuildStageStatus(any(), any());
+        verify(notifier, never()).notifyNonStageError(any());
     }
 
     /**
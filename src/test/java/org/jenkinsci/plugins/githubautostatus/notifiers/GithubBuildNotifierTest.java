@@ -24,10 +24,14 @@
 package org.jenkinsci.plugins.githubautostatus.notifiers;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 import static org.mockito.Mockito.*;
 
 import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import org.jenkinsci.plugins.githubautostatus.config.GithubNotificationConfig;
 import org.jenkinsci.plugins.githubautostatus.model.BuildStage;
 import org.junit.jupiter.api.BeforeEach;
@@ -169,10 +173,17 @@ public class GithubBuildNotifierTest {
                 .createCommitStatus(any(), any(), any(), any(), any());
 
         GithubBuildNotifier notifier = new GithubBuildNotifier(repository, sha, targetUrl, config);
+        long retriesBefore = GithubCredentialRefresher.get().getUnauthorizedRetryCount();
+        GithubCredentialRefresher.get().drainStats();
 
         BuildStage stageItem = new BuildStage(stageName);
         notifier.notifyBuildStageStatus(jobName, stageItem);
 
+        // Verify the fallback path was counted
+        assertEquals(retriesBefore + 1, GithubCredentialRefresher.get().getUnauthorizedRetryCount());
+        // ...and is exported once
+        assertEquals(1, GithubCredentialRefresher.get().drainStats().getUnauthorizedRetries());
+        assertEquals(0, GithubCredentialRefresher.get().drainStats().getUnauthorizedRetries());
         // Verify credentials were refreshed
         verify(config).createRepository();
         // Verify retry was attempted on the fresh repo
@@ -197,4 +208,150 @@ public class GithubBuildNotifierTest {
         // Only one call attempt, no retry
         verify(repository, times(1)).createCommitStatus(any(), any(), any(), any(), any());
     }
+
+    /**
+     * Verifies the background refresher replaces the repository once the
+     * token is due to expire, so the next status goes to the fresh repo
+     * without any inline refresh.
+     */
+    @Test
+    public void testBackgroundRefresh() throws IOException {
+        GHRepository freshRepo = mock(GHRepository.class);
+        GithubNotificationConfig config = mock(GithubNotificationConfig.class);
+        when(config.createRepository()).thenReturn(freshRepo);
+
+        GithubBuildNotifier notifier = new GithubBuildNotifier(repository, sha, targetUrl, config);
+        try {
+            GithubCredentialRefresher.get().refreshDue(System.currentTimeMillis());
+            verify(config, never()).createRepository();
+
+            GithubCredentialRefresher.get()
+                    .refreshDue(System.currentTimeMillis() + GithubBuildNotifier.CREDENTIAL_REFRESH_MILLIS + 1);
+            verify(config).createRepository();
+
+            notifier.notifyBuildStageStatus(jobName, new BuildStage(stageName));
+            verify(freshRepo).createCommitStatus(sha, GHCommitState.PENDING, targetUrl, "Building stage", stageName);
+            verify(repository, never()).createCommitStatus(any(), any(), any(), any(), any());
+        } finally {
+            notifier.notifyFinalBuildStatus(BuildStage.State.CompletedSuccess, Collections.emptyMap());
+        }
+    }
+
+    /**
+     * Verifies notifiers stop being refreshed once their build completes.
+     */
+    @Test
+    public void testUnregisteredOnFinalStatus() {
+        GithubNotificationConfig config = mock(GithubNotificationConfig.class);
+        GithubBuildNotifier notifier = new GithubBuildNotifier(repository, sha, targetUrl, config);
+
+        notifier.notifyFinalBuildStatus(BuildStage.State.CompletedSuccess, Collections.emptyMap());
+        GithubCredentialRefresher.get()
+                .refreshDue(System.currentTimeMillis() + GithubBuildNotifier.CREDENTIAL_REFRESH_MILLIS + 1);
+
+        verify(config, never()).createRepository();
+    }
+
+    /**
+     * Verifies the refresh task stops once every notifier it tracked has been
+     * garbage collected without being unregistered.
+     */
+    @Test
+    public void testRefreshStopsWhenNotifiersCollected() throws InterruptedException {
+        GithubNotificationConfig config = mock(GithubNotificationConfig.class);
+        WeakReference<GithubBuildNotifier> notifier =
+                new WeakReference<>(new GithubBuildNotifier(repository, sha, targetUrl, config));
+        assertTrue(GithubCredentialRefresher.get().isScheduled());
+
+        for (int i = 0; i < 50 && notifier.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assumeTrue(notifier.get() == null, "notifier wasn't garbage collected");
+        GithubCredentialRefresher.get().refreshDue(System.currentTimeMillis());
+
+        assertFalse(GithubCredentialRefresher.get().isScheduled());
+    }
+
+    /**
+     * Verifies a transient failure is retried in the background rather than
+     * on the calling thread.
+     */
+    @Test
+    public void testRetryOnServerError() throws IOException {
+        doThrow(new HttpException("Bad Gateway", 502, "Bad Gateway", null))
+                .doNothing()
+                .when(repository)
+                .createCommitStatus(any(), any(), any(), any(), any());
+
+        List<Runnable> scheduled = new ArrayList<>();
+        GithubBuildNotifier notifier = new CapturingNotifier(scheduled);
+
+        notifier.notifyBuildStageStatus(jobName, new BuildStage(stageName));
+
+        verify(repository, times(1)).createCommitStatus(any(), any(), any(), any(), any());
+        assertEquals(1, scheduled.size());
+
+        scheduled.get(0).run();
+        verify(repository, times(2))
+                .createCommitStatus(sha, GHCommitState.PENDING, targetUrl, "Building stage", stageName);
+    }
+
+    /**
+     * Verifies a retried status doesn't overwrite a newer status for the same stage.
+     */
+    @Test
+    public void testSupersededRetryDropped() throws IOException {
+        doThrow(new HttpException("Service Unavailable", 503, "Service Unavailable", null))
+                .doNothing()
+                .when(repository)
+                .createCommitStatus(any(), any(), any(), any(), any());
+
+        List<Runnable> scheduled = new ArrayList<>();
+        GithubBuildNotifier notifier = new CapturingNotifier(scheduled);
+
+        BuildStage stageItem = new BuildStage(stageName);
+        notifier.notifyBuildStageStatus(jobName, stageItem);
+        stageItem.setBuildState(BuildStage.State.CompletedSuccess);
+        notifier.notifyBuildStageStatus(jobName, stageItem);
+
+        scheduled.get(0).run();
+
+        verify(repository, times(1))
+                .createCommitStatus(sha, GHCommitState.PENDING, targetUrl, "Building stage", stageName);
+        verify(repository, times(1))
+                .createCommitStatus(sha, GHCommitState.SUCCESS, targetUrl, "Stage built successfully", stageName);
+    }
+
+    /**
+     * Verifies client errors other than rate limits aren't retried.
+     */
+    @Test
+    public void testNoRetryOnClientError() throws IOException {
+        doThrow(new HttpException("Not Found", 404, "Not Found", null))
+                .when(repository)
+                .createCommitStatus(any(), any(), any(), any(), any());
+
+        List<Runnable> scheduled = new ArrayList<>();
+        GithubBuildNotifier notifier = new CapturingNotifier(scheduled);
+
+        notifier.notifyBuildStageStatus(jobName, new BuildStage(stageName));
+
+        assertTrue(scheduled.isEmpty());
+    }
+
+    private static class CapturingNotifier extends GithubBuildNotifier {
+        private final List<Runnable> scheduled;
+
+        CapturingNotifier(List<Runnable> scheduled) {
+            super(repository, sha, targetUrl);
+            this.scheduled = scheduled;
+        }
+
+        @Override
+        void schedule(Runnable task, long delayMillis) {
+            assertTrue(delayMillis >= 0 && delayMillis <= GithubRetryPolicy.MAX_DELAY_MILLIS);
+            scheduled.add(task);
+        }
+    }
 }
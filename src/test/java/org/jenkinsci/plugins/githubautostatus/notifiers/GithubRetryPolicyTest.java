@@ -0,0 +1,78 @@
+package org.jenkinsci.plugins.githubautostatus.notifiers;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.kohsuke.github.HttpException;
+
+public class GithubRetryPolicyTest {
+
+    @Test
+    public void testServerErrorsRetryable() {
+        GithubRetryPolicy policy = new GithubRetryPolicy();
+
+        assertTrue(policy.isRetryable(new HttpException("Internal Server Error", 500, "", null)));
+        assertTrue(policy.isRetryable(new HttpException("Service Unavailable", 503, "", null)));
+        assertTrue(policy.isRetryable(new HttpException("Too Many Requests", 429, "", null)));
+    }
+
+    @Test
+    public void testClientErrorsNotRetryable() {
+        GithubRetryPolicy policy = new GithubRetryPolicy();
+
+        assertFalse(policy.isRetryable(new HttpException("Not Found", 404, "", null)));
+        assertFalse(policy.isRetryable(new HttpException("Unprocessable Entity", 422, "", null)));
+        assertFalse(policy.isRetryable(new HttpException("Resource not accessible by integration", 403, "", null)));
+    }
+
+    @Test
+    public void testSecondaryRateLimitRetryable() {
+        GithubRetryPolicy policy = new GithubRetryPolicy();
+
+        assertTrue(policy.isRetryable(
+                new HttpException("You have exceeded a secondary rate limit. Please wait", 403, "", null)));
+        assertTrue(policy.isRetryable(mockException(403, Collections.singletonMap("Retry-After", List.of("30")))));
+    }
+
+    @Test
+    public void testRetryAfterHonoured() {
+        GithubRetryPolicy policy = new GithubRetryPolicy();
+        HttpException ex = mockException(429, Collections.singletonMap("retry-after", List.of("30")));
+
+        assertEquals(30000, GithubRetryPolicy.getRetryAfterMillis(ex));
+        assertEquals(30000, policy.nextDelay(0, 0, GithubRetryPolicy.getRetryAfterMillis(ex)));
+    }
+
+    @Test
+    public void testDelayCapped() {
+        GithubRetryPolicy policy = new GithubRetryPolicy();
+
+        for (int attempt = 0; attempt < 40; attempt++) {
+            long delay = policy.nextDelay(attempt, 0, 0);
+            assertTrue(delay >= 0);
+            long cap = GithubRetryPolicy.BASE_DELAY_MILLIS << Math.min(attempt, 16);
+            assertTrue(delay <= Math.min(GithubRetryPolicy.MAX_DELAY_MILLIS, cap));
+        }
+    }
+
+    @Test
+    public void testDeadline() {
+        GithubRetryPolicy policy = new GithubRetryPolicy(5000);
+
+        assertEquals(5000, policy.getDeadlineMillis());
+        assertEquals(-1, policy.nextDelay(0, 5001, 0));
+        assertEquals(-1, policy.nextDelay(0, 0, 10000));
+        assertEquals(GithubRetryPolicy.DEFAULT_DEADLINE_MILLIS, new GithubRetryPolicy(0).getDeadlineMillis());
+    }
+
+    private static HttpException mockException(int code, Map<String, List<String>> headers) {
+        HttpException ex = mock(HttpException.class);
+        when(ex.getResponseCode()).thenReturn(code);
+        when(ex.getResponseHeaderFields()).thenReturn(headers);
+        return ex;
+    }
+}
@@ -38,7 +38,10 @@ import hudson.model.Cause;
 import hudson.model.Descriptor.FormException;
 import hudson.model.Run;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Map;
 import org.apache.http.HttpEntity;
@@ -48,7 +51,13 @@ import org.apache.http.client.methods.HttpPost;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.util.EntityUtils;
 import org.jenkinsci.plugins.githubautostatus.config.InfluxDbNotifierConfig;
+import org.jenkinsci.plugins.githubautostatus.model.BuildCompleted;
+import org.jenkinsci.plugins.githubautostatus.model.BuildContext;
 import org.jenkinsci.plugins.githubautostatus.model.BuildStage;
+import org.jenkinsci.plugins.githubautostatus.model.TestCase;
+import org.jenkinsci.plugins.githubautostatus.model.TestOutcomes;
+import org.jenkinsci.plugins.githubautostatus.model.TestResults;
+import org.jenkinsci.plugins.githubautostatus.model.TestSuite;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.invocation.InvocationOnMock;
@@ -131,6 +140,21 @@ public class InfluxDbNotifierTest {
         assertFalse(instance.isEnabled());
     }
 
+    @Test
+    public void testWantedBuildData() {
+        InfluxDbNotifier instance = new InfluxDbNotifier(config);
+        assertEquals(
+                EnumSet.of(
+                        BuildCompleted.Data.TEST_RESULTS,
+                        BuildCompleted.Data.COVERAGE,
+                        BuildCompleted.Data.AGENT_WAITS),
+                instance.getWantedBuildData());
+
+        when(config.getIgnoreSendingTestResultsToInflux()).thenReturn(true);
+        when(config.getIgnoreSendingTestCoverageToInflux()).thenReturn(true);
+        assertEquals(EnumSet.of(BuildCompleted.Data.AGENT_WAITS), instance.getWantedBuildData());
+    }
+
     @Test
     public void testUrl() {
         InfluxDbNotifier instance = new InfluxDbNotifier(config);
@@ -257,6 +281,52 @@ public class InfluxDbNotifierTest {
                 statusLine);
     }
 
+    /**
+     * Verifies only the test cases which failed or changed since the previous build are written in delta mode.
+     */
+    @Test
+    public void testNotifyTestCaseDelta() {
+        when(config.getTestCaseDelta()).thenReturn(true);
+        InfluxDbNotifier instance = new InfluxDbNotifier(config);
+
+        TestResults previous = testResults(
+                testCase("stillPassing", false), testCase("stillFailing", true), testCase("fixed", true));
+        TestResults current = testResults(
+                testCase("stillPassing", false), testCase("stillFailing", true), testCase("fixed", false));
+        BuildCompleted event =
+                new BuildCompleted(BuildStage.State.CompletedError, mockRun, "mockjobname", "mockrepo", "mockbranch");
+        event.setTestResults(() -> current);
+        event.setPreviousTestOutcomes(() -> TestOutcomes.of(previous));
+
+        instance.notifyBuildCompleted(event);
+
+        assertTrue(event.isTestOutcomesWanted());
+        String[] suiteLines = statusLine.split("\\\\n");
+        assertEquals(3, suiteLines.length);
+        assertFalse(statusLine.contains("stillPassing"));
+        assertTrue(statusLine.contains("stillFailing"));
+        assertTrue(statusLine.contains("fixed"));
+    }
+
+    private static TestResults testResults(TestCase... testCases) {
+        TestSuite testSuite = new TestSuite();
+        testSuite.setName("suite");
+        for (TestCase testCase : testCases) {
+            testSuite.addTestCases(testCase);
+        }
+        TestResults testResults = new TestResults();
+        testResults.setTestSuites(new ArrayList<>(Collections.singletonList(testSuite)));
+        return testResults;
+    }
+
+    private static TestCase testCase(String name, boolean failed) {
+        TestCase testCase = new TestCase();
+        testCase.setName(name);
+        testCase.setPassed(!failed);
+        testCase.setFailed(failed);
+        return testCase;
+    }
+
     @Test
     public void testNotifyFinalBuildStateFailed() throws IOException {
 
@@ -307,4 +377,57 @@ public class InfluxDbNotifierTest {
                         + " A\"",
                 statusLine);
     }
+
+    /**
+     * Verifies a notifier created for a build reports the build's identity
+     * without looking it up again.
+     *
+     * @throws java.io.IOException
+     */
+    @Test
+    public void testBuildContext() throws IOException {
+        InfluxDbNotifier instance = new InfluxDbNotifier(config);
+        instance.setBuildContext(new BuildContext("mockjobname", "https://jenkins.com/7", 7, "timer"));
+
+        BuildStage stageItem = new BuildStage("mockstagename");
+        stageItem.addToEnvironment(BuildNotifierConstants.STAGE_DURATION, 2020L);
+        stageItem.setBuildState(BuildStage.State.CompletedSuccess);
+        stageItem.setRun(mockRun);
+
+        instance.notifyBuildStageStatus("mockjobname", stageItem);
+
+        assertEquals(
+                "stage,owner=mockowner,repo=mockrepo,stagename=mockstagename,result=CompletedSuccess jobname=\"mockjobname\",branch=\"mockbranch\",stagetime=2020,passed=1,buildurl=\"https://jenkins.com/7\",buildnumber=7,trigger=\"timer\"",
+                statusLine);
+        verify(mockRun, never()).getUrl();
+        verify(mockRun, never()).getCause(Cause.class);
+    }
+
+    @Test
+    public void testNotifyHistoricalBuild() throws IOException {
+        InfluxDbNotifier instance = new InfluxDbNotifier(config);
+        when(mockRun.getStartTimeInMillis()).thenReturn(1000L);
+        when(mockRun.getDuration()).thenReturn(9000L);
+
+        BuildCompleted event =
+                new BuildCompleted(BuildStage.State.CompletedSuccess, mockRun, "mockjobname", "mockrepo", "mockbranch");
+        event.setJobDuration(9000L);
+
+        BuildStage stageItem = new BuildStage("mockstagename");
+        stageItem.addToEnvironment(BuildNotifierConstants.STAGE_DURATION, 3000L);
+        stageItem.setStartTime(2000L);
+        stageItem.setPausedDuration(500L);
+        stageItem.setBuildState(BuildStage.State.CompletedSuccess);
+        stageItem.setRun(mockRun);
+
+        instance.notifyHistoricalBuild(event, Collections.singletonList(stageItem));
+
+        verify(mockHttpClient).execute(any());
+        String[] lines = statusLine.split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("stage,owner=mockowner,repo=mockrepo,stagename=mockstagename,"));
+        assertTrue(lines[0].endsWith(" 5500000000"));
+        assertTrue(lines[1].startsWith("job,owner=mockowner,repo=mockrepo,result=CompletedSuccess "));
+        assertTrue(lines[1].endsWith(" 10000000000"));
+    }
 }
@@ -0,0 +1,165 @@
+package org.jenkinsci.plugins.githubautostatus.notifiers;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jenkinsci.plugins.githubautostatus.model.BuildCompleted;
+import org.jenkinsci.plugins.githubautostatus.model.BuildEvent;
+import org.jenkinsci.plugins.githubautostatus.model.BuildStage;
+import org.jenkinsci.plugins.githubautostatus.model.StageCompleted;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class QueuedBuildNotifierTest {
+
+    private ScheduledExecutorService executor;
+
+    @BeforeEach
+    public void setUp() {
+        executor = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Verifies completed stages are held until the build completes, then sent in one batch
+     *
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testBuildCompletedFlushes() throws Exception {
+        TestNotifier instance = new TestNotifier(1);
+
+        instance.notifyBuildStageStatus("job", completedStage("Build"));
+        instance.notifyBuildStageStatus("job", completedStage("Test"));
+        assertTrue(instance.batches.isEmpty());
+
+        instance.notifyBuildCompleted(
+                new BuildCompleted(BuildStage.State.CompletedSuccess, null, "job", "repo", "branch"));
+
+        assertTrue(instance.sent.await(10, TimeUnit.SECONDS));
+        assertEquals(1, instance.batches.size());
+        List<BuildEvent> batch = instance.batches.get(0);
+        assertEquals(3, batch.size());
+        assertEquals("Build", ((StageCompleted) batch.get(0)).getStageName());
+        assertTrue(batch.get(2) instanceof BuildCompleted);
+    }
+
+    /**
+     * Verifies the callback is told which events could not be sent
+     *
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testDeliveryFailure() throws Exception {
+        TestNotifier instance = new TestNotifier(1);
+        instance.failure = new IOException("unreachable");
+        List<BuildEvent> failed = new CopyOnWriteArrayList<>();
+        CountDownLatch reported = new CountDownLatch(1);
+        BuildEvent event = new StageCompleted("job", completedStage("Build"));
+
+        instance.notifyBatch(
+                Arrays.asList(event), BatchBuildNotifier.Flush.NOW, new BatchBuildNotifier.DeliveryCallback() {
+                    @Override
+                    public void delivered(List<BuildEvent> events) {}
+
+                    @Override
+                    public void failed(List<BuildEvent> events, Throwable cause) {
+                        failed.addAll(events);
+                        reported.countDown();
+                    }
+                });
+
+        assertTrue(reported.await(10, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(event), failed);
+    }
+
+    /**
+     * Verifies only one batch is sent at a time, and events queued while a
+     * batch is being sent follow once it has been
+     *
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testOneDrainInFlight() throws Exception {
+        executor.shutdownNow();
+        executor = Executors.newScheduledThreadPool(4);
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        TestNotifier instance = new TestNotifier(2) {
+            @Override
+            protected void sendBatch(List<BuildEvent> events) throws Exception {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                sending.countDown();
+                release.await(10, TimeUnit.SECONDS);
+                inFlight.decrementAndGet();
+                super.sendBatch(events);
+            }
+        };
+
+        instance.notifyBuildCompleted(
+                new BuildCompleted(BuildStage.State.CompletedSuccess, null, "job", "repo", "branch"));
+        assertTrue(sending.await(10, TimeUnit.SECONDS));
+        for (int i = 0; i < 5; i++) {
+            instance.notifyBuildCompleted(
+                    new BuildCompleted(BuildStage.State.CompletedSuccess, null, "job", "repo", "branch"));
+        }
+        release.countDown();
+
+        assertTrue(instance.sent.await(10, TimeUnit.SECONDS));
+        assertEquals(1, maxInFlight.get());
+        assertEquals(1, instance.batches.get(0).size());
+        assertEquals(5, instance.batches.get(1).size());
+    }
+
+    private static BuildStage completedStage(String stageName) {
+        BuildStage stage = new BuildStage(stageName);
+        stage.setBuildState(BuildStage.State.CompletedSuccess);
+        return stage;
+    }
+
+    private class TestNotifier extends QueuedBuildNotifier {
+        private final List<List<BuildEvent>> batches = new CopyOnWriteArrayList<>();
+        private final CountDownLatch sent;
+        private Exception failure;
+
+        TestNotifier(int expectedBatches) {
+            super(QueuedBuildNotifier.DEFAULT_MAX_BATCH_SIZE, TimeUnit.HOURS.toMillis(1), 100);
+            this.sent = new CountDownLatch(expectedBatches);
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return true;
+        }
+
+        @Override
+        protected ScheduledExecutorService getExecutor() {
+            return executor;
+        }
+
+        @Override
+        protected void sendBatch(List<BuildEvent> events) throws Exception {
+            if (failure != null) {
+                throw failure;
+            }
+            batches.add(new ArrayList<>(events));
+            sent.countDown();
+        }
+    }
+}
@@ -27,10 +27,15 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import org.jenkinsci.plugins.githubautostatus.StatsdClient;
 import org.jenkinsci.plugins.githubautostatus.StatsdNotifierConfig;
 import org.jenkinsci.plugins.githubautostatus.model.BuildStage;
+import org.jenkinsci.plugins.githubautostatus.model.CriticalPath;
+import org.jenkinsci.plugins.githubautostatus.model.QueueLatency;
+import org.jenkinsci.plugins.githubautostatus.model.QueueLatencyHistogram;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -168,6 +173,90 @@ public class StatsdNotifierTest {
         verify(client).time("pipeline.main_folder.sub_folder.job_name.branch_name.job.duration", buildDuration);
     }
 
+    /*
+     * Test that paused time is excluded from the job duration and sent separately
+     */
+    @Test
+    public void testNotifyFinalBuildStatusPausedTime() throws Exception {
+        when(config.getExternalizedID()).thenReturn("Main Folder/Sub Folder/job name/branch name");
+        StatsdNotifier instance = new StatsdNotifier(client, config);
+
+        HashMap<String, Object> jobParams = new HashMap<String, Object>();
+        jobParams.put(BuildNotifierConstants.JOB_DURATION, 1000L);
+        jobParams.put(BuildNotifierConstants.BLOCKED_DURATION, 100L);
+        jobParams.put(BuildNotifierConstants.PAUSED_DURATION, 600L);
+        instance.notifyFinalBuildStatus(BuildStage.State.CompletedSuccess, jobParams);
+
+        verify(client).time("pipeline.main_folder.sub_folder.job_name.branch_name.job.duration", 300);
+        verify(client).time("pipeline.main_folder.sub_folder.job_name.branch_name.job.blocked_duration", 100);
+        verify(client).time("pipeline.main_folder.sub_folder.job_name.branch_name.job.paused_duration", 600);
+    }
+
+    /*
+     * Test that the critical path and parallel skew are sent at the end of a build
+     */
+    @Test
+    public void testNotifyFinalBuildStatusCriticalPath() throws Exception {
+        when(config.getExternalizedID()).thenReturn("Main Folder/Sub Folder/job name/branch name");
+        StatsdNotifier instance = new StatsdNotifier(client, config);
+
+        BuildStage fast = completedStage("Fast", "2", 1000, 10);
+        BuildStage slow = completedStage("Slow", "3", 1000, 30);
+
+        HashMap<String, Object> jobParams = new HashMap<String, Object>();
+        jobParams.put(BuildNotifierConstants.JOB_DURATION, 40L);
+        jobParams.put(BuildNotifierConstants.CRITICAL_PATH, CriticalPath.compute(Arrays.asList(fast, slow)));
+        instance.notifyFinalBuildStatus(BuildStage.State.CompletedSuccess, jobParams);
+
+        verify(client).time("pipeline.main_folder.sub_folder.job_name.branch_name.job.critical_path_duration", 30);
+        verify(client).time("pipeline.main_folder.sub_folder.job_name.branch_name.parallel.root.skew", 20);
+    }
+
+    private static BuildStage completedStage(String name, String id, long startTime, long duration) {
+        BuildStage stage = new BuildStage(name);
+        stage.setStageId(id);
+        stage.setStartTime(startTime);
+        stage.addToEnvironment(BuildNotifierConstants.STAGE_DURATION, duration);
+        stage.setBuildState(BuildStage.State.CompletedSuccess);
+        return stage;
+    }
+
+    /*
+     * Test that stage starts are counted and heartbeats send the elapsed time
+     */
+    @Test
+    public void testNotifyStageProgress() throws Exception {
+        when(config.getExternalizedID()).thenReturn("Main Folder/Sub Folder/job name/branch name");
+        StatsdNotifier instance = new StatsdNotifier(client, config);
+        assertTrue(instance.wantsStageProgress());
+
+        BuildStage stage = new BuildStage("Stage Name");
+        instance.notifyStageStarted("job name", stage);
+        instance.notifyStageHeartbeat("job name", stage, 60000);
+
+        verify(client).increment("pipeline.main_folder.sub_folder.job_name.branch_name.stage.stage_name.started", 1);
+        verify(client).time("pipeline.main_folder.sub_folder.job_name.branch_name.stage.stage_name.elapsed", 60000);
+    }
+
+    /*
+     * Test that queue wait histograms are sent per label and phase
+     */
+    @Test
+    public void testNotifyQueueLatency() throws Exception {
+        QueueLatencyHistogram histogram = new QueueLatencyHistogram();
+        histogram.record(100);
+        histogram.record(3000);
+        QueueLatency latency = new QueueLatency("Linux && Docker", QueueLatency.Phase.Buildable, histogram.drain());
+
+        notifier.notifyQueueLatency(Collections.singletonList(latency));
+
+        verify(client).increment("pipeline.queue.linux__docker.buildable.count", 2);
+        verify(client).time("pipeline.queue.linux__docker.buildable.p50", 127);
+        verify(client).time("pipeline.queue.linux__docker.buildable.p90", 3000);
+        verify(client).time("pipeline.queue.linux__docker.buildable.p99", 3000);
+        verify(client).time("pipeline.queue.linux__docker.buildable.max", 3000);
+    }
+
     /*
      * Test that non stage errors log correct stats
      */